@@ -0,0 +1,56 @@
+package dominio.rendimiento;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.Vendedor;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+
+/**
+ * Compara el calculo iterativo original de la fecha de fin de garantia con el calculo de tiempo constante de Vendedor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculoFechaFinGarantiaBenchmark {
+
+	@Param({ "1", "100", "200" })
+	public int diasGarantia;
+
+	private Vendedor vendedor;
+	private Date fechaInicial;
+
+	@Setup
+	public void preparar() {
+		vendedor = new Vendedor(mock(RepositorioProducto.class), mock(RepositorioGarantiaExtendida.class));
+		fechaInicial = new Date();
+	}
+
+	@Benchmark
+	public Date iterativo() {
+		return CalculoFechaFinGarantiaIterativo.calcularFechaFinGarantia(fechaInicial, diasGarantia);
+	}
+
+	@Benchmark
+	public Date constante() {
+		return vendedor.calcularFechaFinGarantia(fechaInicial, diasGarantia);
+	}
+}
@@ -0,0 +1,81 @@
+package dominio.rendimiento;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.NivelGarantia;
+import dominio.tarifa.TablaTarifas;
+import dominio.tarifa.TablaTarifasBuilder;
+
+/**
+ * Compara la regla fija de la garantia contra la busqueda en la tabla de tarifas compilada, con muchas
+ * categorias y tramos. Con -prof gc la busqueda en la tabla debe mostrar cero bytes asignados por operacion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MotorTarifasBenchmark {
+
+	private static final int CONSULTAS = 1024;
+
+	@Param({ "10", "1000" })
+	public int categorias;
+
+	@Param({ "20" })
+	public int tramosPorCategoria;
+
+	private TablaTarifas tabla;
+	private String[] codigos;
+	private double[] precios;
+	private int siguiente;
+
+	@Setup
+	public void preparar() {
+
+		Random aleatorio = new Random(7);
+		TablaTarifasBuilder builder = new TablaTarifasBuilder()
+				.conTramo(TablaTarifasBuilder.CATEGORIA_GENERAL, 0, 0.1, 100);
+		for (int categoria = 0; categoria < categorias; categoria++) {
+			for (int tramo = 0; tramo < tramosPorCategoria; tramo++) {
+				builder.conTramo("C" + categoria + "-", tramo * 100000, 0.05 + tramo * 0.01, 30 + tramo * 10);
+			}
+		}
+		tabla = builder.build();
+
+		codigos = new String[CONSULTAS];
+		precios = new double[CONSULTAS];
+		for (int i = 0; i < CONSULTAS; i++) {
+			codigos[i] = "C" + aleatorio.nextInt(categorias + categorias / 10 + 1) + "-P" + i;
+			precios[i] = aleatorio.nextDouble() * tramosPorCategoria * 100000;
+		}
+	}
+
+	@Benchmark
+	public double reglaFija() {
+		int i = siguiente++ & (CONSULTAS - 1);
+		NivelGarantia nivel = NivelGarantia.para(precios[i]);
+		return precios[i] * nivel.getPorcentaje() + nivel.getDias();
+	}
+
+	@Benchmark
+	public double tablaTarifas() {
+		int i = siguiente++ & (CONSULTAS - 1);
+		int tramo = tabla.buscarTramo(codigos[i], precios[i]);
+		return precios[i] * tabla.getPorcentaje(tramo) + tabla.getDias(tramo);
+	}
+}
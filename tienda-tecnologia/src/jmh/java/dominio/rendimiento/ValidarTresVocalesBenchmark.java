@@ -0,0 +1,65 @@
+package dominio.rendimiento;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.ClasificadorVocales;
+import dominio.Producto;
+
+/**
+ * Compara la validacion original de las tres vocales, con toLowerCase por caracter, contra la tabla de consulta
+ * y contra la lectura de la cantidad guardada en el producto.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidarTresVocalesBenchmark {
+
+	@Param({ "F01TSA0150", "S01H1ATEI", "COMPUTADOR-PORTATIL-LENOVO-IDEAPAD-330" })
+	public String codigo;
+
+	private Producto producto;
+
+	@Setup
+	public void preparar() {
+		producto = new Producto(codigo, "Producto", 100000);
+	}
+
+	@Benchmark
+	public boolean original() {
+
+		int contador = 0;
+		for (int x = 0; x < codigo.length(); x++) {
+			if ((codigo.toLowerCase().charAt(x) == 'a') || (codigo.toLowerCase().charAt(x) == 'e')
+					|| (codigo.toLowerCase().charAt(x) == 'i') || (codigo.toLowerCase().charAt(x) == 'o')
+					|| (codigo.toLowerCase().charAt(x) == 'u')) {
+				contador++;
+			}
+		}
+		return (contador == 3);
+	}
+
+	@Benchmark
+	public boolean tablaDeConsulta() {
+		return ClasificadorVocales.contarVocales(codigo) == 3;
+	}
+
+	@Benchmark
+	public boolean cantidadGuardada() {
+		return producto.tieneTresVocales();
+	}
+}
@@ -0,0 +1,170 @@
+package dominio.rendimiento;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.Producto;
+import dominio.Vendedor;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+
+/**
+ * Mide generarGarantia con cinco tipos de repositorio: mocks de Mockito, los repositorios en memoria, H2 por JPA,
+ * H2 con escritura diferida, donde la garantia se confirma al quedar en el diario local, y H2 para los productos
+ * con las garantias en la bitacora mapeada en memoria.
+ * Cada iteracion es un lote de garantias sobre codigos distintos, asi ninguna medicion choca con
+ * EL_PRODUCTO_TIENE_GARANTIA; los datos se vuelven a preparar antes de cada lote.
+ * El resultado es el tiempo de un lote completo de GARANTIAS_POR_LOTE garantias. Con metricas los repositorios
+ * se miden por JMX y el Vendedor registra la duracion de cada etapa, para ver el costo de dejarlas activas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = VendedorBenchmark.GARANTIAS_POR_LOTE)
+@Measurement(iterations = 5, batchSize = VendedorBenchmark.GARANTIAS_POR_LOTE)
+@Fork(1)
+public class VendedorBenchmark {
+
+	static final int GARANTIAS_POR_LOTE = 2000;
+
+	private static final String NOMBRE_CLIENTE = "Cliente";
+	private static final double PRECIO = 600000;
+
+	@Param({ "mock", "memoria", "h2", "h2-diferida", "h2-bitacora" })
+	public String repositorios;
+
+	@Param({ "false", "true" })
+	public boolean metricas;
+
+	private Vendedor vendedor;
+	private SistemaDePersistencia sistemaPersistencia;
+	private String[] codigos;
+	private int siguiente;
+	private int lote;
+
+	@Setup(Level.Iteration)
+	public void preparar() {
+
+		/**
+		 * Los codigos no tienen vocales para que ninguno sea rechazado por la regla de las tres vocales.
+		 */
+		codigos = new String[GARANTIAS_POR_LOTE];
+		for (int i = 0; i < GARANTIAS_POR_LOTE; i++) {
+			codigos[i] = "L" + lote + "P" + i;
+		}
+		lote++;
+		siguiente = 0;
+		sistemaPersistencia = null;
+
+		switch (repositorios) {
+		case "mock":
+			vendedor = crearVendedorMock();
+			break;
+		case "memoria":
+		case "h2":
+		case "h2-diferida":
+		case "h2-bitacora":
+			ConfiguracionPersistencia configuracion = crearConfiguracion();
+			sistemaPersistencia = new SistemaDePersistencia(metricas ? configuracion.conMetricas() : configuracion);
+			vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+					sistemaPersistencia.obtenerRepositorioGarantia())
+					.conMetricas(sistemaPersistencia.obtenerMetricasGarantia());
+			break;
+		default:
+			throw new IllegalArgumentException(repositorios);
+		}
+
+		if (!"mock".equals(repositorios)) {
+			ejecutar(() -> {
+				for (String codigo : codigos) {
+					vendedor.crearProducto(new Producto(codigo, "Producto", PRECIO));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Se cierra la fabrica para que el siguiente lote parta de una base de datos vacia.
+	 */
+	@TearDown(Level.Iteration)
+	public void terminar() {
+		if (sistemaPersistencia != null) {
+			sistemaPersistencia.cerrar();
+		}
+	}
+
+	@Benchmark
+	public void generarGarantia() {
+		String codigo = codigos[siguiente++];
+		ejecutar(() -> vendedor.generarGarantia(codigo, NOMBRE_CLIENTE));
+	}
+
+	private void ejecutar(Runnable operacion) {
+		if (sistemaPersistencia == null) {
+			operacion.run();
+		} else {
+			sistemaPersistencia.ejecutarEnTransaccion(() -> {
+				operacion.run();
+				return null;
+			});
+		}
+	}
+
+	private ConfiguracionPersistencia crearConfiguracion() {
+		switch (repositorios) {
+		case "memoria":
+			return new ConfiguracionPersistencia().conRepositoriosEnMemoria();
+		case "h2-diferida":
+			try {
+				Path diario = Files.createTempFile("garantias", ".diario");
+				diario.toFile().deleteOnExit();
+				return new ConfiguracionPersistencia().conEscrituraDiferida(diario.toString(), GARANTIAS_POR_LOTE,
+						500, 10, TimeUnit.MILLISECONDS);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		case "h2-bitacora":
+			try {
+				return new ConfiguracionPersistencia().conBitacoraGarantias(
+						Files.createTempDirectory("garantias").toString());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		default:
+			return new ConfiguracionPersistencia();
+		}
+	}
+
+	private static Vendedor crearVendedorMock() {
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class, withSettings().stubOnly());
+		RepositorioGarantiaExtendida repositorioGarantia = mock(RepositorioGarantiaExtendida.class, withSettings().stubOnly());
+		when(repositorioGarantia.obtenerEstadoGarantia(anyString()))
+				.thenReturn(EstadoGarantiaProducto.de(new Producto("PRDCT", "Producto", PRECIO), false));
+		return new Vendedor(repositorioProducto, repositorioGarantia);
+	}
+}
@@ -0,0 +1,118 @@
+package persistencia.rendimiento;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import dominio.Producto;
+import persistencia.reporte.IngresoMensual;
+import persistencia.reporte.almacen.AlmacenGarantias;
+import persistencia.reporte.almacen.FiltroGarantias;
+import persistencia.reporte.almacen.ResumenGarantias;
+
+/**
+ * Compara el resumen de garantias por nivel y rango de fechas recorriendo una lista de garantias, como quedaria al
+ * cargarlas con el repositorio, con el almacen por columnas en un hilo y repartido entre los hilos de un ejecutor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx3g" })
+public class AlmacenGarantiasBenchmark {
+
+	private static final LocalDate INICIO = LocalDate.of(2017, 1, 1);
+	private static final LocalDate DESDE = INICIO.plusDays(180);
+	private static final LocalDate HASTA = INICIO.plusDays(540);
+
+	@Param({ "2000000" })
+	public int garantias;
+
+	private List<GarantiaExtendida> lista;
+	private AlmacenGarantias secuencial;
+	private AlmacenGarantias paralelo;
+	private ExecutorService ejecutor;
+	private FiltroGarantias filtro;
+
+	@Setup
+	public void preparar() {
+		int hilos = Runtime.getRuntime().availableProcessors();
+		ejecutor = Executors.newFixedThreadPool(hilos);
+		lista = new ArrayList<>(garantias);
+		secuencial = new AlmacenGarantias(AlmacenGarantias.TAMANO_BLOQUE_POR_DEFECTO, ZoneOffset.UTC);
+		paralelo = new AlmacenGarantias(AlmacenGarantias.TAMANO_BLOQUE_POR_DEFECTO, ZoneOffset.UTC)
+				.conEjecutor(ejecutor, 2);
+		Random aleatorio = new Random(1);
+		for (int i = 0; i < garantias; i++) {
+			LocalDate solicitud = INICIO.plusDays(aleatorio.nextInt(730));
+			Date fechaSolicitud = Date.from(solicitud.atStartOfDay().toInstant(ZoneOffset.UTC));
+			Date fechaFin = Date.from(solicitud.plusDays(100).atStartOfDay().toInstant(ZoneOffset.UTC));
+			Producto producto = new Producto("P" + i, "Producto " + i, 1000 + aleatorio.nextInt(1000000));
+			GarantiaExtendida garantia = new GarantiaExtendida(producto, fechaSolicitud, fechaFin,
+					aleatorio.nextInt(100000), "Cliente" + aleatorio.nextInt(50000));
+			lista.add(garantia);
+			secuencial.agregar(garantia);
+			paralelo.agregar(garantia);
+		}
+		filtro = new FiltroGarantias().solicitadasEntre(DESDE, HASTA).conNivel(NivelGarantia.SUPERIOR);
+	}
+
+	@TearDown
+	public void terminar() {
+		ejecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public double lista() {
+		Date desde = Date.from(DESDE.atStartOfDay().toInstant(ZoneOffset.UTC));
+		Date hasta = Date.from(HASTA.atStartOfDay().toInstant(ZoneOffset.UTC));
+		double total = 0;
+		for (GarantiaExtendida garantia : lista) {
+			Date solicitud = garantia.getFechaSolicitudGarantia();
+			if (!solicitud.before(desde) && solicitud.before(hasta)
+					&& garantia.getNivel() == NivelGarantia.SUPERIOR) {
+				total += garantia.getPrecioGarantia();
+			}
+		}
+		return total;
+	}
+
+	@Benchmark
+	public double almacen() {
+		ResumenGarantias resumen = secuencial.resumir(filtro);
+		return resumen.getTotal();
+	}
+
+	@Benchmark
+	public double almacenParalelo() {
+		ResumenGarantias resumen = paralelo.resumir(filtro);
+		return resumen.getTotal();
+	}
+
+	@Benchmark
+	public List<IngresoMensual> ingresosPorMesParalelo() {
+		return paralelo.obtenerIngresosPorMes(new FiltroGarantias());
+	}
+}
@@ -0,0 +1,127 @@
+package persistencia.rendimiento;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.Producto;
+import persistencia.conexion.BaseDeDatosArchivo;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+
+/**
+ * Mide el arranque del perfil de produccion con un catalogo grande en archivo: migraciones, validacion del esquema,
+ * creacion de la fabrica y la primera busqueda. La recuperacion mide el mismo arranque despues de un cierre abrupto
+ * de la base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArranqueBaseDeDatosArchivoBenchmark {
+
+	private static final String CARGAR_CATALOGO = "INSERT INTO Producto (id, codigo, nombre, precio, cantidadVocales) "
+			+ "SELECT X, 'P' || X, 'Producto', 100000, 0 FROM SYSTEM_RANGE(1, ?)";
+
+	@Param({ "1000000" })
+	public int productos;
+
+	private File carpeta;
+	private String ruta;
+
+	@Setup(Level.Trial)
+	public void crearCatalogo() throws IOException, SQLException {
+
+		carpeta = Files.createTempDirectory("tienda").toFile();
+		ruta = carpeta.getAbsolutePath() + "/tienda";
+
+		BaseDeDatosArchivo baseDeDatos = new BaseDeDatosArchivo(ruta);
+		baseDeDatos.migrar();
+		try (Connection conexion = DriverManager.getConnection(baseDeDatos.getUrl());
+				PreparedStatement carga = conexion.prepareStatement(CARGAR_CATALOGO);
+				Statement sentencia = conexion.createStatement()) {
+			carga.setInt(1, productos);
+			carga.executeUpdate();
+			/**
+			 * El valor de la secuencia es el ultimo identificador del bloque de 50 que reserva ProductoEntity.
+			 */
+			sentencia.execute("ALTER SEQUENCE hibernate_sequence RESTART WITH " + (productos + 50));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void borrarCatalogo() {
+		for (File archivo : carpeta.listFiles()) {
+			archivo.delete();
+		}
+		carpeta.delete();
+	}
+
+	@Benchmark
+	public Producto arranque() {
+		return arrancarYBuscar();
+	}
+
+	@Benchmark
+	public Producto recuperacion(CierreAbrupto cierreAbrupto) {
+		return arrancarYBuscar();
+	}
+
+	private Producto arrancarYBuscar() {
+
+		SistemaDePersistencia sistemaPersistencia = new SistemaDePersistencia(
+				new ConfiguracionPersistencia().conBaseDeDatosArchivo(ruta));
+		try {
+			return sistemaPersistencia.ejecutarEnTransaccion(
+					() -> sistemaPersistencia.obtenerRepositorioProductos().obtenerPorCodigo("P" + productos));
+		} finally {
+			sistemaPersistencia.cerrar();
+		}
+	}
+
+	/**
+	 * Antes de cada medicion escribe productos nuevos y cierra la base de datos sin compactarla,
+	 * como una caida del proceso con transacciones recientes.
+	 */
+	@State(Scope.Benchmark)
+	public static class CierreAbrupto {
+
+		private static final int PRODUCTOS_RECIENTES = 10000;
+
+		private int siguienteId = Integer.MAX_VALUE / 2;
+
+		@Setup(Level.Invocation)
+		public void cerrarAbruptamente(ArranqueBaseDeDatosArchivoBenchmark benchmark) throws SQLException {
+
+			Connection conexion = DriverManager.getConnection(new BaseDeDatosArchivo(benchmark.ruta).getUrl());
+			Statement sentencia = conexion.createStatement();
+			sentencia.execute("INSERT INTO Producto (id, codigo, nombre, precio, cantidadVocales) "
+					+ "SELECT X, 'R' || X, 'Producto', 100000, 0 FROM SYSTEM_RANGE(" + siguienteId + ", "
+					+ (siguienteId + PRODUCTOS_RECIENTES - 1) + ")");
+			siguienteId += PRODUCTOS_RECIENTES;
+			sentencia.execute("SHUTDOWN IMMEDIATELY");
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package persistencia.rendimiento;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import persistencia.conexion.ConexionJPA;
+import persistencia.entitad.ProductoEntity;
+import persistencia.repositorio.RepositorioProductoPersistente;
+
+/**
+ * Mide la busqueda de un producto por codigo en H2 con catalogos de distinto tamano. El contexto de persistencia se
+ * limpia en cada busqueda para que todas lleguen a la base de datos; con el indice unico sobre el codigo el tiempo no
+ * debe crecer con el catalogo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusquedaProductoPorCodigoBenchmark {
+
+	private static final String CARGAR_CATALOGO = "INSERT INTO Producto (id, codigo, nombre, precio, cantidadVocales) "
+			+ "SELECT X, 'P' || X, 'Producto', 100000, 0 FROM SYSTEM_RANGE(1, ?)";
+
+	@Param({ "1000", "100000", "1000000" })
+	public int productos;
+
+	private ConexionJPA conexion;
+	private EntityManager entityManager;
+	private RepositorioProductoPersistente repositorioProducto;
+
+	@Setup
+	public void preparar() {
+		conexion = new ConexionJPA();
+		entityManager = conexion.createEntityManager();
+		repositorioProducto = new RepositorioProductoPersistente(entityManager);
+
+		entityManager.getTransaction().begin();
+		entityManager.createNativeQuery(CARGAR_CATALOGO).setParameter(1, productos).executeUpdate();
+		entityManager.getTransaction().commit();
+	}
+
+	@TearDown
+	public void terminar() {
+		entityManager.close();
+		conexion.cerrar();
+	}
+
+	@Benchmark
+	public ProductoEntity obtenerPorCodigo() {
+		entityManager.clear();
+		return repositorioProducto.obtenerProductoEntityPorCodigo("P" + (ThreadLocalRandom.current().nextInt(productos) + 1));
+	}
+}
@@ -0,0 +1,87 @@
+package persistencia.rendimiento;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.Producto;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.repositorio.directo.RepositorioProductoDirecto;
+import persistencia.repositorio.directo.VistaProducto;
+import persistencia.repositorio.memoria.RepositorioProductoMemoria;
+
+/**
+ * Compara la busqueda por codigo en el repositorio en memoria, que guarda los productos en el heap, con el
+ * repositorio fuera del heap. Con -prof gc se ve lo que cada busqueda asigna: el repositorio en memoria crea el
+ * producto, el fuera del heap una vista o nada si la vista se reutiliza. Los codigos buscados se crean antes para
+ * no medir la concatenacion, y son copias de los agregados, como los que llegan en cada solicitud; con las mismas
+ * instancias el mapa del repositorio en memoria compararia por referencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx2g", "-XX:MaxDirectMemorySize=2g" })
+public class CatalogoProductosBenchmark {
+
+	@Param({ "1000000" })
+	public int productos;
+
+	private String[] codigos;
+	private RepositorioProductoMemoria memoria;
+	private RepositorioProductoDirecto directo;
+	private VistaProducto vista;
+
+	@Setup
+	public void preparar() {
+		codigos = new String[productos];
+		memoria = new RepositorioProductoMemoria(productos);
+		directo = new RepositorioProductoDirecto(productos);
+		vista = new VistaProducto();
+		for (int i = 0; i < productos; i++) {
+			Producto producto = new Producto("P" + i, "Producto " + i, 100000 + i);
+			memoria.agregar(producto);
+			directo.agregar(producto);
+		}
+		for (int i = 0; i < productos; i++) {
+			codigos[i] = new String(("P" + i).toCharArray());
+		}
+		System.out.println("\nBytes por producto fuera del heap: " + directo.getBytesPorProducto());
+	}
+
+	@Benchmark
+	public double memoria() {
+		return precio(memoria);
+	}
+
+	@Benchmark
+	public double directo() {
+		return precio(directo);
+	}
+
+	@Benchmark
+	public double directoConVista() {
+		directo.obtenerVista(codigoAlAzar(), vista);
+		return vista.getPrecio();
+	}
+
+	private double precio(RepositorioProducto repositorio) {
+		return repositorio.obtenerPorCodigo(codigoAlAzar()).getPrecio();
+	}
+
+	private String codigoAlAzar() {
+		return codigos[ThreadLocalRandom.current().nextInt(productos)];
+	}
+}
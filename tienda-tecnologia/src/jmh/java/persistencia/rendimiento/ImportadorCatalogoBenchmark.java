@@ -0,0 +1,106 @@
+package persistencia.rendimiento;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import persistencia.importacion.FormatoCatalogo;
+import persistencia.importacion.ResultadoImportacion;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+
+/**
+ * Mide la importacion completa de un catalogo CSV que se genera a medida que se lee, en la base de datos en
+ * archivo para que los productos guardados no ocupen el heap. Con -prof gc se comprueba que la memoria usada no
+ * crece con la cantidad de productos; el heap se limita para que un crecimiento falle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class ImportadorCatalogoBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int productos;
+
+	@Param({ "1000" })
+	public int tamanoLote;
+
+	private File carpeta;
+	private SistemaDePersistencia sistemaPersistencia;
+
+	@Setup(Level.Iteration)
+	public void preparar() throws IOException {
+		carpeta = Files.createTempDirectory("tienda").toFile();
+		sistemaPersistencia = new SistemaDePersistencia(
+				new ConfiguracionPersistencia().conBaseDeDatosArchivo(carpeta.getAbsolutePath() + "/tienda"));
+	}
+
+	@TearDown(Level.Iteration)
+	public void cerrar() {
+		sistemaPersistencia.cerrar();
+		for (File archivo : carpeta.listFiles()) {
+			archivo.delete();
+		}
+		carpeta.delete();
+	}
+
+	@Benchmark
+	public ResultadoImportacion importar() throws IOException {
+		return sistemaPersistencia.crearImportadorCatalogo().conTamanoLote(tamanoLote)
+				.importar(new CatalogoGenerado(productos), FormatoCatalogo.CSV);
+	}
+
+	/**
+	 * Catalogo CSV sin encabezado que se genera a medida que se lee.
+	 */
+	private static final class CatalogoGenerado extends Reader {
+
+		private final int productos;
+		private int siguiente;
+		private String fila = "";
+		private int posicion;
+
+		CatalogoGenerado(int productos) {
+			this.productos = productos;
+		}
+
+		@Override
+		public int read(char[] destino, int desde, int cantidad) {
+			if (posicion == fila.length()) {
+				if (siguiente == productos) {
+					return -1;
+				}
+				fila = "P" + siguiente + ",Producto " + siguiente + "," + (siguiente % 1000000) + "\n";
+				siguiente++;
+				posicion = 0;
+			}
+			int copiados = Math.min(cantidad, fila.length() - posicion);
+			fila.getChars(posicion, posicion + copiados, destino, desde);
+			posicion += copiados;
+			return copiados;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package persistencia.rendimiento;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.Producto;
+import persistencia.builder.ProductoBuilder;
+import persistencia.entitad.ProductoEntity;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductoBuilderBenchmark {
+
+	private Producto producto;
+	private ProductoEntity productoEntity;
+
+	@Setup
+	public void preparar() {
+		producto = new Producto("F01TSA0150", "Computador Lenovo", 780000);
+		productoEntity = ProductoBuilder.convertirAEntity(producto);
+	}
+
+	@Benchmark
+	public Producto convertirADominio() {
+		return ProductoBuilder.convertirADominio(productoEntity);
+	}
+
+	@Benchmark
+	public ProductoEntity convertirAEntity() {
+		return ProductoBuilder.convertirAEntity(producto);
+	}
+}
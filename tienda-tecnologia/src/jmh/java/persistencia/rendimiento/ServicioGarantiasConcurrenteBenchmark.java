@@ -0,0 +1,85 @@
+package persistencia.rendimiento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dominio.Producto;
+import dominio.ResultadoGarantia;
+import dominio.SolicitudGarantia;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.ServicioGarantiasConcurrente;
+import persistencia.sistema.SistemaDePersistencia;
+
+/**
+ * Mide el tiempo por garantia del servicio concurrente al aumentar la cantidad de hilos.
+ * Cada iteracion parte de una base de datos nueva para que todas midan con el mismo volumen de datos, por eso
+ * la fabrica se cierra al terminar la iteracion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ServicioGarantiasConcurrenteBenchmark {
+
+	private static final int GARANTIAS_POR_ITERACION = 2000;
+
+	@Param({ "1", "2", "4", "8", "16" })
+	public int hilos;
+
+	private SistemaDePersistencia sistemaPersistencia;
+	private ServicioGarantiasConcurrente servicio;
+	private List<SolicitudGarantia> solicitudes;
+	private int iteracion;
+
+	@Setup(Level.Iteration)
+	public void preparar() {
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia().conModoConcurrente());
+		solicitudes = crearProductos("I" + (iteracion++) + "P");
+		servicio = new ServicioGarantiasConcurrente(sistemaPersistencia, Executors.newFixedThreadPool(hilos));
+	}
+
+	@TearDown(Level.Iteration)
+	public void terminar() {
+		servicio.close();
+		sistemaPersistencia.cerrar();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GARANTIAS_POR_ITERACION)
+	public List<ResultadoGarantia> generarGarantias() {
+		return servicio.generarGarantias(solicitudes);
+	}
+
+	private List<SolicitudGarantia> crearProductos(String prefijo) {
+
+		List<SolicitudGarantia> lista = new ArrayList<>(GARANTIAS_POR_ITERACION);
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			for (int i = 0; i < GARANTIAS_POR_ITERACION; i++) {
+				String codigo = prefijo + i;
+				sistemaPersistencia.obtenerRepositorioProductos().agregar(new Producto(codigo, "Producto " + i, 100000));
+				lista.add(new SolicitudGarantia(codigo, "Cliente"));
+			}
+			return null;
+		});
+		return lista;
+	}
+}
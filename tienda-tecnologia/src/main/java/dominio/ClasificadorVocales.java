@@ -0,0 +1,36 @@
+package dominio;
+
+/**
+ * Cuenta las vocales de un codigo con una tabla de consulta por caracter, sin crear objetos.
+ * Solo se consideran vocales a, e, i, o, u en mayuscula o minuscula, igual que la validacion original.
+ */
+public final class ClasificadorVocales {
+
+	private static final boolean[] VOCALES = new boolean[128];
+
+	static {
+		for (char vocal : "aeiouAEIOU".toCharArray()) {
+			VOCALES[vocal] = true;
+		}
+	}
+
+	private ClasificadorVocales() {}
+
+	/**
+	 * @return cantidad de vocales del codigo, 0 si el codigo es null
+	 */
+	public static int contarVocales(String codigo) {
+
+		if (codigo == null) {
+			return 0;
+		}
+		int contador = 0;
+		for (int i = 0; i < codigo.length(); i++) {
+			char caracter = codigo.charAt(i);
+			if (caracter < VOCALES.length && VOCALES[caracter]) {
+				contador++;
+			}
+		}
+		return contador;
+	}
+}
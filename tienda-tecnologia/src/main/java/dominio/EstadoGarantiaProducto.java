@@ -0,0 +1,39 @@
+package dominio;
+
+/**
+ * Producto consultado junto con la informacion de si ya tiene garantia, lo necesario para decidir si se puede
+ * emitir una garantia nueva.
+ */
+public class EstadoGarantiaProducto {
+
+	private static final EstadoGarantiaProducto NO_EXISTE = new EstadoGarantiaProducto(null, false);
+
+	private Producto producto;
+	private boolean tieneGarantia;
+
+	private EstadoGarantiaProducto(Producto producto, boolean tieneGarantia) {
+
+		this.producto = producto;
+		this.tieneGarantia = tieneGarantia;
+	}
+
+	public static EstadoGarantiaProducto de(Producto producto, boolean tieneGarantia) {
+		return producto != null ? new EstadoGarantiaProducto(producto, tieneGarantia) : NO_EXISTE;
+	}
+
+	public static EstadoGarantiaProducto noExiste() {
+		return NO_EXISTE;
+	}
+
+	/**
+	 * @return el producto, null si no existe
+	 */
+	public Producto getProducto() {
+		return producto;
+	}
+
+	public boolean isTieneGarantia() {
+		return tieneGarantia;
+	}
+
+}
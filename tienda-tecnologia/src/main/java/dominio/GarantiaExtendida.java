@@ -9,20 +9,35 @@ public class GarantiaExtendida {
     private Date fechaFinGarantia;
     private double precioGarantia;
     private String nombreCliente;
+    private NivelGarantia nivel;
 
     public GarantiaExtendida(Producto producto) {
         this.fechaSolicitudGarantia = new Date();
         this.producto = producto;
     }
 
+    /**
+     * Sin el tramo con que se emitio, el nivel es el de las tarifas por defecto para el precio del producto.
+     */
     public GarantiaExtendida(Producto producto, Date fechaSolicitudGarantia, Date fechaFinGarantia,
             double precioGarantia, String nombreCliente) {
 
+        this(producto, fechaSolicitudGarantia, fechaFinGarantia, precioGarantia, nombreCliente,
+                producto != null ? NivelGarantia.para(producto.getPrecio()) : null);
+    }
+
+    /**
+     * @param nivel nivel del tramo de tarifas con que se calculo la garantia
+     */
+    public GarantiaExtendida(Producto producto, Date fechaSolicitudGarantia, Date fechaFinGarantia,
+            double precioGarantia, String nombreCliente, NivelGarantia nivel) {
+
         this.producto = producto;
         this.fechaSolicitudGarantia = fechaSolicitudGarantia;
         this.fechaFinGarantia = fechaFinGarantia;
         this.precioGarantia = precioGarantia;
         this.nombreCliente = nombreCliente;
+        this.nivel = nivel;
     }
 
     public Producto getProducto() {
@@ -45,4 +60,8 @@ public class GarantiaExtendida {
         return nombreCliente;
     }
 
+    public NivelGarantia getNivel() {
+        return nivel;
+    }
+
 }
@@ -0,0 +1,40 @@
+package dominio;
+
+/**
+ * Nivel de la garantia extendida segun el precio del producto, define el valor y la duracion de la garantia
+ * en las tarifas por defecto de {@link dominio.tarifa.MotorTarifas}. Cada tramo de las tarifas tiene un nivel, la
+ * garantia guarda el del tramo con que se emitio y los reportes de ingresos agrupan por ese nivel.
+ */
+public enum NivelGarantia {
+
+	BASICA(0.1, 100),
+	SUPERIOR(0.2, 200);
+
+	/**
+	 * Hasta este precio del producto la garantia es basica, por encima es superior.
+	 */
+	public static final double PRECIO_LIMITE_BASICA = 500000;
+
+	private final double porcentaje;
+	private final int dias;
+
+	NivelGarantia(double porcentaje, int dias) {
+		this.porcentaje = porcentaje;
+		this.dias = dias;
+	}
+
+	public static NivelGarantia para(double precioProducto) {
+		return precioProducto > PRECIO_LIMITE_BASICA ? SUPERIOR : BASICA;
+	}
+
+	/**
+	 * @return parte del precio del producto que cuesta la garantia
+	 */
+	public double getPorcentaje() {
+		return porcentaje;
+	}
+
+	public int getDias() {
+		return dias;
+	}
+}
@@ -5,12 +5,22 @@ public class Producto {
 	private String codigo;
 	private String nombre;
 	private double precio;
+	private int cantidadVocales;
 
 	public Producto(String codigo, String nombre, double precio) {
 
+		this(codigo, nombre, precio, ClasificadorVocales.contarVocales(codigo));
+	}
+
+	/**
+	 * @param cantidadVocales cantidad de vocales del codigo ya calculada, por ejemplo la guardada con el producto
+	 */
+	public Producto(String codigo, String nombre, double precio, int cantidadVocales) {
+
 		this.codigo = codigo;
 		this.nombre = nombre;
 		this.precio = precio;
+		this.cantidadVocales = cantidadVocales;
 	}
 
 	public String getCodigo() {
@@ -25,4 +35,15 @@ public class Producto {
 		return precio;
 	}
 
+	public int getCantidadVocales() {
+		return cantidadVocales;
+	}
+
+	/**
+	 * @return true si el codigo tiene exactamente 3 vocales, en cuyo caso no se puede generar garantia
+	 */
+	public boolean tieneTresVocales() {
+		return getCantidadVocales() == 3;
+	}
+
 }
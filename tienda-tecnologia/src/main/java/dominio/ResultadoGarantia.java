@@ -0,0 +1,39 @@
+package dominio;
+
+public class ResultadoGarantia {
+
+	private String codigo;
+	private boolean emitida;
+	private String motivo;
+
+	private ResultadoGarantia(String codigo, boolean emitida, String motivo) {
+
+		this.codigo = codigo;
+		this.emitida = emitida;
+		this.motivo = motivo;
+	}
+
+	public static ResultadoGarantia emitida(String codigo) {
+		return new ResultadoGarantia(codigo, true, null);
+	}
+
+	public static ResultadoGarantia rechazada(String codigo, String motivo) {
+		return new ResultadoGarantia(codigo, false, motivo);
+	}
+
+	public String getCodigo() {
+		return codigo;
+	}
+
+	public boolean isEmitida() {
+		return emitida;
+	}
+
+	/**
+	 * @return el mensaje por el cual se rechazo la garantia, null si fue emitida
+	 */
+	public String getMotivo() {
+		return motivo;
+	}
+
+}
@@ -0,0 +1,36 @@
+package dominio;
+
+import java.util.Date;
+
+/**
+ * Fecha de fin de la garantia de un producto y el cliente al que se le avisa.
+ */
+public class VencimientoGarantia {
+
+	private final String codigo;
+	private final String nombreCliente;
+	private final Date fechaFinGarantia;
+
+	public VencimientoGarantia(String codigo, String nombreCliente, Date fechaFinGarantia) {
+		this.codigo = codigo;
+		this.nombreCliente = nombreCliente;
+		this.fechaFinGarantia = fechaFinGarantia;
+	}
+
+	public static VencimientoGarantia de(GarantiaExtendida garantia) {
+		return new VencimientoGarantia(garantia.getProducto().getCodigo(), garantia.getNombreCliente(),
+				garantia.getFechaFinGarantia());
+	}
+
+	public String getCodigo() {
+		return codigo;
+	}
+
+	public String getNombreCliente() {
+		return nombreCliente;
+	}
+
+	public Date getFechaFinGarantia() {
+		return fechaFinGarantia;
+	}
+}
@@ -1,12 +1,26 @@
 package dominio;
 
 import dominio.repositorio.RepositorioProducto;
+import dominio.calendario.CalendarioLaboral;
 import dominio.excepcion.GarantiaExtendidaException;
+import dominio.metrica.EtapaGarantia;
+import dominio.metrica.MetricasGarantia;
+import dominio.tarifa.MotorTarifas;
+import dominio.tarifa.TablaTarifas;
 import dominio.repositorio.RepositorioGarantiaExtendida;
 
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
 
 public class Vendedor {
 	
@@ -20,12 +34,44 @@ public class Vendedor {
  
     private RepositorioProducto repositorioProducto;
     private RepositorioGarantiaExtendida repositorioGarantia;
+    private CalendarioLaboral calendarioLaboral;
+    private MotorTarifas motorTarifas;
+    private MetricasGarantia metricas = MetricasGarantia.NINGUNA;
 
     public Vendedor(RepositorioProducto repositorioProducto, RepositorioGarantiaExtendida repositorioGarantia) {
         this.repositorioProducto = repositorioProducto;
         this.repositorioGarantia = repositorioGarantia;
+        this.motorTarifas = new MotorTarifas();
 
     }
+
+    /**
+     * @param calendarioLaboral maestro de festivos del pais, la fecha de fin de garantia se mueve al siguiente dia habil
+     */
+    public Vendedor(RepositorioProducto repositorioProducto, RepositorioGarantiaExtendida repositorioGarantia,
+    		CalendarioLaboral calendarioLaboral) {
+        this(repositorioProducto, repositorioGarantia);
+        this.calendarioLaboral = calendarioLaboral;
+    }
+
+    /**
+     * @param motorTarifas tarifas vigentes de la garantia por categoria y tramo de precio
+     */
+    public Vendedor(RepositorioProducto repositorioProducto, RepositorioGarantiaExtendida repositorioGarantia,
+    		CalendarioLaboral calendarioLaboral, MotorTarifas motorTarifas) {
+        this(repositorioProducto, repositorioGarantia, calendarioLaboral);
+        this.motorTarifas = motorTarifas;
+    }
+
+    /**
+     * @param metricas recibe la duracion de cada etapa de la generacion de garantias
+     * @return este vendedor
+     */
+    public Vendedor conMetricas(MetricasGarantia metricas) {
+        this.metricas = metricas;
+        return this;
+    }
+
     /**
      * Permite generar la garanta a un producto.
      * @version 1.1 se agrega el parametro del nombre del cliente
@@ -35,10 +81,24 @@ public class Vendedor {
      * 
      */
     public void generarGarantia(String codigo,String nombreCliente) {
+
+        long inicio = System.nanoTime();
+        try {
+        	emitirGarantia(codigo, nombreCliente);
+        } finally {
+        	metricas.registrar(EtapaGarantia.TOTAL, System.nanoTime() - inicio);
+        }
+    }
+
+    private void emitirGarantia(String codigo,String nombreCliente) {
     	
-        Producto producto = repositorioProducto.obtenerPorCodigo(codigo);
-        double valorGarantia, valorProducto;
-        int diasExtension;
+        /**
+         * El producto y si ya tiene garanta se consultan juntos.
+         */
+        long inicio = System.nanoTime();
+        EstadoGarantiaProducto estado = repositorioGarantia.obtenerEstadoGarantia(codigo);
+        inicio = medir(EtapaGarantia.CONSULTA_PRODUCTO, inicio);
+        Producto producto = estado.getProducto();
         
         /**
          * Si el nombre del cliente no se ha ingresado, no se puede generar la garanta.
@@ -57,41 +117,126 @@ public class Vendedor {
         /**
          * Si el producto ingresado ya posee garanta, no se puede generar otra.
          */
-    	if(tieneGarantia(codigo)) {
+    	if(estado.isTieneGarantia()) {
     		throw new GarantiaExtendidaException(EL_PRODUCTO_TIENE_GARANTIA);
     	}
     	
     	/**
     	 * Si el producto posee 3 vocales, no se puede generar garanta.
     	 */
-		if(repositorioProducto.validarTresVocales(codigo)) {
+		boolean tieneTresVocales = producto.tieneTresVocales();
+		medir(EtapaGarantia.VALIDACION_VOCALES, inicio);
+		if(tieneTresVocales) {
 			throw new GarantiaExtendidaException(EL_PRODUCTO_TIENE_TRES_VOCALES);
 		}
 		
+		GarantiaExtendida garantia = construirGarantia(producto, nombreCliente);
+		inicio = System.nanoTime();
+		repositorioGarantia.agregar(garantia);
+		medir(EtapaGarantia.PERSISTENCIA, inicio);
+    }
+
+    /**
+     * Registra la duracion de la etapa que empezo en inicio
+     * @return el momento en que termino la etapa, segun System.nanoTime()
+     */
+    private long medir(EtapaGarantia etapa, long inicio) {
+    	long fin = System.nanoTime();
+    	metricas.registrar(etapa, fin - inicio);
+    	return fin;
+    }
+
+    /**
+     * Permite generar la garantia a varios productos en lote. Los productos y las garantias existentes
+     * se consultan por conjuntos y las nuevas garantias se insertan por lotes, de modo que la cantidad
+     * de consultas depende de la cantidad de lotes y no de la cantidad de solicitudes.
+     * @param solicitudes codigo del producto y nombre del cliente de cada garantia
+     * @return el resultado de cada solicitud en el mismo orden, emitida o rechazada con su motivo
+     */
+    public List<ResultadoGarantia> generarGarantias(List<SolicitudGarantia> solicitudes) {
+
+    	Set<String> codigos = new HashSet<>();
+    	for (SolicitudGarantia solicitud : solicitudes) {
+    		if (solicitud.getCodigo() != null) {
+    			codigos.add(solicitud.getCodigo());
+    		}
+    	}
+
+    	Map<String, Producto> productos = repositorioProducto.obtenerPorCodigos(codigos);
+    	Set<String> codigosConGarantia = new HashSet<>(repositorioGarantia.obtenerCodigosConGarantia(productos.keySet()));
+
+    	List<ResultadoGarantia> resultados = new ArrayList<>(solicitudes.size());
+    	List<GarantiaExtendida> garantias = new ArrayList<>();
+
+    	for (SolicitudGarantia solicitud : solicitudes) {
+
+    		String codigo = solicitud.getCodigo();
+    		Producto producto = productos.get(codigo);
+    		String motivo = validarSolicitud(solicitud, producto, codigosConGarantia);
+
+    		if (motivo != null) {
+    			resultados.add(ResultadoGarantia.rechazada(codigo, motivo));
+    		} else {
+    			garantias.add(construirGarantia(producto, solicitud.getNombreCliente()));
+    			/**
+    			 * Un mismo producto repetido dentro del lote solo puede recibir una garantia.
+    			 */
+    			codigosConGarantia.add(codigo);
+    			resultados.add(ResultadoGarantia.emitida(codigo));
+    		}
+    	}
+
+    	repositorioGarantia.agregarTodas(garantias);
+    	return resultados;
+    }
+
+    private String validarSolicitud(SolicitudGarantia solicitud, Producto producto, Set<String> codigosConGarantia) {
+
+    	if (solicitud.getNombreCliente() == null || solicitud.getNombreCliente().isEmpty()) {
+    		return NOMBRE_CLIENTE_NO_INGRESADO;
+    	}
+    	if (producto == null) {
+    		return EL_PRODUCTO_NO_EXISTE;
+    	}
+    	if (codigosConGarantia.contains(solicitud.getCodigo())) {
+    		return EL_PRODUCTO_TIENE_GARANTIA;
+    	}
+    	if (producto.tieneTresVocales()) {
+    		return EL_PRODUCTO_TIENE_TRES_VOCALES;
+    	}
+    	return null;
+    }
+
+    private GarantiaExtendida construirGarantia(Producto producto, String nombreCliente) {
+
+		double valorGarantia, valorProducto;
+		int diasExtension;
+		
 		valorProducto = producto.getPrecio() ;
 		
 		/**
-		 * si el costo del producto es mayor a 500000, el valor de la garantia sera del 20% y los dias sern 200.
-		 * De lo contrario el valor de la garanta ser del 10% y los dias sern 100.
+		 * El valor y los dias de la garantia salen del tramo de precio de la categoria del producto.
+		 * Con las tarifas por defecto, si el costo del producto es mayor a 500000 el valor de la garantia sera
+		 * del 20% y los dias sern 200; de lo contrario el valor de la garanta ser del 10% y los dias sern 100.
 		 */
-		if(valorProducto > 500000) {
-			valorGarantia = valorProducto*0.2;
-			diasExtension=200;
-		}else {
-			valorGarantia = valorProducto*0.1;
-			diasExtension =100;
-		}
+		long inicio = System.nanoTime();
+		TablaTarifas tarifas = motorTarifas.obtenerTabla();
+		int tramo = tarifas.buscarTramo(producto.getCodigo(), valorProducto);
+		valorGarantia = valorProducto*tarifas.getPorcentaje(tramo);
+		diasExtension = tarifas.getDias(tramo);
+		NivelGarantia nivel = tarifas.getNivel(tramo);
+		inicio = medir(EtapaGarantia.CALCULO_TARIFA, inicio);
         
 		/**
 		 * Se calcula la fecha en la cual finalizar la garanta.
 		 */
 		Date fechaFinGarantia = calcularFechaFinGarantia(new Date(), diasExtension);
+		medir(EtapaGarantia.CALCULO_FECHA, inicio);
 		
 		/**
 		 * Se genera la garanta con los valores correspondientes.
 		 */
-		GarantiaExtendida garantiaExt = new GarantiaExtendida(producto, new Date(), fechaFinGarantia, valorGarantia, nombreCliente);
-		repositorioGarantia.agregar(garantiaExt);
+		return new GarantiaExtendida(producto, new Date(), fechaFinGarantia, valorGarantia, nombreCliente, nivel);
     }
 
     /**
@@ -121,20 +266,13 @@ public class Vendedor {
 	 */
     public Date calcularFechaFinGarantia(Date fechaInicial, int diasGarantia) {
     	
-    	Calendar calendario = Calendar.getInstance();
-    	calendario.setTime(fechaInicial);
-    	int dias =1;
+    	ZonedDateTime inicio = fechaInicial.toInstant().atZone(TimeZone.getDefault().toZoneId());
     	
     	/**
     	 * si el da de la fecha es un Lunes no se tiene en cuenta en el clculo de lo das
     	 */
-    	while(dias<diasGarantia) {
-    		if (calendario.get(Calendar.DAY_OF_WEEK) != 2) {
-    			dias++;
-    		}
-    		calendario.add(calendario.DAY_OF_YEAR, 1);
-
-    	}
+    	long dias = diasHastaCompletarGarantia(inicio.getDayOfWeek(), diasGarantia);
+    	DayOfWeek diaFin = inicio.getDayOfWeek().plus(dias);
 
     	/**
     	 * si la fecha de finalizacin cae un domingo, se suman otros dos dias ya que los lunes no se cuentan.
@@ -143,19 +281,63 @@ public class Vendedor {
     	 * 		de festivos, ya que los festivos dependen del pais, del ao y la idea es que la aplicacin no dependa de estos valores
     	 * 		por defecto, sino ser independiente del pais, ao. etc. El maestro de festivos podria servir para otro proyecto, o ya estar implementado. 
     	 */
-    	if(calendario.get(Calendar.DAY_OF_WEEK) == 1) {
-    		calendario.add(calendario.DAY_OF_YEAR, 2);
+    	if(diaFin == DayOfWeek.SUNDAY) {
+    		dias += 2;
     	}
     	
     	/**
     	 * Se agreda la condicion por si algun da la garanta solo se puede dar un dia,entonces entraria solo una vez al while
     	 * y al caer un lunes no lo controlariamos para que no lo cuente
     	 */
-    	if(calendario.get(Calendar.DAY_OF_WEEK) == 2) {
-    		calendario.add(calendario.DAY_OF_YEAR, 1);
+    	if(diaFin == DayOfWeek.MONDAY) {
+    		dias += 1;
     	}
     	
-    	return calendario.getTime();
+    	/**
+    	 * Con un maestro de festivos la garantia termina en el siguiente dia habil del pais.
+    	 */
+    	if(calendarioLaboral != null) {
+    		dias += diasHastaDiaHabil(inicio.toLocalDate().plusDays(dias));
+    	}
+    	
+    	return Date.from(inicio.plusDays(dias).toInstant());
+    }
+
+    /**
+     * Fuera del rango cargado en el calendario, o si el rango termina sin otro dia habil, la fecha se queda con la
+     * regla de los dias de la semana en lugar de rechazar la garantia.
+     * @return dias desde fechaFin hasta el siguiente dia habil del calendario
+     */
+    private long diasHastaDiaHabil(LocalDate fechaFin) {
+
+    	try {
+    		return ChronoUnit.DAYS.between(fechaFin, calendarioLaboral.siguienteDiaHabil(fechaFin));
+    	} catch (IllegalArgumentException e) {
+    		return 0;
+    	}
+    }
+
+    /**
+     * Calcula en tiempo constante cuantos dias avanza el calendario desde la fecha inicial hasta contar
+     * diasGarantia - 1 dias que no son Lunes, incluyendo la fecha inicial. Cada semana completa aporta 6 dias
+     * y los dias restantes se ubican dentro de la ultima semana saltando la posicion del Lunes.
+     * @param diaInicial dia de la semana de la fecha inicial
+     * @param diasGarantia dias de la garantia
+     * @return dias a sumar a la fecha inicial antes de ajustar Domingos y Lunes
+     */
+    private static long diasHastaCompletarGarantia(DayOfWeek diaInicial, int diasGarantia) {
+
+    	long diasSinLunes = diasGarantia - 1L;
+    	if(diasSinLunes <= 0) {
+    		return 0;
+    	}
+
+    	long semanas = (diasSinLunes - 1) / 6;
+    	long resto = (diasSinLunes - 1) % 6;
+    	int posicionLunes = (DayOfWeek.MONDAY.getValue() - diaInicial.getValue() + 7) % 7;
+    	long posicionFinal = resto < posicionLunes ? resto : resto + 1;
+
+    	return 7 * semanas + posicionFinal + 1;
     }
 
 
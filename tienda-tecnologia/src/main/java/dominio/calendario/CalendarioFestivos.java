@@ -0,0 +1,192 @@
+package dominio.calendario;
+
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+
+/**
+ * Calendario laboral compacto. Cada dia del rango es un bit indexado por su dia epoch (1 = no laborable),
+ * las palabras pueden estar en memoria o en un archivo mapeado. Sobre el bitset se construye un indice de rango
+ * (dias habiles antes de cada palabra) y un muestreo de seleccion (palabra donde empieza cada bloque de 64 dias
+ * habiles), con lo que sumar dias habiles y buscar el siguiente dia habil no depende de la distancia entre fechas.
+ */
+public final class CalendarioFestivos implements CalendarioLaboral {
+
+	public static final String FECHA_FUERA_DE_RANGO = "La fecha esta fuera del rango del calendario de festivos";
+
+	private static final int BITS_POR_PALABRA = 64;
+	private static final int DESPLAZAMIENTO_PALABRA = 6;
+
+	private final long primerDia;
+	private final int cantidadDias;
+	private final LongBuffer noLaborables;
+
+	private final int[] habilesAntesDePalabra;
+	private final int[] muestrasSeleccion;
+	private final int totalHabiles;
+
+	/**
+	 * @param primerDia dia epoch que corresponde al bit 0
+	 * @param cantidadDias cantidad de dias que cubre el calendario
+	 * @param noLaborables palabras del bitset, los bits posteriores a cantidadDias se ignoran
+	 */
+	public CalendarioFestivos(long primerDia, int cantidadDias, LongBuffer noLaborables) {
+
+		int palabras = cantidadPalabras(cantidadDias);
+		if (noLaborables.remaining() < palabras) {
+			throw new IllegalArgumentException("El bitset no cubre los " + cantidadDias + " dias del calendario");
+		}
+
+		this.primerDia = primerDia;
+		this.cantidadDias = cantidadDias;
+		this.noLaborables = noLaborables.slice();
+
+		this.habilesAntesDePalabra = new int[palabras + 1];
+		for (int i = 0; i < palabras; i++) {
+			habilesAntesDePalabra[i + 1] = habilesAntesDePalabra[i] + Long.bitCount(habiles(i));
+		}
+		this.totalHabiles = habilesAntesDePalabra[palabras];
+
+		this.muestrasSeleccion = new int[(totalHabiles >>> DESPLAZAMIENTO_PALABRA) + 1];
+		int palabra = 0;
+		for (int muestra = 0; muestra < muestrasSeleccion.length; muestra++) {
+			int rango = muestra << DESPLAZAMIENTO_PALABRA;
+			while (palabra < palabras - 1 && habilesAntesDePalabra[palabra + 1] <= rango) {
+				palabra++;
+			}
+			muestrasSeleccion[muestra] = palabra;
+		}
+	}
+
+	public static int cantidadPalabras(int cantidadDias) {
+		return (cantidadDias + BITS_POR_PALABRA - 1) >>> DESPLAZAMIENTO_PALABRA;
+	}
+
+	@Override
+	public boolean esDiaHabil(LocalDate fecha) {
+		return esHabil(indice(fecha));
+	}
+
+	@Override
+	public LocalDate siguienteDiaHabil(LocalDate fecha) {
+
+		int indice = indice(fecha);
+		if (esHabil(indice)) {
+			return fecha;
+		}
+		return fecha(seleccionar(rango(indice)));
+	}
+
+	@Override
+	public LocalDate sumarDiasHabiles(LocalDate fecha, int diasHabiles) {
+
+		if (diasHabiles == 0) {
+			return fecha;
+		}
+
+		int indice = indice(fecha);
+		long objetivo;
+		if (diasHabiles > 0) {
+			objetivo = (long) rango(indice) + (esHabil(indice) ? 1 : 0) + diasHabiles - 1;
+		} else {
+			objetivo = (long) rango(indice) + diasHabiles;
+		}
+		return fecha(seleccionar(objetivo));
+	}
+
+	public LocalDate getPrimerDia() {
+		return LocalDate.ofEpochDay(primerDia);
+	}
+
+	public int getCantidadDias() {
+		return cantidadDias;
+	}
+
+	public int getTotalDiasHabiles() {
+		return totalHabiles;
+	}
+
+	/**
+	 * @return una vista de solo lectura de las palabras del bitset, para guardarlo
+	 */
+	public LongBuffer getNoLaborables() {
+		return noLaborables.asReadOnlyBuffer();
+	}
+
+	private int indice(LocalDate fecha) {
+
+		long indice = fecha.toEpochDay() - primerDia;
+		if (indice < 0 || indice >= cantidadDias) {
+			throw new IllegalArgumentException(FECHA_FUERA_DE_RANGO);
+		}
+		return (int) indice;
+	}
+
+	private LocalDate fecha(int indice) {
+		return LocalDate.ofEpochDay(primerDia + indice);
+	}
+
+	/**
+	 * Bits en 1 para los dias habiles de la palabra, los dias fuera del rango nunca son habiles.
+	 */
+	private long habiles(int palabra) {
+
+		long habiles = ~noLaborables.get(palabra);
+		int diasEnPalabra = cantidadDias - (palabra << DESPLAZAMIENTO_PALABRA);
+		if (diasEnPalabra < BITS_POR_PALABRA) {
+			habiles &= (1L << diasEnPalabra) - 1;
+		}
+		return habiles;
+	}
+
+	private boolean esHabil(int indice) {
+		return (habiles(indice >>> DESPLAZAMIENTO_PALABRA) & (1L << indice)) != 0;
+	}
+
+	/**
+	 * Cantidad de dias habiles anteriores al indice.
+	 */
+	private int rango(int indice) {
+
+		int palabra = indice >>> DESPLAZAMIENTO_PALABRA;
+		long anteriores = habiles(palabra) & ((1L << indice) - 1);
+		return habilesAntesDePalabra[palabra] + Long.bitCount(anteriores);
+	}
+
+	/**
+	 * Indice del dia habil numero rango (desde 0).
+	 */
+	private int seleccionar(long rango) {
+
+		if (rango < 0 || rango >= totalHabiles) {
+			throw new IllegalArgumentException(FECHA_FUERA_DE_RANGO);
+		}
+
+		int objetivo = (int) rango;
+		int palabra = muestrasSeleccion[objetivo >>> DESPLAZAMIENTO_PALABRA];
+		while (habilesAntesDePalabra[palabra + 1] <= objetivo) {
+			palabra++;
+		}
+
+		return (palabra << DESPLAZAMIENTO_PALABRA) + seleccionarEnPalabra(habiles(palabra), objetivo - habilesAntesDePalabra[palabra]);
+	}
+
+	/**
+	 * Posicion del bit en 1 numero n (desde 0), avanzando por bytes y luego bit a bit dentro del byte.
+	 */
+	private static int seleccionarEnPalabra(long bits, int n) {
+
+		int posicion = 0;
+		int cantidad = Long.bitCount(bits & 0xFFL);
+		while (n >= cantidad) {
+			n -= cantidad;
+			bits >>>= 8;
+			posicion += 8;
+			cantidad = Long.bitCount(bits & 0xFFL);
+		}
+		for (int i = 0; i < n; i++) {
+			bits &= bits - 1;
+		}
+		return posicion + Long.numberOfTrailingZeros(bits);
+	}
+
+}
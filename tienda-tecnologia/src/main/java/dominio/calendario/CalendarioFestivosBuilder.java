@@ -0,0 +1,52 @@
+package dominio.calendario;
+
+import java.nio.LongBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CalendarioFestivosBuilder {
+
+	private LocalDate desde;
+	private LocalDate hasta;
+	private Set<DayOfWeek> diasDeDescanso = EnumSet.noneOf(DayOfWeek.class);
+	private Set<LocalDate> festivos = new HashSet<>();
+
+	public CalendarioFestivosBuilder(LocalDate desde, LocalDate hasta) {
+
+		if (hasta.isBefore(desde)) {
+			throw new IllegalArgumentException("La fecha final del calendario es anterior a la inicial");
+		}
+		this.desde = desde;
+		this.hasta = hasta;
+	}
+
+	public CalendarioFestivosBuilder conDiaDeDescanso(DayOfWeek dia) {
+		this.diasDeDescanso.add(dia);
+		return this;
+	}
+
+	public CalendarioFestivosBuilder conFestivo(LocalDate festivo) {
+		this.festivos.add(festivo);
+		return this;
+	}
+
+	public CalendarioFestivos build() {
+
+		long primerDia = desde.toEpochDay();
+		int cantidadDias = Math.toIntExact(hasta.toEpochDay() - primerDia + 1);
+		long[] palabras = new long[CalendarioFestivos.cantidadPalabras(cantidadDias)];
+
+		LocalDate fecha = desde;
+		for (int indice = 0; indice < cantidadDias; indice++) {
+			if (diasDeDescanso.contains(fecha.getDayOfWeek()) || festivos.contains(fecha)) {
+				palabras[indice >>> 6] |= 1L << indice;
+			}
+			fecha = fecha.plusDays(1);
+		}
+
+		return new CalendarioFestivos(primerDia, cantidadDias, LongBuffer.wrap(palabras));
+	}
+}
@@ -0,0 +1,29 @@
+package dominio.calendario;
+
+import java.time.LocalDate;
+
+public interface CalendarioLaboral {
+
+	/**
+	 * Permite saber si una fecha es un dia habil
+	 * @param fecha
+	 * @return true si la fecha no es festivo ni dia de descanso
+	 */
+	boolean esDiaHabil(LocalDate fecha);
+
+	/**
+	 * Permite obtener el primer dia habil a partir de una fecha
+	 * @param fecha
+	 * @return la misma fecha si es habil, de lo contrario el siguiente dia habil
+	 */
+	LocalDate siguienteDiaHabil(LocalDate fecha);
+
+	/**
+	 * Permite sumar dias habiles a una fecha, la fecha inicial no se cuenta
+	 * @param fecha
+	 * @param diasHabiles cantidad de dias habiles, si es negativa se cuentan hacia atras
+	 * @return la fecha que esta a la cantidad de dias habiles indicada
+	 */
+	LocalDate sumarDiasHabiles(LocalDate fecha, int diasHabiles);
+
+}
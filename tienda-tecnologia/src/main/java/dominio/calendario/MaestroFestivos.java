@@ -0,0 +1,31 @@
+package dominio.calendario;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de calendarios laborales por pais. Cada calendario cubre los anios que se cargaron para ese pais.
+ */
+public class MaestroFestivos {
+
+	public static final String PAIS_SIN_CALENDARIO = "No hay calendario de festivos para el pais ";
+
+	private final Map<String, CalendarioLaboral> calendarios = new ConcurrentHashMap<>();
+
+	public void registrar(String pais, CalendarioLaboral calendario) {
+		calendarios.put(pais, calendario);
+	}
+
+	public CalendarioLaboral obtener(String pais) {
+
+		CalendarioLaboral calendario = calendarios.get(pais);
+		if (calendario == null) {
+			throw new IllegalArgumentException(PAIS_SIN_CALENDARIO + pais);
+		}
+		return calendario;
+	}
+
+	public boolean tieneCalendario(String pais) {
+		return calendarios.containsKey(pais);
+	}
+}
@@ -0,0 +1,21 @@
+package dominio.metrica;
+
+/**
+ * Etapas en que se mide la generacion de una garantia.
+ */
+public enum EtapaGarantia {
+
+	/**
+	 * Consulta del producto junto con si ya tiene garantia
+	 */
+	CONSULTA_PRODUCTO,
+	VALIDACION_VOCALES,
+	CALCULO_TARIFA,
+	CALCULO_FECHA,
+	PERSISTENCIA,
+
+	/**
+	 * Toda la generacion, incluidas las solicitudes rechazadas
+	 */
+	TOTAL
+}
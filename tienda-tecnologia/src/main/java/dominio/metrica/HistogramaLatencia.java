@@ -0,0 +1,102 @@
+package dominio.metrica;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales: cada potencia de dos se divide en
+ * 32 cubetas, por lo que un percentil tiene un error relativo menor al 3,2%. Registrar no crea objetos ni
+ * bloquea, se puede usar desde varios hilos a la vez.
+ */
+public class HistogramaLatencia {
+
+	private static final int BITS_SUBCUBETA = 5;
+	private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+	private static final int CUBETAS = (Long.SIZE - BITS_SUBCUBETA) * SUBCUBETAS;
+
+	private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+	private final LongAdder cantidad = new LongAdder();
+	private final LongAdder suma = new LongAdder();
+	private final AtomicLong maximo = new AtomicLong();
+
+	public void registrar(long nanos) {
+
+		long valor = Math.max(nanos, 0);
+		cuentas.incrementAndGet(indice(valor));
+		cantidad.increment();
+		suma.add(valor);
+
+		long actual = maximo.get();
+		while (valor > actual && !maximo.compareAndSet(actual, valor)) {
+			actual = maximo.get();
+		}
+	}
+
+	public long getCantidad() {
+		return cantidad.sum();
+	}
+
+	public double getPromedio() {
+		long total = cantidad.sum();
+		return total == 0 ? 0 : (double) suma.sum() / total;
+	}
+
+	public long getMaximo() {
+		return maximo.get();
+	}
+
+	/**
+	 * @param percentil entre 0 y 100
+	 * @return limite superior de la cubeta del percentil en nanosegundos, 0 si no hay registros
+	 */
+	public long percentil(double percentil) {
+
+		long[] copia = new long[CUBETAS];
+		long total = 0;
+		for (int i = 0; i < CUBETAS; i++) {
+			copia[i] = cuentas.get(i);
+			total += copia[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long objetivo = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+		long acumulado = 0;
+		for (int i = 0; i < CUBETAS; i++) {
+			acumulado += copia[i];
+			if (acumulado >= objetivo) {
+				return Math.min(limiteSuperior(i), maximo.get());
+			}
+		}
+		return maximo.get();
+	}
+
+	public void reiniciar() {
+		for (int i = 0; i < CUBETAS; i++) {
+			cuentas.set(i, 0);
+		}
+		cantidad.reset();
+		suma.reset();
+		maximo.set(0);
+	}
+
+	static int indice(long valor) {
+		if (valor < SUBCUBETAS) {
+			return (int) valor;
+		}
+		int exponente = 63 - Long.numberOfLeadingZeros(valor);
+		int desplazamiento = exponente - BITS_SUBCUBETA;
+		return ((desplazamiento + 1) << BITS_SUBCUBETA) + (int) ((valor >>> desplazamiento) & (SUBCUBETAS - 1));
+	}
+
+	static long limiteSuperior(int indice) {
+		if (indice < SUBCUBETAS) {
+			return indice;
+		}
+		int desplazamiento = (indice >>> BITS_SUBCUBETA) - 1;
+		long inicio = (long) (SUBCUBETAS + (indice & (SUBCUBETAS - 1))) << desplazamiento;
+		return inicio + (1L << desplazamiento) - 1;
+	}
+}
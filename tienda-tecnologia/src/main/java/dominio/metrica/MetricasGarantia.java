@@ -0,0 +1,12 @@
+package dominio.metrica;
+
+/**
+ * Recibe la duracion de cada etapa de la generacion de garantias. Se llama desde el hilo que genera la
+ * garantia, por lo que las implementaciones deben ser seguras para varios hilos y no bloquear.
+ */
+public interface MetricasGarantia {
+
+	MetricasGarantia NINGUNA = (etapa, nanos) -> { };
+
+	void registrar(EtapaGarantia etapa, long nanos);
+}
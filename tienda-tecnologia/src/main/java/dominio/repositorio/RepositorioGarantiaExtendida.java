@@ -1,7 +1,14 @@
 package dominio.repositorio;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import dominio.EstadoGarantiaProducto;
 import dominio.Producto;
 import dominio.GarantiaExtendida;
+import dominio.VencimientoGarantia;
 
 public interface RepositorioGarantiaExtendida {
 
@@ -11,12 +18,32 @@ public interface RepositorioGarantiaExtendida {
 	 * @return
 	 */
 	Producto obtenerProductoConGarantiaPorCodigo(String codigo);
+
+	/**
+	 * Permite obtener en una sola consulta el producto y si ya tiene garantia extendida
+	 * @param codigo
+	 * @return el estado del producto, sin producto si no existe
+	 */
+	EstadoGarantiaProducto obtenerEstadoGarantia(String codigo);
 	
 	/**
 	 * Permite agregar una garantia al repositorio de garantia
 	 * @param garantia
 	 */
 	void agregar(GarantiaExtendida garantia);
+
+	/**
+	 * Permite agregar por lotes varias garantias al repositorio de garantia
+	 * @param garantias
+	 */
+	void agregarTodas(List<GarantiaExtendida> garantias);
+
+	/**
+	 * Permite saber cuales de los codigos dados ya tienen garantia extendida
+	 * @param codigos
+	 * @return los codigos de producto que ya cuentan con garantia
+	 */
+	Set<String> obtenerCodigosConGarantia(Collection<String> codigos);
 	
 	/**
 	 * Permite obtener una garantia extendida por el codigo del producto
@@ -24,4 +51,12 @@ public interface RepositorioGarantiaExtendida {
 	 */
 	GarantiaExtendida obtener(String codigo);
 
+	/**
+	 * Permite obtener las garantias que terminan en un rango de fechas
+	 * @param desde fecha de fin minima, incluida
+	 * @param hasta fecha de fin maxima, excluida
+	 * @return los vencimientos ordenados por fecha de fin
+	 */
+	List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta);
+
 }
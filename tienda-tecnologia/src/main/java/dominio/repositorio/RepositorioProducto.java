@@ -1,5 +1,8 @@
 package dominio.repositorio;
 
+import java.util.Collection;
+import java.util.Map;
+
 import dominio.Producto;
 
 public interface RepositorioProducto {
@@ -11,6 +14,13 @@ public interface RepositorioProducto {
 	 */
 	Producto obtenerPorCodigo(String codigo);
 
+	/**
+	 * Permite obtener en una sola consulta por lote los productos de varios codigos
+	 * @param codigos
+	 * @return los productos encontrados indexados por codigo, los codigos inexistentes no se incluyen
+	 */
+	Map<String, Producto> obtenerPorCodigos(Collection<String> codigos);
+
 	/**
 	 * Permite agregar un producto al repositorio
 	 * @param producto
@@ -0,0 +1,52 @@
+package dominio.tarifa;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import dominio.NivelGarantia;
+
+/**
+ * Publica la tabla de tarifas vigente. Una recarga compila la nueva tabla aparte y la reemplaza de forma
+ * atomica, quien ya obtuvo la tabla anterior termina su calculo con ella.
+ */
+public class MotorTarifas {
+
+	private final AtomicReference<TablaTarifas> tabla;
+
+	/**
+	 * Crea el motor con las tarifas por defecto de {@link NivelGarantia}.
+	 */
+	public MotorTarifas() {
+		this(tarifasPorDefecto());
+	}
+
+	public MotorTarifas(TablaTarifas tabla) {
+		this.tabla = new AtomicReference<>(tabla);
+	}
+
+	public TablaTarifas obtenerTabla() {
+		return tabla.get();
+	}
+
+	/**
+	 * Cambia las tarifas de las garantias que se emitan desde ahora, las ya emitidas conservan su nivel.
+	 * @return la tabla que estaba vigente
+	 */
+	public TablaTarifas recargar(TablaTarifas nuevaTabla) {
+		if (nuevaTabla == null) {
+			throw new IllegalArgumentException(TablaTarifasBuilder.FALTA_CATEGORIA_GENERAL);
+		}
+		return tabla.getAndSet(nuevaTabla);
+	}
+
+	/**
+	 * Hasta {@link NivelGarantia#PRECIO_LIMITE_BASICA} la garantia es basica, por encima es superior.
+	 */
+	public static TablaTarifas tarifasPorDefecto() {
+		return new TablaTarifasBuilder()
+				.conTramo(TablaTarifasBuilder.CATEGORIA_GENERAL, 0, NivelGarantia.BASICA.getPorcentaje(),
+						NivelGarantia.BASICA.getDias(), NivelGarantia.BASICA)
+				.conTramo(TablaTarifasBuilder.CATEGORIA_GENERAL, NivelGarantia.PRECIO_LIMITE_BASICA,
+						NivelGarantia.SUPERIOR.getPorcentaje(), NivelGarantia.SUPERIOR.getDias(), NivelGarantia.SUPERIOR)
+				.build();
+	}
+}
@@ -0,0 +1,135 @@
+package dominio.tarifa;
+
+import dominio.NivelGarantia;
+
+/**
+ * Tabla de tarifas de garantia compilada en arreglos primitivos ordenados. La categoria del producto es el
+ * prefijo mas largo de su codigo que tenga tarifas, y dentro de la categoria el tramo es el de mayor precio
+ * inicial que sea menor al precio del producto. Ambas busquedas son binarias y no crean objetos.
+ */
+public final class TablaTarifas {
+
+	/**
+	 * Longitudes distintas de los prefijos de mayor a menor, con el rango de categorias de cada longitud.
+	 */
+	private final int[] longitudes;
+	private final int[] inicioLongitud;
+
+	/**
+	 * Prefijos ordenados por longitud descendente y alfabeticamente dentro de cada longitud.
+	 */
+	private final String[] prefijos;
+
+	/**
+	 * Los tramos de la categoria i ocupan las posiciones inicioTramos[i] a inicioTramos[i + 1] - 1.
+	 */
+	private final int[] inicioTramos;
+	private final double[] preciosDesde;
+	private final double[] porcentajes;
+	private final int[] dias;
+	private final NivelGarantia[] niveles;
+
+	TablaTarifas(int[] longitudes, int[] inicioLongitud, String[] prefijos, int[] inicioTramos,
+			double[] preciosDesde, double[] porcentajes, int[] dias, NivelGarantia[] niveles) {
+		this.longitudes = longitudes;
+		this.inicioLongitud = inicioLongitud;
+		this.prefijos = prefijos;
+		this.inicioTramos = inicioTramos;
+		this.preciosDesde = preciosDesde;
+		this.porcentajes = porcentajes;
+		this.dias = dias;
+		this.niveles = niveles;
+	}
+
+	/**
+	 * @param codigo codigo del producto, su prefijo define la categoria
+	 * @param precio precio del producto
+	 * @return posicion del tramo que aplica, para consultar con {@link #getPorcentaje(int)}, {@link #getDias(int)} y
+	 * {@link #getNivel(int)}
+	 */
+	public int buscarTramo(String codigo, double precio) {
+
+		int categoria = buscarCategoria(codigo);
+		int inicio = inicioTramos[categoria];
+		int bajo = inicio;
+		int alto = inicioTramos[categoria + 1] - 1;
+
+		/**
+		 * Un precio menor o igual a todos los limites queda en el primer tramo de la categoria.
+		 */
+		int tramo = inicio;
+		while (bajo <= alto) {
+			int medio = (bajo + alto) >>> 1;
+			if (preciosDesde[medio] < precio) {
+				tramo = medio;
+				bajo = medio + 1;
+			} else {
+				alto = medio - 1;
+			}
+		}
+		return tramo;
+	}
+
+	public double getPorcentaje(int tramo) {
+		return porcentajes[tramo];
+	}
+
+	public int getDias(int tramo) {
+		return dias[tramo];
+	}
+
+	public NivelGarantia getNivel(int tramo) {
+		return niveles[tramo];
+	}
+
+	public int getCantidadCategorias() {
+		return prefijos.length;
+	}
+
+	public int getCantidadTramos() {
+		return preciosDesde.length;
+	}
+
+	private int buscarCategoria(String codigo) {
+
+		int largoCodigo = codigo == null ? 0 : codigo.length();
+		for (int i = 0; i < longitudes.length; i++) {
+
+			int longitud = longitudes[i];
+			if (longitud == 0) {
+				return inicioLongitud[i];
+			}
+			if (longitud > largoCodigo) {
+				continue;
+			}
+
+			int bajo = inicioLongitud[i];
+			int alto = inicioLongitud[i + 1] - 1;
+			while (bajo <= alto) {
+				int medio = (bajo + alto) >>> 1;
+				int comparacion = compararPrefijo(codigo, prefijos[medio], longitud);
+				if (comparacion == 0) {
+					return medio;
+				} else if (comparacion > 0) {
+					bajo = medio + 1;
+				} else {
+					alto = medio - 1;
+				}
+			}
+		}
+		/**
+		 * El constructor de la tabla garantiza la categoria general de prefijo vacio.
+		 */
+		throw new IllegalStateException(TablaTarifasBuilder.FALTA_CATEGORIA_GENERAL);
+	}
+
+	private static int compararPrefijo(String codigo, String prefijo, int longitud) {
+		for (int i = 0; i < longitud; i++) {
+			int diferencia = codigo.charAt(i) - prefijo.charAt(i);
+			if (diferencia != 0) {
+				return diferencia;
+			}
+		}
+		return 0;
+	}
+}
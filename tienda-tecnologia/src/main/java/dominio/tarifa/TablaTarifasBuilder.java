@@ -0,0 +1,120 @@
+package dominio.tarifa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import dominio.NivelGarantia;
+
+public class TablaTarifasBuilder {
+
+	public static final String CATEGORIA_GENERAL = "";
+	public static final String FALTA_CATEGORIA_GENERAL = "Las tarifas no tienen tramos para la categoria general";
+	public static final String TRAMO_REPETIDO = "El tramo ya esta definido para la categoria ";
+	public static final String TRAMO_INVALIDO = "El porcentaje y los dias del tramo deben ser positivos";
+	public static final String TRAMO_SIN_NIVEL = "El tramo debe tener nivel";
+
+	/**
+	 * Tramos por prefijo de categoria, cada uno ordenado por precio inicial.
+	 */
+	private final Map<String, TreeMap<Double, Tramo>> categorias = new TreeMap<>();
+
+	/**
+	 * Agrega un tramo: desde un precio mayor a precioDesde la garantia cuesta el porcentaje indicado del precio
+	 * y dura los dias indicados, hasta el siguiente tramo de la misma categoria. El nivel del tramo es el que tienen
+	 * en las tarifas por defecto los precios mayores a precioDesde.
+	 * @param prefijoCategoria prefijo del codigo de los productos de la categoria, vacio para la categoria general
+	 */
+	public TablaTarifasBuilder conTramo(String prefijoCategoria, double precioDesde, double porcentaje, int dias) {
+		return conTramo(prefijoCategoria, precioDesde, porcentaje, dias,
+				precioDesde < NivelGarantia.PRECIO_LIMITE_BASICA ? NivelGarantia.BASICA : NivelGarantia.SUPERIOR);
+	}
+
+	/**
+	 * Agrega un tramo con su nivel, que se guarda en las garantias que se emiten con el y agrupa los reportes de
+	 * ingresos
+	 */
+	public TablaTarifasBuilder conTramo(String prefijoCategoria, double precioDesde, double porcentaje, int dias,
+			NivelGarantia nivel) {
+
+		if (porcentaje < 0 || dias <= 0 || Double.isNaN(precioDesde) || Double.isNaN(porcentaje)) {
+			throw new IllegalArgumentException(TRAMO_INVALIDO);
+		}
+		if (nivel == null) {
+			throw new IllegalArgumentException(TRAMO_SIN_NIVEL);
+		}
+		String prefijo = prefijoCategoria == null ? CATEGORIA_GENERAL : prefijoCategoria;
+		TreeMap<Double, Tramo> tramos = categorias.computeIfAbsent(prefijo, p -> new TreeMap<>());
+		if (tramos.put(precioDesde, new Tramo(porcentaje, dias, nivel)) != null) {
+			throw new IllegalArgumentException(TRAMO_REPETIDO + "'" + prefijo + "': " + precioDesde);
+		}
+		return this;
+	}
+
+	public TablaTarifas build() {
+
+		if (!categorias.containsKey(CATEGORIA_GENERAL)) {
+			throw new IllegalStateException(FALTA_CATEGORIA_GENERAL);
+		}
+
+		List<String> prefijos = new ArrayList<>(categorias.keySet());
+		prefijos.sort((a, b) -> a.length() != b.length() ? b.length() - a.length() : a.compareTo(b));
+
+		List<Integer> longitudes = new ArrayList<>();
+		List<Integer> inicioLongitud = new ArrayList<>();
+		int cantidadTramos = 0;
+		for (int i = 0; i < prefijos.size(); i++) {
+			int longitud = prefijos.get(i).length();
+			if (longitudes.isEmpty() || longitudes.get(longitudes.size() - 1) != longitud) {
+				longitudes.add(longitud);
+				inicioLongitud.add(i);
+			}
+			cantidadTramos += categorias.get(prefijos.get(i)).size();
+		}
+		inicioLongitud.add(prefijos.size());
+
+		int[] inicioTramos = new int[prefijos.size() + 1];
+		double[] preciosDesde = new double[cantidadTramos];
+		double[] porcentajes = new double[cantidadTramos];
+		int[] dias = new int[cantidadTramos];
+		NivelGarantia[] niveles = new NivelGarantia[cantidadTramos];
+
+		int tramo = 0;
+		for (int i = 0; i < prefijos.size(); i++) {
+			inicioTramos[i] = tramo;
+			for (Map.Entry<Double, Tramo> entrada : categorias.get(prefijos.get(i)).entrySet()) {
+				preciosDesde[tramo] = entrada.getKey();
+				porcentajes[tramo] = entrada.getValue().porcentaje;
+				dias[tramo] = entrada.getValue().dias;
+				niveles[tramo] = entrada.getValue().nivel;
+				tramo++;
+			}
+		}
+		inicioTramos[prefijos.size()] = tramo;
+
+		return new TablaTarifas(aArreglo(longitudes), aArreglo(inicioLongitud), prefijos.toArray(new String[0]),
+				inicioTramos, preciosDesde, porcentajes, dias, niveles);
+	}
+
+	private static int[] aArreglo(List<Integer> valores) {
+		int[] arreglo = new int[valores.size()];
+		for (int i = 0; i < arreglo.length; i++) {
+			arreglo[i] = valores.get(i);
+		}
+		return arreglo;
+	}
+
+	private static final class Tramo {
+
+		private final double porcentaje;
+		private final int dias;
+		private final NivelGarantia nivel;
+
+		private Tramo(double porcentaje, int dias, NivelGarantia nivel) {
+			this.porcentaje = porcentaje;
+			this.dias = dias;
+			this.nivel = nivel;
+		}
+	}
+}
@@ -11,7 +11,10 @@ public class ProductoBuilder {
 		
 		Producto producto = null;
 		
-		if(productoEntity != null) {
+		if(productoEntity != null && productoEntity.getCantidadVocales() != null) {
+			producto = new Producto(productoEntity.getCodigo(), productoEntity.getNombre(), productoEntity.getPrecio(),
+					productoEntity.getCantidadVocales());
+		} else if(productoEntity != null) {
 			producto = new Producto(productoEntity.getCodigo(), productoEntity.getNombre(), productoEntity.getPrecio());
 		}
 		
@@ -25,6 +28,7 @@ public class ProductoBuilder {
 		productoEntity.setCodigo(producto.getCodigo());
 		productoEntity.setNombre(producto.getNombre());
 		productoEntity.setPrecio(producto.getPrecio());
+		productoEntity.setCantidadVocales(producto.getCantidadVocales());
 		
 		return productoEntity;
 	}
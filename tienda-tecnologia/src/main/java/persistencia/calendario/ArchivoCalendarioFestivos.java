@@ -0,0 +1,68 @@
+package persistencia.calendario;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import dominio.calendario.CalendarioFestivos;
+
+/**
+ * Guarda y carga calendarios de festivos en un archivo binario que se mapea en memoria al cargarlo,
+ * de modo que el bitset no se copia al heap. Formato: magia (int), cantidad de dias (int), primer dia epoch (long)
+ * y luego las palabras del bitset.
+ */
+public final class ArchivoCalendarioFestivos {
+
+	public static final String ARCHIVO_INVALIDO = "El archivo no contiene un calendario de festivos";
+
+	private static final int MAGIA = 0x46455354;
+	private static final int CABECERA = 16;
+
+	private ArchivoCalendarioFestivos() {}
+
+	public static void guardar(CalendarioFestivos calendario, Path archivo) throws IOException {
+
+		LongBuffer palabras = calendario.getNoLaborables();
+		ByteBuffer contenido = ByteBuffer.allocate(CABECERA + palabras.remaining() * Long.BYTES);
+		contenido.putInt(MAGIA);
+		contenido.putInt(calendario.getCantidadDias());
+		contenido.putLong(calendario.getPrimerDia().toEpochDay());
+		contenido.asLongBuffer().put(palabras);
+		contenido.rewind();
+
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (contenido.hasRemaining()) {
+				canal.write(contenido);
+			}
+			canal.force(true);
+		}
+	}
+
+	public static CalendarioFestivos cargar(Path archivo) throws IOException {
+
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+
+			if (canal.size() < CABECERA) {
+				throw new IOException(ARCHIVO_INVALIDO);
+			}
+
+			MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+			if (mapa.getInt() != MAGIA) {
+				throw new IOException(ARCHIVO_INVALIDO);
+			}
+			int cantidadDias = mapa.getInt();
+			long primerDia = mapa.getLong();
+
+			LongBuffer palabras = mapa.slice().asLongBuffer();
+			if (palabras.remaining() < CalendarioFestivos.cantidadPalabras(cantidadDias)) {
+				throw new IOException(ARCHIVO_INVALIDO);
+			}
+			return new CalendarioFestivos(primerDia, cantidadDias, palabras);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package persistencia.conexion;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+
+/**
+ * Base de datos H2 en archivo (MVStore) para el perfil de produccion. El esquema se crea y se actualiza con las
+ * migraciones versionadas de db/migracion antes de iniciar JPA, que solo lo valida.
+ * 
+ * H2 confirma las transacciones en memoria y las escribe al archivo cada RETRASO_ESCRITURA milisegundos, una caida
+ * del proceso puede perder las transacciones de ese intervalo pero el archivo queda consistente.
+ */
+public class BaseDeDatosArchivo {
+
+	public static final String UNIDAD_PERSISTENCIA = "tienda-produccion";
+
+	private static final String UBICACION_MIGRACIONES = "classpath:db/migracion";
+	private static final String URL_JDBC = "javax.persistence.jdbc.url";
+	private static final String USUARIO = "";
+	private static final String CLAVE = "";
+
+	/**
+	 * Cache de paginas de H2 en KB, suficiente para mantener en memoria el indice de codigos de un catalogo grande.
+	 */
+	private static final int TAMANO_CACHE = 65536;
+
+	/**
+	 * Milisegundos entre escrituras al archivo.
+	 */
+	private static final int RETRASO_ESCRITURA = 100;
+
+	private final String url;
+
+	/**
+	 * @param ruta ruta del archivo sin extension, H2 agrega .mv.db
+	 */
+	public BaseDeDatosArchivo(String ruta) {
+		this.url = "jdbc:h2:file:" + ruta + ";MV_STORE=TRUE;CACHE_SIZE=" + TAMANO_CACHE + ";WRITE_DELAY=" + RETRASO_ESCRITURA;
+	}
+
+	/**
+	 * Aplica las migraciones pendientes
+	 * @return la cantidad de migraciones aplicadas
+	 */
+	public int migrar() {
+
+		Flyway flyway = new Flyway();
+		flyway.setDataSource(url, USUARIO, CLAVE);
+		flyway.setLocations(UBICACION_MIGRACIONES);
+		return flyway.migrate();
+	}
+
+	/**
+	 * @return las propiedades que apuntan la unidad de persistencia a este archivo
+	 */
+	public Map<String, Object> propiedades() {
+
+		Map<String, Object> propiedades = new HashMap<>();
+		propiedades.put(URL_JDBC, url);
+		return propiedades;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+}
@@ -0,0 +1,54 @@
+package persistencia.conexion;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Propiedades de Hibernate para la cache de segundo nivel local con JCache y Ehcache. El tamano y la expiracion de
+ * cada region se configuran en ehcache.xml.
+ */
+public final class CacheSegundoNivel {
+
+	public static final String CONFIGURACION_NO_ENCONTRADA = "No se encontro la configuracion de la cache ";
+
+	public static final String REGION_PRODUCTOS = "persistencia.entitad.ProductoEntity";
+	public static final String REGION_CODIGOS_PRODUCTOS = REGION_PRODUCTOS + "##NaturalId";
+	public static final String REGION_CONSULTAS_PRODUCTOS = "consultas.Producto";
+
+	private static final String CONFIGURACION = "/ehcache.xml";
+	private static final String FABRICA_REGIONES = "org.hibernate.cache.jcache.JCacheRegionFactory";
+	private static final String PROVEEDOR = "org.ehcache.jsr107.EhcacheCachingProvider";
+
+	private CacheSegundoNivel() {
+	}
+
+	public static Map<String, Object> propiedades() {
+
+		Map<String, Object> propiedades = new HashMap<>();
+		propiedades.put("hibernate.cache.use_second_level_cache", "true");
+		propiedades.put("hibernate.cache.use_query_cache", "true");
+		propiedades.put("hibernate.cache.region.factory_class", FABRICA_REGIONES);
+		propiedades.put("hibernate.javax.cache.provider", PROVEEDOR);
+		propiedades.put("hibernate.javax.cache.uri", uriConfiguracion());
+		propiedades.put("hibernate.generate_statistics", "true");
+		return propiedades;
+	}
+
+	/**
+	 * Ehcache necesita la URI real del archivo, no acepta rutas relativas al classpath.
+	 */
+	private static String uriConfiguracion() {
+
+		URL configuracion = CacheSegundoNivel.class.getResource(CONFIGURACION);
+		if (configuracion == null) {
+			throw new IllegalStateException(CONFIGURACION_NO_ENCONTRADA + CONFIGURACION);
+		}
+		try {
+			return configuracion.toURI().toString();
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(CONFIGURACION_NO_ENCONTRADA + CONFIGURACION, e);
+		}
+	}
+}
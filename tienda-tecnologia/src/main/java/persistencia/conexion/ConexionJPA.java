@@ -1,19 +1,221 @@
 package persistencia.conexion;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
-import javax.persistence.Persistence;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.boot.internal.ParsedPersistenceXmlDescriptor;
+import org.hibernate.jpa.boot.internal.PersistenceXmlParser;
+import org.hibernate.jpa.boot.spi.Bootstrap;
+import org.hibernate.jpa.boot.spi.EntityManagerFactoryBuilder;
+import org.hibernate.stat.Statistics;
 
+/**
+ * Acceso a la fabrica de EntityManager de una unidad de persistencia. Crear la fabrica es lo mas lento de la
+ * aplicacion, por eso se crea una sola vez por unidad y propiedades, la primera vez que se necesita, y todas las
+ * conexiones con la misma configuracion la comparten. Cada conexion toma una referencia a la fabrica en su primer uso
+ * y la suelta al cerrarse; la fabrica se cierra cuando la suelta la ultima.
+ */
 public class ConexionJPA {
 	
+	public static final String UNIDAD_NO_ENCONTRADA = "No existe la unidad de persistencia ";
+
 	private static final String TIENDA = "tienda";
-	private static EntityManagerFactory entityManagerFactory;
+
+	private static final ConcurrentMap<String, ParsedPersistenceXmlDescriptor> descriptores = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<List<Object>, Fabrica> fabricas = new ConcurrentHashMap<>();
+
+	private final String unidadPersistencia;
+	private final Map<String, Object> propiedades;
+	private final List<Object> clave;
+
+	/**
+	 * Fabrica de la que esta conexion tiene una referencia, null si todavia no la usa o ya se cerro
+	 */
+	private volatile Fabrica fabrica;
 
 	public ConexionJPA() {
-		entityManagerFactory = Persistence.createEntityManagerFactory(TIENDA);
+		this(Collections.emptyMap());
+	}
+
+	/**
+	 * @param propiedades propiedades que reemplazan a las de persistence.xml
+	 */
+	public ConexionJPA(Map<String, Object> propiedades) {
+		this(TIENDA, propiedades);
+	}
+
+	/**
+	 * @param unidadPersistencia nombre de la unidad de persistencia en persistence.xml
+	 * @param propiedades propiedades que reemplazan a las de persistence.xml
+	 */
+	public ConexionJPA(String unidadPersistencia, Map<String, Object> propiedades) {
+		this.unidadPersistencia = unidadPersistencia;
+		this.propiedades = new HashMap<>(propiedades);
+		this.clave = Arrays.asList(unidadPersistencia, this.propiedades);
 	}
 	
 	public EntityManager createEntityManager() {
-		return entityManagerFactory.createEntityManager();
+		return obtenerFabrica().entityManagerFactory.createEntityManager();
+	}
+
+	/**
+	 * Sesion sin contexto de persistencia ni cache de segundo nivel, para escrituras masivas que no deben
+	 * acumular entidades en memoria. Quien la abre debe cerrarla
+	 */
+	public StatelessSession abrirSesionSinEstado() {
+		return obtenerSessionFactory().openStatelessSession();
+	}
+
+	/**
+	 * Descarta los resultados de consultas guardados en la cache de segundo nivel, las escrituras de una sesion
+	 * sin estado no los invalidan
+	 */
+	public void invalidarConsultasEnCache() {
+		obtenerSessionFactory().getCache().evictQueryRegions();
+	}
+
+	/**
+	 * @return true si la fabrica de esta configuracion ya esta creada
+	 */
+	public boolean estaIniciada() {
+		return fabricas.containsKey(clave);
+	}
+
+	/**
+	 * @return cuanto tardo cada fase de la creacion de la fabrica, la crea si todavia no existe
+	 */
+	public TiemposArranque obtenerTiemposArranque() {
+		return obtenerFabrica().tiemposArranque;
+	}
+
+	public Statistics obtenerEstadisticas() {
+		return obtenerSessionFactory().getStatistics();
+	}
+
+	/**
+	 * Suelta la referencia de esta conexion a la fabrica compartida. Si era la ultima se cierra la fabrica y sus
+	 * conexiones, con una base de datos en archivo esto la cierra, y el siguiente uso de cualquier conexion con la
+	 * misma configuracion crea una fabrica nueva. Las demas conexiones abiertas siguen usando la fabrica
+	 */
+	public synchronized void cerrar() {
+
+		Fabrica actual = fabrica;
+		fabrica = null;
+		if (actual == null) {
+			return;
+		}
+		fabricas.computeIfPresent(clave, (c, registrada) -> {
+			if (registrada != actual || --registrada.referencias > 0) {
+				return registrada;
+			}
+			registrada.entityManagerFactory.close();
+			return null;
+		});
+	}
+
+	/**
+	 * Cierra todas las fabricas aunque haya conexiones que las usan, para llamar al detener la aplicacion
+	 */
+	public static void cerrarTodas() {
+		for (List<Object> clave : fabricas.keySet()) {
+			Fabrica fabrica = fabricas.remove(clave);
+			if (fabrica != null) {
+				fabrica.entityManagerFactory.close();
+			}
+		}
+	}
+
+	private SessionFactory obtenerSessionFactory() {
+		return obtenerFabrica().entityManagerFactory.unwrap(SessionFactory.class);
+	}
+
+	/**
+	 * Toma una referencia la primera vez, o de nuevo si la fabrica se cerro con {@link #cerrarTodas()}
+	 */
+	private Fabrica obtenerFabrica() {
+
+		Fabrica actual = fabrica;
+		if (actual != null && fabricas.get(clave) == actual) {
+			return actual;
+		}
+		synchronized (this) {
+			if (fabrica == null || fabricas.get(clave) != fabrica) {
+				fabrica = fabricas.compute(clave, (c, registrada) -> {
+					Fabrica compartida = registrada != null ? registrada : iniciar();
+					compartida.referencias++;
+					return compartida;
+				});
+			}
+			return fabrica;
+		}
+	}
+
+	/**
+	 * Crea la fabrica por la API de arranque de Hibernate, que es la misma que usa Persistence, para medir cada fase.
+	 * Hibernate 5.2 no permite reutilizar los metadatos de una fabrica cerrada, lo que se reutiliza es la lectura de
+	 * persistence.xml; las entidades estan listadas en la unidad para que no se escanee el classpath.
+	 */
+	private Fabrica iniciar() {
+
+		TiemposArranque tiempos = new TiemposArranque();
+
+		long inicio = System.nanoTime();
+		ParsedPersistenceXmlDescriptor descriptor = descriptores.computeIfAbsent(unidadPersistencia, ConexionJPA::leerDescriptor);
+		long descriptorLeido = System.nanoTime();
+		tiempos.registrar(TiemposArranque.DESCRIPTOR, descriptorLeido - inicio);
+
+		EntityManagerFactoryBuilder constructor = Bootstrap.getEntityManagerFactoryBuilder(descriptor, propiedades);
+		long metadatosCreados = System.nanoTime();
+		tiempos.registrar(TiemposArranque.METADATOS, metadatosCreados - descriptorLeido);
+
+		EntityManagerFactory entityManagerFactory = constructor.build();
+		long fabricaCreada = System.nanoTime();
+		tiempos.registrar(TiemposArranque.FABRICA, fabricaCreada - metadatosCreados);
+
+		/**
+		 * Las regiones de la cache de segundo nivel son del proceso y pueden tener datos de una fabrica anterior
+		 * que trabajaba con otro esquema.
+		 */
+		entityManagerFactory.getCache().evictAll();
+		tiempos.registrar(TiemposArranque.CACHE, System.nanoTime() - fabricaCreada);
+
+		return new Fabrica(entityManagerFactory, tiempos);
+	}
+
+	private static ParsedPersistenceXmlDescriptor leerDescriptor(String unidadPersistencia) {
+
+		for (ParsedPersistenceXmlDescriptor descriptor : PersistenceXmlParser.locatePersistenceUnits(Collections.emptyMap())) {
+			if (descriptor.getName().equals(unidadPersistencia)) {
+				return descriptor;
+			}
+		}
+		throw new PersistenceException(UNIDAD_NO_ENCONTRADA + unidadPersistencia);
+	}
+
+	private static final class Fabrica {
+
+		private final EntityManagerFactory entityManagerFactory;
+		private final TiemposArranque tiemposArranque;
+
+		/**
+		 * Conexiones que usan la fabrica, solo cambia dentro de compute sobre el mapa de fabricas
+		 */
+		private int referencias;
+
+		Fabrica(EntityManagerFactory entityManagerFactory, TiemposArranque tiemposArranque) {
+			this.entityManagerFactory = entityManagerFactory;
+			this.tiemposArranque = tiemposArranque;
+		}
 	}
 }
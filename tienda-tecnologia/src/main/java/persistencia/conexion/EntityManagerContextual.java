@@ -0,0 +1,45 @@
+package persistencia.conexion;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.persistence.EntityManager;
+
+/**
+ * EntityManager compartible entre hilos: cada llamada se delega al EntityManager de la unidad de trabajo
+ * del hilo que la hace, de modo que los repositorios no cambian entre el modo normal y el concurrente.
+ */
+public final class EntityManagerContextual implements InvocationHandler {
+
+	private final UnidadDeTrabajo unidadDeTrabajo;
+
+	private EntityManagerContextual(UnidadDeTrabajo unidadDeTrabajo) {
+		this.unidadDeTrabajo = unidadDeTrabajo;
+	}
+
+	public static EntityManager crear(UnidadDeTrabajo unidadDeTrabajo) {
+		return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+				new Class<?>[] { EntityManager.class }, new EntityManagerContextual(unidadDeTrabajo));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+
+		switch (metodo.getName()) {
+		case "equals":
+			return proxy == argumentos[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		case "toString":
+			return "EntityManager contextual";
+		default:
+			try {
+				return metodo.invoke(unidadDeTrabajo.actual(), argumentos);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
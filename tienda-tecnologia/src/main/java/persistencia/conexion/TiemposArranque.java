@@ -0,0 +1,64 @@
+package persistencia.conexion;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duracion de cada fase de la creacion de una fabrica de EntityManager, en el orden en que ocurren.
+ */
+public class TiemposArranque {
+
+	/**
+	 * Lectura de persistence.xml.
+	 */
+	public static final String DESCRIPTOR = "descriptor";
+
+	/**
+	 * Registro de servicios de Hibernate y lectura de las anotaciones de las entidades.
+	 */
+	public static final String METADATOS = "metadatos";
+
+	/**
+	 * Creacion de la SessionFactory, validacion de las consultas con nombre y creacion o validacion del esquema.
+	 */
+	public static final String FABRICA = "fabrica";
+
+	/**
+	 * Limpieza de la cache de segundo nivel.
+	 */
+	public static final String CACHE = "cache";
+
+	private final Map<String, Long> fases = new LinkedHashMap<>();
+
+	void registrar(String fase, long nanosegundos) {
+		fases.put(fase, nanosegundos);
+	}
+
+	/**
+	 * @return la duracion de cada fase en milisegundos
+	 */
+	public Map<String, Long> getFases() {
+
+		Map<String, Long> milisegundos = new LinkedHashMap<>();
+		for (Map.Entry<String, Long> fase : fases.entrySet()) {
+			milisegundos.put(fase.getKey(), TimeUnit.NANOSECONDS.toMillis(fase.getValue()));
+		}
+		return Collections.unmodifiableMap(milisegundos);
+	}
+
+	public long getTotalMilisegundos() {
+
+		long total = 0;
+		for (long nanosegundos : fases.values()) {
+			total += nanosegundos;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(total);
+	}
+
+	@Override
+	public String toString() {
+		return getFases() + " total=" + getTotalMilisegundos() + "ms";
+	}
+}
@@ -0,0 +1,110 @@
+package persistencia.conexion;
+
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+/**
+ * Asocia un EntityManager y su transaccion al hilo que ejecuta una operacion. Cada hilo trabaja con su propio
+ * EntityManager creado desde la misma fabrica, por lo que varias operaciones pueden correr en paralelo.
+ * Funciona igual con hilos de plataforma y con hilos virtuales.
+ */
+public class UnidadDeTrabajo {
+
+	public static final String SIN_UNIDAD_DE_TRABAJO = "No hay una unidad de trabajo activa en el hilo actual";
+	public static final String UNIDAD_DE_TRABAJO_ACTIVA = "Ya hay una unidad de trabajo activa en el hilo actual";
+
+	private final ConexionJPA conexion;
+	private final ThreadLocal<EntityManager> entityManagerActual = new ThreadLocal<>();
+
+	public UnidadDeTrabajo(ConexionJPA conexion) {
+		this.conexion = conexion;
+	}
+
+	/**
+	 * Ejecuta la operacion dentro de una transaccion propia, si el hilo ya tiene una unidad de trabajo
+	 * la operacion se une a ella
+	 * @param operacion
+	 * @return el resultado de la operacion
+	 */
+	public <T> T ejecutar(Supplier<T> operacion) {
+
+		if (estaActiva()) {
+			return operacion.get();
+		}
+
+		abrir();
+		try {
+			T resultado = operacion.get();
+			confirmar();
+			return resultado;
+		} catch (RuntimeException e) {
+			deshacer();
+			throw e;
+		}
+	}
+
+	/**
+	 * Crea el EntityManager del hilo actual e inicia su transaccion
+	 */
+	public void abrir() {
+
+		if (estaActiva()) {
+			throw new IllegalStateException(UNIDAD_DE_TRABAJO_ACTIVA);
+		}
+		EntityManager entityManager = conexion.createEntityManager();
+		entityManagerActual.set(entityManager);
+		entityManager.getTransaction().begin();
+	}
+
+	/**
+	 * Confirma la transaccion del hilo actual y cierra su EntityManager
+	 */
+	public void confirmar() {
+
+		EntityManager entityManager = actual();
+		try {
+			entityManager.getTransaction().commit();
+		} finally {
+			cerrar(entityManager);
+		}
+	}
+
+	/**
+	 * Deshace la transaccion del hilo actual, si la hay, y cierra su EntityManager
+	 */
+	public void deshacer() {
+
+		EntityManager entityManager = entityManagerActual.get();
+		if (entityManager == null) {
+			return;
+		}
+		try {
+			EntityTransaction transaccion = entityManager.getTransaction();
+			if (transaccion.isActive()) {
+				transaccion.rollback();
+			}
+		} finally {
+			cerrar(entityManager);
+		}
+	}
+
+	public boolean estaActiva() {
+		return entityManagerActual.get() != null;
+	}
+
+	public EntityManager actual() {
+
+		EntityManager entityManager = entityManagerActual.get();
+		if (entityManager == null) {
+			throw new IllegalStateException(SIN_UNIDAD_DE_TRABAJO);
+		}
+		return entityManager;
+	}
+
+	private void cerrar(EntityManager entityManager) {
+		entityManagerActual.remove();
+		entityManager.close();
+	}
+}
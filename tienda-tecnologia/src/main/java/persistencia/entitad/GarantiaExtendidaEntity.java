@@ -2,34 +2,95 @@ package persistencia.entitad;
 
 import java.util.Date;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import dominio.NivelGarantia;
 
 @Entity(name = "GarantiaExtendida")
-@NamedQuery(name = "GarantiaExtendida.findByCodigo", query = "SELECT garantia from GarantiaExtendida garantia where garantia.producto.codigo = :codigo")
+@NamedEntityGraph(name = GarantiaExtendidaEntity.CON_PRODUCTO, attributeNodes = @NamedAttributeNode("producto"))
+@NamedQueries({
+	@NamedQuery(name = "GarantiaExtendida.findByCodigo", query = "SELECT garantia from GarantiaExtendida garantia join garantia.producto producto where producto.codigo = :codigo"),
+	@NamedQuery(name = "GarantiaExtendida.findEstadoByCodigo", query = "SELECT producto, garantia.id from Producto producto left join GarantiaExtendida garantia on garantia.producto = producto where producto.codigo = :codigo"),
+	@NamedQuery(name = "GarantiaExtendida.findCodigosByCodigos", query = "SELECT garantia.producto.codigo from GarantiaExtendida garantia where garantia.producto.codigo IN :codigos"),
+	@NamedQuery(name = "GarantiaExtendida.findCodigos", query = "SELECT garantia.producto.codigo from GarantiaExtendida garantia"),
+	@NamedQuery(name = "GarantiaExtendida.sumPrecioByMesAndNivel", query = "SELECT year(garantia.fechaSolicitudGarantia), month(garantia.fechaSolicitudGarantia), "
+			+ "garantia.nivel, count(garantia), sum(garantia.precio) from GarantiaExtendida garantia "
+			+ "group by year(garantia.fechaSolicitudGarantia), month(garantia.fechaSolicitudGarantia), garantia.nivel "
+			+ "order by year(garantia.fechaSolicitudGarantia), month(garantia.fechaSolicitudGarantia), garantia.nivel"),
+	@NamedQuery(name = "GarantiaExtendida.findVencimientosEntre", query = "SELECT new dominio.VencimientoGarantia(producto.codigo, garantia.nombreCliente, garantia.fechaFinGarantia) "
+			+ "from GarantiaExtendida garantia join garantia.producto producto where garantia.fechaFinGarantia >= :desde and garantia.fechaFinGarantia < :hasta "
+			+ "order by garantia.fechaFinGarantia")
+})
+@Table(uniqueConstraints = @UniqueConstraint(name = "UK_GARANTIA_PRODUCTO", columnNames = "ID_PRODUCTO"),
+		indexes = @Index(name = "IDX_GARANTIA_FECHA_FIN", columnList = "fechaFinGarantia"))
+@NaturalIdCache
 public class GarantiaExtendidaEntity {
 
+	/**
+	 * Grafo para las lecturas que usan la garantia con su producto, los trae en la misma consulta.
+	 */
+	public static final String CON_PRODUCTO = "GarantiaExtendida.conProducto";
+
+	/**
+	 * Longitud de la columna del nombre del cliente, la escritura diferida la valida antes de aceptar la garantia.
+	 */
+	public static final int LONGITUD_NOMBRE_CLIENTE = 255;
+
+	/**
+	 * La secuencia reserva bloques de identificadores para no consultar la base de datos en cada insercion por lote.
+	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SEQ_GARANTIA_EXTENDIDA")
+	@SequenceGenerator(name = "SEQ_GARANTIA_EXTENDIDA", sequenceName = "SEQ_GARANTIA_EXTENDIDA", allocationSize = 50)
 	private Long id;
 
-	@ManyToOne
-	@JoinColumn(name = "ID_PRODUCTO", referencedColumnName = "id")
+	/**
+	 * Un producto tiene a lo sumo una garantia, por eso el producto identifica a la garantia. Se carga solo cuando se
+	 * usa: cada lectura que necesita el producto lo pide con el grafo {@link #CON_PRODUCTO} o con un join en su
+	 * consulta, y las que solo necesitan el codigo o el id no lo consultan.
+	 */
+	@NaturalId
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "ID_PRODUCTO", referencedColumnName = "id", nullable = false)
 	private ProductoEntity producto;
 
 	private Date fechaSolicitudGarantia;
 
 	private Date fechaFinGarantia;
 
+	@Column(length = LONGITUD_NOMBRE_CLIENTE)
 	private String nombreCliente;
 
 	private double precio;
 
+	/**
+	 * Nivel del tramo de tarifas con que se emitio la garantia. Se guarda por nombre, asi el orden por nivel en la
+	 * base de datos es el mismo de {@link NivelGarantia}.
+	 */
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private NivelGarantia nivel;
+
 	public Long getId() {
 		return id;
 	}
@@ -58,12 +119,32 @@ public class GarantiaExtendidaEntity {
 		return fechaFinGarantia;
 	}
 
+	public void setFechaFinGarantia(Date fechaFinGarantia) {
+		this.fechaFinGarantia = fechaFinGarantia;
+	}
+
 	public String getNombreCliente() {
 		return nombreCliente;
 	}
 
+	public void setNombreCliente(String nombreCliente) {
+		this.nombreCliente = nombreCliente;
+	}
+
 	public double getPrecio() {
 		return precio;
 	}
 
+	public void setPrecio(double precio) {
+		this.precio = precio;
+	}
+
+	public NivelGarantia getNivel() {
+		return nivel;
+	}
+
+	public void setNivel(NivelGarantia nivel) {
+		this.nivel = nivel;
+	}
+
 }
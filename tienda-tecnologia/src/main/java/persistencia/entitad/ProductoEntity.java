@@ -1,20 +1,50 @@
 package persistencia.entitad;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.QueryHints;
 
 @Entity(name = "Producto")
-@NamedQuery(name = "Producto.findByCodigo", query = "SELECT producto FROM Producto producto WHERE producto.codigo = :codigo")
+@NamedQueries({
+	@NamedQuery(name = "Producto.findByCodigos", query = "SELECT producto FROM Producto producto WHERE producto.codigo IN :codigos", hints = {
+		@QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+		@QueryHint(name = QueryHints.CACHE_REGION, value = "consultas.Producto")
+	})
+})
+@Table(uniqueConstraints = @UniqueConstraint(name = "UK_PRODUCTO_CODIGO", columnNames = "codigo"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class ProductoEntity {
 
+	/**
+	 * La secuencia reserva bloques de identificadores para que la importacion de catalogos no la consulte por
+	 * cada producto. Conserva el nombre de la secuencia que usaba la generacion automatica.
+	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SEQ_PRODUCTO")
+	@SequenceGenerator(name = "SEQ_PRODUCTO", sequenceName = "hibernate_sequence", allocationSize = 50)
 	private Long id;
 
+	/**
+	 * Los productos se buscan por codigo, Hibernate guarda la relacion codigo - id para no repetir la consulta.
+	 */
+	@NaturalId
 	@Column(nullable = false)
 	private String codigo;
 	
@@ -24,6 +54,11 @@ public class ProductoEntity {
 	@Column(nullable = false)
 	private double precio;
 
+	/**
+	 * Se calcula al guardar el producto, es nulo en los productos anteriores hasta completarlos.
+	 */
+	private Integer cantidadVocales;
+
 	public Long getId() {
 		return id;
 	}
@@ -55,5 +90,13 @@ public class ProductoEntity {
 	public void setPrecio(double precio) {
 		this.precio = precio;
 	}
+
+	public Integer getCantidadVocales() {
+		return cantidadVocales;
+	}
+
+	public void setCantidadVocales(Integer cantidadVocales) {
+		this.cantidadVocales = cantidadVocales;
+	}
 	
 }
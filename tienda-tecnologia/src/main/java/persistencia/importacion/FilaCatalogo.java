@@ -0,0 +1,35 @@
+package persistencia.importacion;
+
+/**
+ * Valores de una fila del catalogo tal como vienen en el archivo, sin validar.
+ */
+final class FilaCatalogo {
+
+	private final int linea;
+	private final String codigo;
+	private final String nombre;
+	private final String precio;
+
+	FilaCatalogo(int linea, String codigo, String nombre, String precio) {
+		this.linea = linea;
+		this.codigo = codigo;
+		this.nombre = nombre;
+		this.precio = precio;
+	}
+
+	int getLinea() {
+		return linea;
+	}
+
+	String getCodigo() {
+		return codigo;
+	}
+
+	String getNombre() {
+		return nombre;
+	}
+
+	String getPrecio() {
+		return precio;
+	}
+}
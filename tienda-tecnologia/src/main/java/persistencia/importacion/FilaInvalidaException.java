@@ -0,0 +1,17 @@
+package persistencia.importacion;
+
+public class FilaInvalidaException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int linea;
+
+	public FilaInvalidaException(int linea, String message) {
+		super(message);
+		this.linea = linea;
+	}
+
+	public int getLinea() {
+		return linea;
+	}
+}
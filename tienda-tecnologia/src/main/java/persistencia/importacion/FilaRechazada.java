@@ -0,0 +1,31 @@
+package persistencia.importacion;
+
+/**
+ * Fila del catalogo que no se importo y el motivo.
+ */
+public class FilaRechazada {
+
+	private final int linea;
+	private final String motivo;
+
+	public FilaRechazada(int linea, String motivo) {
+		this.linea = linea;
+		this.motivo = motivo;
+	}
+
+	/**
+	 * @return numero de linea en el archivo, empezando en 1
+	 */
+	public int getLinea() {
+		return linea;
+	}
+
+	public String getMotivo() {
+		return motivo;
+	}
+
+	@Override
+	public String toString() {
+		return "linea " + linea + ": " + motivo;
+	}
+}
@@ -0,0 +1,32 @@
+package persistencia.importacion;
+
+import java.io.BufferedReader;
+
+/**
+ * Formatos de archivo de catalogo que acepta el importador, los dos se leen fila por fila.
+ */
+public enum FormatoCatalogo {
+
+	/**
+	 * Valores separados por coma, con encabezado opcional que indica el orden de las columnas codigo, nombre y
+	 * precio. Sin encabezado se espera ese orden
+	 */
+	CSV {
+		@Override
+		LectorCatalogo crearLector(BufferedReader entrada) {
+			return new LectorCsv(entrada);
+		}
+	},
+
+	/**
+	 * Un objeto JSON por linea con las propiedades codigo, nombre y precio
+	 */
+	JSONL {
+		@Override
+		LectorCatalogo crearLector(BufferedReader entrada) {
+			return new LectorJsonl(entrada);
+		}
+	};
+
+	abstract LectorCatalogo crearLector(BufferedReader entrada);
+}
@@ -0,0 +1,247 @@
+package persistencia.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import dominio.Producto;
+import persistencia.builder.ProductoBuilder;
+import persistencia.conexion.ConexionJPA;
+import persistencia.entitad.ProductoEntity;
+
+/**
+ * Carga catalogos de proveedores con millones de productos. El archivo se lee de a una fila y los productos se
+ * insertan por lotes con una sesion sin estado, cada lote en su propia transaccion, asi la memoria usada depende
+ * del tamano del lote y no del tamano del archivo.
+ */
+public class ImportadorCatalogo {
+
+	public static final String FALTA_EL_CODIGO = "Falta el codigo";
+	public static final String FALTA_EL_NOMBRE = "Falta el nombre";
+	public static final String FALTA_EL_PRECIO = "Falta el precio";
+	public static final String PRECIO_INVALIDO = "Precio invalido: ";
+	public static final String TEXTO_MUY_LARGO = "Supera los 255 caracteres: ";
+	public static final String CODIGO_REPETIDO = "El codigo esta repetido en la linea ";
+	public static final String EL_PRODUCTO_YA_EXISTE = "Ya existe un producto con el codigo ";
+
+	public static final int TAMANO_LOTE_POR_DEFECTO = 1000;
+	public static final int MAXIMO_DIAGNOSTICOS_POR_DEFECTO = 100;
+
+	private static final int LONGITUD_MAXIMA = 255;
+
+	private static final String CODIGOS_EXISTENTES = "SELECT producto.codigo FROM Producto producto WHERE producto.codigo IN :codigos";
+
+	private final ConexionJPA conexion;
+
+	private int tamanoLote = TAMANO_LOTE_POR_DEFECTO;
+	private int maximoDiagnosticos = MAXIMO_DIAGNOSTICOS_POR_DEFECTO;
+	private Consumer<ResultadoImportacion> progreso = resultado -> {
+	};
+
+	public ImportadorCatalogo(ConexionJPA conexion) {
+		this.conexion = conexion;
+	}
+
+	/**
+	 * @param tamanoLote productos que se insertan en cada transaccion
+	 */
+	public ImportadorCatalogo conTamanoLote(int tamanoLote) {
+		if (tamanoLote < 1) {
+			throw new IllegalArgumentException("El tamano del lote debe ser mayor que cero");
+		}
+		this.tamanoLote = tamanoLote;
+		return this;
+	}
+
+	/**
+	 * @param maximoDiagnosticos cantidad de filas rechazadas de las que se guarda la linea y el motivo
+	 */
+	public ImportadorCatalogo conMaximoDiagnosticos(int maximoDiagnosticos) {
+		this.maximoDiagnosticos = maximoDiagnosticos;
+		return this;
+	}
+
+	/**
+	 * @param progreso se llama al guardar cada lote con el avance de la importacion
+	 */
+	public ImportadorCatalogo conProgreso(Consumer<ResultadoImportacion> progreso) {
+		this.progreso = progreso;
+		return this;
+	}
+
+	/**
+	 * Importa un archivo de catalogo en UTF-8
+	 */
+	public ResultadoImportacion importar(Path archivo, FormatoCatalogo formato) throws IOException {
+		try (BufferedReader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+			return importar(entrada, formato);
+		}
+	}
+
+	/**
+	 * Importa los productos validos y rechaza las filas invalidas, repetidas en el archivo o con un codigo que ya
+	 * existe. Los lotes ya guardados quedan guardados aunque la importacion falle despues.
+	 * @param entrada catalogo, no se cierra al terminar
+	 * @return cantidad de productos importados, filas rechazadas con su motivo, duracion y memoria usada
+	 */
+	public ResultadoImportacion importar(Reader entrada, FormatoCatalogo formato) throws IOException {
+
+		LectorCatalogo lector = formato.crearLector(
+				entrada instanceof BufferedReader ? (BufferedReader) entrada : new BufferedReader(entrada));
+		List<ProductoEntity> lote = new ArrayList<>(tamanoLote);
+		Map<String, Integer> lineas = new HashMap<>();
+
+		StatelessSession sesion = conexion.abrirSesionSinEstado();
+		ResultadoImportacion resultado = new ResultadoImportacion(maximoDiagnosticos);
+		try {
+			while (true) {
+
+				ProductoEntity producto;
+				int linea;
+				try {
+					FilaCatalogo fila = lector.siguiente();
+					if (fila == null) {
+						break;
+					}
+					linea = fila.getLinea();
+					producto = convertir(fila);
+				} catch (FilaInvalidaException e) {
+					resultado.rechazar(e.getLinea(), e.getMessage());
+					continue;
+				}
+
+				Integer lineaAnterior = lineas.putIfAbsent(producto.getCodigo(), linea);
+				if (lineaAnterior != null) {
+					resultado.rechazar(linea, CODIGO_REPETIDO + lineaAnterior);
+					continue;
+				}
+
+				lote.add(producto);
+				if (lote.size() == tamanoLote) {
+					guardarLote(sesion, lote, lineas, resultado);
+				}
+			}
+
+			if (!lote.isEmpty()) {
+				guardarLote(sesion, lote, lineas, resultado);
+			}
+		} finally {
+			sesion.close();
+			resultado.terminar();
+			if (resultado.getProductosImportados() > 0) {
+				conexion.invalidarConsultasEnCache();
+			}
+		}
+		return resultado;
+	}
+
+	/**
+	 * Valida la fila y la convierte con el mismo builder que usa el repositorio, que calcula las vocales del codigo
+	 */
+	private static ProductoEntity convertir(FilaCatalogo fila) {
+
+		String codigo = validarTexto(fila.getLinea(), fila.getCodigo(), FALTA_EL_CODIGO);
+		String nombre = validarTexto(fila.getLinea(), fila.getNombre(), FALTA_EL_NOMBRE);
+
+		if (fila.getPrecio() == null || fila.getPrecio().trim().isEmpty()) {
+			throw new FilaInvalidaException(fila.getLinea(), FALTA_EL_PRECIO);
+		}
+		double precio;
+		try {
+			precio = Double.parseDouble(fila.getPrecio().trim());
+		} catch (NumberFormatException e) {
+			throw new FilaInvalidaException(fila.getLinea(), PRECIO_INVALIDO + fila.getPrecio());
+		}
+		if (Double.isNaN(precio) || Double.isInfinite(precio) || precio < 0) {
+			throw new FilaInvalidaException(fila.getLinea(), PRECIO_INVALIDO + fila.getPrecio());
+		}
+
+		return ProductoBuilder.convertirAEntity(new Producto(codigo, nombre, precio));
+	}
+
+	private static String validarTexto(int linea, String valor, String siFalta) {
+
+		String texto = valor == null ? "" : valor.trim();
+		if (texto.isEmpty()) {
+			throw new FilaInvalidaException(linea, siFalta);
+		}
+		if (texto.length() > LONGITUD_MAXIMA) {
+			throw new FilaInvalidaException(linea, TEXTO_MUY_LARGO + texto.substring(0, 20) + "...");
+		}
+		return texto;
+	}
+
+	/**
+	 * Descarta los productos que ya existen e inserta el resto del lote en una transaccion, las inserciones se
+	 * envian en lotes JDBC de hibernate.jdbc.batch_size al confirmarla. Si el lote falla, por ejemplo porque otro
+	 * proceso inserto uno de los codigos, se guarda de a un producto para rechazar solo los que fallan.
+	 */
+	private void guardarLote(StatelessSession sesion, List<ProductoEntity> lote, Map<String, Integer> lineas,
+			ResultadoImportacion resultado) {
+
+		Transaction transaccion = sesion.beginTransaction();
+		try {
+			Set<String> existentes = new HashSet<>(sesion.createQuery(CODIGOS_EXISTENTES, String.class)
+					.setParameterList("codigos", lineas.keySet()).getResultList());
+			for (ProductoEntity producto : lote) {
+				if (existentes.contains(producto.getCodigo())) {
+					resultado.rechazar(lineas.get(producto.getCodigo()), EL_PRODUCTO_YA_EXISTE + producto.getCodigo());
+				} else {
+					sesion.insert(producto);
+				}
+			}
+			transaccion.commit();
+			resultado.registrarLote(lote.size() - existentes.size());
+		} catch (RuntimeException e) {
+			if (transaccion.isActive()) {
+				transaccion.rollback();
+			}
+			guardarDeAUno(sesion, lote, lineas, resultado);
+		}
+
+		lote.clear();
+		lineas.clear();
+		progreso.accept(resultado);
+	}
+
+	private static void guardarDeAUno(StatelessSession sesion, List<ProductoEntity> lote, Map<String, Integer> lineas,
+			ResultadoImportacion resultado) {
+
+		int guardados = 0;
+		for (ProductoEntity producto : lote) {
+			Transaction transaccion = sesion.beginTransaction();
+			try {
+				sesion.insert(producto);
+				transaccion.commit();
+				guardados++;
+			} catch (RuntimeException e) {
+				if (transaccion.isActive()) {
+					transaccion.rollback();
+				}
+				resultado.rechazar(lineas.get(producto.getCodigo()), causa(e));
+			}
+		}
+		resultado.registrarLote(guardados);
+	}
+
+	private static String causa(Throwable error) {
+		Throwable causa = error;
+		while (causa.getCause() != null) {
+			causa = causa.getCause();
+		}
+		return causa.getMessage();
+	}
+}
@@ -0,0 +1,21 @@
+package persistencia.importacion;
+
+import java.io.IOException;
+
+/**
+ * Lee un archivo de catalogo de a una fila, sin cargarlo completo en memoria.
+ */
+interface LectorCatalogo {
+
+	/**
+	 * Longitud maxima de una fila, para que una fila mal formada no cargue el resto del archivo en memoria.
+	 */
+	int MAXIMO_CARACTERES_FILA = 64 * 1024;
+
+	/**
+	 * @return la siguiente fila, null al terminar el archivo
+	 * @throws FilaInvalidaException si la fila no tiene el formato esperado, la siguiente llamada continua con la
+	 * fila que sigue
+	 */
+	FilaCatalogo siguiente() throws IOException;
+}
@@ -0,0 +1,159 @@
+package persistencia.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lee un catalogo CSV de a un registro. Los campos pueden ir entre comillas para incluir comas, comillas dobladas
+ * o saltos de linea; si la primera fila nombra la columna codigo se toma como encabezado.
+ */
+class LectorCsv implements LectorCatalogo {
+
+	public static final String ENCABEZADO_INCOMPLETO = "El encabezado debe tener las columnas codigo, nombre y precio";
+	public static final String COLUMNAS_FALTANTES = "La fila tiene menos columnas que las esperadas: ";
+	public static final String COMILLAS_SIN_CERRAR = "Comillas sin cerrar";
+	public static final String FILA_MUY_LARGA = "La fila supera el maximo de caracteres: ";
+
+	private static final String CODIGO = "codigo";
+	private static final String NOMBRE = "nombre";
+	private static final String PRECIO = "precio";
+
+	private static final char SEPARADOR = ',';
+	private static final char COMILLAS = '"';
+	private static final char MARCA_ORDEN_BYTES = '\uFEFF';
+
+	private final BufferedReader entrada;
+
+	/**
+	 * Se reutilizan en cada registro para no crear objetos por fila.
+	 */
+	private final List<String> campos = new ArrayList<>();
+	private final StringBuilder campo = new StringBuilder();
+
+	private int lineaActual;
+	private boolean primeraFila = true;
+
+	private int columnaCodigo = 0;
+	private int columnaNombre = 1;
+	private int columnaPrecio = 2;
+	private int columnas = 3;
+
+	LectorCsv(BufferedReader entrada) {
+		this.entrada = entrada;
+	}
+
+	@Override
+	public FilaCatalogo siguiente() throws IOException {
+
+		String texto;
+		while ((texto = entrada.readLine()) != null) {
+
+			lineaActual++;
+			int linea = lineaActual;
+			if (linea == 1 && !texto.isEmpty() && texto.charAt(0) == MARCA_ORDEN_BYTES) {
+				texto = texto.substring(1);
+			}
+			if (texto.trim().isEmpty()) {
+				continue;
+			}
+
+			separarCampos(texto, linea);
+
+			if (primeraFila) {
+				primeraFila = false;
+				if (esEncabezado()) {
+					leerEncabezado();
+					continue;
+				}
+			}
+
+			if (campos.size() < columnas) {
+				throw new FilaInvalidaException(linea, COLUMNAS_FALTANTES + campos.size() + " de " + columnas);
+			}
+			return new FilaCatalogo(linea, campos.get(columnaCodigo), campos.get(columnaNombre), campos.get(columnaPrecio));
+		}
+		return null;
+	}
+
+	/**
+	 * Separa el registro que empieza en el texto, si un campo entre comillas tiene saltos de linea sigue leyendo
+	 * las lineas siguientes.
+	 */
+	private void separarCampos(String texto, int linea) throws IOException {
+
+		campos.clear();
+		campo.setLength(0);
+
+		boolean entreComillas = false;
+		int caracteres = texto.length();
+		int posicion = 0;
+
+		while (true) {
+
+			if (posicion == texto.length()) {
+				if (!entreComillas) {
+					break;
+				}
+				texto = entrada.readLine();
+				if (texto == null) {
+					throw new FilaInvalidaException(linea, COMILLAS_SIN_CERRAR);
+				}
+				lineaActual++;
+				caracteres += texto.length() + 1;
+				if (caracteres > MAXIMO_CARACTERES_FILA) {
+					throw new FilaInvalidaException(linea, FILA_MUY_LARGA + MAXIMO_CARACTERES_FILA);
+				}
+				campo.append('\n');
+				posicion = 0;
+				continue;
+			}
+
+			char caracter = texto.charAt(posicion++);
+			if (entreComillas) {
+				if (caracter != COMILLAS) {
+					campo.append(caracter);
+				} else if (posicion < texto.length() && texto.charAt(posicion) == COMILLAS) {
+					campo.append(COMILLAS);
+					posicion++;
+				} else {
+					entreComillas = false;
+				}
+			} else if (caracter == COMILLAS) {
+				entreComillas = true;
+			} else if (caracter == SEPARADOR) {
+				campos.add(campo.toString());
+				campo.setLength(0);
+			} else {
+				campo.append(caracter);
+			}
+		}
+		campos.add(campo.toString());
+	}
+
+	private boolean esEncabezado() {
+		return indiceColumna(CODIGO) >= 0;
+	}
+
+	private void leerEncabezado() {
+
+		columnaCodigo = indiceColumna(CODIGO);
+		columnaNombre = indiceColumna(NOMBRE);
+		columnaPrecio = indiceColumna(PRECIO);
+
+		if (columnaNombre < 0 || columnaPrecio < 0) {
+			throw new IllegalArgumentException(ENCABEZADO_INCOMPLETO);
+		}
+		columnas = Math.max(columnaCodigo, Math.max(columnaNombre, columnaPrecio)) + 1;
+	}
+
+	private int indiceColumna(String nombre) {
+		for (int i = 0; i < campos.size(); i++) {
+			if (campos.get(i).trim().equalsIgnoreCase(nombre)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,215 @@
+package persistencia.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Lee un catalogo con un objeto JSON por linea. Solo se aceptan objetos planos, las propiedades distintas de
+ * codigo, nombre y precio se ignoran y el precio puede venir como numero o como texto.
+ */
+class LectorJsonl implements LectorCatalogo {
+
+	public static final String JSON_INVALIDO = "JSON invalido en la posicion ";
+	public static final String VALOR_NO_SOPORTADO = "Solo se aceptan valores simples en la propiedad ";
+	public static final String FILA_MUY_LARGA = "La fila supera el maximo de caracteres: ";
+
+	private static final String CODIGO = "codigo";
+	private static final String NOMBRE = "nombre";
+	private static final String PRECIO = "precio";
+
+	private final BufferedReader entrada;
+
+	/**
+	 * Texto que se esta leyendo, se reutiliza para no crear objetos por fila.
+	 */
+	private final StringBuilder valor = new StringBuilder();
+	private String texto;
+	private int posicion;
+	private int lineaActual;
+
+	LectorJsonl(BufferedReader entrada) {
+		this.entrada = entrada;
+	}
+
+	@Override
+	public FilaCatalogo siguiente() throws IOException {
+
+		String linea;
+		while ((linea = entrada.readLine()) != null) {
+
+			lineaActual++;
+			if (linea.trim().isEmpty()) {
+				continue;
+			}
+			if (linea.length() > MAXIMO_CARACTERES_FILA) {
+				throw new FilaInvalidaException(lineaActual, FILA_MUY_LARGA + MAXIMO_CARACTERES_FILA);
+			}
+			return leerObjeto(linea);
+		}
+		return null;
+	}
+
+	private FilaCatalogo leerObjeto(String linea) {
+
+		texto = linea;
+		posicion = 0;
+		String codigo = null;
+		String nombre = null;
+		String precio = null;
+
+		esperar('{');
+		saltarEspacios();
+		if (actual() == '}') {
+			posicion++;
+		} else {
+			while (true) {
+				saltarEspacios();
+				String propiedad = leerTexto();
+				esperar(':');
+				String contenido = leerValor(propiedad);
+
+				if (CODIGO.equals(propiedad)) {
+					codigo = contenido;
+				} else if (NOMBRE.equals(propiedad)) {
+					nombre = contenido;
+				} else if (PRECIO.equals(propiedad)) {
+					precio = contenido;
+				}
+
+				saltarEspacios();
+				char separador = actual();
+				posicion++;
+				if (separador == '}') {
+					break;
+				}
+				if (separador != ',') {
+					throw invalido(posicion - 1);
+				}
+			}
+		}
+
+		saltarEspacios();
+		if (posicion < texto.length()) {
+			throw invalido(posicion);
+		}
+		return new FilaCatalogo(lineaActual, codigo, nombre, precio);
+	}
+
+	/**
+	 * @return el texto de una cadena, el literal de un numero o de true y false, null para el literal null
+	 */
+	private String leerValor(String propiedad) {
+
+		saltarEspacios();
+		char inicio = actual();
+		if (inicio == '"') {
+			return leerTexto();
+		}
+		if (inicio == '{' || inicio == '[') {
+			throw new FilaInvalidaException(lineaActual, VALOR_NO_SOPORTADO + propiedad);
+		}
+
+		int desde = posicion;
+		while (posicion < texto.length() && esParteDeLiteral(texto.charAt(posicion))) {
+			posicion++;
+		}
+		if (desde == posicion) {
+			throw invalido(posicion);
+		}
+		String literal = texto.substring(desde, posicion);
+		return "null".equals(literal) ? null : literal;
+	}
+
+	private String leerTexto() {
+
+		esperar('"');
+		valor.setLength(0);
+		while (true) {
+			char caracter = actual();
+			posicion++;
+			if (caracter == '"') {
+				return valor.toString();
+			}
+			if (caracter != '\\') {
+				valor.append(caracter);
+				continue;
+			}
+
+			char escape = actual();
+			posicion++;
+			switch (escape) {
+			case 'b':
+				valor.append('\b');
+				break;
+			case 'f':
+				valor.append('\f');
+				break;
+			case 'n':
+				valor.append('\n');
+				break;
+			case 'r':
+				valor.append('\r');
+				break;
+			case 't':
+				valor.append('\t');
+				break;
+			case 'u':
+				valor.append(leerUnicode());
+				break;
+			case '"':
+			case '\\':
+			case '/':
+				valor.append(escape);
+				break;
+			default:
+				throw invalido(posicion - 1);
+			}
+		}
+	}
+
+	private char leerUnicode() {
+
+		if (posicion + 4 > texto.length()) {
+			throw invalido(posicion);
+		}
+		try {
+			char caracter = (char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16);
+			posicion += 4;
+			return caracter;
+		} catch (NumberFormatException e) {
+			throw invalido(posicion);
+		}
+	}
+
+	private static boolean esParteDeLiteral(char caracter) {
+		return Character.isLetterOrDigit(caracter) || caracter == '-' || caracter == '+' || caracter == '.';
+	}
+
+	private void esperar(char esperado) {
+		saltarEspacios();
+		if (actual() != esperado) {
+			throw invalido(posicion);
+		}
+		posicion++;
+	}
+
+	private void saltarEspacios() {
+		while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+			posicion++;
+		}
+	}
+
+	/**
+	 * @return el caracter en la posicion actual, si la linea termino la fila es invalida
+	 */
+	private char actual() {
+		if (posicion >= texto.length()) {
+			throw invalido(posicion);
+		}
+		return texto.charAt(posicion);
+	}
+
+	private FilaInvalidaException invalido(int enPosicion) {
+		return new FilaInvalidaException(lineaActual, JSON_INVALIDO + (enPosicion + 1));
+	}
+}
@@ -0,0 +1,97 @@
+package persistencia.importacion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Avance y resultado de una importacion de catalogo. Guarda el detalle solo de las primeras filas rechazadas,
+ * de las demas solo la cantidad, para que un archivo con muchos errores no llene la memoria.
+ */
+public class ResultadoImportacion {
+
+	private final int maximoDiagnosticos;
+	private final List<FilaRechazada> diagnosticos = new ArrayList<>();
+	private final long inicio = System.nanoTime();
+
+	private long productosImportados;
+	private long filasRechazadas;
+	private long lotes;
+	private long nanosegundos;
+	private long memoriaMaxima;
+
+	ResultadoImportacion(int maximoDiagnosticos) {
+		this.maximoDiagnosticos = maximoDiagnosticos;
+	}
+
+	void rechazar(int linea, String motivo) {
+		filasRechazadas++;
+		if (diagnosticos.size() < maximoDiagnosticos) {
+			diagnosticos.add(new FilaRechazada(linea, motivo));
+		}
+	}
+
+	/**
+	 * Registra un lote guardado y toma una muestra de la memoria usada
+	 */
+	void registrarLote(int productos) {
+		productosImportados += productos;
+		lotes++;
+		Runtime runtime = Runtime.getRuntime();
+		memoriaMaxima = Math.max(memoriaMaxima, runtime.totalMemory() - runtime.freeMemory());
+		nanosegundos = System.nanoTime() - inicio;
+	}
+
+	void terminar() {
+		nanosegundos = System.nanoTime() - inicio;
+	}
+
+	/**
+	 * @return filas con datos leidas del archivo, las importadas mas las rechazadas
+	 */
+	public long getFilasLeidas() {
+		return productosImportados + filasRechazadas;
+	}
+
+	public long getProductosImportados() {
+		return productosImportados;
+	}
+
+	public long getFilasRechazadas() {
+		return filasRechazadas;
+	}
+
+	/**
+	 * @return las primeras filas rechazadas con su motivo, como maximo las configuradas en el importador
+	 */
+	public List<FilaRechazada> getDiagnosticos() {
+		return Collections.unmodifiableList(diagnosticos);
+	}
+
+	public long getLotes() {
+		return lotes;
+	}
+
+	public long getMilisegundos() {
+		return TimeUnit.NANOSECONDS.toMillis(nanosegundos);
+	}
+
+	public double getFilasPorSegundo() {
+		return nanosegundos == 0 ? 0 : getFilasLeidas() * (double) TimeUnit.SECONDS.toNanos(1) / nanosegundos;
+	}
+
+	/**
+	 * @return la mayor memoria de heap en uso medida al terminar cada lote, en bytes
+	 */
+	public long getMemoriaMaximaBytes() {
+		return memoriaMaxima;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d filas leidas, %d importadas, %d rechazadas en %d lotes, %d ms, %.0f filas/s, "
+				+ "memoria maxima %d MB", getFilasLeidas(), productosImportados, filasRechazadas, lotes,
+				getMilisegundos(), getFilasPorSegundo(), memoriaMaxima / (1024 * 1024));
+	}
+}
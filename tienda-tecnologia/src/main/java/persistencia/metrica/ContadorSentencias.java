@@ -0,0 +1,44 @@
+package persistencia.metrica;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que prepara Hibernate, en total y por hilo. Como JDBC ejecuta cada sentencia en
+ * el hilo que la pide, la diferencia del contador del hilo antes y despues de una operacion son las sentencias
+ * de esa operacion aunque otros hilos usen la base de datos al mismo tiempo.
+ */
+public final class ContadorSentencias implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Se usa siempre la misma instancia para que las conexiones con metricas compartan la fabrica.
+	 */
+	public static final ContadorSentencias INSTANCIA = new ContadorSentencias();
+
+	private static final ThreadLocal<long[]> DEL_HILO = ThreadLocal.withInitial(() -> new long[1]);
+
+	private final LongAdder total = new LongAdder();
+
+	private ContadorSentencias() {}
+
+	@Override
+	public String inspect(String sql) {
+		DEL_HILO.get()[0]++;
+		total.increment();
+		return sql;
+	}
+
+	/**
+	 * @return sentencias preparadas desde el hilo actual desde que inicio el proceso
+	 */
+	public static long delHilo() {
+		return DEL_HILO.get()[0];
+	}
+
+	public long getTotal() {
+		return total.sum();
+	}
+}
@@ -0,0 +1,85 @@
+package persistencia.metrica;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import dominio.metrica.HistogramaLatencia;
+
+public class MetricaOperacion implements MetricaOperacionMBean {
+
+	private static final double NANOS_POR_MICRO = 1000.0;
+
+	private final HistogramaLatencia latencia = new HistogramaLatencia();
+	private final LongAdder sentenciasSql = new LongAdder();
+
+	public void registrar(long nanos) {
+		latencia.registrar(nanos);
+	}
+
+	/**
+	 * Registra una llamada que empezo en inicio, segun System.nanoTime(), cuando el hilo llevaba
+	 * sentenciasAlInicio sentencias segun {@link ContadorSentencias#delHilo()}
+	 */
+	public void registrarDesde(long inicio, long sentenciasAlInicio) {
+		latencia.registrar(System.nanoTime() - inicio);
+		long sentencias = ContadorSentencias.delHilo() - sentenciasAlInicio;
+		if (sentencias > 0) {
+			sentenciasSql.add(sentencias);
+		}
+	}
+
+	public HistogramaLatencia getHistograma() {
+		return latencia;
+	}
+
+	@Override
+	public long getLlamadas() {
+		return latencia.getCantidad();
+	}
+
+	@Override
+	public double getLatenciaPromedio() {
+		return latencia.getPromedio() / NANOS_POR_MICRO;
+	}
+
+	@Override
+	public double getLatenciaP50() {
+		return latencia.percentil(50) / NANOS_POR_MICRO;
+	}
+
+	@Override
+	public double getLatenciaP90() {
+		return latencia.percentil(90) / NANOS_POR_MICRO;
+	}
+
+	@Override
+	public double getLatenciaP99() {
+		return latencia.percentil(99) / NANOS_POR_MICRO;
+	}
+
+	@Override
+	public double getLatenciaP999() {
+		return latencia.percentil(99.9) / NANOS_POR_MICRO;
+	}
+
+	@Override
+	public double getLatenciaMaxima() {
+		return latencia.getMaximo() / NANOS_POR_MICRO;
+	}
+
+	@Override
+	public long getSentenciasSql() {
+		return sentenciasSql.sum();
+	}
+
+	@Override
+	public double getSentenciasSqlPorLlamada() {
+		long llamadas = latencia.getCantidad();
+		return llamadas == 0 ? 0 : (double) sentenciasSql.sum() / llamadas;
+	}
+
+	@Override
+	public void reiniciar() {
+		latencia.reiniciar();
+		sentenciasSql.reset();
+	}
+}
@@ -0,0 +1,27 @@
+package persistencia.metrica;
+
+/**
+ * Latencia y sentencias SQL de una operacion, expuestas por JMX. Las latencias estan en microsegundos.
+ */
+public interface MetricaOperacionMBean {
+
+	long getLlamadas();
+
+	double getLatenciaPromedio();
+
+	double getLatenciaP50();
+
+	double getLatenciaP90();
+
+	double getLatenciaP99();
+
+	double getLatenciaP999();
+
+	double getLatenciaMaxima();
+
+	long getSentenciasSql();
+
+	double getSentenciasSqlPorLlamada();
+
+	void reiniciar();
+}
@@ -0,0 +1,29 @@
+package persistencia.metrica;
+
+import dominio.metrica.EtapaGarantia;
+import dominio.metrica.MetricasGarantia;
+
+/**
+ * Una metrica por etapa de la generacion de garantias, registradas con tipo Vendedor.
+ */
+public class MetricasEtapasGarantia implements MetricasGarantia {
+
+	public static final String TIPO = "Vendedor";
+
+	private final MetricaOperacion[] etapas = new MetricaOperacion[EtapaGarantia.values().length];
+
+	public MetricasEtapasGarantia(RegistroMetricas registro) {
+		for (EtapaGarantia etapa : EtapaGarantia.values()) {
+			etapas[etapa.ordinal()] = registro.crearMetrica(TIPO, etapa.name());
+		}
+	}
+
+	@Override
+	public void registrar(EtapaGarantia etapa, long nanos) {
+		etapas[etapa.ordinal()].registrar(nanos);
+	}
+
+	public MetricaOperacion obtener(EtapaGarantia etapa) {
+		return etapas[etapa.ordinal()];
+	}
+}
@@ -0,0 +1,82 @@
+package persistencia.metrica;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registra las metricas de un sistema de persistencia como MBeans, con nombres
+ * tienda:sistema=N,tipo=...,nombre=... para distinguir varios sistemas en el mismo proceso.
+ */
+public class RegistroMetricas {
+
+	public static final String DOMINIO = "tienda";
+	public static final String REGISTRO_FALLIDO = "No se pudo registrar la metrica ";
+
+	private static final AtomicInteger sistemas = new AtomicInteger();
+
+	private final MBeanServer servidor;
+	private final int sistema;
+	private final List<ObjectName> registrados = new ArrayList<>();
+
+	public RegistroMetricas() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	public RegistroMetricas(MBeanServer servidor) {
+		this.servidor = servidor;
+		this.sistema = sistemas.incrementAndGet();
+	}
+
+	/**
+	 * Crea y registra la metrica de una operacion
+	 * @param tipo componente al que pertenece la operacion
+	 * @param nombre nombre de la operacion
+	 */
+	public MetricaOperacion crearMetrica(String tipo, String nombre) {
+		MetricaOperacion metrica = new MetricaOperacion();
+		registrar(tipo, nombre, metrica);
+		return metrica;
+	}
+
+	public synchronized ObjectName registrar(String tipo, String nombre, Object mbean) {
+		try {
+			ObjectName nombreObjeto = new ObjectName(DOMINIO + ":sistema=" + sistema + ",tipo=" + tipo
+					+ ",nombre=" + nombre);
+			servidor.registerMBean(mbean, nombreObjeto);
+			registrados.add(nombreObjeto);
+			return nombreObjeto;
+		} catch (JMException e) {
+			throw new IllegalStateException(REGISTRO_FALLIDO + tipo + "." + nombre, e);
+		}
+	}
+
+	public synchronized List<ObjectName> getRegistrados() {
+		return new ArrayList<>(registrados);
+	}
+
+	public MBeanServer getServidor() {
+		return servidor;
+	}
+
+	/**
+	 * Quita los MBeans registrados, las metricas siguen acumulando pero ya no se ven por JMX
+	 */
+	public synchronized void cerrar() {
+		for (ObjectName nombreObjeto : registrados) {
+			try {
+				servidor.unregisterMBean(nombreObjeto);
+			} catch (JMException e) {
+				/**
+				 * Ya se quito desde afuera.
+				 */
+			}
+		}
+		registrados.clear();
+	}
+}
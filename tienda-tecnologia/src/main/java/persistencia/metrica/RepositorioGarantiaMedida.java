@@ -0,0 +1,117 @@
+package persistencia.metrica;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.VencimientoGarantia;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+
+/**
+ * Mide la latencia y las sentencias SQL de cada operacion del repositorio de garantias.
+ */
+public class RepositorioGarantiaMedida implements RepositorioGarantiaExtendida {
+
+	public static final String TIPO = "RepositorioGarantia";
+
+	private final RepositorioGarantiaExtendida repositorioGarantia;
+	private final MetricaOperacion obtenerProductoConGarantiaPorCodigo;
+	private final MetricaOperacion obtenerEstadoGarantia;
+	private final MetricaOperacion agregar;
+	private final MetricaOperacion agregarTodas;
+	private final MetricaOperacion obtenerCodigosConGarantia;
+	private final MetricaOperacion obtener;
+	private final MetricaOperacion obtenerVencimientos;
+
+	public RepositorioGarantiaMedida(RepositorioGarantiaExtendida repositorioGarantia, RegistroMetricas registro) {
+		this.repositorioGarantia = repositorioGarantia;
+		this.obtenerProductoConGarantiaPorCodigo = registro.crearMetrica(TIPO, "obtenerProductoConGarantiaPorCodigo");
+		this.obtenerEstadoGarantia = registro.crearMetrica(TIPO, "obtenerEstadoGarantia");
+		this.agregar = registro.crearMetrica(TIPO, "agregar");
+		this.agregarTodas = registro.crearMetrica(TIPO, "agregarTodas");
+		this.obtenerCodigosConGarantia = registro.crearMetrica(TIPO, "obtenerCodigosConGarantia");
+		this.obtener = registro.crearMetrica(TIPO, "obtener");
+		this.obtenerVencimientos = registro.crearMetrica(TIPO, "obtenerVencimientos");
+	}
+
+	@Override
+	public Producto obtenerProductoConGarantiaPorCodigo(String codigo) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioGarantia.obtenerProductoConGarantiaPorCodigo(codigo);
+		} finally {
+			obtenerProductoConGarantiaPorCodigo.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public EstadoGarantiaProducto obtenerEstadoGarantia(String codigo) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioGarantia.obtenerEstadoGarantia(codigo);
+		} finally {
+			obtenerEstadoGarantia.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public void agregar(GarantiaExtendida garantia) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			repositorioGarantia.agregar(garantia);
+		} finally {
+			agregar.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public void agregarTodas(List<GarantiaExtendida> garantias) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			repositorioGarantia.agregarTodas(garantias);
+		} finally {
+			agregarTodas.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public Set<String> obtenerCodigosConGarantia(Collection<String> codigos) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioGarantia.obtenerCodigosConGarantia(codigos);
+		} finally {
+			obtenerCodigosConGarantia.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public GarantiaExtendida obtener(String codigo) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioGarantia.obtener(codigo);
+		} finally {
+			obtener.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioGarantia.obtenerVencimientos(desde, hasta);
+		} finally {
+			obtenerVencimientos.registrarDesde(inicio, sentencias);
+		}
+	}
+}
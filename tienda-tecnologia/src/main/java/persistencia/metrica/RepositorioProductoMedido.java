@@ -0,0 +1,73 @@
+package persistencia.metrica;
+
+import java.util.Collection;
+import java.util.Map;
+
+import dominio.Producto;
+import dominio.repositorio.RepositorioProducto;
+
+/**
+ * Mide la latencia y las sentencias SQL de cada operacion del repositorio de productos.
+ */
+public class RepositorioProductoMedido implements RepositorioProducto {
+
+	public static final String TIPO = "RepositorioProducto";
+
+	private final RepositorioProducto repositorioProducto;
+	private final MetricaOperacion obtenerPorCodigo;
+	private final MetricaOperacion obtenerPorCodigos;
+	private final MetricaOperacion agregar;
+	private final MetricaOperacion validarTresVocales;
+
+	public RepositorioProductoMedido(RepositorioProducto repositorioProducto, RegistroMetricas registro) {
+		this.repositorioProducto = repositorioProducto;
+		this.obtenerPorCodigo = registro.crearMetrica(TIPO, "obtenerPorCodigo");
+		this.obtenerPorCodigos = registro.crearMetrica(TIPO, "obtenerPorCodigos");
+		this.agregar = registro.crearMetrica(TIPO, "agregar");
+		this.validarTresVocales = registro.crearMetrica(TIPO, "validarTresVocales");
+	}
+
+	@Override
+	public Producto obtenerPorCodigo(String codigo) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioProducto.obtenerPorCodigo(codigo);
+		} finally {
+			obtenerPorCodigo.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public Map<String, Producto> obtenerPorCodigos(Collection<String> codigos) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioProducto.obtenerPorCodigos(codigos);
+		} finally {
+			obtenerPorCodigos.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public void agregar(Producto producto) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			repositorioProducto.agregar(producto);
+		} finally {
+			agregar.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	@Override
+	public boolean validarTresVocales(String codigo) {
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return repositorioProducto.validarTresVocales(codigo);
+		} finally {
+			validarTresVocales.registrarDesde(inicio, sentencias);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package persistencia.metrica;
+
+import java.util.function.Supplier;
+
+import org.hibernate.stat.Statistics;
+
+public class SentenciasSql implements SentenciasSqlMBean {
+
+	private final Supplier<Statistics> estadisticas;
+
+	/**
+	 * @param estadisticas estadisticas de la fabrica de Hibernate, null con repositorios en memoria
+	 */
+	public SentenciasSql(Supplier<Statistics> estadisticas) {
+		this.estadisticas = estadisticas;
+	}
+
+	@Override
+	public long getSentenciasPreparadas() {
+		return ContadorSentencias.INSTANCIA.getTotal();
+	}
+
+	@Override
+	public long getSentenciasPreparadasHibernate() {
+		Statistics activas = activas();
+		return activas == null ? -1 : activas.getPrepareStatementCount();
+	}
+
+	@Override
+	public long getConsultasHibernate() {
+		Statistics activas = activas();
+		return activas == null ? -1 : activas.getQueryExecutionCount();
+	}
+
+	@Override
+	public String getConsultaMasLentaHibernate() {
+		Statistics activas = activas();
+		if (activas == null || activas.getQueryExecutionMaxTimeQueryString() == null) {
+			return "";
+		}
+		return activas.getQueryExecutionMaxTime() + " ms: " + activas.getQueryExecutionMaxTimeQueryString();
+	}
+
+	private Statistics activas() {
+		if (estadisticas == null) {
+			return null;
+		}
+		Statistics actuales = estadisticas.get();
+		return actuales.isStatisticsEnabled() ? actuales : null;
+	}
+}
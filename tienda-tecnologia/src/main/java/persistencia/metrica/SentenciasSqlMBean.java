@@ -0,0 +1,27 @@
+package persistencia.metrica;
+
+/**
+ * Totales de sentencias SQL del proceso, expuestos por JMX.
+ */
+public interface SentenciasSqlMBean {
+
+	/**
+	 * @return sentencias preparadas por todas las conexiones con metricas del proceso
+	 */
+	long getSentenciasPreparadas();
+
+	/**
+	 * @return sentencias preparadas segun las estadisticas de Hibernate, -1 si las estadisticas no estan activas
+	 */
+	long getSentenciasPreparadasHibernate();
+
+	/**
+	 * @return consultas ejecutadas segun las estadisticas de Hibernate, -1 si las estadisticas no estan activas
+	 */
+	long getConsultasHibernate();
+
+	/**
+	 * @return consulta mas lenta segun las estadisticas de Hibernate, vacio si no hay
+	 */
+	String getConsultaMasLentaHibernate();
+}
@@ -0,0 +1,16 @@
+package persistencia.reporte;
+
+import java.io.IOException;
+
+/**
+ * Formato en el que se escriben las garantias exportadas, recibe una garantia a la vez.
+ */
+interface DestinoExportacion {
+
+	void escribir(GarantiaExportada garantia) throws IOException;
+
+	/**
+	 * Escribe lo que quede pendiente, la salida no se cierra
+	 */
+	void terminar() throws IOException;
+}
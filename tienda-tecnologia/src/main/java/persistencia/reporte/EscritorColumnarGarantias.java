@@ -0,0 +1,120 @@
+package persistencia.reporte;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Escribe las garantias en el formato de {@link FormatoColumnar}. Solo se guarda en memoria el bloque actual.
+ */
+class EscritorColumnarGarantias implements DestinoExportacion {
+
+	private final DataOutputStream salida;
+
+	private final long[] ids;
+	private final String[] codigosProducto;
+	private final String[] nombresProducto;
+	private final Date[] fechasSolicitud;
+	private final Date[] fechasFin;
+	private final String[] nombresCliente;
+	private final double[] precios;
+	private int filas;
+
+	EscritorColumnarGarantias(OutputStream salida, int tamanoBloque) throws IOException {
+
+		this.salida = new DataOutputStream(new BufferedOutputStream(salida));
+		this.ids = new long[tamanoBloque];
+		this.codigosProducto = new String[tamanoBloque];
+		this.nombresProducto = new String[tamanoBloque];
+		this.fechasSolicitud = new Date[tamanoBloque];
+		this.fechasFin = new Date[tamanoBloque];
+		this.nombresCliente = new String[tamanoBloque];
+		this.precios = new double[tamanoBloque];
+
+		this.salida.write(FormatoColumnar.FIRMA);
+		this.salida.writeByte(FormatoColumnar.VERSION);
+	}
+
+	@Override
+	public void escribir(GarantiaExportada garantia) throws IOException {
+
+		ids[filas] = garantia.getId();
+		codigosProducto[filas] = garantia.getCodigoProducto();
+		nombresProducto[filas] = garantia.getNombreProducto();
+		fechasSolicitud[filas] = garantia.getFechaSolicitudGarantia();
+		fechasFin[filas] = garantia.getFechaFinGarantia();
+		nombresCliente[filas] = garantia.getNombreCliente();
+		precios[filas] = garantia.getPrecio();
+		filas++;
+
+		if (filas == ids.length) {
+			escribirBloque();
+		}
+	}
+
+	@Override
+	public void terminar() throws IOException {
+		if (filas > 0) {
+			escribirBloque();
+		}
+		salida.writeInt(FormatoColumnar.FIN);
+		salida.flush();
+	}
+
+	private void escribirBloque() throws IOException {
+
+		salida.writeInt(filas);
+
+		long anterior = 0;
+		for (int i = 0; i < filas; i++) {
+			FormatoColumnar.escribirEntero(salida, ids[i] - anterior);
+			anterior = ids[i];
+		}
+		escribirTextos(codigosProducto);
+		escribirTextos(nombresProducto);
+		escribirFechas(fechasSolicitud);
+		escribirFechas(fechasFin);
+		escribirTextos(nombresCliente);
+		for (int i = 0; i < filas; i++) {
+			salida.writeDouble(precios[i]);
+		}
+
+		/**
+		 * Se sueltan las referencias para que el bloque no retenga los objetos de las filas ya escritas
+		 */
+		Arrays.fill(codigosProducto, 0, filas, null);
+		Arrays.fill(nombresProducto, 0, filas, null);
+		Arrays.fill(fechasSolicitud, 0, filas, null);
+		Arrays.fill(fechasFin, 0, filas, null);
+		Arrays.fill(nombresCliente, 0, filas, null);
+		filas = 0;
+	}
+
+	private void escribirTextos(String[] columna) throws IOException {
+		for (int i = 0; i < filas; i++) {
+			FormatoColumnar.escribirTexto(salida, columna[i]);
+		}
+	}
+
+	private void escribirFechas(Date[] columna) throws IOException {
+
+		byte[] nulos = new byte[(filas + 7) / 8];
+		for (int i = 0; i < filas; i++) {
+			if (columna[i] == null) {
+				nulos[i / 8] |= 1 << (i % 8);
+			}
+		}
+		salida.write(nulos);
+
+		long anterior = 0;
+		for (int i = 0; i < filas; i++) {
+			if (columna[i] != null) {
+				FormatoColumnar.escribirEntero(salida, columna[i].getTime() - anterior);
+				anterior = columna[i].getTime();
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package persistencia.reporte;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+
+/**
+ * Escribe las garantias en CSV con encabezado. Las fechas van en formato ISO 8601 en UTC y los textos con comas,
+ * comillas o saltos de linea van entre comillas.
+ */
+class EscritorCsvGarantias implements DestinoExportacion {
+
+	static final String ENCABEZADO = "id,codigoProducto,nombreProducto,fechaSolicitudGarantia,fechaFinGarantia,nombreCliente,precio";
+
+	private final Writer salida;
+	private boolean encabezadoEscrito;
+
+	EscritorCsvGarantias(Writer salida) {
+		this.salida = salida;
+	}
+
+	@Override
+	public void escribir(GarantiaExportada garantia) throws IOException {
+
+		escribirEncabezado();
+		salida.write(Long.toString(garantia.getId()));
+		salida.write(',');
+		escribirTexto(garantia.getCodigoProducto());
+		salida.write(',');
+		escribirTexto(garantia.getNombreProducto());
+		salida.write(',');
+		escribirFecha(garantia.getFechaSolicitudGarantia());
+		salida.write(',');
+		escribirFecha(garantia.getFechaFinGarantia());
+		salida.write(',');
+		escribirTexto(garantia.getNombreCliente());
+		salida.write(',');
+		salida.write(Double.toString(garantia.getPrecio()));
+		salida.write('\n');
+	}
+
+	@Override
+	public void terminar() throws IOException {
+		escribirEncabezado();
+		salida.flush();
+	}
+
+	private void escribirEncabezado() throws IOException {
+		if (!encabezadoEscrito) {
+			salida.write(ENCABEZADO);
+			salida.write('\n');
+			encabezadoEscrito = true;
+		}
+	}
+
+	private void escribirFecha(Date fecha) throws IOException {
+		if (fecha != null) {
+			salida.write(fecha.toInstant().toString());
+		}
+	}
+
+	private void escribirTexto(String texto) throws IOException {
+
+		if (texto == null) {
+			return;
+		}
+		if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+			salida.write(texto);
+			return;
+		}
+		salida.write('"');
+		salida.write(texto.replace("\"", "\"\""));
+		salida.write('"');
+	}
+}
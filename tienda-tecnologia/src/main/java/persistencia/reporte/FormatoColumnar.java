@@ -0,0 +1,77 @@
+package persistencia.reporte;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Archivo binario de garantias organizado por columnas. Las filas se agrupan en bloques y dentro de cada bloque
+ * se escriben una columna despues de otra, asi los valores parecidos quedan juntos:
+ * <pre>
+ * cabecera: "GARC", version (1 byte)
+ * bloque:   filas (int), id, codigoProducto, nombreProducto, fechaSolicitudGarantia, fechaFinGarantia,
+ *           nombreCliente, precio
+ * final:    0 (int)
+ * </pre>
+ * Los id y las fechas se guardan como diferencia con el valor anterior del bloque, en enteros de longitud variable;
+ * las fechas nulas se marcan en un mapa de bits antes de la columna. Los textos llevan su longitud en bytes mas uno,
+ * 0 para null, y su contenido en UTF-8. El precio va en 8 bytes.
+ */
+final class FormatoColumnar {
+
+	static final byte[] FIRMA = { 'G', 'A', 'R', 'C' };
+	static final int VERSION = 1;
+	static final int FIN = 0;
+
+	private FormatoColumnar() {
+	}
+
+	static void escribirEntero(DataOutput salida, long valor) throws IOException {
+
+		/**
+		 * Codificacion zigzag para que las diferencias negativas pequenas tambien ocupen pocos bytes
+		 */
+		long sinSigno = (valor << 1) ^ (valor >> 63);
+		while ((sinSigno & ~0x7FL) != 0) {
+			salida.writeByte((int) ((sinSigno & 0x7F) | 0x80));
+			sinSigno >>>= 7;
+		}
+		salida.writeByte((int) sinSigno);
+	}
+
+	static long leerEntero(DataInput entrada) throws IOException {
+
+		long sinSigno = 0;
+		for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+			int octeto = entrada.readUnsignedByte();
+			sinSigno |= (long) (octeto & 0x7F) << desplazamiento;
+			if ((octeto & 0x80) == 0) {
+				return (sinSigno >>> 1) ^ -(sinSigno & 1);
+			}
+		}
+		throw new IOException("Entero mal codificado");
+	}
+
+	static void escribirTexto(DataOutput salida, String texto) throws IOException {
+
+		if (texto == null) {
+			escribirEntero(salida, 0);
+			return;
+		}
+		byte[] contenido = texto.getBytes(StandardCharsets.UTF_8);
+		escribirEntero(salida, contenido.length + 1L);
+		salida.write(contenido);
+	}
+
+	static String leerTexto(DataInput entrada) throws IOException {
+
+		long longitud = leerEntero(entrada);
+		if (longitud == 0) {
+			return null;
+		}
+		byte[] contenido = new byte[(int) longitud - 1];
+		entrada.readFully(contenido);
+		return new String(contenido, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,56 @@
+package persistencia.reporte;
+
+import java.util.Date;
+
+/**
+ * Datos de una garantia con los de su producto, tal como se exportan.
+ */
+public class GarantiaExportada {
+
+	private final long id;
+	private final String codigoProducto;
+	private final String nombreProducto;
+	private final Date fechaSolicitudGarantia;
+	private final Date fechaFinGarantia;
+	private final String nombreCliente;
+	private final double precio;
+
+	public GarantiaExportada(Long id, String codigoProducto, String nombreProducto, Date fechaSolicitudGarantia,
+			Date fechaFinGarantia, String nombreCliente, Double precio) {
+		this.id = id;
+		this.codigoProducto = codigoProducto;
+		this.nombreProducto = nombreProducto;
+		this.fechaSolicitudGarantia = fechaSolicitudGarantia;
+		this.fechaFinGarantia = fechaFinGarantia;
+		this.nombreCliente = nombreCliente;
+		this.precio = precio;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getCodigoProducto() {
+		return codigoProducto;
+	}
+
+	public String getNombreProducto() {
+		return nombreProducto;
+	}
+
+	public Date getFechaSolicitudGarantia() {
+		return fechaSolicitudGarantia;
+	}
+
+	public Date getFechaFinGarantia() {
+		return fechaFinGarantia;
+	}
+
+	public String getNombreCliente() {
+		return nombreCliente;
+	}
+
+	public double getPrecio() {
+		return precio;
+	}
+}
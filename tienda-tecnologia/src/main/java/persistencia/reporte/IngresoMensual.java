@@ -0,0 +1,54 @@
+package persistencia.reporte;
+
+import dominio.NivelGarantia;
+
+/**
+ * Cantidad de garantias vendidas y suma de sus precios en un mes, para un nivel de garantia.
+ */
+public class IngresoMensual {
+
+	private final int anio;
+	private final int mes;
+	private final NivelGarantia nivel;
+	private final long cantidad;
+	private final double total;
+
+	public IngresoMensual(int anio, int mes, NivelGarantia nivel, long cantidad, double total) {
+		this.anio = anio;
+		this.mes = mes;
+		this.nivel = nivel;
+		this.cantidad = cantidad;
+		this.total = total;
+	}
+
+	public int getAnio() {
+		return anio;
+	}
+
+	/**
+	 * @return mes de la fecha de solicitud de la garantia, de 1 a 12
+	 */
+	public int getMes() {
+		return mes;
+	}
+
+	/**
+	 * @return nivel guardado en las garantias, el del tramo de tarifas con que se emitieron
+	 */
+	public NivelGarantia getNivel() {
+		return nivel;
+	}
+
+	public long getCantidad() {
+		return cantidad;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return anio + "-" + mes + " " + nivel + ": " + cantidad + " garantias, " + total;
+	}
+}
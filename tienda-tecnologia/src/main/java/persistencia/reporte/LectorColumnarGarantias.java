@@ -0,0 +1,119 @@
+package persistencia.reporte;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Lee un archivo de garantias en el formato de {@link FormatoColumnar}, de a un bloque.
+ */
+public class LectorColumnarGarantias {
+
+	public static final String ARCHIVO_INVALIDO = "El archivo no es una exportacion de garantias";
+	public static final String VERSION_NO_SOPORTADA = "Version de archivo no soportada: ";
+
+	private final DataInputStream entrada;
+
+	private long[] ids = new long[0];
+	private String[] codigosProducto = new String[0];
+	private String[] nombresProducto = new String[0];
+	private Date[] fechasSolicitud = new Date[0];
+	private Date[] fechasFin = new Date[0];
+	private String[] nombresCliente = new String[0];
+	private double[] precios = new double[0];
+	private int filas;
+	private int posicion;
+	private boolean terminado;
+
+	/**
+	 * @param entrada archivo exportado, no se cierra al terminar
+	 */
+	public LectorColumnarGarantias(InputStream entrada) throws IOException {
+
+		this.entrada = new DataInputStream(new BufferedInputStream(entrada));
+
+		byte[] firma = new byte[FormatoColumnar.FIRMA.length];
+		this.entrada.readFully(firma);
+		if (!Arrays.equals(firma, FormatoColumnar.FIRMA)) {
+			throw new IOException(ARCHIVO_INVALIDO);
+		}
+		int version = this.entrada.readUnsignedByte();
+		if (version != FormatoColumnar.VERSION) {
+			throw new IOException(VERSION_NO_SOPORTADA + version);
+		}
+	}
+
+	/**
+	 * @return la siguiente garantia, null al terminar el archivo
+	 */
+	public GarantiaExportada siguiente() throws IOException {
+
+		if (posicion == filas) {
+			if (terminado || !leerBloque()) {
+				return null;
+			}
+		}
+		int i = posicion++;
+		return new GarantiaExportada(ids[i], codigosProducto[i], nombresProducto[i], fechasSolicitud[i], fechasFin[i],
+				nombresCliente[i], precios[i]);
+	}
+
+	private boolean leerBloque() throws IOException {
+
+		filas = entrada.readInt();
+		posicion = 0;
+		if (filas == FormatoColumnar.FIN) {
+			terminado = true;
+			return false;
+		}
+		if (ids.length < filas) {
+			ids = new long[filas];
+			codigosProducto = new String[filas];
+			nombresProducto = new String[filas];
+			fechasSolicitud = new Date[filas];
+			fechasFin = new Date[filas];
+			nombresCliente = new String[filas];
+			precios = new double[filas];
+		}
+
+		long anterior = 0;
+		for (int i = 0; i < filas; i++) {
+			anterior += FormatoColumnar.leerEntero(entrada);
+			ids[i] = anterior;
+		}
+		leerTextos(codigosProducto);
+		leerTextos(nombresProducto);
+		leerFechas(fechasSolicitud);
+		leerFechas(fechasFin);
+		leerTextos(nombresCliente);
+		for (int i = 0; i < filas; i++) {
+			precios[i] = entrada.readDouble();
+		}
+		return true;
+	}
+
+	private void leerTextos(String[] columna) throws IOException {
+		for (int i = 0; i < filas; i++) {
+			columna[i] = FormatoColumnar.leerTexto(entrada);
+		}
+	}
+
+	private void leerFechas(Date[] columna) throws IOException {
+
+		byte[] nulos = new byte[(filas + 7) / 8];
+		entrada.readFully(nulos);
+
+		long anterior = 0;
+		for (int i = 0; i < filas; i++) {
+			if ((nulos[i / 8] & (1 << (i % 8))) != 0) {
+				columna[i] = null;
+			} else {
+				anterior += FormatoColumnar.leerEntero(entrada);
+				columna[i] = new Date(anterior);
+			}
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package persistencia.reporte;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import dominio.NivelGarantia;
+import persistencia.conexion.ConexionJPA;
+import persistencia.reporte.almacen.AlmacenGarantias;
+
+/**
+ * Reportes sobre todas las garantias. La exportacion recorre una consulta de solo los campos exportados con un
+ * cursor de solo avance en una sesion sin estado, sin crear entidades ni guardarlas en un contexto de persistencia,
+ * y los totales se calculan en la base de datos.
+ */
+public class ReporteGarantias {
+
+	public static final int TAMANO_BLOQUE_POR_DEFECTO = 4096;
+
+	/**
+	 * Filas que el driver trae de la base de datos en cada lectura del cursor.
+	 */
+	private static final int FILAS_POR_LECTURA = 1000;
+
+	private static final String GARANTIAS = "SELECT new persistencia.reporte.GarantiaExportada(garantia.id, "
+			+ "producto.codigo, producto.nombre, garantia.fechaSolicitudGarantia, garantia.fechaFinGarantia, "
+			+ "garantia.nombreCliente, garantia.precio) FROM GarantiaExtendida garantia JOIN garantia.producto producto "
+			+ "ORDER BY garantia.id";
+
+	private static final String CAMPOS_ALMACEN = "SELECT producto.codigo, garantia.nivel, "
+			+ "garantia.fechaSolicitudGarantia, garantia.fechaFinGarantia, garantia.nombreCliente, garantia.precio "
+			+ "FROM GarantiaExtendida garantia JOIN garantia.producto producto ORDER BY garantia.id";
+
+	private static final String INGRESOS_POR_MES_Y_NIVEL = "GarantiaExtendida.sumPrecioByMesAndNivel";
+
+	private final ConexionJPA conexion;
+	private int tamanoBloque = TAMANO_BLOQUE_POR_DEFECTO;
+
+	public ReporteGarantias(ConexionJPA conexion) {
+		this.conexion = conexion;
+	}
+
+	/**
+	 * @param tamanoBloque garantias por bloque del archivo columnar
+	 */
+	public ReporteGarantias conTamanoBloque(int tamanoBloque) {
+		if (tamanoBloque < 1) {
+			throw new IllegalArgumentException("El tamano del bloque debe ser mayor que cero");
+		}
+		this.tamanoBloque = tamanoBloque;
+		return this;
+	}
+
+	/**
+	 * Exporta todas las garantias ordenadas por id a CSV
+	 * @param salida no se cierra al terminar
+	 * @return cantidad de garantias exportadas
+	 */
+	public long exportarCsv(Writer salida) throws IOException {
+		return exportar(new EscritorCsvGarantias(salida));
+	}
+
+	/**
+	 * Exporta todas las garantias ordenadas por id al formato binario por columnas, que se lee con
+	 * {@link LectorColumnarGarantias}
+	 * @param salida no se cierra al terminar
+	 * @return cantidad de garantias exportadas
+	 */
+	public long exportarColumnar(OutputStream salida) throws IOException {
+		return exportar(new EscritorColumnarGarantias(salida, tamanoBloque));
+	}
+
+	/**
+	 * Cantidad de garantias y suma de sus precios por mes de solicitud y nivel de garantia, calculados con una
+	 * consulta agrupada. El nivel es el que se guardo en cada garantia, el del tramo de tarifas con que se emitio
+	 * @return un elemento por cada mes y nivel con garantias, ordenados por anio, mes y nivel
+	 */
+	public List<IngresoMensual> obtenerIngresosPorMes() {
+
+		StatelessSession sesion = conexion.abrirSesionSinEstado();
+		try {
+			Transaction transaccion = sesion.beginTransaction();
+			List<Object[]> filas = sesion.createNamedQuery(INGRESOS_POR_MES_Y_NIVEL, Object[].class).getResultList();
+			transaccion.commit();
+
+			List<IngresoMensual> ingresos = new ArrayList<>(filas.size());
+			for (Object[] fila : filas) {
+				ingresos.add(new IngresoMensual(((Number) fila[0]).intValue(), ((Number) fila[1]).intValue(),
+						(NivelGarantia) fila[2], ((Number) fila[3]).longValue(),
+						((Number) fila[4]).doubleValue()));
+			}
+			return ingresos;
+		} finally {
+			sesion.close();
+		}
+	}
+
+	/**
+	 * Agrega todas las garantias al almacen por columnas, en orden de id, recorriendo la consulta con el mismo cursor
+	 * de la exportacion
+	 * @return cantidad de garantias agregadas
+	 */
+	public long cargarAlmacen(AlmacenGarantias almacen) {
+
+		StatelessSession sesion = conexion.abrirSesionSinEstado();
+		try {
+			Transaction transaccion = sesion.beginTransaction();
+			long garantias = 0;
+			ScrollableResults resultados = sesion.createQuery(CAMPOS_ALMACEN).setReadOnly(true)
+					.setFetchSize(FILAS_POR_LECTURA).scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (resultados.next()) {
+					Object[] fila = resultados.get();
+					almacen.agregar((String) fila[0], (NivelGarantia) fila[1], (Date) fila[2],
+							(Date) fila[3], (String) fila[4], ((Number) fila[5]).doubleValue());
+					garantias++;
+				}
+			} finally {
+				resultados.close();
+			}
+			transaccion.commit();
+			return garantias;
+		} finally {
+			sesion.close();
+		}
+	}
+
+	private long exportar(DestinoExportacion destino) throws IOException {
+
+		StatelessSession sesion = conexion.abrirSesionSinEstado();
+		try {
+			Transaction transaccion = sesion.beginTransaction();
+			long garantias = 0;
+			ScrollableResults resultados = sesion.createQuery(GARANTIAS).setReadOnly(true)
+					.setFetchSize(FILAS_POR_LECTURA).scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (resultados.next()) {
+					destino.escribir((GarantiaExportada) resultados.get(0));
+					garantias++;
+				}
+			} finally {
+				resultados.close();
+			}
+			destino.terminar();
+			transaccion.commit();
+			return garantias;
+		} finally {
+			sesion.close();
+		}
+	}
+}
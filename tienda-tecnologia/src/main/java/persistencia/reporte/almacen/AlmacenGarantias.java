@@ -0,0 +1,292 @@
+package persistencia.reporte.almacen;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import persistencia.reporte.IngresoMensual;
+
+/**
+ * Copia en memoria de las garantias guardada por columnas para calcular totales sin ir a la base de datos. Las
+ * garantias se agregan al final en bloques de tamano fijo; cada bloque guarda las fechas como dias, el precio en
+ * centesimos y el cliente y el producto como codigos de un diccionario, asi una garantia ocupa 25 bytes y los
+ * operadores recorren arreglos primitivos sin crear objetos por fila.
+ * <p>
+ * Los operadores pueden correr mientras otro hilo agrega garantias, y ven las garantias agregadas hasta el momento en
+ * que empiezan. Si se configura un ejecutor, cada consulta reparte los bloques entre sus hilos y suma los resultados
+ * parciales al final.
+ */
+public class AlmacenGarantias {
+
+	public static final int TAMANO_BLOQUE_POR_DEFECTO = 65536;
+
+	/**
+	 * Los precios se guardan como enteros en centesimos, la suma de precios no acumula error de redondeo.
+	 */
+	static final long ESCALA_PRECIO = 100;
+
+	private final int tamanoBloque;
+	private final ZoneId zona;
+	private final Diccionario clientes = new Diccionario();
+	private final Diccionario productos = new Diccionario();
+	private volatile BloqueGarantias[] bloques = new BloqueGarantias[0];
+	private ExecutorService ejecutor;
+	private int bloquesPorTarea = 1;
+
+	public AlmacenGarantias() {
+		this(TAMANO_BLOQUE_POR_DEFECTO, ZoneId.systemDefault());
+	}
+
+	/**
+	 * @param tamanoBloque garantias por bloque
+	 * @param zona zona horaria con la que se toma el dia de las fechas de las garantias
+	 */
+	public AlmacenGarantias(int tamanoBloque, ZoneId zona) {
+		if (tamanoBloque < 1) {
+			throw new IllegalArgumentException("El tamano del bloque debe ser mayor que cero");
+		}
+		this.tamanoBloque = tamanoBloque;
+		this.zona = zona;
+	}
+
+	/**
+	 * Reparte cada consulta entre los hilos del ejecutor, que no se cierra con el almacen
+	 * @param bloquesPorTarea bloques que recorre cada tarea del ejecutor
+	 */
+	public AlmacenGarantias conEjecutor(ExecutorService ejecutor, int bloquesPorTarea) {
+		if (bloquesPorTarea < 1) {
+			throw new IllegalArgumentException("Los bloques por tarea deben ser mayores que cero");
+		}
+		this.ejecutor = ejecutor;
+		this.bloquesPorTarea = bloquesPorTarea;
+		return this;
+	}
+
+	public void agregar(GarantiaExtendida garantia) {
+		agregar(garantia.getProducto().getCodigo(), garantia.getNivel(),
+				garantia.getFechaSolicitudGarantia(), garantia.getFechaFinGarantia(), garantia.getNombreCliente(),
+				garantia.getPrecioGarantia());
+	}
+
+	/**
+	 * Agrega una garantia a partir de sus campos
+	 * @param nivel nivel guardado en la garantia, el mismo por el que agrupa el reporte de ingresos
+	 */
+	public synchronized void agregar(String codigoProducto, NivelGarantia nivel, Date fechaSolicitud, Date fechaFin,
+			String nombreCliente, double precio) {
+
+		BloqueGarantias[] actuales = bloques;
+		BloqueGarantias ultimo = actuales.length > 0 ? actuales[actuales.length - 1] : null;
+		if (ultimo == null || ultimo.estaLleno()) {
+			ultimo = new BloqueGarantias(tamanoBloque);
+			BloqueGarantias[] nuevos = Arrays.copyOf(actuales, actuales.length + 1);
+			nuevos[actuales.length] = ultimo;
+			bloques = nuevos;
+		}
+		ultimo.agregar(dia(fechaSolicitud), dia(fechaFin), Math.round(precio * ESCALA_PRECIO),
+				clientes.codificar(nombreCliente), productos.codificar(codigoProducto),
+				(byte) nivel.ordinal());
+	}
+
+	public long getTamano() {
+		long tamano = 0;
+		for (BloqueGarantias bloque : bloques) {
+			tamano += bloque.getFilas();
+		}
+		return tamano;
+	}
+
+	/**
+	 * @return cantidad de garantias que cumplen el filtro y suma de sus precios
+	 */
+	public ResumenGarantias resumir(FiltroGarantias filtro) {
+
+		final Condicion condicion = condicion(filtro);
+		long[] acumulado = ejecutar(new Instantanea(bloques), 2, new Operador() {
+			@Override
+			public void recorrer(BloqueGarantias bloque, int filas, long[] parcial) {
+				bloque.resumir(condicion, filas, parcial);
+			}
+		});
+		return new ResumenGarantias(acumulado[0], precio(acumulado[1]));
+	}
+
+	/**
+	 * Cantidad de garantias y suma de sus precios por mes de solicitud y nivel, como
+	 * {@link persistencia.reporte.ReporteGarantias#obtenerIngresosPorMes()} pero solo de las garantias que cumplen el
+	 * filtro. Las garantias sin fecha de solicitud no se cuentan.
+	 * @return un elemento por cada mes y nivel con garantias, ordenados por anio, mes y nivel
+	 */
+	public List<IngresoMensual> obtenerIngresosPorMes(FiltroGarantias filtro) {
+
+		final Condicion condicion = condicion(filtro);
+		Instantanea instantanea = new Instantanea(bloques);
+		List<IngresoMensual> ingresos = new ArrayList<>();
+		if (instantanea.primerDia > instantanea.ultimoDia) {
+			return ingresos;
+		}
+		final NivelGarantia[] niveles = NivelGarantia.values();
+		final int primerMes = Calendario.mes(instantanea.primerDia);
+		final int posiciones = (Calendario.mes(instantanea.ultimoDia) - primerMes + 1) * niveles.length;
+		long[] acumulado = ejecutar(instantanea, posiciones * 2, new Operador() {
+			@Override
+			public void recorrer(BloqueGarantias bloque, int filas, long[] parcial) {
+				bloque.resumirPorMes(condicion, filas, primerMes, parcial, posiciones);
+			}
+		});
+
+		for (int posicion = 0; posicion < posiciones; posicion++) {
+			if (acumulado[posicion] > 0) {
+				int mes = primerMes + posicion / niveles.length;
+				ingresos.add(new IngresoMensual(mes / 12, mes % 12 + 1, niveles[posicion % niveles.length],
+						acumulado[posicion], precio(acumulado[posiciones + posicion])));
+			}
+		}
+		return ingresos;
+	}
+
+	/**
+	 * @return cantidad de garantias y suma de sus precios por nombre de cliente, en el orden en que cada cliente
+	 *         aparecio por primera vez; no incluye las garantias sin cliente
+	 */
+	public Map<String, ResumenGarantias> resumirPorCliente(FiltroGarantias filtro) {
+
+		final Condicion condicion = condicion(filtro);
+		Instantanea instantanea = new Instantanea(bloques);
+		// Despues de leer las filas, el diccionario ya tiene los clientes de todas ellas
+		final int cantidadClientes = clientes.getCantidad();
+		long[] acumulado = ejecutar(instantanea, cantidadClientes * 2, new Operador() {
+			@Override
+			public void recorrer(BloqueGarantias bloque, int filas, long[] parcial) {
+				bloque.resumirPorCliente(condicion, filas, parcial, cantidadClientes);
+			}
+		});
+
+		Map<String, ResumenGarantias> resumen = new LinkedHashMap<>();
+		for (int codigo = 0; codigo < cantidadClientes; codigo++) {
+			if (acumulado[codigo] > 0) {
+				resumen.put(clientes.texto(codigo),
+						new ResumenGarantias(acumulado[codigo], precio(acumulado[cantidadClientes + codigo])));
+			}
+		}
+		return resumen;
+	}
+
+	/**
+	 * @return cantidad de garantias que cumplen el filtro y siguen vigentes en la fecha dada, es decir que terminan
+	 *         ese dia o despues
+	 */
+	public long contarVigentes(FiltroGarantias filtro, LocalDate fecha) {
+
+		final Condicion condicion = condicion(filtro);
+		final int dia = (int) fecha.toEpochDay();
+		return ejecutar(new Instantanea(bloques), 1, new Operador() {
+			@Override
+			public void recorrer(BloqueGarantias bloque, int filas, long[] parcial) {
+				parcial[0] += bloque.contarVigentes(condicion, filas, dia);
+			}
+		})[0];
+	}
+
+	/**
+	 * Los bloques y cuantas filas de cada uno recorre una consulta, fijados al empezar para que todas las tareas
+	 * vean las mismas filas aunque se sigan agregando garantias
+	 */
+	private static final class Instantanea {
+
+		private final BloqueGarantias[] bloques;
+		private final int[] filas;
+		private int primerDia = Integer.MAX_VALUE;
+		private int ultimoDia = Integer.MIN_VALUE;
+
+		Instantanea(BloqueGarantias[] bloques) {
+			this.bloques = bloques;
+			this.filas = new int[bloques.length];
+			for (int i = 0; i < bloques.length; i++) {
+				filas[i] = bloques[i].getFilas();
+				if (filas[i] > 0 && bloques[i].getDiaMinimo() <= bloques[i].getDiaMaximo()) {
+					primerDia = Math.min(primerDia, bloques[i].getDiaMinimo());
+					ultimoDia = Math.max(ultimoDia, bloques[i].getDiaMaximo());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Acumula las filas de un bloque en un arreglo parcial, que se suma posicion por posicion con los de los demas
+	 * bloques
+	 */
+	private interface Operador {
+
+		void recorrer(BloqueGarantias bloque, int filas, long[] parcial);
+	}
+
+	private long[] ejecutar(final Instantanea instantanea, final int posiciones, final Operador operador) {
+
+		int cantidadBloques = instantanea.bloques.length;
+		if (ejecutor == null || cantidadBloques <= bloquesPorTarea) {
+			return recorrer(instantanea, 0, cantidadBloques, posiciones, operador);
+		}
+		List<Callable<long[]>> tareas = new ArrayList<>();
+		for (int desde = 0; desde < cantidadBloques; desde += bloquesPorTarea) {
+			final int inicio = desde;
+			final int fin = Math.min(desde + bloquesPorTarea, cantidadBloques);
+			tareas.add(new Callable<long[]>() {
+				@Override
+				public long[] call() {
+					return recorrer(instantanea, inicio, fin, posiciones, operador);
+				}
+			});
+		}
+		try {
+			long[] total = new long[posiciones];
+			for (Future<long[]> tarea : ejecutor.invokeAll(tareas)) {
+				long[] parcial = tarea.get();
+				for (int i = 0; i < posiciones; i++) {
+					total[i] += parcial[i];
+				}
+			}
+			return total;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("La consulta del almacen de garantias fue interrumpida", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("La consulta del almacen de garantias fallo", e.getCause());
+		}
+	}
+
+	private static long[] recorrer(Instantanea instantanea, int desde, int hasta, int posiciones, Operador operador) {
+		long[] parcial = new long[posiciones];
+		for (int i = desde; i < hasta; i++) {
+			operador.recorrer(instantanea.bloques[i], instantanea.filas[i], parcial);
+		}
+		return parcial;
+	}
+
+	private Condicion condicion(FiltroGarantias filtro) {
+		return Condicion.de(filtro, clientes, productos);
+	}
+
+	private int dia(Date fecha) {
+		if (fecha == null) {
+			return BloqueGarantias.SIN_FECHA;
+		}
+		return (int) Instant.ofEpochMilli(fecha.getTime()).atZone(zona).toLocalDate().toEpochDay();
+	}
+
+	private static double precio(long centesimos) {
+		return (double) centesimos / ESCALA_PRECIO;
+	}
+}
@@ -0,0 +1,169 @@
+package persistencia.reporte.almacen;
+
+/**
+ * Una porcion de capacidad fija del almacen, con un arreglo primitivo por columna. Las fechas son dias desde
+ * 1970-01-01 y los precios centesimos. Solo un hilo agrega filas; las lecturas concurrentes recorren las primeras
+ * filas segun un valor leido antes de {@link #getFilas()}, que ya no cambian.
+ * <p>
+ * Cada operador recorre las filas en un solo ciclo sobre los arreglos, aplicando el filtro y acumulando a la vez, y
+ * descarta el bloque completo sin recorrerlo cuando el rango de fechas de solicitud del bloque no se cruza con el del
+ * filtro.
+ */
+final class BloqueGarantias {
+
+	static final int SIN_FECHA = Integer.MIN_VALUE;
+
+	private final int[] diaSolicitud;
+	private final int[] diaFin;
+	private final long[] precio;
+	private final int[] cliente;
+	private final int[] producto;
+	private final byte[] nivel;
+
+	private int diaMinimo = Integer.MAX_VALUE;
+	private int diaMaximo = Integer.MIN_VALUE;
+
+	/**
+	 * Se escribe despues de las columnas y de los limites de fechas, quien lee primero este valor ve completas las
+	 * columnas de esas filas.
+	 */
+	private volatile int filas;
+
+	BloqueGarantias(int capacidad) {
+		diaSolicitud = new int[capacidad];
+		diaFin = new int[capacidad];
+		precio = new long[capacidad];
+		cliente = new int[capacidad];
+		producto = new int[capacidad];
+		nivel = new byte[capacidad];
+	}
+
+	boolean estaLleno() {
+		return filas == nivel.length;
+	}
+
+	int getFilas() {
+		return filas;
+	}
+
+	void agregar(int diaSolicitud, int diaFin, long precio, int cliente, int producto, byte nivel) {
+
+		int fila = filas;
+		this.diaSolicitud[fila] = diaSolicitud;
+		this.diaFin[fila] = diaFin;
+		this.precio[fila] = precio;
+		this.cliente[fila] = cliente;
+		this.producto[fila] = producto;
+		this.nivel[fila] = nivel;
+		if (diaSolicitud != SIN_FECHA) {
+			diaMinimo = Math.min(diaMinimo, diaSolicitud);
+			diaMaximo = Math.max(diaMaximo, diaSolicitud);
+		}
+		filas = fila + 1;
+	}
+
+	/**
+	 * @param hasta filas que se recorren
+	 * @param acumulado cantidad en la posicion 0 y suma de precios en la 1, se le suman las filas del bloque
+	 */
+	void resumir(Condicion condicion, int hasta, long[] acumulado) {
+
+		if (descartar(condicion)) {
+			return;
+		}
+		long cantidad = 0;
+		long total = 0;
+		for (int i = 0; i < hasta; i++) {
+			// Igual que en la condicion, se acumula sin saltar segun el resultado del filtro
+			long cumple = condicion.cumple(diaSolicitud[i], nivel[i], cliente[i], producto[i]) ? 1 : 0;
+			cantidad += cumple;
+			total += precio[i] & -cumple;
+		}
+		acumulado[0] += cantidad;
+		acumulado[1] += total;
+	}
+
+	/**
+	 * Acumula por mes de solicitud y nivel, la cantidad en la posicion {@code (mes - primerMes) * 2 + nivel} y la suma
+	 * de precios en la misma posicion mas posicionTotales, donde mes es anio * 12 + mes - 1. Las filas sin fecha de
+	 * solicitud no se cuentan.
+	 */
+	void resumirPorMes(Condicion condicion, int hasta, int primerMes, long[] acumulado, int posicionTotales) {
+
+		int primerDia = diaMinimo;
+		int ultimoDia = diaMaximo;
+		if (descartar(condicion) || primerDia > ultimoDia) {
+			return;
+		}
+		int[] meses = Calendario.mesesPorDia(primerDia, ultimoDia);
+		for (int i = 0; i < hasta; i++) {
+			int dia = diaSolicitud[i];
+			if (dia != SIN_FECHA && condicion.cumple(dia, nivel[i], cliente[i], producto[i])) {
+				int posicion = (meses[dia - primerDia] - primerMes) * 2 + nivel[i];
+				acumulado[posicion]++;
+				acumulado[posicionTotales + posicion] += precio[i];
+			}
+		}
+	}
+
+	/**
+	 * Acumula la cantidad en la posicion del codigo del cliente y la suma de precios en la misma posicion mas
+	 * posicionTotales, las filas sin cliente no se cuentan
+	 */
+	void resumirPorCliente(Condicion condicion, int hasta, long[] acumulado, int posicionTotales) {
+
+		if (descartar(condicion)) {
+			return;
+		}
+		for (int i = 0; i < hasta; i++) {
+			int codigo = cliente[i];
+			if (codigo != Diccionario.NULO && condicion.cumple(diaSolicitud[i], nivel[i], codigo, producto[i])) {
+				acumulado[codigo]++;
+				acumulado[posicionTotales + codigo] += precio[i];
+			}
+		}
+	}
+
+	/**
+	 * Cantidad de filas cuya garantia sigue vigente el dia dado, es decir termina ese dia o despues
+	 */
+	long contarVigentes(Condicion condicion, int hasta, int dia) {
+
+		if (descartar(condicion)) {
+			return 0;
+		}
+		long cantidad = 0;
+		for (int i = 0; i < hasta; i++) {
+			if (diaFin[i] != SIN_FECHA && diaFin[i] >= dia
+					&& condicion.cumple(diaSolicitud[i], nivel[i], cliente[i], producto[i])) {
+				cantidad++;
+			}
+		}
+		return cantidad;
+	}
+
+	/**
+	 * Los limites se leen despues de las filas que se recorren, pueden incluir filas mas nuevas pero nunca excluir
+	 * una de las recorridas.
+	 */
+	private boolean descartar(Condicion condicion) {
+		if (condicion.isNinguna()) {
+			return true;
+		}
+		if (!condicion.filtraFechas()) {
+			return false;
+		}
+		return diaMinimo > diaMaximo || diaMaximo < condicion.getDiaDesde() || diaMinimo >= condicion.getDiaHasta();
+	}
+
+	/**
+	 * @return el primer dia de solicitud de las filas, mayor que {@link #getDiaMaximo()} si ninguna tiene fecha
+	 */
+	int getDiaMinimo() {
+		return diaMinimo;
+	}
+
+	int getDiaMaximo() {
+		return diaMaximo;
+	}
+}
@@ -0,0 +1,41 @@
+package persistencia.reporte.almacen;
+
+import java.time.LocalDate;
+
+/**
+ * Conversiones entre dias desde 1970-01-01 y meses numerados como anio * 12 + mes - 1, para agrupar por mes sin crear
+ * fechas dentro de los ciclos.
+ */
+final class Calendario {
+
+	private Calendario() {
+	}
+
+	static int mes(LocalDate fecha) {
+		return fecha.getYear() * 12 + fecha.getMonthValue() - 1;
+	}
+
+	static int mes(int dia) {
+		return mes(LocalDate.ofEpochDay(dia));
+	}
+
+	/**
+	 * @return el mes de cada dia entre primerDia y ultimoDia inclusive, en la posicion dia - primerDia
+	 */
+	static int[] mesesPorDia(int primerDia, int ultimoDia) {
+
+		int[] meses = new int[ultimoDia - primerDia + 1];
+		LocalDate fecha = LocalDate.ofEpochDay(primerDia);
+		int dia = primerDia;
+		while (dia <= ultimoDia) {
+			int mes = mes(fecha);
+			LocalDate siguienteMes = fecha.withDayOfMonth(1).plusMonths(1);
+			int finMes = (int) Math.min(siguienteMes.toEpochDay() - 1, ultimoDia);
+			for (; dia <= finMes; dia++) {
+				meses[dia - primerDia] = mes;
+			}
+			fecha = siguienteMes;
+		}
+		return meses;
+	}
+}
@@ -0,0 +1,74 @@
+package persistencia.reporte.almacen;
+
+import java.time.LocalDate;
+
+/**
+ * Un {@link FiltroGarantias} traducido a los valores primitivos de las columnas, para compararlo fila por fila sin
+ * crear objetos. Un valor SIN_VALOR en una columna la deja sin filtrar.
+ */
+final class Condicion {
+
+	static final int SIN_VALOR = -1;
+
+	private final int diaDesde;
+	private final int diaHasta;
+	private final boolean filtraFechas;
+	private final int nivel;
+	private final int cliente;
+	private final int producto;
+	private final boolean ninguna;
+
+	private Condicion(int diaDesde, int diaHasta, boolean filtraFechas, int nivel, int cliente, int producto) {
+		this.diaDesde = diaDesde;
+		this.diaHasta = diaHasta;
+		this.filtraFechas = filtraFechas;
+		this.nivel = nivel;
+		this.cliente = cliente;
+		this.producto = producto;
+		this.ninguna = cliente == Diccionario.AUSENTE || producto == Diccionario.AUSENTE
+				|| (filtraFechas && diaDesde >= diaHasta);
+	}
+
+	/**
+	 * Los textos del filtro que ninguna fila tiene hacen que la condicion no la cumpla ninguna fila, sin recorrerlas
+	 */
+	static Condicion de(FiltroGarantias filtro, Diccionario clientes, Diccionario productos) {
+
+		LocalDate desde = filtro.getDesde();
+		LocalDate hasta = filtro.getHasta();
+		boolean filtraFechas = desde != null || hasta != null;
+		int diaDesde = desde != null ? (int) desde.toEpochDay() : Integer.MIN_VALUE + 1;
+		int diaHasta = hasta != null ? (int) hasta.toEpochDay() : Integer.MAX_VALUE;
+		int nivel = filtro.getNivel() != null ? filtro.getNivel().ordinal() : SIN_VALOR;
+		int cliente = filtro.getNombreCliente() != null ? clientes.buscar(filtro.getNombreCliente()) : SIN_VALOR;
+		int producto = filtro.getCodigoProducto() != null ? productos.buscar(filtro.getCodigoProducto()) : SIN_VALOR;
+		return new Condicion(diaDesde, diaHasta, filtraFechas, nivel, cliente, producto);
+	}
+
+	/**
+	 * Evalua todas las comparaciones con & y | en lugar de && y ||, sin saltos que dependan de cada fila: con filas
+	 * mezcladas el procesador no acierta cuales cumplen y cada salto mal predicho cuesta mas que las comparaciones.
+	 */
+	boolean cumple(int diaSolicitud, int nivel, int cliente, int producto) {
+		return (!filtraFechas | (diaSolicitud >= diaDesde & diaSolicitud < diaHasta))
+				& (this.nivel == SIN_VALOR | nivel == this.nivel)
+				& (this.cliente == SIN_VALOR | cliente == this.cliente)
+				& (this.producto == SIN_VALOR | producto == this.producto);
+	}
+
+	boolean isNinguna() {
+		return ninguna;
+	}
+
+	boolean filtraFechas() {
+		return filtraFechas;
+	}
+
+	int getDiaDesde() {
+		return diaDesde;
+	}
+
+	int getDiaHasta() {
+		return diaHasta;
+	}
+}
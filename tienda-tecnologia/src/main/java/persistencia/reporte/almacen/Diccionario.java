@@ -0,0 +1,56 @@
+package persistencia.reporte.almacen;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codifica cada texto distinto de una columna con un entero consecutivo desde cero, asi la columna guarda un int por
+ * fila y cada texto se guarda una sola vez. Quien agrega debe serializar las escrituras; las lecturas pueden ser
+ * concurrentes y ven todos los textos de las filas ya publicadas.
+ */
+final class Diccionario {
+
+	static final int NULO = -1;
+	static final int AUSENTE = -2;
+
+	private final Map<String, Integer> codigos = new ConcurrentHashMap<>();
+	private volatile String[] textos = new String[64];
+	private int cantidad;
+
+	/**
+	 * @return el codigo del texto, que se agrega si no estaba; NULO para null
+	 */
+	int codificar(String texto) {
+
+		if (texto == null) {
+			return NULO;
+		}
+		Integer codigo = codigos.get(texto);
+		if (codigo != null) {
+			return codigo;
+		}
+		if (cantidad == textos.length) {
+			textos = Arrays.copyOf(textos, cantidad * 2);
+		}
+		textos[cantidad] = texto;
+		codigos.put(texto, cantidad);
+		return cantidad++;
+	}
+
+	/**
+	 * @return el codigo del texto sin agregarlo, AUSENTE si ninguna fila lo tiene
+	 */
+	int buscar(String texto) {
+		Integer codigo = codigos.get(texto);
+		return codigo != null ? codigo : AUSENTE;
+	}
+
+	String texto(int codigo) {
+		return codigo == NULO ? null : textos[codigo];
+	}
+
+	int getCantidad() {
+		return codigos.size();
+	}
+}
@@ -0,0 +1,66 @@
+package persistencia.reporte.almacen;
+
+import java.time.LocalDate;
+
+import dominio.NivelGarantia;
+
+/**
+ * Condiciones que deben cumplir las garantias que se resumen, todas opcionales. Las fechas son de solicitud de la
+ * garantia; una garantia sin fecha de solicitud solo entra si no se filtra por fecha.
+ */
+public class FiltroGarantias {
+
+	private LocalDate desde;
+	private LocalDate hasta;
+	private NivelGarantia nivel;
+	private String nombreCliente;
+	private String codigoProducto;
+
+	/**
+	 * @param desde primer dia incluido
+	 * @param hasta dia siguiente al ultimo incluido
+	 */
+	public FiltroGarantias solicitadasEntre(LocalDate desde, LocalDate hasta) {
+		this.desde = desde;
+		this.hasta = hasta;
+		return this;
+	}
+
+	/**
+	 * @param nivel nivel guardado en la garantia, ver {@link dominio.GarantiaExtendida#getNivel()}
+	 */
+	public FiltroGarantias conNivel(NivelGarantia nivel) {
+		this.nivel = nivel;
+		return this;
+	}
+
+	public FiltroGarantias deCliente(String nombreCliente) {
+		this.nombreCliente = nombreCliente;
+		return this;
+	}
+
+	public FiltroGarantias deProducto(String codigoProducto) {
+		this.codigoProducto = codigoProducto;
+		return this;
+	}
+
+	LocalDate getDesde() {
+		return desde;
+	}
+
+	LocalDate getHasta() {
+		return hasta;
+	}
+
+	NivelGarantia getNivel() {
+		return nivel;
+	}
+
+	String getNombreCliente() {
+		return nombreCliente;
+	}
+
+	String getCodigoProducto() {
+		return codigoProducto;
+	}
+}
@@ -0,0 +1,28 @@
+package persistencia.reporte.almacen;
+
+/**
+ * Cantidad de garantias y suma de sus precios.
+ */
+public class ResumenGarantias {
+
+	private final long cantidad;
+	private final double total;
+
+	public ResumenGarantias(long cantidad, double total) {
+		this.cantidad = cantidad;
+		this.total = total;
+	}
+
+	public long getCantidad() {
+		return cantidad;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return cantidad + " garantias, " + total;
+	}
+}
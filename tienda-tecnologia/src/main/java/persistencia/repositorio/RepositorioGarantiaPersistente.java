@@ -1,21 +1,52 @@
 package persistencia.repositorio;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import dominio.EstadoGarantiaProducto;
 import dominio.Producto;
 import dominio.GarantiaExtendida;
+import dominio.VencimientoGarantia;
 import dominio.repositorio.RepositorioProducto;
 import dominio.repositorio.RepositorioGarantiaExtendida;
 import persistencia.builder.ProductoBuilder;
 import persistencia.entitad.ProductoEntity;
 import persistencia.entitad.GarantiaExtendidaEntity;
+import persistencia.repositorio.jpa.RepositorioGarantiaJPA;
 import persistencia.repositorio.jpa.RepositorioProductoJPA;
 
-public class RepositorioGarantiaPersistente implements RepositorioGarantiaExtendida {
+public class RepositorioGarantiaPersistente implements RepositorioGarantiaExtendida, RepositorioGarantiaJPA {
 
 	private static final String CODIGO = "codigo";
+	private static final String CODIGOS = "codigos";
+	private static final String GARANTIA_EXTENDIDA_FIND_ESTADO_BY_CODIGO = "GarantiaExtendida.findEstadoByCodigo";
+	private static final String GARANTIA_EXTENDIDA_FIND_CODIGOS_BY_CODIGOS = "GarantiaExtendida.findCodigosByCodigos";
+	private static final String GARANTIA_EXTENDIDA_FIND_CODIGOS = "GarantiaExtendida.findCodigos";
 	private static final String GARANTIA_EXTENDIDA_FIND_BY_CODIGO = "GarantiaExtendida.findByCodigo";
+	private static final String GARANTIA_EXTENDIDA_FIND_VENCIMIENTOS = "GarantiaExtendida.findVencimientosEntre";
+	private static final String DESDE = "desde";
+	private static final String HASTA = "hasta";
+	private static final int TAMANO_FETCH = 1000;
+	private static final String GRAFO_CARGA = "javax.persistence.fetchgraph";
+
+	/**
+	 * Cantidad de garantias que se resuelven y se envian a la base de datos en cada lote,
+	 * debe ser multiplo de hibernate.jdbc.batch_size.
+	 */
+	private static final int TAMANO_LOTE = 500;
 
 	private EntityManager entityManager;
 
@@ -28,52 +59,150 @@ public class RepositorioGarantiaPersistente implements RepositorioGarantiaExtend
 
 	@Override
 	public void agregar(GarantiaExtendida garantia) {
-		GarantiaExtendidaEntity garantiaEntity = buildGarantiaExtendidaEntity(garantia);
+		ProductoEntity productoEntity = repositorioProductoJPA.obtenerProductoEntityPorCodigo(garantia.getProducto().getCodigo());
+		GarantiaExtendidaEntity garantiaEntity = buildGarantiaExtendidaEntity(garantia, productoEntity);
 		entityManager.persist(garantiaEntity);
 		
 	}
+
+	@Override
+	public void agregarTodas(List<GarantiaExtendida> garantias) {
+
+		for (int inicio = 0; inicio < garantias.size(); inicio += TAMANO_LOTE) {
+
+			List<GarantiaExtendida> lote = garantias.subList(inicio, Math.min(inicio + TAMANO_LOTE, garantias.size()));
+
+			List<String> codigos = new ArrayList<>(lote.size());
+			for (GarantiaExtendida garantia : lote) {
+				codigos.add(garantia.getProducto().getCodigo());
+			}
+			Map<String, ProductoEntity> productos = repositorioProductoJPA.obtenerProductosEntityPorCodigos(codigos);
+
+			for (GarantiaExtendida garantia : lote) {
+				entityManager.persist(buildGarantiaExtendidaEntity(garantia, productos.get(garantia.getProducto().getCodigo())));
+			}
+
+			/**
+			 * Se envian los inserts del lote en batch JDBC y se libera el contexto de persistencia
+			 * para que la memoria no crezca con el tamano de la carga.
+			 */
+			entityManager.flush();
+			entityManager.clear();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Set<String> obtenerCodigosConGarantia(Collection<String> codigos) {
+
+		Set<String> codigosConGarantia = new HashSet<>();
+		List<String> pendientes = new ArrayList<>(codigos);
+
+		for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_LOTE) {
+
+			Query query = entityManager.createNamedQuery(GARANTIA_EXTENDIDA_FIND_CODIGOS_BY_CODIGOS);
+			query.setParameter(CODIGOS, pendientes.subList(inicio, Math.min(inicio + TAMANO_LOTE, pendientes.size())));
+
+			codigosConGarantia.addAll(query.getResultList());
+		}
+		return codigosConGarantia;
+	}
 	
+	/**
+	 * Resuelve el producto por su codigo y luego el id de la garantia por su producto, ambos por identificador
+	 * natural. La garantia no se carga, solo se necesita saber que existe.
+	 */
 	@Override
 	public Producto obtenerProductoConGarantiaPorCodigo(String codigo) {
-		
-		GarantiaExtendidaEntity garantiaEntity = obtenerGarantiaEntityPorCodigo(codigo);
-		return ProductoBuilder.convertirADominio(garantiaEntity != null ? garantiaEntity.getProducto() : null);
+
+		ProductoEntity productoEntity = repositorioProductoJPA.obtenerProductoEntityPorCodigo(codigo);
+		if (productoEntity == null) {
+			return null;
+		}
+		GarantiaExtendidaEntity garantiaEntity = entityManager.unwrap(Session.class)
+				.bySimpleNaturalId(GarantiaExtendidaEntity.class).getReference(productoEntity);
+		return garantiaEntity != null ? ProductoBuilder.convertirADominio(productoEntity) : null;
 	}
 	
-	@SuppressWarnings("rawtypes")
-	private GarantiaExtendidaEntity obtenerGarantiaEntityPorCodigo(String codigo) {
+	/**
+	 * Trae el producto y el id de su garantia con un LEFT JOIN. El producto queda en el contexto de persistencia,
+	 * por lo que agregar la garantia despues lo resuelve sin volver a consultarlo.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public EstadoGarantiaProducto obtenerEstadoGarantia(String codigo) {
 
-		Query query = entityManager.createNamedQuery(GARANTIA_EXTENDIDA_FIND_BY_CODIGO);
+		Query query = entityManager.createNamedQuery(GARANTIA_EXTENDIDA_FIND_ESTADO_BY_CODIGO);
 		query.setParameter(CODIGO, codigo);
 
-		List resultList = query.getResultList();
+		List<Object[]> resultList = query.getResultList();
+		if (resultList.isEmpty()) {
+			return EstadoGarantiaProducto.noExiste();
+		}
 
-		return !resultList.isEmpty() ? (GarantiaExtendidaEntity) resultList.get(0) : null;
+		Object[] fila = resultList.get(0);
+		return EstadoGarantiaProducto.de(ProductoBuilder.convertirADominio((ProductoEntity) fila[0]), fila[1] != null);
 	}
 
-	private GarantiaExtendidaEntity buildGarantiaExtendidaEntity(GarantiaExtendida garantia) {
+	/**
+	 * Consulta por rango sobre el indice de la fecha de fin, sin crear las entidades de las garantias.
+	 */
+	@Override
+	public List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta) {
+		return entityManager.createNamedQuery(GARANTIA_EXTENDIDA_FIND_VENCIMIENTOS, VencimientoGarantia.class)
+				.setParameter(DESDE, desde).setParameter(HASTA, hasta).getResultList();
+	}
 
-		ProductoEntity productoEntity = repositorioProductoJPA.obtenerProductoEntityPorCodigo(garantia.getProducto().getCodigo());
+	@Override
+	public void recorrerCodigosConGarantia(Consumer<String> consumidor) {
+
+		org.hibernate.query.Query<?> query = entityManager.unwrap(Session.class).getNamedQuery(GARANTIA_EXTENDIDA_FIND_CODIGOS);
+		query.setFetchSize(TAMANO_FETCH);
+		query.setReadOnly(true);
+
+		ScrollableResults codigos = query.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			while (codigos.next()) {
+				consumidor.accept((String) codigos.get(0));
+			}
+		} finally {
+			codigos.close();
+		}
+	}
+	
+	private GarantiaExtendidaEntity buildGarantiaExtendidaEntity(GarantiaExtendida garantia, ProductoEntity productoEntity) {
 
 		GarantiaExtendidaEntity garantiaEntity = new GarantiaExtendidaEntity();
 		garantiaEntity.setProducto(productoEntity);
 		garantiaEntity.setFechaSolicitudGarantia(garantia.getFechaSolicitudGarantia());
+		garantiaEntity.setFechaFinGarantia(garantia.getFechaFinGarantia());
+		garantiaEntity.setPrecio(garantia.getPrecioGarantia());
+		garantiaEntity.setNombreCliente(garantia.getNombreCliente());
+		garantiaEntity.setNivel(garantia.getNivel());
 
 		return garantiaEntity;
 	}
 
 	
+	/**
+	 * Trae la garantia y su producto en una sola consulta con el grafo de la garantia con su producto.
+	 */
 	@Override
 	public GarantiaExtendida obtener(String codigo) {
-		
-		GarantiaExtendidaEntity garantiaEntity = obtenerGarantiaEntityPorCodigo(codigo);
 
+		List<GarantiaExtendidaEntity> garantias = entityManager
+				.createNamedQuery(GARANTIA_EXTENDIDA_FIND_BY_CODIGO, GarantiaExtendidaEntity.class)
+				.setParameter(CODIGO, codigo)
+				.setHint(GRAFO_CARGA, entityManager.getEntityGraph(GarantiaExtendidaEntity.CON_PRODUCTO))
+				.getResultList();
+		if (garantias.isEmpty()) {
+			return null;
+		}
+
+		GarantiaExtendidaEntity garantiaEntity = garantias.get(0);
 		return new GarantiaExtendida(ProductoBuilder.convertirADominio(garantiaEntity.getProducto()),
 				garantiaEntity.getFechaSolicitudGarantia(),garantiaEntity.getFechaFinGarantia(),garantiaEntity.getPrecio(),
-				garantiaEntity.getNombreCliente()
+				garantiaEntity.getNombreCliente(), garantiaEntity.getNivel()
 				);
 	}
-
-	
-	
 }
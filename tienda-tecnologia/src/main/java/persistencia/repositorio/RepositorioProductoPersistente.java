@@ -1,8 +1,17 @@
 package persistencia.repositorio;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
+import org.hibernate.Session;
+
+import dominio.ClasificadorVocales;
 import dominio.Producto;
 import dominio.repositorio.RepositorioProducto;
 import persistencia.builder.ProductoBuilder;
@@ -11,8 +20,20 @@ import persistencia.repositorio.jpa.RepositorioProductoJPA;
 
 public class RepositorioProductoPersistente implements RepositorioProducto, RepositorioProductoJPA {
 
-	private static final String CODIGO = "codigo";
-	private static final String PRODUCTO_FIND_BY_CODIGO = "Producto.findByCodigo";
+	private static final String CODIGOS = "codigos";
+	private static final String PRODUCTO_FIND_BY_CODIGOS = "Producto.findByCodigos";
+	
+	/**
+	 * Cantidad maxima de codigos que se envian en cada clausula IN.
+	 */
+	private static final int TAMANO_LOTE = 500;
+
+	/**
+	 * Cuenta las vocales en SQL comparando la longitud del codigo con y sin vocales.
+	 */
+	private static final String COMPLETAR_CANTIDAD_VOCALES = "UPDATE Producto SET cantidadVocales = LENGTH(codigo) - "
+			+ "LENGTH(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(LOWER(codigo), 'a', ''), 'e', ''), 'i', ''), 'o', ''), 'u', '')) "
+			+ "WHERE cantidadVocales IS NULL";
 	
 	private EntityManager entityManager;
 
@@ -27,32 +48,62 @@ public class RepositorioProductoPersistente implements RepositorioProducto, Repo
 		return ProductoBuilder.convertirADominio(productoEntity);
 	}
 	
+	/**
+	 * Busca por el identificador natural, la relacion codigo - id queda en la cache de Hibernate
+	 * y las siguientes busquedas del mismo codigo van directo por la llave primaria.
+	 * @return el producto o null si no existe
+	 */
 	@Override
 	public ProductoEntity obtenerProductoEntityPorCodigo(String codigo) {
+		return entityManager.unwrap(Session.class).bySimpleNaturalId(ProductoEntity.class).load(codigo);
+	}
+
+	@Override
+	public Map<String, Producto> obtenerPorCodigos(Collection<String> codigos) {
 		
-		Query query = entityManager.createNamedQuery(PRODUCTO_FIND_BY_CODIGO);
-		query.setParameter(CODIGO, codigo);
+		Map<String, Producto> productos = new HashMap<>();
+		for (ProductoEntity productoEntity : obtenerProductosEntityPorCodigos(codigos).values()) {
+			productos.put(productoEntity.getCodigo(), ProductoBuilder.convertirADominio(productoEntity));
+		}
+		return productos;
+	}
 
-		return (ProductoEntity) query.getSingleResult();
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, ProductoEntity> obtenerProductosEntityPorCodigos(Collection<String> codigos) {
+		
+		Map<String, ProductoEntity> productos = new HashMap<>();
+		List<String> pendientes = new ArrayList<>(codigos);
+		
+		for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_LOTE) {
+			
+			Query query = entityManager.createNamedQuery(PRODUCTO_FIND_BY_CODIGOS);
+			query.setParameter(CODIGOS, pendientes.subList(inicio, Math.min(inicio + TAMANO_LOTE, pendientes.size())));
+
+			for (ProductoEntity productoEntity : (List<ProductoEntity>) query.getResultList()) {
+				productos.put(productoEntity.getCodigo(), productoEntity);
+			}
+		}
+		return productos;
 	}
 
 	@Override
 	public void agregar(Producto producto) {
 		entityManager.persist(ProductoBuilder.convertirAEntity(producto));
-	}	
+	}
+
+	@Override
+	public int completarCantidadVocales() {
+		return entityManager.createNativeQuery(COMPLETAR_CANTIDAD_VOCALES).executeUpdate();
+	}
+	
 	/**
 	 * 
 	 * @param codigo Cdigo del articulo a evaluar
 	 * @return true si el codigo posee 3 vocales de lo contrario false
 	 */
 	public boolean validarTresVocales(String codigo) {
-		int contador = 0;
-		for(int x=0;x<codigo.length();x++) {
-			  if ((codigo.toLowerCase().charAt(x)=='a') || (codigo.toLowerCase().charAt(x)=='e') || (codigo.toLowerCase().charAt(x)=='i') || (codigo.toLowerCase().charAt(x)=='o') || (codigo.toLowerCase().charAt(x)=='u')){
-			    contador++;
-			  }
-			}
-		return (contador == 3);
-	};
+		return ClasificadorVocales.contarVocales(codigo) == 3;
+	}
 
 }
@@ -0,0 +1,207 @@
+package persistencia.repositorio.bitacora;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Bitacora de registros de garantia de tamano fijo, repartida en segmentos de la misma cantidad de registros que se
+ * mapean completos en memoria. La posicion de un registro es su numero de orden, de ella salen el segmento y el
+ * desplazamiento. Solo se anexa al final; quien la usa debe serializar las escrituras, las lecturas pueden ser
+ * concurrentes.
+ */
+final class BitacoraSegmentada implements AutoCloseable {
+
+	private static final String PREFIJO = "segmento-";
+	private static final String EXTENSION = ".bitacora";
+
+	private final Path directorio;
+	private final int registrosPorSegmento;
+	private final List<Segmento> segmentos = new CopyOnWriteArrayList<>();
+	private final byte[] escritura = new byte[RegistroGarantia.TAMANO];
+	private final Object sincronizacion = new Object();
+
+	/**
+	 * Solo lo cambia quien anexa, la instantanea lo lee sin detener las escrituras
+	 */
+	private volatile long fin;
+	private volatile long sincronizadoHasta;
+
+	/**
+	 * Abre los segmentos consecutivos desde el primero, el final se conoce al recorrer
+	 */
+	BitacoraSegmentada(Path directorio, int registrosPorSegmento) throws IOException {
+
+		this.directorio = Files.createDirectories(directorio);
+		this.registrosPorSegmento = registrosPorSegmento;
+		for (int numero = 0; Files.exists(archivo(numero)); numero++) {
+			segmentos.add(abrir(numero));
+		}
+	}
+
+	/**
+	 * @return true si hay un registro completo en la posicion
+	 */
+	boolean esValido(long posicion) {
+		return posicion >= 0 && segmento(posicion) < segmentos.size() && leer(posicion) != null;
+	}
+
+	/**
+	 * Lee los registros desde la posicion hasta el primero incompleto, que pasa a ser el final de la bitacora.
+	 * Los segmentos que quedan despues del final se borran
+	 * @return la posicion del final
+	 */
+	long recorrer(long desde, ObjLongConsumer<RegistroGarantia> consumidor) throws IOException {
+
+		long posicion = desde;
+		RegistroGarantia registro;
+		while (segmento(posicion) < segmentos.size() && (registro = leer(posicion)) != null) {
+			consumidor.accept(registro, posicion);
+			posicion++;
+		}
+		fin = posicion;
+		sincronizadoHasta = posicion;
+
+		while (segmentos.size() > segmento(posicion) + 1) {
+			Segmento sobrante = segmentos.remove(segmentos.size() - 1);
+			sobrante.canal.close();
+			Files.delete(sobrante.archivo);
+		}
+		limpiarDesde(posicion);
+		return posicion;
+	}
+
+	/**
+	 * Borra lo que haya despues del final en su segmento, asi un registro viejo que quedo despues de uno
+	 * incompleto no se confunde con uno nuevo al volver a recorrer
+	 */
+	private void limpiarDesde(long posicion) {
+
+		if (segmento(posicion) >= segmentos.size()) {
+			return;
+		}
+		MappedByteBuffer mapa = segmentos.get(segmento(posicion)).mapa;
+		int limite = registrosPorSegmento * RegistroGarantia.TAMANO;
+		boolean limpiado = false;
+		for (int i = desplazamiento(posicion); i < limite; i += Long.BYTES) {
+			if (mapa.getLong(i) != 0) {
+				mapa.putLong(i, 0);
+				limpiado = true;
+			}
+		}
+		if (limpiado) {
+			mapa.force();
+		}
+	}
+
+	/**
+	 * Escribe el registro al final sin esperar a que llegue al disco, ver {@link #sincronizar(long)}
+	 * @return la posicion del registro
+	 */
+	long anexar(RegistroGarantia registro) throws IOException {
+
+		int numero = segmento(fin);
+		if (numero == segmentos.size()) {
+			if (numero > 0) {
+				segmentos.get(numero - 1).mapa.force();
+			}
+			segmentos.add(abrir(numero));
+		}
+
+		registro.codificar(escritura);
+		ByteBuffer destino = segmentos.get(numero).mapa.duplicate();
+		destino.position(desplazamiento(fin));
+		destino.put(escritura);
+		return fin++;
+	}
+
+	/**
+	 * Espera a que los registros anteriores a la posicion esten en disco. Quien llega primero fuerza el segmento
+	 * con todo lo escrito hasta ese momento, los demas que quedaron cubiertos vuelven sin forzarlo otra vez
+	 */
+	void sincronizar(long hasta) {
+
+		if (sincronizadoHasta >= hasta) {
+			return;
+		}
+		synchronized (sincronizacion) {
+			if (sincronizadoHasta >= hasta) {
+				return;
+			}
+			segmentos.get(segmento(hasta - 1)).mapa.force();
+			sincronizadoHasta = hasta;
+		}
+	}
+
+	/**
+	 * @return el registro de la posicion, null si esta incompleto
+	 */
+	RegistroGarantia leer(long posicion) {
+		byte[] lectura = new byte[RegistroGarantia.TAMANO];
+		ByteBuffer origen = segmentos.get(segmento(posicion)).mapa.duplicate();
+		origen.position(desplazamiento(posicion));
+		origen.get(lectura);
+		return RegistroGarantia.decodificar(lectura);
+	}
+
+	long getFin() {
+		return fin;
+	}
+
+	int getSegmentos() {
+		return segmentos.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Segmento segmento : segmentos) {
+			segmento.mapa.force();
+			segmento.canal.close();
+		}
+		segmentos.clear();
+	}
+
+	private int segmento(long posicion) {
+		return (int) (posicion / registrosPorSegmento);
+	}
+
+	private int desplazamiento(long posicion) {
+		return (int) (posicion % registrosPorSegmento) * RegistroGarantia.TAMANO;
+	}
+
+	private Path archivo(int numero) {
+		return directorio.resolve(String.format("%s%08d%s", PREFIJO, numero, EXTENSION));
+	}
+
+	/**
+	 * Un segmento cortado se completa con ceros al mapearlo, sus registros faltantes quedan como incompletos
+	 */
+	private Segmento abrir(int numero) throws IOException {
+		Path archivo = archivo(numero);
+		FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0,
+				(long) registrosPorSegmento * RegistroGarantia.TAMANO);
+		return new Segmento(archivo, canal, mapa);
+	}
+
+	private static final class Segmento {
+
+		private final Path archivo;
+		private final FileChannel canal;
+		private final MappedByteBuffer mapa;
+
+		private Segmento(Path archivo, FileChannel canal, MappedByteBuffer mapa) {
+			this.archivo = archivo;
+			this.canal = canal;
+			this.mapa = mapa;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package persistencia.repositorio.bitacora;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import dominio.Producto;
+
+/**
+ * Registro de tamano fijo de una garantia emitida. Formato: fecha de solicitud y fecha de fin en milisegundos
+ * (long), precio (double), codigo y nombre del cliente en UTF-8, cada uno con su longitud (short) en un espacio
+ * fijo, y al final el CRC32 (int) de los bytes anteriores. El ultimo byte del espacio del codigo guarda el nivel de
+ * la garantia como su ordinal mas uno; en los registros escritos antes de guardar el nivel es cero. Un registro cuyo CRC no coincide, como uno cortado en
+ * cualquier byte o un espacio que nunca se escribio, marca el final de la bitacora.
+ */
+final class RegistroGarantia {
+
+	static final int TAMANO = 512;
+	static final long SIN_FECHA = Long.MIN_VALUE;
+
+	static final String TEXTO_MUY_LARGO = "El texto supera los bytes de su espacio en la bitacora: ";
+
+	private static final int FECHA_SOLICITUD = 0;
+	private static final int FECHA_FIN = 8;
+	private static final int PRECIO = 16;
+	private static final int CODIGO = 24;
+	private static final int NOMBRE_CLIENTE = 266;
+	private static final int NIVEL = NOMBRE_CLIENTE - 1;
+	private static final int CRC = TAMANO - Integer.BYTES;
+	private static final int MAXIMO_BYTES_TEXTO = NOMBRE_CLIENTE - CODIGO - Short.BYTES;
+	private static final int MAXIMO_BYTES_CODIGO = NIVEL - CODIGO - Short.BYTES;
+	private static final NivelGarantia[] NIVELES = NivelGarantia.values();
+	private static final short TEXTO_NULO = -1;
+
+	final String codigo;
+	final String nombreCliente;
+	final long fechaSolicitud;
+	final long fechaFin;
+	final double precio;
+
+	/**
+	 * null en los registros escritos antes de guardar el nivel
+	 */
+	final NivelGarantia nivel;
+
+	RegistroGarantia(String codigo, String nombreCliente, long fechaSolicitud, long fechaFin, double precio,
+			NivelGarantia nivel) {
+		this.codigo = codigo;
+		this.nombreCliente = nombreCliente;
+		this.fechaSolicitud = fechaSolicitud;
+		this.fechaFin = fechaFin;
+		this.precio = precio;
+		this.nivel = nivel;
+	}
+
+	static RegistroGarantia de(GarantiaExtendida garantia) {
+		return new RegistroGarantia(garantia.getProducto().getCodigo(), garantia.getNombreCliente(),
+				aMilisegundos(garantia.getFechaSolicitudGarantia()), aMilisegundos(garantia.getFechaFinGarantia()),
+				garantia.getPrecioGarantia(), garantia.getNivel());
+	}
+
+	/**
+	 * Un registro sin nivel toma el de las tarifas por defecto para el precio del producto
+	 */
+	GarantiaExtendida convertirADominio(Producto producto) {
+		return nivel != null
+				? new GarantiaExtendida(producto, aFecha(fechaSolicitud), aFecha(fechaFin), precio, nombreCliente, nivel)
+				: new GarantiaExtendida(producto, aFecha(fechaSolicitud), aFecha(fechaFin), precio, nombreCliente);
+	}
+
+	/**
+	 * Escribe el registro completo en el arreglo, que debe tener TAMANO bytes
+	 */
+	void codificar(byte[] destino) {
+
+		ByteBuffer registro = ByteBuffer.wrap(destino);
+		Arrays.fill(destino, (byte) 0);
+		registro.putLong(FECHA_SOLICITUD, fechaSolicitud);
+		registro.putLong(FECHA_FIN, fechaFin);
+		registro.putDouble(PRECIO, precio);
+		escribirTexto(registro, CODIGO, codigo);
+		escribirTexto(registro, NOMBRE_CLIENTE, nombreCliente);
+		registro.put(NIVEL, nivel != null ? (byte) (nivel.ordinal() + 1) : 0);
+		registro.putInt(CRC, crc(destino));
+	}
+
+	/**
+	 * @return el registro, null si el CRC no coincide
+	 */
+	static RegistroGarantia decodificar(byte[] origen) {
+
+		ByteBuffer registro = ByteBuffer.wrap(origen);
+		if (registro.getInt(CRC) != crc(origen)) {
+			return null;
+		}
+		int nivel = registro.get(NIVEL);
+		return new RegistroGarantia(leerTexto(registro, CODIGO), leerTexto(registro, NOMBRE_CLIENTE),
+				registro.getLong(FECHA_SOLICITUD), registro.getLong(FECHA_FIN), registro.getDouble(PRECIO),
+				nivel > 0 && nivel <= NIVELES.length ? NIVELES[nivel - 1] : null);
+	}
+
+	static void validar(GarantiaExtendida garantia) {
+		validarTexto(garantia.getProducto().getCodigo(), MAXIMO_BYTES_CODIGO);
+		validarTexto(garantia.getNombreCliente(), MAXIMO_BYTES_TEXTO);
+	}
+
+	private static void validarTexto(String texto, int maximoBytes) {
+		if (texto != null && texto.getBytes(StandardCharsets.UTF_8).length > maximoBytes) {
+			throw new IllegalArgumentException(TEXTO_MUY_LARGO + texto);
+		}
+	}
+
+	private static void escribirTexto(ByteBuffer registro, int posicion, String texto) {
+		if (texto == null) {
+			registro.putShort(posicion, TEXTO_NULO);
+			return;
+		}
+		byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+		registro.putShort(posicion, (short) bytes.length);
+		registro.position(posicion + Short.BYTES);
+		registro.put(bytes);
+	}
+
+	private static String leerTexto(ByteBuffer registro, int posicion) {
+		short longitud = registro.getShort(posicion);
+		if (longitud == TEXTO_NULO) {
+			return null;
+		}
+		if (longitud < 0 || longitud > MAXIMO_BYTES_TEXTO) {
+			throw new IllegalStateException(TEXTO_MUY_LARGO + longitud);
+		}
+		return new String(registro.array(), posicion + Short.BYTES, longitud, StandardCharsets.UTF_8);
+	}
+
+	private static int crc(byte[] registro) {
+		CRC32 crc = new CRC32();
+		crc.update(registro, 0, CRC);
+		return (int) crc.getValue();
+	}
+
+	private static long aMilisegundos(Date fecha) {
+		return fecha != null ? fecha.getTime() : SIN_FECHA;
+	}
+
+	private static Date aFecha(long milisegundos) {
+		return milisegundos != SIN_FECHA ? new Date(milisegundos) : null;
+	}
+}
@@ -0,0 +1,412 @@
+package persistencia.repositorio.bitacora;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import javax.persistence.EntityExistsException;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.VencimientoGarantia;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.repositorio.vencimiento.IndiceVencimientos;
+
+/**
+ * Repositorio de garantias sin JPA: cada garantia emitida se anexa como registro de tamano fijo a una bitacora
+ * segmentada mapeada en memoria, y un indice en memoria lleva cada codigo a la posicion de su registro. Una garantia
+ * entra al indice, y otros hilos la ven, solo despues de llegar al disco; si no llega agregar falla y la garantia
+ * se puede volver a agregar. Como en el repositorio en memoria, el producto se lee del repositorio de productos al
+ * consultar y los cambios no participan de ninguna transaccion.
+ * 
+ * Al abrir, el indice se reconstruye recorriendo la bitacora desde el principio o, si hay una instantanea valida,
+ * cargando la instantanea y recorriendo solo los registros posteriores. Si un codigo aparece mas de una vez queda su
+ * ultimo registro. La instantanea se toma cada cierta cantidad de garantias desde un hilo propio y al cerrar.
+ */
+public class RepositorioGarantiaBitacora implements RepositorioGarantiaExtendida, AutoCloseable {
+
+	public static final String LA_GARANTIA_YA_EXISTE = "Ya existe una garantia para el producto ";
+	public static final String BITACORA_NO_DISPONIBLE = "No se pudo escribir en la bitacora de garantias";
+
+	public static final int REGISTROS_POR_SEGMENTO = 32768;
+	public static final int INSTANTANEA_CADA = 100000;
+
+	private static final String INSTANTANEA = "instantanea";
+	private static final String INSTANTANEA_TEMPORAL = "instantanea.tmp";
+	private static final int MAGIA = 0x42495441;
+
+	private final Path directorio;
+	private final RepositorioProducto repositorioProducto;
+	private final BitacoraSegmentada bitacora;
+	private final int instantaneaCada;
+
+	private final Map<String, Entrada> indice = new ConcurrentHashMap<>();
+
+	private final IndiceVencimientos vencimientos = new IndiceVencimientos();
+
+	/**
+	 * Codigos anexados que esperan llegar al disco, mientras tanto no se pueden volver a agregar.
+	 */
+	private final Set<String> reservados = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Posiciones anexadas que todavia no estan en el indice. La instantanea solo cubre los registros anteriores a
+	 * la menor de ellas.
+	 */
+	private final NavigableSet<Long> sinPublicar = new ConcurrentSkipListSet<>();
+
+	private final Object escritura = new Object();
+	private final ExecutorService instantaneas = Executors.newSingleThreadExecutor(tarea -> {
+		Thread hilo = new Thread(tarea, "instantanea-garantias");
+		hilo.setDaemon(true);
+		return hilo;
+	});
+
+	private long agregadasDesdeInstantanea;
+	private long registrosRecorridos;
+	private volatile IOException ultimoError;
+
+	public RepositorioGarantiaBitacora(Path directorio, RepositorioProducto repositorioProducto) throws IOException {
+		this(directorio, repositorioProducto, REGISTROS_POR_SEGMENTO, INSTANTANEA_CADA);
+	}
+
+	/**
+	 * @param registrosPorSegmento registros de cada archivo de la bitacora, no se puede cambiar despues de crearla
+	 * @param instantaneaCada garantias agregadas entre instantaneas
+	 */
+	public RepositorioGarantiaBitacora(Path directorio, RepositorioProducto repositorioProducto,
+			int registrosPorSegmento, int instantaneaCada) throws IOException {
+
+		this.directorio = directorio;
+		this.repositorioProducto = repositorioProducto;
+		this.bitacora = new BitacoraSegmentada(directorio, registrosPorSegmento);
+		this.instantaneaCada = instantaneaCada;
+
+		long desde = cargarInstantanea();
+		long fin = bitacora.recorrer(desde, this::aplicar);
+		this.registrosRecorridos = fin - desde;
+	}
+
+	@Override
+	public Producto obtenerProductoConGarantiaPorCodigo(String codigo) {
+		return indice.containsKey(codigo) ? repositorioProducto.obtenerPorCodigo(codigo) : null;
+	}
+
+	@Override
+	public EstadoGarantiaProducto obtenerEstadoGarantia(String codigo) {
+		return EstadoGarantiaProducto.de(repositorioProducto.obtenerPorCodigo(codigo), indice.containsKey(codigo));
+	}
+
+	@Override
+	public void agregar(GarantiaExtendida garantia) {
+		agregarTodas(Collections.singletonList(garantia));
+	}
+
+	/**
+	 * Se validan todas antes de escribir, si alguna ya tiene garantia no se agrega ninguna. Todas se llevan al disco
+	 * con una sola sincronizacion y despues se publican en el indice
+	 */
+	@Override
+	public void agregarTodas(List<GarantiaExtendida> garantias) {
+
+		List<RegistroGarantia> registros = new ArrayList<>(garantias.size());
+		for (GarantiaExtendida garantia : garantias) {
+			RegistroGarantia.validar(garantia);
+			registros.add(RegistroGarantia.de(garantia));
+		}
+
+		long desde;
+		synchronized (escritura) {
+			Set<String> codigos = new HashSet<>();
+			for (RegistroGarantia registro : registros) {
+				if (indice.containsKey(registro.codigo) || reservados.contains(registro.codigo)
+						|| !codigos.add(registro.codigo)) {
+					throw new EntityExistsException(LA_GARANTIA_YA_EXISTE + registro.codigo);
+				}
+			}
+			reservados.addAll(codigos);
+			desde = bitacora.getFin();
+			int anexados = 0;
+			try {
+				for (RegistroGarantia registro : registros) {
+					anexar(registro);
+					anexados++;
+				}
+			} catch (RuntimeException e) {
+				descartar(registros, desde, anexados);
+				throw e;
+			}
+		}
+
+		try {
+			bitacora.sincronizar(desde + registros.size());
+		} catch (RuntimeException e) {
+			descartar(registros, desde, registros.size());
+			throw e;
+		}
+		for (int i = 0; i < registros.size(); i++) {
+			RegistroGarantia registro = registros.get(i);
+			aplicar(registro, desde + i);
+			reservados.remove(registro.codigo);
+			sinPublicar.remove(desde + i);
+		}
+	}
+
+	/**
+	 * Los registros que no llegaron al disco no se publican. Si al reiniciar aparecen en la bitacora y la garantia
+	 * se agrego de nuevo, queda el registro posterior
+	 */
+	private void descartar(List<RegistroGarantia> registros, long desde, int anexados) {
+		for (int i = 0; i < registros.size(); i++) {
+			reservados.remove(registros.get(i).codigo);
+			if (i < anexados) {
+				sinPublicar.remove(desde + i);
+			}
+		}
+	}
+
+	@Override
+	public Set<String> obtenerCodigosConGarantia(Collection<String> codigos) {
+
+		Set<String> codigosConGarantia = new HashSet<>();
+		for (String codigo : codigos) {
+			if (indice.containsKey(codigo)) {
+				codigosConGarantia.add(codigo);
+			}
+		}
+		return codigosConGarantia;
+	}
+
+	@Override
+	public GarantiaExtendida obtener(String codigo) {
+
+		Entrada entrada = indice.get(codigo);
+		if (entrada == null) {
+			return null;
+		}
+		return bitacora.leer(entrada.posicion).convertirADominio(repositorioProducto.obtenerPorCodigo(codigo));
+	}
+
+	@Override
+	public List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta) {
+
+		List<VencimientoGarantia> resultado = new ArrayList<>();
+		vencimientos.recorrer(desde.getTime(), hasta.getTime(), (codigo, fechaFin) -> {
+			RegistroGarantia registro = bitacora.leer(indice.get(codigo).posicion);
+			resultado.add(new VencimientoGarantia(codigo, registro.nombreCliente, new Date(fechaFin)));
+		});
+		return resultado;
+	}
+
+	/**
+	 * Guarda el indice con la posicion hasta la que llega. Se escribe en un archivo temporal que reemplaza al
+	 * anterior al terminar, asi una instantanea a medio escribir nunca reemplaza a una completa.
+	 * 
+	 * No detiene a quienes agregan garantias: la posicion es el final de la bitacora o la primera garantia que aun no
+	 * esta en el indice, todas las anteriores ya estan en el, y del indice solo se guardan las entradas anteriores a
+	 * esa posicion. Las posteriores se recorren de la bitacora al abrir
+	 */
+	public synchronized void tomarInstantanea() throws IOException {
+
+		long posicion = bitacora.getFin();
+		Long primeraSinPublicar = sinPublicar.ceiling(0L);
+		if (primeraSinPublicar != null && primeraSinPublicar < posicion) {
+			posicion = primeraSinPublicar;
+		}
+		List<Map.Entry<String, Entrada>> copia = new ArrayList<>();
+		for (Map.Entry<String, Entrada> entrada : indice.entrySet()) {
+			if (entrada.getValue().posicion < posicion) {
+				copia.add(entrada);
+			}
+		}
+		bitacora.sincronizar(posicion);
+
+		Path temporal = directorio.resolve(INSTANTANEA_TEMPORAL);
+		CRC32 crc = new CRC32();
+		try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+				DataOutputStream salida = new DataOutputStream(
+						new BufferedOutputStream(new CheckedOutputStream(archivo, crc)))) {
+			salida.writeInt(MAGIA);
+			salida.writeLong(posicion);
+			salida.writeInt(copia.size());
+			for (Map.Entry<String, Entrada> entrada : copia) {
+				salida.writeUTF(entrada.getKey());
+				salida.writeLong(entrada.getValue().posicion);
+				salida.writeLong(entrada.getValue().fechaFin);
+			}
+			salida.flush();
+			salida.writeInt((int) crc.getValue());
+			salida.flush();
+			archivo.getFD().sync();
+		}
+		Files.move(temporal, directorio.resolve(INSTANTANEA), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public int getTamano() {
+		return indice.size();
+	}
+
+	/**
+	 * @return registros de la bitacora que se recorrieron al abrir, los que no cubria la instantanea
+	 */
+	public long getRegistrosRecorridos() {
+		return registrosRecorridos;
+	}
+
+	/**
+	 * @return el error de la ultima instantanea automatica, null si no hubo
+	 */
+	public IOException getUltimoError() {
+		return ultimoError;
+	}
+
+	@Override
+	public void close() throws IOException {
+		instantaneas.shutdown();
+		try {
+			instantaneas.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		tomarInstantanea();
+		bitacora.close();
+	}
+
+	/**
+	 * La posicion se marca sin publicar antes de anexar, asi quien lee el final de la bitacora ya la encuentra
+	 */
+	private long anexar(RegistroGarantia registro) {
+		long posicion = bitacora.getFin();
+		sinPublicar.add(posicion);
+		try {
+			bitacora.anexar(registro);
+		} catch (IOException e) {
+			sinPublicar.remove(posicion);
+			throw new UncheckedIOException(BITACORA_NO_DISPONIBLE, e);
+		}
+
+		if (++agregadasDesdeInstantanea >= instantaneaCada) {
+			agregadasDesdeInstantanea = 0;
+			instantaneas.execute(() -> {
+				try {
+					tomarInstantanea();
+				} catch (IOException e) {
+					ultimoError = e;
+				}
+			});
+		}
+		return posicion;
+	}
+
+	private void aplicar(RegistroGarantia registro, long posicion) {
+		Entrada anterior = indice.put(registro.codigo, new Entrada(posicion, registro.fechaFin));
+		if (anterior != null && anterior.fechaFin != RegistroGarantia.SIN_FECHA) {
+			vencimientos.quitar(registro.codigo, anterior.fechaFin);
+		}
+		if (registro.fechaFin != RegistroGarantia.SIN_FECHA) {
+			vencimientos.agregar(registro.codigo, registro.fechaFin);
+		}
+	}
+
+	/**
+	 * Una instantanea sirve si esta completa y la bitacora todavia tiene su ultimo registro, si la bitacora se
+	 * corto antes se recorre desde el principio. La que no sirve se borra, los registros nuevos ocuparan las
+	 * posiciones que ella daba por escritas
+	 * @return la posicion desde la que hay que recorrer la bitacora
+	 */
+	private long cargarInstantanea() throws IOException {
+
+		Path archivo = directorio.resolve(INSTANTANEA);
+		if (!Files.exists(archivo)) {
+			return 0;
+		}
+		long posicion = leerInstantanea(archivo);
+		if (posicion < 0) {
+			Files.delete(archivo);
+			return 0;
+		}
+		return posicion;
+	}
+
+	/**
+	 * @return la posicion hasta la que llega la instantanea, -1 si no sirve
+	 */
+	private long leerInstantanea(Path archivo) {
+
+		Map<String, Entrada> cargado = new HashMap<>();
+		long posicion;
+		CRC32 crc = new CRC32();
+		try (DataInputStream entrada = new DataInputStream(
+				new CheckedInputStream(new BufferedInputStream(Files.newInputStream(archivo)), crc))) {
+			if (entrada.readInt() != MAGIA) {
+				return -1;
+			}
+			posicion = entrada.readLong();
+			int cantidad = entrada.readInt();
+			for (int i = 0; i < cantidad; i++) {
+				String codigo = entrada.readUTF();
+				Entrada registro = new Entrada(entrada.readLong(), entrada.readLong());
+				if (registro.posicion < 0 || registro.posicion >= posicion) {
+					return -1;
+				}
+				cargado.put(codigo, registro);
+			}
+			int esperado = (int) crc.getValue();
+			if (entrada.readInt() != esperado) {
+				return -1;
+			}
+		} catch (IOException e) {
+			return -1;
+		}
+
+		if (posicion < 0 || (posicion > 0 && !bitacora.esValido(posicion - 1))) {
+			return -1;
+		}
+		for (Map.Entry<String, Entrada> entrada : cargado.entrySet()) {
+			indice.put(entrada.getKey(), entrada.getValue());
+			if (entrada.getValue().fechaFin != RegistroGarantia.SIN_FECHA) {
+				vencimientos.agregar(entrada.getKey(), entrada.getValue().fechaFin);
+			}
+		}
+		return posicion;
+	}
+
+	private static final class Entrada {
+
+		private final long posicion;
+		private final long fechaFin;
+
+		private Entrada(long posicion, long fechaFin) {
+			this.posicion = posicion;
+			this.fechaFin = fechaFin;
+		}
+	}
+}
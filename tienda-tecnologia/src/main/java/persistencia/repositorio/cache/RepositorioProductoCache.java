@@ -0,0 +1,183 @@
+package persistencia.repositorio.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import dominio.Producto;
+import dominio.repositorio.RepositorioProducto;
+
+/**
+ * Cache de lectura acotada delante de un repositorio de productos. Los productos se guardan en orden de uso y,
+ * cuando la cache esta llena, un producto nuevo solo reemplaza al menos usado recientemente si su frecuencia
+ * estimada es mayor, de modo que los productos consultados una sola vez no desalojan a los frecuentes.
+ * Las entradas pueden expirar por tiempo y se invalidan al agregar un producto con el mismo codigo.
+ */
+public class RepositorioProductoCache implements RepositorioProducto {
+
+	private final RepositorioProducto repositorioProducto;
+	private final int capacidad;
+	private final long ttlNanos;
+
+	private final LinkedHashMap<String, Entrada> entradas;
+	private final SketchFrecuencia frecuencias;
+
+	private long aciertos;
+	private long fallos;
+	private long desalojos;
+
+	/**
+	 * @param repositorioProducto repositorio al que se delegan las consultas que no estan en la cache
+	 * @param capacidad cantidad maxima de productos en la cache
+	 * @param ttl tiempo de vida de cada producto, 0 para que no expiren
+	 * @param unidad unidad del tiempo de vida
+	 */
+	public RepositorioProductoCache(RepositorioProducto repositorioProducto, int capacidad, long ttl, TimeUnit unidad) {
+
+		if (capacidad <= 0) {
+			throw new IllegalArgumentException("La capacidad de la cache debe ser mayor que cero");
+		}
+		this.repositorioProducto = repositorioProducto;
+		this.capacidad = capacidad;
+		this.ttlNanos = unidad.toNanos(ttl);
+		this.entradas = new LinkedHashMap<>(16, 0.75f, true);
+		this.frecuencias = new SketchFrecuencia(capacidad);
+	}
+
+	@Override
+	public Producto obtenerPorCodigo(String codigo) {
+
+		Producto producto = buscar(codigo);
+		if (producto == null) {
+			producto = repositorioProducto.obtenerPorCodigo(codigo);
+			if (producto != null) {
+				guardar(producto);
+			}
+		}
+		return producto;
+	}
+
+	@Override
+	public Map<String, Producto> obtenerPorCodigos(Collection<String> codigos) {
+
+		Map<String, Producto> productos = new HashMap<>();
+		List<String> faltantes = new ArrayList<>();
+
+		for (String codigo : codigos) {
+			Producto producto = buscar(codigo);
+			if (producto != null) {
+				productos.put(codigo, producto);
+			} else {
+				faltantes.add(codigo);
+			}
+		}
+
+		if (!faltantes.isEmpty()) {
+			for (Producto producto : repositorioProducto.obtenerPorCodigos(faltantes).values()) {
+				guardar(producto);
+				productos.put(producto.getCodigo(), producto);
+			}
+		}
+		return productos;
+	}
+
+	@Override
+	public void agregar(Producto producto) {
+
+		repositorioProducto.agregar(producto);
+		invalidar(producto.getCodigo());
+	}
+
+	@Override
+	public boolean validarTresVocales(String codigo) {
+		return repositorioProducto.validarTresVocales(codigo);
+	}
+
+	public synchronized void invalidar(String codigo) {
+		entradas.remove(codigo);
+	}
+
+	public synchronized void limpiar() {
+		entradas.clear();
+	}
+
+	public synchronized int getTamano() {
+		return entradas.size();
+	}
+
+	public synchronized long getAciertos() {
+		return aciertos;
+	}
+
+	public synchronized long getFallos() {
+		return fallos;
+	}
+
+	public synchronized long getDesalojos() {
+		return desalojos;
+	}
+
+	private synchronized Producto buscar(String codigo) {
+
+		frecuencias.registrar(codigo);
+		Entrada entrada = entradas.get(codigo);
+
+		if (entrada != null && entrada.expirada(System.nanoTime())) {
+			entradas.remove(codigo);
+			entrada = null;
+		}
+
+		if (entrada == null) {
+			fallos++;
+			return null;
+		}
+		aciertos++;
+		return entrada.producto;
+	}
+
+	private synchronized void guardar(Producto producto) {
+
+		String codigo = producto.getCodigo();
+		long expiraEn = ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0;
+
+		if (entradas.containsKey(codigo) || entradas.size() < capacidad) {
+			entradas.put(codigo, new Entrada(producto, expiraEn));
+			return;
+		}
+
+		Iterator<Map.Entry<String, Entrada>> iterador = entradas.entrySet().iterator();
+		Map.Entry<String, Entrada> victima = iterador.next();
+
+		/**
+		 * Las entradas expiradas se desalojan sin comparar frecuencias.
+		 */
+		if (!victima.getValue().expirada(System.nanoTime())
+				&& frecuencias.estimar(codigo) <= frecuencias.estimar(victima.getKey())) {
+			return;
+		}
+
+		iterador.remove();
+		desalojos++;
+		entradas.put(codigo, new Entrada(producto, expiraEn));
+	}
+
+	private static final class Entrada {
+
+		private final Producto producto;
+		private final long expiraEn;
+
+		private Entrada(Producto producto, long expiraEn) {
+			this.producto = producto;
+			this.expiraEn = expiraEn;
+		}
+
+		private boolean expirada(long ahora) {
+			return expiraEn != 0 && ahora - expiraEn >= 0;
+		}
+	}
+}
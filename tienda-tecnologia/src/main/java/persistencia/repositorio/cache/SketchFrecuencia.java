@@ -0,0 +1,67 @@
+package persistencia.repositorio.cache;
+
+/**
+ * Estimador aproximado de la frecuencia de acceso de cada codigo (count-min sketch de 4 filas con contadores
+ * saturados en 15). Cuando la cantidad de registros llega al periodo de muestreo todos los contadores se dividen
+ * en dos, asi la frecuencia refleja el uso reciente y no todo el historial.
+ */
+class SketchFrecuencia {
+
+	private static final int FILAS = 4;
+	private static final int MAXIMO = 15;
+	private static final int[] SEMILLAS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+	private final byte[][] contadores;
+	private final int mascara;
+	private final int periodoMuestreo;
+	private int registros;
+
+	SketchFrecuencia(int capacidad) {
+
+		int ancho = Integer.highestOneBit(Math.max(16, capacidad - 1) << 1);
+		this.contadores = new byte[FILAS][ancho];
+		this.mascara = ancho - 1;
+		this.periodoMuestreo = 10 * Math.max(capacidad, 16);
+	}
+
+	void registrar(String codigo) {
+
+		int hash = codigo.hashCode();
+		for (int fila = 0; fila < FILAS; fila++) {
+			int indice = indice(hash, fila);
+			if (contadores[fila][indice] < MAXIMO) {
+				contadores[fila][indice]++;
+			}
+		}
+
+		if (++registros >= periodoMuestreo) {
+			envejecer();
+		}
+	}
+
+	int estimar(String codigo) {
+
+		int hash = codigo.hashCode();
+		int minimo = MAXIMO;
+		for (int fila = 0; fila < FILAS; fila++) {
+			minimo = Math.min(minimo, contadores[fila][indice(hash, fila)]);
+		}
+		return minimo;
+	}
+
+	private void envejecer() {
+
+		for (byte[] fila : contadores) {
+			for (int i = 0; i < fila.length; i++) {
+				fila[i] >>= 1;
+			}
+		}
+		registros /= 2;
+	}
+
+	private int indice(int hash, int fila) {
+
+		int mezcla = hash * SEMILLAS[fila];
+		return (mezcla ^ (mezcla >>> 16)) & mascara;
+	}
+}
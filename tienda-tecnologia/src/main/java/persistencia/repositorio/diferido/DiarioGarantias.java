@@ -0,0 +1,420 @@
+package persistencia.repositorio.diferido;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import dominio.Producto;
+
+/**
+ * Archivo local donde se anexan las garantias aceptadas antes de escribirlas en la base de datos. Cada registro
+ * es longitud (int), CRC32 (int) y los datos de la garantia y su producto; el nivel va al final y falta en los
+ * registros escritos antes de guardarlo. Las escrituras que llegan mientras otra
+ * espera el fsync se sincronizan juntas, asi varios hilos comparten el costo de cada fsync.
+ * 
+ * El archivo se compacta cuando la mitad o mas de lo escrito ya esta en la base de datos: se reescribe solo con las
+ * garantias sin confirmar, asi una garantia que no se logra escribir no hace crecer el archivo indefinidamente.
+ * Al reiniciar, las que quedaron se recuperan; un registro incompleto al final, de una escritura cortada, se descarta.
+ * 
+ * Las garantias que se dejan de reintentar se anexan a un archivo de descartadas junto al diario, con el mismo
+ * formato, para revisarlas y cargarlas a mano.
+ */
+public class DiarioGarantias implements AutoCloseable {
+
+	public static final String ESCRITURA_FALLIDA = "No se pudo escribir en el diario de garantias";
+
+	public static final String EXTENSION_DESCARTADAS = ".descartadas";
+
+	private static final String EXTENSION_COMPACTACION = ".compactando";
+
+	private static final int CABECERA = 8;
+
+	/**
+	 * Por debajo de este tamano no vale la pena reescribir el archivo, la compactacion copia a lo sumo lo que se
+	 * anexo desde la anterior.
+	 */
+	private static final long TAMANO_MINIMO_COMPACTACION = 1 << 16;
+
+	private final Path archivo;
+	private final Path descartadas;
+	private final Path compactacion;
+	private final Object escritura = new Object();
+	private final Object sincronizacion = new Object();
+
+	/**
+	 * Se reemplaza al compactar, con los dos candados tomados
+	 */
+	private FileChannel canal;
+	private long posicion;
+
+	/**
+	 * Garantias anexadas que no se han confirmado, con los bytes de su registro. GarantiaExtendida no redefine
+	 * equals, cada garantia se identifica por la instancia que se anexo.
+	 */
+	private final Map<GarantiaExtendida, Integer> sinConfirmar = new LinkedHashMap<>();
+	private long bytesSinConfirmar;
+	private volatile long sincronizadoHasta;
+
+	public DiarioGarantias(Path archivo) throws IOException {
+		this.archivo = archivo;
+		this.descartadas = archivo.resolveSibling(archivo.getFileName() + EXTENSION_DESCARTADAS);
+		this.compactacion = archivo.resolveSibling(archivo.getFileName() + EXTENSION_COMPACTACION);
+		this.canal = abrir(archivo);
+	}
+
+	/**
+	 * Lee los registros completos y descarta lo que haya despues del ultimo, debe llamarse antes de anexar
+	 * @return las garantias que estaban en el diario, en el orden en que se anexaron
+	 */
+	public List<GarantiaExtendida> recuperar() throws IOException {
+
+		synchronized (escritura) {
+			/**
+			 * Una compactacion cortada antes de reemplazar el diario deja el archivo nuevo a medias, el diario
+			 * anterior sigue completo
+			 */
+			Files.deleteIfExists(compactacion);
+
+			Map<GarantiaExtendida, Integer> garantias = new LinkedHashMap<>();
+			long leido = leerRegistros(canal, garantias);
+
+			canal.truncate(leido);
+			canal.force(true);
+			posicion = leido;
+			sincronizadoHasta = leido;
+			sinConfirmar.clear();
+			sinConfirmar.putAll(garantias);
+			bytesSinConfirmar = leido;
+			return new ArrayList<>(garantias.keySet());
+		}
+	}
+
+	/**
+	 * @return las garantias del archivo de descartadas, en el orden en que se descartaron
+	 */
+	public List<GarantiaExtendida> obtenerDescartadas() throws IOException {
+
+		if (!Files.exists(descartadas)) {
+			return new ArrayList<>();
+		}
+		try (FileChannel lectura = FileChannel.open(descartadas, StandardOpenOption.READ)) {
+			Map<GarantiaExtendida, Integer> garantias = new LinkedHashMap<>();
+			leerRegistros(lectura, garantias);
+			return new ArrayList<>(garantias.keySet());
+		}
+	}
+
+	/**
+	 * Anexa las garantias y vuelve cuando estan en disco
+	 */
+	public void anexar(List<GarantiaExtendida> garantias) {
+
+		long fin;
+		try {
+			List<byte[]> registros = codificar(garantias);
+			ByteBuffer bytes = unir(registros);
+			synchronized (escritura) {
+				while (bytes.hasRemaining()) {
+					posicion += canal.write(bytes, posicion);
+				}
+				for (int i = 0; i < garantias.size(); i++) {
+					sinConfirmar.put(garantias.get(i), registros.get(i).length);
+				}
+				bytesSinConfirmar += bytes.limit();
+				fin = posicion;
+			}
+			sincronizar(fin);
+		} catch (IOException e) {
+			throw new UncheckedIOException(ESCRITURA_FALLIDA, e);
+		}
+	}
+
+	/**
+	 * Registra que las garantias ya estan en la base de datos. Si lo confirmado es la mitad o mas del archivo, se
+	 * compacta
+	 */
+	public void confirmar(List<GarantiaExtendida> garantias) {
+
+		synchronized (sincronizacion) {
+			synchronized (escritura) {
+				quitar(garantias);
+				if (posicion >= TAMANO_MINIMO_COMPACTACION && bytesSinConfirmar * 2 <= posicion) {
+					compactar();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Anexa las garantias al archivo de descartadas, espera a que esten en disco y las quita del diario, que se
+	 * compacta de inmediato para que no se vuelvan a recuperar al reiniciar
+	 */
+	public void descartar(List<GarantiaExtendida> garantias) {
+
+		try {
+			ByteBuffer bytes = unir(codificar(garantias));
+			try (FileChannel anexo = FileChannel.open(descartadas, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND)) {
+				while (bytes.hasRemaining()) {
+					anexo.write(bytes);
+				}
+				anexo.force(true);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(ESCRITURA_FALLIDA, e);
+		}
+		synchronized (sincronizacion) {
+			synchronized (escritura) {
+				quitar(garantias);
+				compactar();
+			}
+		}
+	}
+
+	public long getTamano() {
+		synchronized (escritura) {
+			return posicion;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (escritura) {
+			if (sinConfirmar.isEmpty()) {
+				canal.truncate(0);
+			}
+			canal.close();
+		}
+	}
+
+	/**
+	 * Debe llamarse con los dos candados tomados
+	 */
+	private void quitar(List<GarantiaExtendida> garantias) {
+		for (GarantiaExtendida garantia : garantias) {
+			Integer bytes = sinConfirmar.remove(garantia);
+			if (bytes != null) {
+				bytesSinConfirmar -= bytes;
+			}
+		}
+	}
+
+	/**
+	 * Deja en el archivo solo las garantias sin confirmar. Se escriben en un archivo nuevo que reemplaza al diario
+	 * cuando ya esta en disco; si el proceso termina antes, al reiniciar se recupera el diario anterior, que tambien
+	 * tiene las confirmadas y se vuelven a escribir sin efecto. Debe llamarse con los dos candados tomados
+	 */
+	private void compactar() {
+
+		try {
+			if (sinConfirmar.isEmpty()) {
+				canal.truncate(0);
+				canal.force(true);
+				posicion = 0;
+				sincronizadoHasta = 0;
+				return;
+			}
+
+			ByteBuffer bytes = unir(codificar(new ArrayList<>(sinConfirmar.keySet())));
+			FileChannel nuevo = FileChannel.open(compactacion, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				while (bytes.hasRemaining()) {
+					nuevo.write(bytes);
+				}
+				nuevo.force(true);
+				Files.move(compactacion, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				nuevo.close();
+				Files.deleteIfExists(compactacion);
+				throw e;
+			}
+
+			/**
+			 * El canal nuevo sigue apuntando al archivo movido, que ahora es el diario
+			 */
+			FileChannel anterior = canal;
+			canal = nuevo;
+			posicion = bytes.limit();
+			sincronizadoHasta = posicion;
+			bytesSinConfirmar = posicion;
+			anterior.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(ESCRITURA_FALLIDA, e);
+		}
+	}
+
+	/**
+	 * El primer hilo que llega sincroniza todo lo escrito hasta ese momento, los que esperaban y ya quedaron
+	 * cubiertos vuelven sin otro fsync
+	 */
+	private void sincronizar(long fin) throws IOException {
+
+		if (sincronizadoHasta >= fin) {
+			return;
+		}
+		synchronized (sincronizacion) {
+			if (sincronizadoHasta >= fin) {
+				return;
+			}
+			long escrito;
+			synchronized (escritura) {
+				escrito = posicion;
+			}
+			canal.force(false);
+			sincronizadoHasta = escrito;
+		}
+	}
+
+	/**
+	 * Lee los registros completos desde el inicio hasta el primero incompleto o con el CRC errado
+	 * @return los bytes leidos
+	 */
+	private static long leerRegistros(FileChannel origen, Map<GarantiaExtendida, Integer> garantias)
+			throws IOException {
+
+		long tamano = origen.size();
+		ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+		long leido = 0;
+
+		while (leido + CABECERA <= tamano) {
+			cabecera.clear();
+			leerCompleto(origen, cabecera, leido);
+			cabecera.flip();
+			int longitud = cabecera.getInt();
+			int crc = cabecera.getInt();
+			if (longitud <= 0 || leido + CABECERA + longitud > tamano) {
+				break;
+			}
+			ByteBuffer datos = ByteBuffer.allocate(longitud);
+			leerCompleto(origen, datos, leido + CABECERA);
+			if (crc(datos.array()) != crc) {
+				break;
+			}
+			garantias.put(decodificar(datos.array()), CABECERA + longitud);
+			leido += CABECERA + longitud;
+		}
+		return leido;
+	}
+
+	private static void leerCompleto(FileChannel origen, ByteBuffer destino, long desde) throws IOException {
+		long leido = desde;
+		while (destino.hasRemaining()) {
+			int cantidad = origen.read(destino, leido);
+			if (cantidad < 0) {
+				throw new IOException(ESCRITURA_FALLIDA);
+			}
+			leido += cantidad;
+		}
+	}
+
+	private static FileChannel abrir(Path archivo) throws IOException {
+		return FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * @return el registro de cada garantia, con su cabecera
+	 */
+	private static List<byte[]> codificar(List<GarantiaExtendida> garantias) throws IOException {
+
+		List<byte[]> registros = new ArrayList<>(garantias.size());
+		for (GarantiaExtendida garantia : garantias) {
+			byte[] datos = datos(garantia);
+			ByteBuffer registro = ByteBuffer.allocate(CABECERA + datos.length);
+			registro.putInt(datos.length);
+			registro.putInt(crc(datos));
+			registro.put(datos);
+			registros.add(registro.array());
+		}
+		return registros;
+	}
+
+	private static ByteBuffer unir(List<byte[]> registros) {
+
+		int tamano = 0;
+		for (byte[] registro : registros) {
+			tamano += registro.length;
+		}
+		ByteBuffer bytes = ByteBuffer.allocate(tamano);
+		for (byte[] registro : registros) {
+			bytes.put(registro);
+		}
+		bytes.flip();
+		return bytes;
+	}
+
+	private static byte[] datos(GarantiaExtendida garantia) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream salida = new DataOutputStream(bytes);
+		Producto producto = garantia.getProducto();
+		salida.writeUTF(producto.getCodigo());
+		escribirTexto(salida, producto.getNombre());
+		salida.writeDouble(producto.getPrecio());
+		escribirFecha(salida, garantia.getFechaSolicitudGarantia());
+		escribirFecha(salida, garantia.getFechaFinGarantia());
+		salida.writeDouble(garantia.getPrecioGarantia());
+		escribirTexto(salida, garantia.getNombreCliente());
+		escribirTexto(salida, garantia.getNivel() != null ? garantia.getNivel().name() : null);
+		return bytes.toByteArray();
+	}
+
+	private static GarantiaExtendida decodificar(byte[] datos) throws IOException {
+
+		DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos));
+		Producto producto = new Producto(entrada.readUTF(), leerTexto(entrada), entrada.readDouble());
+		Date fechaSolicitud = leerFecha(entrada);
+		Date fechaFin = leerFecha(entrada);
+		double precio = entrada.readDouble();
+		String nombreCliente = leerTexto(entrada);
+		String nivel = entrada.available() > 0 ? leerTexto(entrada) : null;
+		return nivel != null
+				? new GarantiaExtendida(producto, fechaSolicitud, fechaFin, precio, nombreCliente, NivelGarantia.valueOf(nivel))
+				: new GarantiaExtendida(producto, fechaSolicitud, fechaFin, precio, nombreCliente);
+	}
+
+	private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+		salida.writeBoolean(texto != null);
+		if (texto != null) {
+			salida.writeUTF(texto);
+		}
+	}
+
+	private static String leerTexto(DataInputStream entrada) throws IOException {
+		return entrada.readBoolean() ? entrada.readUTF() : null;
+	}
+
+	private static void escribirFecha(DataOutputStream salida, Date fecha) throws IOException {
+		salida.writeBoolean(fecha != null);
+		if (fecha != null) {
+			salida.writeLong(fecha.getTime());
+		}
+	}
+
+	private static Date leerFecha(DataInputStream entrada) throws IOException {
+		return entrada.readBoolean() ? new Date(entrada.readLong()) : null;
+	}
+
+	private static int crc(byte[] datos) {
+		CRC32 crc = new CRC32();
+		crc.update(datos, 0, datos.length);
+		return (int) crc.getValue();
+	}
+}
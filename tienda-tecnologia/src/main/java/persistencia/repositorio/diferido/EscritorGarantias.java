@@ -0,0 +1,431 @@
+package persistencia.repositorio.diferido;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import dominio.GarantiaExtendida;
+import persistencia.entitad.GarantiaExtendidaEntity;
+
+/**
+ * Acepta garantias en una cola acotada y las escribe en la base de datos por lotes desde un hilo propio. Una
+ * garantia queda aceptada cuando esta en el diario local; si la cola esta llena, quien agrega espera a que el
+ * hilo escriba un lote. Un lote se escribe al juntar tamanoLote garantias o al pasar el intervalo desde la primera.
+ * 
+ * La funcion que escribe cada lote debe ignorar las garantias que ya estan en la base de datos, porque al
+ * reiniciar se vuelven a escribir las que quedaron en el diario.
+ * 
+ * Una garantia que no se pudo escribir sigue pendiente y sin confirmar en el diario, y se reintenta con una espera
+ * que se duplica en cada fallo. Asi una caida de la base de datos no pierde garantias ya aceptadas ni deja de
+ * mostrarlas a las consultas. La que falla intentosMaximos veces se pasa a las descartadas del diario y deja de
+ * estar pendiente; para que esto no le pase a una garantia que la base de datos nunca aceptaria, se valida contra
+ * el esquema antes de aceptarla.
+ */
+public class EscritorGarantias implements AutoCloseable {
+
+	public static final String ESCRITOR_CERRADO = "El escritor de garantias esta cerrado";
+	public static final String GARANTIA_SIN_PRODUCTO = "La garantia no tiene producto o el producto no tiene codigo";
+	public static final String NOMBRE_CLIENTE_MUY_LARGO = "El nombre del cliente supera la longitud de su columna: ";
+
+	public static final int INTENTOS_MAXIMOS = 5;
+
+	private static final long ESPERA_CIERRE_MS = 100;
+	private static final long ESPERA_REINTENTO_INICIAL_MS = 100;
+	private static final long ESPERA_REINTENTO_MAXIMA_MS = 30000;
+
+	private final DiarioGarantias diario;
+	private final Consumer<List<GarantiaExtendida>> escribirLote;
+	private final int capacidad;
+	private final int tamanoLote;
+	private final long intervaloNanos;
+	private final int intentosMaximos;
+
+	private final Semaphore espacio;
+	private final LinkedBlockingQueue<GarantiaExtendida> cola = new LinkedBlockingQueue<>();
+	private final ConcurrentMap<String, GarantiaExtendida> pendientes = new ConcurrentHashMap<>();
+	private final Thread hilo;
+
+	/**
+	 * Garantias que fallaron al escribirse, solo las usa el hilo del escritor
+	 */
+	private List<GarantiaExtendida> reintentos = new ArrayList<>();
+	private long esperaReintentoMs = ESPERA_REINTENTO_INICIAL_MS;
+	private long proximoReintento;
+	private final Map<GarantiaExtendida, Integer> intentos = new IdentityHashMap<>();
+
+	private final LongAdder escritas = new LongAdder();
+	private final LongAdder errores = new LongAdder();
+	private final LongAdder descartadas = new LongAdder();
+	private volatile RuntimeException ultimoError;
+	private volatile boolean cerrado;
+
+	/**
+	 * Escribe las garantias que quedaron en el diario antes de empezar a aceptar nuevas
+	 * @param capacidad garantias aceptadas que todavia no estan en la base de datos
+	 */
+	public EscritorGarantias(DiarioGarantias diario, Consumer<List<GarantiaExtendida>> escribirLote, int capacidad,
+			int tamanoLote, long intervalo, TimeUnit unidad) throws IOException {
+		this(diario, escribirLote, capacidad, tamanoLote, intervalo, unidad, INTENTOS_MAXIMOS);
+	}
+
+	/**
+	 * @param intentosMaximos veces que se intenta escribir una garantia antes de descartarla
+	 */
+	public EscritorGarantias(DiarioGarantias diario, Consumer<List<GarantiaExtendida>> escribirLote, int capacidad,
+			int tamanoLote, long intervalo, TimeUnit unidad, int intentosMaximos) throws IOException {
+
+		if (capacidad <= 0 || tamanoLote <= 0 || intentosMaximos <= 0) {
+			throw new IllegalArgumentException("La capacidad, el tamano del lote y los intentos deben ser positivos");
+		}
+		this.diario = diario;
+		this.escribirLote = escribirLote;
+		this.capacidad = capacidad;
+		this.tamanoLote = tamanoLote;
+		this.intervaloNanos = unidad.toNanos(intervalo);
+		this.intentosMaximos = intentosMaximos;
+
+		List<GarantiaExtendida> recuperadas = diario.recuperar();
+		List<GarantiaExtendida> fallidas = descartarAgotadas(escribirPorLotes(recuperadas));
+		for (GarantiaExtendida garantia : fallidas) {
+			pendientes.put(garantia.getProducto().getCodigo(), garantia);
+		}
+		programarReintento(fallidas);
+
+		/**
+		 * Las recuperadas que no se pudieron escribir ocupan espacio como las aceptadas, aunque pasen de la capacidad
+		 */
+		this.espacio = new Semaphore(capacidad - fallidas.size());
+
+		this.hilo = new Thread(this::ejecutar, "escritor-garantias");
+		this.hilo.setDaemon(true);
+		this.hilo.start();
+	}
+
+	public void agregar(GarantiaExtendida garantia) {
+		agregarTodas(Collections.singletonList(garantia));
+	}
+
+	/**
+	 * Vuelve cuando las garantias estan en el diario, esperando mientras la cola esta llena. Si alguna no cumple el
+	 * esquema de la base de datos no se acepta ninguna, como al revertirse la transaccion en la escritura directa
+	 */
+	public void agregarTodas(List<GarantiaExtendida> garantias) {
+
+		for (GarantiaExtendida garantia : garantias) {
+			validar(garantia);
+		}
+		for (int inicio = 0; inicio < garantias.size(); inicio += capacidad) {
+
+			List<GarantiaExtendida> parte = garantias.subList(inicio, Math.min(inicio + capacidad, garantias.size()));
+			reservar(parte.size());
+			try {
+				diario.anexar(parte);
+			} catch (RuntimeException e) {
+				espacio.release(parte.size());
+				throw e;
+			}
+			for (GarantiaExtendida garantia : parte) {
+				pendientes.put(garantia.getProducto().getCodigo(), garantia);
+				cola.add(garantia);
+			}
+		}
+	}
+
+	/**
+	 * @return la garantia del producto si todavia no esta en la base de datos
+	 */
+	public GarantiaExtendida obtenerPendiente(String codigo) {
+		return pendientes.get(codigo);
+	}
+
+	public Collection<GarantiaExtendida> obtenerPendientes() {
+		return pendientes.values();
+	}
+
+	/**
+	 * Espera a que todas las garantias aceptadas hasta ahora esten escritas
+	 * @return false si paso el tiempo de espera
+	 */
+	public boolean esperarEscritura(long tiempo, TimeUnit unidad) throws InterruptedException {
+
+		long limite = System.nanoTime() + unidad.toNanos(tiempo);
+		synchronized (escritas) {
+			while (espacio.availablePermits() < capacidad) {
+				long restante = limite - System.nanoTime();
+				if (restante <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(escritas, restante);
+			}
+		}
+		return true;
+	}
+
+	public int getPendientes() {
+		return capacidad - espacio.availablePermits();
+	}
+
+	public long getEscritas() {
+		return escritas.sum();
+	}
+
+	/**
+	 * @return intentos fallidos de escribir una garantia, en lote y una por una; cada reintento que falla cuenta
+	 */
+	public long getErrores() {
+		return errores.sum();
+	}
+
+	/**
+	 * @return garantias que se pasaron a las descartadas del diario por fallar en todos sus intentos
+	 */
+	public long getDescartadas() {
+		return descartadas.sum();
+	}
+
+	public RuntimeException getUltimoError() {
+		return ultimoError;
+	}
+
+	/**
+	 * Deja de aceptar garantias, escribe las que estan en la cola y cierra el diario
+	 */
+	@Override
+	public void close() throws IOException {
+
+		cerrado = true;
+		boolean interrumpido = false;
+		while (hilo.isAlive()) {
+			try {
+				hilo.join();
+			} catch (InterruptedException e) {
+				interrumpido = true;
+			}
+		}
+		diario.close();
+		if (interrumpido) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Revisa lo que la base de datos rechazaria por el esquema, las columnas obligatorias y la longitud de los textos
+	 */
+	private static void validar(GarantiaExtendida garantia) {
+
+		if (garantia.getProducto() == null || garantia.getProducto().getCodigo() == null) {
+			throw new IllegalArgumentException(GARANTIA_SIN_PRODUCTO);
+		}
+		String nombreCliente = garantia.getNombreCliente();
+		if (nombreCliente != null && nombreCliente.length() > GarantiaExtendidaEntity.LONGITUD_NOMBRE_CLIENTE) {
+			throw new IllegalArgumentException(NOMBRE_CLIENTE_MUY_LARGO + nombreCliente.length());
+		}
+	}
+
+	private void reservar(int cantidad) {
+		try {
+			while (!espacio.tryAcquire(cantidad, ESPERA_CIERRE_MS, TimeUnit.MILLISECONDS)) {
+				if (cerrado) {
+					throw new IllegalStateException(ESCRITOR_CERRADO);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ESCRITOR_CERRADO, e);
+		}
+		if (cerrado) {
+			espacio.release(cantidad);
+			throw new IllegalStateException(ESCRITOR_CERRADO);
+		}
+	}
+
+	private void ejecutar() {
+
+		List<GarantiaExtendida> lote = new ArrayList<>(tamanoLote);
+		try {
+			while (true) {
+				if (!reintentos.isEmpty() && System.nanoTime() - proximoReintento >= 0) {
+					reintentar();
+				}
+
+				long espera = TimeUnit.MILLISECONDS.toNanos(ESPERA_CIERRE_MS);
+				if (!reintentos.isEmpty()) {
+					espera = Math.max(0, Math.min(espera, proximoReintento - System.nanoTime()));
+				}
+				GarantiaExtendida primera = cola.poll(espera, TimeUnit.NANOSECONDS);
+				if (primera == null) {
+					if (cerrado && cola.isEmpty()) {
+						/**
+						 * Un ultimo intento al cerrar, las que sigan fallando quedan en el diario para el reinicio
+						 */
+						if (!reintentos.isEmpty()) {
+							reintentar();
+						}
+						return;
+					}
+					continue;
+				}
+
+				lote.add(primera);
+				long limite = System.nanoTime() + intervaloNanos;
+				while (lote.size() < tamanoLote) {
+					long restante = cerrado ? 0 : limite - System.nanoTime();
+					GarantiaExtendida siguiente;
+					if (restante > 0) {
+						/**
+						 * Espera de a poco para ver el cierre aunque el intervalo sea largo
+						 */
+						siguiente = cola.poll(Math.min(restante, TimeUnit.MILLISECONDS.toNanos(ESPERA_CIERRE_MS)),
+								TimeUnit.NANOSECONDS);
+						if (siguiente == null) {
+							continue;
+						}
+					} else {
+						siguiente = cola.poll();
+						if (siguiente == null) {
+							break;
+						}
+					}
+					lote.add(siguiente);
+				}
+
+				List<GarantiaExtendida> fallidas = descartarAgotadas(escribir(lote));
+				liberar(lote.size() - fallidas.size());
+				programarReintento(fallidas);
+				lote.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void reintentar() {
+
+		List<GarantiaExtendida> anteriores = reintentos;
+		reintentos = new ArrayList<>();
+		List<GarantiaExtendida> fallidas = escribirPorLotes(anteriores);
+		esperaReintentoMs = fallidas.size() < anteriores.size() ? ESPERA_REINTENTO_INICIAL_MS
+				: Math.min(esperaReintentoMs * 2, ESPERA_REINTENTO_MAXIMA_MS);
+		List<GarantiaExtendida> seguir = descartarAgotadas(fallidas);
+		liberar(anteriores.size() - seguir.size());
+		programarReintento(seguir);
+	}
+
+	/**
+	 * Cuenta un intento fallido de cada garantia y descarta las que llegaron a intentosMaximos. Si no se pueden
+	 * pasar a las descartadas, se siguen reintentando
+	 * @return las garantias que se deben reintentar
+	 */
+	private List<GarantiaExtendida> descartarAgotadas(List<GarantiaExtendida> fallidas) {
+
+		List<GarantiaExtendida> agotadas = new ArrayList<>();
+		List<GarantiaExtendida> seguir = new ArrayList<>(fallidas.size());
+		for (GarantiaExtendida garantia : fallidas) {
+			if (intentos.merge(garantia, 1, Integer::sum) >= intentosMaximos) {
+				agotadas.add(garantia);
+			} else {
+				seguir.add(garantia);
+			}
+		}
+		if (agotadas.isEmpty()) {
+			return fallidas;
+		}
+
+		try {
+			diario.descartar(agotadas);
+		} catch (RuntimeException e) {
+			ultimoError = e;
+			return fallidas;
+		}
+		for (GarantiaExtendida garantia : agotadas) {
+			intentos.remove(garantia);
+			pendientes.remove(garantia.getProducto().getCodigo(), garantia);
+		}
+		descartadas.add(agotadas.size());
+		return seguir;
+	}
+
+	/**
+	 * Agrega las garantias fallidas a las que se reintentan; si no habia ninguna, el reintento se programa desde ahora
+	 */
+	private void programarReintento(List<GarantiaExtendida> fallidas) {
+
+		if (fallidas.isEmpty()) {
+			if (reintentos.isEmpty()) {
+				esperaReintentoMs = ESPERA_REINTENTO_INICIAL_MS;
+			}
+			return;
+		}
+		if (reintentos.isEmpty()) {
+			proximoReintento = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaReintentoMs);
+		}
+		reintentos.addAll(fallidas);
+	}
+
+	private void liberar(int cantidad) {
+		synchronized (escritas) {
+			espacio.release(cantidad);
+			escritas.notifyAll();
+		}
+	}
+
+	private List<GarantiaExtendida> escribirPorLotes(List<GarantiaExtendida> garantias) {
+
+		List<GarantiaExtendida> fallidas = new ArrayList<>();
+		for (int inicio = 0; inicio < garantias.size(); inicio += tamanoLote) {
+			fallidas.addAll(escribir(garantias.subList(inicio, Math.min(inicio + tamanoLote, garantias.size()))));
+		}
+		return fallidas;
+	}
+
+	/**
+	 * Si el lote falla se escribe garantia por garantia, para que una garantia invalida no impida escribir
+	 * las demas. Solo las escritas dejan de estar pendientes y se confirman en el diario
+	 * @return las garantias que no se pudieron escribir
+	 */
+	private List<GarantiaExtendida> escribir(List<GarantiaExtendida> lote) {
+
+		List<GarantiaExtendida> escritasDelLote = lote;
+		List<GarantiaExtendida> fallidas = Collections.emptyList();
+		try {
+			escribirLote.accept(lote);
+		} catch (RuntimeException errorLote) {
+			escritasDelLote = new ArrayList<>(lote.size());
+			fallidas = new ArrayList<>();
+			for (GarantiaExtendida garantia : lote) {
+				try {
+					escribirLote.accept(Collections.singletonList(garantia));
+					escritasDelLote.add(garantia);
+				} catch (RuntimeException e) {
+					errores.increment();
+					ultimoError = e;
+					fallidas.add(garantia);
+				}
+			}
+		}
+		for (GarantiaExtendida garantia : escritasDelLote) {
+			pendientes.remove(garantia.getProducto().getCodigo(), garantia);
+			if (!intentos.isEmpty()) {
+				intentos.remove(garantia);
+			}
+		}
+		escritas.add(escritasDelLote.size());
+		try {
+			diario.confirmar(escritasDelLote);
+		} catch (RuntimeException e) {
+			ultimoError = e;
+		}
+		return fallidas;
+	}
+}
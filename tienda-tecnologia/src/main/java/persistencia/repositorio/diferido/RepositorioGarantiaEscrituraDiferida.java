@@ -0,0 +1,124 @@
+package persistencia.repositorio.diferido;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.VencimientoGarantia;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import persistencia.repositorio.jpa.RepositorioGarantiaJPA;
+
+/**
+ * Entrega las garantias nuevas al escritor en segundo plano en lugar de persistirlas en la transaccion de quien
+ * las agrega. Las consultas ven las garantias que el escritor todavia no escribio, asi quien agrega una garantia
+ * la encuentra al consultarla aunque aun no este en la base de datos.
+ * 
+ * Una garantia aceptada se escribe aunque la transaccion de quien la agrego se revierta.
+ */
+public class RepositorioGarantiaEscrituraDiferida implements RepositorioGarantiaExtendida, RepositorioGarantiaJPA {
+
+	private static final Comparator<VencimientoGarantia> POR_FECHA_FIN = Comparator
+			.comparing(VencimientoGarantia::getFechaFinGarantia).thenComparing(VencimientoGarantia::getCodigo);
+
+	private final RepositorioGarantiaExtendida repositorioGarantia;
+	private final RepositorioGarantiaJPA repositorioGarantiaJPA;
+	private final EscritorGarantias escritor;
+
+	public <T extends RepositorioGarantiaExtendida & RepositorioGarantiaJPA> RepositorioGarantiaEscrituraDiferida(
+			T repositorioGarantia, EscritorGarantias escritor) {
+		this.repositorioGarantia = repositorioGarantia;
+		this.repositorioGarantiaJPA = repositorioGarantia;
+		this.escritor = escritor;
+	}
+
+	@Override
+	public Producto obtenerProductoConGarantiaPorCodigo(String codigo) {
+		GarantiaExtendida pendiente = escritor.obtenerPendiente(codigo);
+		return pendiente != null ? pendiente.getProducto() : repositorioGarantia.obtenerProductoConGarantiaPorCodigo(codigo);
+	}
+
+	@Override
+	public EstadoGarantiaProducto obtenerEstadoGarantia(String codigo) {
+		GarantiaExtendida pendiente = escritor.obtenerPendiente(codigo);
+		return pendiente != null ? EstadoGarantiaProducto.de(pendiente.getProducto(), true)
+				: repositorioGarantia.obtenerEstadoGarantia(codigo);
+	}
+
+	@Override
+	public void agregar(GarantiaExtendida garantia) {
+		escritor.agregar(garantia);
+	}
+
+	@Override
+	public void agregarTodas(List<GarantiaExtendida> garantias) {
+		escritor.agregarTodas(garantias);
+	}
+
+	@Override
+	public Set<String> obtenerCodigosConGarantia(Collection<String> codigos) {
+
+		Set<String> codigosConGarantia = new HashSet<>();
+		List<String> consultar = new ArrayList<>(codigos.size());
+		for (String codigo : codigos) {
+			if (escritor.obtenerPendiente(codigo) != null) {
+				codigosConGarantia.add(codigo);
+			} else {
+				consultar.add(codigo);
+			}
+		}
+		if (!consultar.isEmpty()) {
+			codigosConGarantia.addAll(repositorioGarantia.obtenerCodigosConGarantia(consultar));
+		}
+		return codigosConGarantia;
+	}
+
+	@Override
+	public GarantiaExtendida obtener(String codigo) {
+		GarantiaExtendida pendiente = escritor.obtenerPendiente(codigo);
+		return pendiente != null ? pendiente : repositorioGarantia.obtener(codigo);
+	}
+
+	/**
+	 * Una garantia que se escribe durante la consulta puede venir de las dos fuentes, se deja una por codigo
+	 */
+	@Override
+	public List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta) {
+
+		List<VencimientoGarantia> vencimientos = new ArrayList<>();
+		Set<String> codigos = new HashSet<>();
+		for (GarantiaExtendida pendiente : escritor.obtenerPendientes()) {
+			Date fechaFin = pendiente.getFechaFinGarantia();
+			if (fechaFin != null && !fechaFin.before(desde) && fechaFin.before(hasta)
+					&& codigos.add(pendiente.getProducto().getCodigo())) {
+				vencimientos.add(VencimientoGarantia.de(pendiente));
+			}
+		}
+		if (vencimientos.isEmpty()) {
+			return repositorioGarantia.obtenerVencimientos(desde, hasta);
+		}
+
+		for (VencimientoGarantia vencimiento : repositorioGarantia.obtenerVencimientos(desde, hasta)) {
+			if (codigos.add(vencimiento.getCodigo())) {
+				vencimientos.add(vencimiento);
+			}
+		}
+		vencimientos.sort(POR_FECHA_FIN);
+		return vencimientos;
+	}
+
+	@Override
+	public void recorrerCodigosConGarantia(Consumer<String> consumidor) {
+		for (GarantiaExtendida pendiente : escritor.obtenerPendientes()) {
+			consumidor.accept(pendiente.getProducto().getCodigo());
+		}
+		repositorioGarantiaJPA.recorrerCodigosConGarantia(consumidor);
+	}
+}
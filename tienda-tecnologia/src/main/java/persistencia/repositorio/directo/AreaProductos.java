@@ -0,0 +1,113 @@
+package persistencia.repositorio.directo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codigo y nombre de cada producto, uno tras otro en bloques de memoria directa, fuera del heap. Un producto no se
+ * mueve ni cambia despues de escrito; su direccion es el numero de bloque por el tamano de bloque mas el
+ * desplazamiento. Formato: longitud del codigo y del nombre (short), codigo y nombre en UTF-8. Solo se anexa al
+ * final; quien la usa debe serializar las escrituras, las lecturas pueden ser concurrentes.
+ */
+final class AreaProductos {
+
+	static final String PRODUCTO_MUY_GRANDE = "El producto no cabe en un bloque del catalogo: ";
+
+	private static final int LONGITUD_CODIGO = 0;
+	private static final int LONGITUD_NOMBRE = 2;
+	private static final int CABECERA = 4;
+	private static final short TEXTO_NULO = -1;
+
+	private final int tamanoBloque;
+	private volatile ByteBuffer[] bloques = new ByteBuffer[0];
+	private int usadosBloqueActual;
+	private long bytesUsados;
+
+	AreaProductos(int tamanoBloque) {
+		this.tamanoBloque = tamanoBloque;
+	}
+
+	/**
+	 * @param codigo codigo en UTF-8
+	 * @param nombre nombre en UTF-8, puede ser null
+	 * @return la direccion del producto
+	 */
+	long anexar(byte[] codigo, byte[] nombre) {
+
+		int tamano = CABECERA + codigo.length + (nombre != null ? nombre.length : 0);
+		if (tamano > tamanoBloque || codigo.length > Short.MAX_VALUE
+				|| (nombre != null && nombre.length > Short.MAX_VALUE)) {
+			throw new IllegalArgumentException(PRODUCTO_MUY_GRANDE + new String(codigo, StandardCharsets.UTF_8));
+		}
+		if (bloques.length == 0 || usadosBloqueActual + tamano > tamanoBloque) {
+			ByteBuffer[] ampliados = Arrays.copyOf(bloques, bloques.length + 1);
+			ampliados[bloques.length] = ByteBuffer.allocateDirect(tamanoBloque);
+			bloques = ampliados;
+			usadosBloqueActual = 0;
+		}
+
+		int numero = bloques.length - 1;
+		int desplazamiento = usadosBloqueActual;
+		ByteBuffer bloque = bloques[numero].duplicate();
+		bloque.putShort(desplazamiento + LONGITUD_CODIGO, (short) codigo.length);
+		bloque.putShort(desplazamiento + LONGITUD_NOMBRE, nombre != null ? (short) nombre.length : TEXTO_NULO);
+		bloque.position(desplazamiento + CABECERA);
+		bloque.put(codigo);
+		if (nombre != null) {
+			bloque.put(nombre);
+		}
+
+		usadosBloqueActual += tamano;
+		bytesUsados += tamano;
+		return (long) numero * tamanoBloque + desplazamiento;
+	}
+
+	String nombre(long direccion) {
+
+		ByteBuffer bloque = bloques[(int) (direccion / tamanoBloque)];
+		int desplazamiento = (int) (direccion % tamanoBloque);
+		short longitud = bloque.getShort(desplazamiento + LONGITUD_NOMBRE);
+		if (longitud == TEXTO_NULO) {
+			return null;
+		}
+		int inicio = desplazamiento + CABECERA + bloque.getShort(desplazamiento + LONGITUD_CODIGO);
+		byte[] bytes = new byte[longitud];
+		for (int i = 0; i < longitud; i++) {
+			bytes[i] = bloque.get(inicio + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compara el codigo guardado sin decodificarlo. La direccion puede venir de una lectura optimista del indice
+	 * que se cruzo con una escritura, por eso una direccion fuera de lo escrito no coincide en lugar de fallar
+	 * @param utf8 el codigo en UTF-8 si tiene caracteres fuera de ASCII, null si es ASCII
+	 */
+	boolean coincideCodigo(long direccion, String codigo, byte[] utf8) {
+
+		ByteBuffer[] actuales = bloques;
+		long numero = direccion / tamanoBloque;
+		int desplazamiento = (int) (direccion % tamanoBloque);
+		if (direccion < 0 || numero >= actuales.length || desplazamiento > tamanoBloque - CABECERA) {
+			return false;
+		}
+		ByteBuffer bloque = actuales[(int) numero];
+		int longitud = bloque.getShort(desplazamiento + LONGITUD_CODIGO);
+		if (longitud < 0 || desplazamiento + CABECERA + longitud > tamanoBloque) {
+			return false;
+		}
+		return IndiceCodigos.coincide(bloque, desplazamiento + CABECERA, longitud, codigo, utf8);
+	}
+
+	/**
+	 * @return bytes ocupados por los productos, sin el espacio libre del ultimo bloque
+	 */
+	long getBytesUsados() {
+		return bytesUsados;
+	}
+
+	long getBytesReservados() {
+		return (long) bloques.length * tamanoBloque;
+	}
+}
@@ -0,0 +1,224 @@
+package persistencia.repositorio.directo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tabla hash de direccionamiento abierto con sondeo lineal, en memoria directa, que lleva cada codigo a su producto.
+ * Cada ranura de 32 bytes guarda los datos que se leen en cada consulta, asi una busqueda que encuentra el producto
+ * toca una sola linea de cache: la direccion del producto en el area mas uno (long), el hash del codigo (int), el
+ * precio (double), la cantidad de vocales (byte) y la longitud del codigo (byte), con el codigo en UTF-8 en los
+ * bytes restantes si cabe. Los codigos mas largos se comparan en el area. Una direccion cero marca la ranura vacia.
+ * No hay borrados, asi una busqueda termina en la primera ranura vacia. Quien la usa debe serializar las escrituras.
+ */
+final class IndiceCodigos {
+
+	static final String INDICE_LLENO = "El indice del catalogo alcanzo su capacidad maxima de productos";
+
+	private static final int BYTES_POR_RANURA = 32;
+	private static final int DIRECCION = 0;
+	private static final int HASH = 8;
+	private static final int PRECIO = 12;
+	private static final int VOCALES = 20;
+	private static final int LONGITUD_CODIGO = 21;
+	private static final int CODIGO = 22;
+	private static final int BYTES_CODIGO = BYTES_POR_RANURA - CODIGO;
+
+	/**
+	 * Una tabla grande se reparte en varios buffers, cada uno no puede pasar de 2 GB
+	 */
+	private static final int BITS_RANURAS_POR_PARTE = 22;
+	private static final int RANURAS_POR_PARTE = 1 << BITS_RANURAS_POR_PARTE;
+	private static final int CAPACIDAD_MAXIMA = 1 << 27;
+	private static final double CARGA_MAXIMA = 0.75;
+
+	private volatile Tabla tabla;
+	private int cantidad;
+	private int limite;
+
+	IndiceCodigos(int capacidadInicial) {
+		long necesarias = (long) Math.ceil(capacidadInicial / CARGA_MAXIMA);
+		int ranuras = 16;
+		while (ranuras < necesarias && ranuras < CAPACIDAD_MAXIMA) {
+			ranuras <<= 1;
+		}
+		this.tabla = new Tabla(ranuras);
+		this.limite = (int) (ranuras * CARGA_MAXIMA);
+	}
+
+	/**
+	 * @param utf8 el codigo en UTF-8 si tiene caracteres fuera de ASCII, null si es ASCII
+	 * @param vista recibe el producto si se encuentra, puede ser null
+	 * @return true si el codigo esta en el indice
+	 */
+	boolean buscar(String codigo, byte[] utf8, AreaProductos area, VistaProducto vista) {
+
+		Tabla actual = tabla;
+		int hash = codigo.hashCode();
+		int mascara = actual.ranuras - 1;
+		for (int ranura = mezclar(hash) & mascara;; ranura = (ranura + 1) & mascara) {
+			ByteBuffer parte = actual.parte(ranura);
+			int inicio = Tabla.desplazamiento(ranura);
+			long direccion = parte.getLong(inicio + DIRECCION) - 1;
+			if (direccion < 0) {
+				return false;
+			}
+			if (parte.getInt(inicio + HASH) == hash && coincide(parte, inicio, direccion, codigo, utf8, area)) {
+				if (vista != null) {
+					vista.posicionar(codigo, parte.getDouble(inicio + PRECIO), parte.get(inicio + VOCALES), area,
+							direccion);
+				}
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * El codigo no debe estar en el indice. La direccion se escribe al final, una lectura concurrente ve la ranura
+	 * vacia o completa
+	 * @param codigo codigo en UTF-8
+	 */
+	void insertar(int hash, byte[] codigo, double precio, int cantidadVocales, long direccion) {
+
+		if (cantidad >= limite) {
+			crecer();
+		}
+		Tabla actual = tabla;
+		int ranura = ranuraLibre(actual, hash);
+		ByteBuffer parte = actual.parte(ranura);
+		int inicio = Tabla.desplazamiento(ranura);
+		parte.putInt(inicio + HASH, hash);
+		parte.putDouble(inicio + PRECIO, precio);
+		parte.put(inicio + VOCALES, (byte) Math.min(cantidadVocales, Byte.MAX_VALUE));
+		parte.put(inicio + LONGITUD_CODIGO, (byte) Math.min(codigo.length, 0xFF));
+		if (codigo.length <= BYTES_CODIGO) {
+			for (int i = 0; i < codigo.length; i++) {
+				parte.put(inicio + CODIGO + i, codigo[i]);
+			}
+		}
+		parte.putLong(inicio + DIRECCION, direccion + 1);
+		cantidad++;
+	}
+
+	int getCantidad() {
+		return cantidad;
+	}
+
+	long getBytes() {
+		return (long) tabla.ranuras * BYTES_POR_RANURA;
+	}
+
+	/**
+	 * @return el codigo en UTF-8, null si todos sus caracteres son ASCII y se pueden comparar sin codificarlo
+	 */
+	static byte[] codificarSiNoEsAscii(String codigo) {
+		for (int i = 0; i < codigo.length(); i++) {
+			if (codigo.charAt(i) >= 0x80) {
+				return codigo.getBytes(StandardCharsets.UTF_8);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Compara los bytes guardados con el codigo, que se recorre como ASCII si utf8 es null
+	 */
+	static boolean coincide(ByteBuffer origen, int inicio, int longitud, String codigo, byte[] utf8) {
+
+		if (utf8 == null) {
+			if (longitud != codigo.length()) {
+				return false;
+			}
+			for (int i = 0; i < longitud; i++) {
+				if (origen.get(inicio + i) != (byte) codigo.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (longitud != utf8.length) {
+			return false;
+		}
+		for (int i = 0; i < longitud; i++) {
+			if (origen.get(inicio + i) != utf8[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean coincide(ByteBuffer parte, int inicio, long direccion, String codigo, byte[] utf8,
+			AreaProductos area) {
+		int longitud = parte.get(inicio + LONGITUD_CODIGO) & 0xFF;
+		if (longitud <= BYTES_CODIGO) {
+			return coincide(parte, inicio + CODIGO, longitud, codigo, utf8);
+		}
+		return area.coincideCodigo(direccion, codigo, utf8);
+	}
+
+	/**
+	 * La tabla nueva se llena completa antes de publicarla, las lecturas siguen en la anterior mientras tanto
+	 */
+	private void crecer() {
+
+		Tabla actual = tabla;
+		if (actual.ranuras >= CAPACIDAD_MAXIMA) {
+			throw new IllegalStateException(INDICE_LLENO);
+		}
+		Tabla nueva = new Tabla(actual.ranuras << 1);
+		for (int ranura = 0; ranura < actual.ranuras; ranura++) {
+			ByteBuffer origen = actual.parte(ranura);
+			int inicio = Tabla.desplazamiento(ranura);
+			if (origen.getLong(inicio + DIRECCION) != 0) {
+				int destino = ranuraLibre(nueva, origen.getInt(inicio + HASH));
+				ByteBuffer parte = nueva.parte(destino);
+				int inicioDestino = Tabla.desplazamiento(destino);
+				for (int i = 0; i < BYTES_POR_RANURA; i += Long.BYTES) {
+					parte.putLong(inicioDestino + i, origen.getLong(inicio + i));
+				}
+			}
+		}
+		tabla = nueva;
+		limite = (int) (nueva.ranuras * CARGA_MAXIMA);
+	}
+
+	private static int ranuraLibre(Tabla destino, int hash) {
+		int mascara = destino.ranuras - 1;
+		int ranura = mezclar(hash) & mascara;
+		while (destino.parte(ranura).getLong(Tabla.desplazamiento(ranura) + DIRECCION) != 0) {
+			ranura = (ranura + 1) & mascara;
+		}
+		return ranura;
+	}
+
+	/**
+	 * Los hash de codigos parecidos difieren en los bits bajos, se reparten antes de tomar la ranura
+	 */
+	private static int mezclar(int hash) {
+		int mezcla = hash * 0x9E3779B9;
+		return mezcla ^ (mezcla >>> 16);
+	}
+
+	private static final class Tabla {
+
+		private final int ranuras;
+		private final ByteBuffer[] partes;
+
+		private Tabla(int ranuras) {
+			this.ranuras = ranuras;
+			int porParte = Math.min(ranuras, RANURAS_POR_PARTE);
+			this.partes = new ByteBuffer[ranuras / porParte];
+			for (int i = 0; i < partes.length; i++) {
+				partes[i] = ByteBuffer.allocateDirect(porParte * BYTES_POR_RANURA);
+			}
+		}
+
+		private ByteBuffer parte(int ranura) {
+			return partes[ranura >>> BITS_RANURAS_POR_PARTE];
+		}
+
+		private static int desplazamiento(int ranura) {
+			return (ranura & (RANURAS_POR_PARTE - 1)) * BYTES_POR_RANURA;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package persistencia.repositorio.directo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.persistence.EntityExistsException;
+
+import dominio.ClasificadorVocales;
+import dominio.Producto;
+import dominio.repositorio.RepositorioProducto;
+
+/**
+ * Repositorio de productos en memoria directa, fuera del heap, para catalogos de decenas de millones de productos
+ * que en el heap alargarian las pausas del recolector. Codigo y nombre se codifican en bloques de memoria directa y
+ * un indice de direccionamiento abierto, tambien fuera del heap, lleva cada codigo a su producto y guarda el precio,
+ * las vocales y los codigos cortos; el heap solo guarda unos pocos objetos por bloque. Las consultas devuelven vistas
+ * livianas en lugar de productos completos.
+ * 
+ * Las lecturas no toman candados mientras no coincidan con una escritura, y se puede usar desde varios hilos. Los
+ * cambios se aplican de inmediato, no participan de ninguna transaccion. La memoria directa esta limitada por
+ * -XX:MaxDirectMemorySize y se libera cuando el repositorio se recolecta.
+ */
+public class RepositorioProductoDirecto implements RepositorioProducto {
+
+	public static final String EL_PRODUCTO_YA_EXISTE = "Ya existe un producto con el codigo ";
+
+	/**
+	 * Bytes de cada bloque de productos, se reserva uno nuevo cuando el anterior se llena
+	 */
+	public static final int TAMANO_BLOQUE = 64 * 1024 * 1024;
+
+	private static final int CAPACIDAD_INICIAL = 1024;
+
+	private final AreaProductos area;
+	private final IndiceCodigos indice;
+
+	/**
+	 * Las escrituras toman el candado exclusivo, las lecturas leen de forma optimista y solo lo comparten si una
+	 * escritura se cruzo con ellas
+	 */
+	private final StampedLock candado = new StampedLock();
+
+	public RepositorioProductoDirecto() {
+		this(CAPACIDAD_INICIAL, TAMANO_BLOQUE);
+	}
+
+	/**
+	 * @param capacidadInicial cantidad de productos esperada, evita hacer crecer el indice durante la carga
+	 */
+	public RepositorioProductoDirecto(int capacidadInicial) {
+		this(capacidadInicial, TAMANO_BLOQUE);
+	}
+
+	/**
+	 * @param tamanoBloque bytes de cada bloque de productos, limita el tamano de un producto
+	 */
+	public RepositorioProductoDirecto(int capacidadInicial, int tamanoBloque) {
+		this.area = new AreaProductos(tamanoBloque);
+		this.indice = new IndiceCodigos(capacidadInicial);
+	}
+
+	@Override
+	public Producto obtenerPorCodigo(String codigo) {
+		VistaProducto vista = new VistaProducto();
+		return buscar(codigo, vista) ? vista : null;
+	}
+
+	/**
+	 * Posiciona la vista en el producto sin crear objetos
+	 * @return true si el producto existe, si no el contenido de la vista no se debe usar
+	 */
+	public boolean obtenerVista(String codigo, VistaProducto vista) {
+		return buscar(codigo, vista);
+	}
+
+	@Override
+	public Map<String, Producto> obtenerPorCodigos(Collection<String> codigos) {
+
+		Map<String, Producto> encontrados = new HashMap<>();
+		for (String codigo : codigos) {
+			VistaProducto vista = new VistaProducto();
+			if (buscar(codigo, vista)) {
+				encontrados.put(codigo, vista);
+			}
+		}
+		return encontrados;
+	}
+
+	@Override
+	public void agregar(Producto producto) {
+
+		String codigo = producto.getCodigo();
+		byte[] utf8 = codigo.getBytes(StandardCharsets.UTF_8);
+		byte[] nombre = producto.getNombre() != null ? producto.getNombre().getBytes(StandardCharsets.UTF_8) : null;
+
+		long sello = candado.writeLock();
+		try {
+			if (indice.buscar(codigo, IndiceCodigos.codificarSiNoEsAscii(codigo), area, null)) {
+				throw new EntityExistsException(EL_PRODUCTO_YA_EXISTE + codigo);
+			}
+			long direccion = area.anexar(utf8, nombre);
+			indice.insertar(codigo.hashCode(), utf8, producto.getPrecio(), producto.getCantidadVocales(), direccion);
+		} finally {
+			candado.unlockWrite(sello);
+		}
+	}
+
+	@Override
+	public boolean validarTresVocales(String codigo) {
+		return ClasificadorVocales.contarVocales(codigo) == 3;
+	}
+
+	public boolean existe(String codigo) {
+		return buscar(codigo, null);
+	}
+
+	public int getTamano() {
+		long sello = candado.readLock();
+		try {
+			return indice.getCantidad();
+		} finally {
+			candado.unlockRead(sello);
+		}
+	}
+
+	/**
+	 * Bytes fuera del heap por producto: sus datos mas su parte del indice, con las ranuras vacias. No cuenta el
+	 * espacio libre del ultimo bloque, ver {@link #getBytesReservados()}
+	 * @return bytes por producto, 0 si no hay productos
+	 */
+	public double getBytesPorProducto() {
+		long sello = candado.readLock();
+		try {
+			int cantidad = indice.getCantidad();
+			return cantidad == 0 ? 0 : (double) (area.getBytesUsados() + indice.getBytes()) / cantidad;
+		} finally {
+			candado.unlockRead(sello);
+		}
+	}
+
+	/**
+	 * @return bytes de memoria directa reservados por los bloques de productos y el indice
+	 */
+	public long getBytesReservados() {
+		long sello = candado.readLock();
+		try {
+			return area.getBytesReservados() + indice.getBytes();
+		} finally {
+			candado.unlockRead(sello);
+		}
+	}
+
+	/**
+	 * Si una escritura se cruza con la lectura optimista, la vista puede haber recibido datos a medio escribir; la
+	 * busqueda con el candado compartido la vuelve a llenar
+	 */
+	private boolean buscar(String codigo, VistaProducto vista) {
+
+		byte[] utf8 = IndiceCodigos.codificarSiNoEsAscii(codigo);
+		long sello = candado.tryOptimisticRead();
+		if (sello != 0) {
+			boolean encontrado = indice.buscar(codigo, utf8, area, vista);
+			if (candado.validate(sello)) {
+				return encontrado;
+			}
+		}
+		sello = candado.readLock();
+		try {
+			return indice.buscar(codigo, utf8, area, vista);
+		} finally {
+			candado.unlockRead(sello);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package persistencia.repositorio.directo;
+
+import dominio.Producto;
+
+/**
+ * Producto del catalogo fuera del heap. El codigo es el de la busqueda, el precio y las vocales se copian del
+ * indice y el nombre se decodifica del area en cada llamada. Con {@link RepositorioProductoDirecto#obtenerVista} una misma vista se
+ * reposiciona en cada producto, asi un recorrido no crea objetos; una vista que se reposiciona no se debe haber
+ * entregado a nadie que la guarde.
+ */
+public final class VistaProducto extends Producto {
+
+	private String codigo;
+	private double precio;
+	private int cantidadVocales;
+	private AreaProductos area;
+	private long direccion;
+
+	/**
+	 * Vista sin producto, se posiciona con {@link RepositorioProductoDirecto#obtenerVista}
+	 */
+	public VistaProducto() {
+		super(null, null, 0, 0);
+	}
+
+	void posicionar(String codigo, double precio, int cantidadVocales, AreaProductos area, long direccion) {
+		this.codigo = codigo;
+		this.precio = precio;
+		this.cantidadVocales = cantidadVocales;
+		this.area = area;
+		this.direccion = direccion;
+	}
+
+	@Override
+	public String getCodigo() {
+		return codigo;
+	}
+
+	@Override
+	public String getNombre() {
+		return area.nombre(direccion);
+	}
+
+	@Override
+	public double getPrecio() {
+		return precio;
+	}
+
+	@Override
+	public int getCantidadVocales() {
+		return cantidadVocales;
+	}
+}
@@ -0,0 +1,127 @@
+package persistencia.repositorio.filtro;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de codigos seguro para varios hilos. Si el filtro responde que un codigo no esta, el codigo
+ * nunca se agrego; si responde que podria estar, se equivoca con la probabilidad configurada.
+ */
+public class FiltroBloom {
+
+	private static final double LN2 = Math.log(2);
+
+	private final AtomicLongArray bits;
+	private final long numeroBits;
+	private final int numeroFunciones;
+	private final AtomicLong elementos = new AtomicLong();
+	private final AtomicLong bitsEnUno = new AtomicLong();
+
+	/**
+	 * @param elementosEsperados cantidad de codigos para la que se dimensiona el filtro
+	 * @param probabilidadFalsoPositivo probabilidad de falso positivo con esa cantidad de codigos, entre 0 y 1
+	 */
+	public FiltroBloom(long elementosEsperados, double probabilidadFalsoPositivo) {
+
+		if (elementosEsperados <= 0 || probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+			throw new IllegalArgumentException("Parametros del filtro de Bloom invalidos");
+		}
+
+		long palabras = (long) Math.ceil(-elementosEsperados * Math.log(probabilidadFalsoPositivo) / (LN2 * LN2) / Long.SIZE);
+		this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, palabras)));
+		this.numeroBits = (long) bits.length() * Long.SIZE;
+		this.numeroFunciones = Math.max(1, (int) Math.round((double) numeroBits / elementosEsperados * LN2));
+	}
+
+	public void agregar(String codigo) {
+
+		long hash = hash(codigo);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < numeroFunciones; i++) {
+			long bit = indice(h1 + i * h2);
+			int palabra = (int) (bit >>> 6);
+			long mascara = 1L << bit;
+
+			long anterior;
+			do {
+				anterior = bits.get(palabra);
+				if ((anterior & mascara) != 0) {
+					break;
+				}
+			} while (!bits.compareAndSet(palabra, anterior, anterior | mascara));
+
+			if ((anterior & mascara) == 0) {
+				bitsEnUno.incrementAndGet();
+			}
+		}
+		elementos.incrementAndGet();
+	}
+
+	public boolean podriaContener(String codigo) {
+
+		long hash = hash(codigo);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < numeroFunciones; i++) {
+			long bit = indice(h1 + i * h2);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public long getNumeroBits() {
+		return numeroBits;
+	}
+
+	public long getBytes() {
+		return numeroBits / Byte.SIZE;
+	}
+
+	public int getNumeroFunciones() {
+		return numeroFunciones;
+	}
+
+	public long getElementos() {
+		return elementos.get();
+	}
+
+	/**
+	 * @return fraccion de bits en uno, entre 0 y 1
+	 */
+	public double getSaturacion() {
+		return (double) bitsEnUno.get() / numeroBits;
+	}
+
+	/**
+	 * @return probabilidad de falso positivo estimada con la saturacion actual
+	 */
+	public double getProbabilidadFalsoPositivoEstimada() {
+		return Math.pow(getSaturacion(), numeroFunciones);
+	}
+
+	private long indice(int hash) {
+		return (hash & 0xFFFFFFFFL) % numeroBits;
+	}
+
+	/**
+	 * Hash de 64 bits de los caracteres del codigo, con la mezcla final de MurmurHash3.
+	 */
+	private static long hash(String codigo) {
+
+		long hash = 0x9E3779B97F4A7C15L;
+		for (int i = 0; i < codigo.length(); i++) {
+			hash = (hash ^ codigo.charAt(i)) * 0x100000001B3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
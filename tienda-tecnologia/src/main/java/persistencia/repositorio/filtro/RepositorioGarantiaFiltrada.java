@@ -0,0 +1,126 @@
+package persistencia.repositorio.filtro;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.VencimientoGarantia;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.repositorio.jpa.RepositorioGarantiaJPA;
+
+/**
+ * Responde sin consultar la base de datos cuando un producto no tiene garantia, usando un filtro de Bloom
+ * con los codigos de los productos que ya tienen garantia. Solo las respuestas "podria tener" llegan al repositorio.
+ * Cuando el vendedor necesita el producto de un codigo sin garantia lo lee del repositorio de productos, que puede
+ * tener su propia cache, en lugar de la consulta conjunta con las garantias.
+ */
+public class RepositorioGarantiaFiltrada implements RepositorioGarantiaExtendida {
+
+	private final RepositorioGarantiaExtendida repositorioGarantia;
+	private final RepositorioProducto repositorioProducto;
+	private final FiltroBloom filtro;
+	private final LongAdder consultasEvitadas = new LongAdder();
+
+	public RepositorioGarantiaFiltrada(RepositorioGarantiaExtendida repositorioGarantia,
+			RepositorioProducto repositorioProducto, FiltroBloom filtro) {
+		this.repositorioGarantia = repositorioGarantia;
+		this.repositorioProducto = repositorioProducto;
+		this.filtro = filtro;
+	}
+
+	/**
+	 * Construye el filtro recorriendo una sola vez los codigos con garantia que hay en la base de datos
+	 */
+	public static <T extends RepositorioGarantiaExtendida & RepositorioGarantiaJPA> RepositorioGarantiaFiltrada construir(
+			T repositorioGarantia, RepositorioProducto repositorioProducto, long elementosEsperados,
+			double probabilidadFalsoPositivo) {
+
+		FiltroBloom filtro = new FiltroBloom(elementosEsperados, probabilidadFalsoPositivo);
+		repositorioGarantia.recorrerCodigosConGarantia(filtro::agregar);
+		return new RepositorioGarantiaFiltrada(repositorioGarantia, repositorioProducto, filtro);
+	}
+
+	@Override
+	public Producto obtenerProductoConGarantiaPorCodigo(String codigo) {
+
+		if (!filtro.podriaContener(codigo)) {
+			consultasEvitadas.increment();
+			return null;
+		}
+		return repositorioGarantia.obtenerProductoConGarantiaPorCodigo(codigo);
+	}
+
+	/**
+	 * Si el filtro descarta el codigo el producto se lee del repositorio de productos y se evita la consulta
+	 * conjunta, que solo se necesita cuando el producto podria tener garantia.
+	 */
+	@Override
+	public EstadoGarantiaProducto obtenerEstadoGarantia(String codigo) {
+
+		if (!filtro.podriaContener(codigo)) {
+			consultasEvitadas.increment();
+			return EstadoGarantiaProducto.de(repositorioProducto.obtenerPorCodigo(codigo), false);
+		}
+		return repositorioGarantia.obtenerEstadoGarantia(codigo);
+	}
+
+	@Override
+	public void agregar(GarantiaExtendida garantia) {
+
+		/**
+		 * El codigo se agrega antes de persistir para que ningun hilo vea un "no tiene" mientras se guarda,
+		 * si la garantia no se guarda solo queda un falso positivo.
+		 */
+		filtro.agregar(garantia.getProducto().getCodigo());
+		repositorioGarantia.agregar(garantia);
+	}
+
+	@Override
+	public void agregarTodas(List<GarantiaExtendida> garantias) {
+
+		for (GarantiaExtendida garantia : garantias) {
+			filtro.agregar(garantia.getProducto().getCodigo());
+		}
+		repositorioGarantia.agregarTodas(garantias);
+	}
+
+	@Override
+	public Set<String> obtenerCodigosConGarantia(Collection<String> codigos) {
+
+		List<String> posibles = new ArrayList<>();
+		for (String codigo : codigos) {
+			if (filtro.podriaContener(codigo)) {
+				posibles.add(codigo);
+			} else {
+				consultasEvitadas.increment();
+			}
+		}
+		return posibles.isEmpty() ? Collections.<String>emptySet() : repositorioGarantia.obtenerCodigosConGarantia(posibles);
+	}
+
+	@Override
+	public GarantiaExtendida obtener(String codigo) {
+		return repositorioGarantia.obtener(codigo);
+	}
+
+	@Override
+	public List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta) {
+		return repositorioGarantia.obtenerVencimientos(desde, hasta);
+	}
+
+	public FiltroBloom getFiltro() {
+		return filtro;
+	}
+
+	public long getConsultasEvitadas() {
+		return consultasEvitadas.sum();
+	}
+}
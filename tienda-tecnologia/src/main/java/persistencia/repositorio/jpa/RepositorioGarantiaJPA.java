@@ -0,0 +1,14 @@
+package persistencia.repositorio.jpa;
+
+import java.util.function.Consumer;
+
+public interface RepositorioGarantiaJPA {
+
+	/**
+	 * Permite recorrer con un cursor de solo avance los codigos de todos los productos con garantia,
+	 * sin cargar las entidades en el contexto de persistencia
+	 * @param consumidor recibe cada codigo
+	 */
+	void recorrerCodigosConGarantia(Consumer<String> consumidor);
+
+}
@@ -1,5 +1,8 @@
 package persistencia.repositorio.jpa;
 
+import java.util.Collection;
+import java.util.Map;
+
 import persistencia.entitad.ProductoEntity;
 
 public interface RepositorioProductoJPA {
@@ -11,4 +14,17 @@ public interface RepositorioProductoJPA {
 	 */
 	ProductoEntity obtenerProductoEntityPorCodigo(String codigo);
 
+	/**
+	 * Permite obtener los productos entity de varios codigos con consultas por lote
+	 * @param codigos
+	 * @return
+	 */
+	Map<String, ProductoEntity> obtenerProductosEntityPorCodigos(Collection<String> codigos);
+
+	/**
+	 * Permite calcular la cantidad de vocales de los productos guardados antes de que se almacenara
+	 * @return cantidad de productos actualizados
+	 */
+	int completarCantidadVocales();
+
 }
@@ -0,0 +1,181 @@
+package persistencia.repositorio.memoria;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.EntityExistsException;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import dominio.Producto;
+import dominio.VencimientoGarantia;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.repositorio.vencimiento.IndiceVencimientos;
+
+/**
+ * Repositorio de garantias en memoria, sin JPA, con una garantia por codigo de producto. El producto se lee del
+ * repositorio de productos al consultar, igual que el repositorio persistente lo obtiene por la relacion.
+ * Los cambios se aplican de inmediato, no participan de ninguna transaccion.
+ */
+public class RepositorioGarantiaMemoria implements RepositorioGarantiaExtendida {
+
+	public static final String LA_GARANTIA_YA_EXISTE = "Ya existe una garantia para el producto ";
+
+	private final ConcurrentMap<String, GarantiaRegistro> garantias;
+	private final RepositorioProducto repositorioProducto;
+
+	private final IndiceVencimientos vencimientos = new IndiceVencimientos();
+
+	public RepositorioGarantiaMemoria(RepositorioProducto repositorioProducto) {
+		this.repositorioProducto = repositorioProducto;
+		this.garantias = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @param capacidadInicial cantidad de garantias esperada, evita redimensionar el mapa durante la carga
+	 */
+	public RepositorioGarantiaMemoria(RepositorioProducto repositorioProducto, int capacidadInicial) {
+		this.repositorioProducto = repositorioProducto;
+		this.garantias = new ConcurrentHashMap<>(capacidadInicial);
+	}
+
+	@Override
+	public Producto obtenerProductoConGarantiaPorCodigo(String codigo) {
+		return garantias.containsKey(codigo) ? repositorioProducto.obtenerPorCodigo(codigo) : null;
+	}
+
+	@Override
+	public EstadoGarantiaProducto obtenerEstadoGarantia(String codigo) {
+		return EstadoGarantiaProducto.de(repositorioProducto.obtenerPorCodigo(codigo), garantias.containsKey(codigo));
+	}
+
+	@Override
+	public void agregar(GarantiaExtendida garantia) {
+		insertar(garantia.getProducto().getCodigo(), new GarantiaRegistro(garantia));
+	}
+
+	/**
+	 * Si una garantia ya existe, tambien repetida dentro de la lista, se quitan las que se alcanzaron a agregar y no
+	 * queda ninguna, igual que al deshacer la transaccion en el repositorio persistente.
+	 */
+	@Override
+	public void agregarTodas(List<GarantiaExtendida> lista) {
+
+		List<String> codigos = new ArrayList<>(lista.size());
+		List<GarantiaRegistro> registros = new ArrayList<>(lista.size());
+		try {
+			for (GarantiaExtendida garantia : lista) {
+				String codigo = garantia.getProducto().getCodigo();
+				GarantiaRegistro registro = new GarantiaRegistro(garantia);
+				insertar(codigo, registro);
+				codigos.add(codigo);
+				registros.add(registro);
+			}
+		} catch (EntityExistsException e) {
+			for (int i = 0; i < codigos.size(); i++) {
+				quitar(codigos.get(i), registros.get(i));
+			}
+			throw e;
+		}
+	}
+
+	private void insertar(String codigo, GarantiaRegistro registro) {
+
+		if (garantias.putIfAbsent(codigo, registro) != null) {
+			throw new EntityExistsException(LA_GARANTIA_YA_EXISTE + codigo);
+		}
+		if (registro.fechaFinGarantia != GarantiaRegistro.SIN_FECHA) {
+			vencimientos.agregar(codigo, registro.fechaFinGarantia);
+		}
+	}
+
+	private void quitar(String codigo, GarantiaRegistro registro) {
+
+		if (registro.fechaFinGarantia != GarantiaRegistro.SIN_FECHA) {
+			vencimientos.quitar(codigo, registro.fechaFinGarantia);
+		}
+		garantias.remove(codigo, registro);
+	}
+
+	@Override
+	public Set<String> obtenerCodigosConGarantia(Collection<String> codigos) {
+
+		Set<String> codigosConGarantia = new HashSet<>();
+		for (String codigo : codigos) {
+			if (garantias.containsKey(codigo)) {
+				codigosConGarantia.add(codigo);
+			}
+		}
+		return codigosConGarantia;
+	}
+
+	@Override
+	public GarantiaExtendida obtener(String codigo) {
+
+		GarantiaRegistro registro = garantias.get(codigo);
+		return registro != null ? registro.convertirADominio(repositorioProducto.obtenerPorCodigo(codigo)) : null;
+	}
+
+	@Override
+	public List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta) {
+
+		List<VencimientoGarantia> resultado = new ArrayList<>();
+		vencimientos.recorrer(desde.getTime(), hasta.getTime(), (codigo, fechaFin) -> {
+			/**
+			 * Una garantia que agregarTodas esta quitando puede salir del mapa mientras se recorre el indice
+			 */
+			GarantiaRegistro registro = garantias.get(codigo);
+			if (registro != null) {
+				resultado.add(new VencimientoGarantia(codigo, registro.nombreCliente, new Date(fechaFin)));
+			}
+		});
+		return resultado;
+	}
+
+	public int getTamano() {
+		return garantias.size();
+	}
+
+	/**
+	 * Datos de la garantia sin el producto, las fechas se guardan en milisegundos.
+	 */
+	private static final class GarantiaRegistro {
+
+		private static final long SIN_FECHA = Long.MIN_VALUE;
+
+		private final long fechaSolicitudGarantia;
+		private final long fechaFinGarantia;
+		private final double precioGarantia;
+		private final String nombreCliente;
+		private final NivelGarantia nivel;
+
+		GarantiaRegistro(GarantiaExtendida garantia) {
+			this.fechaSolicitudGarantia = aMilisegundos(garantia.getFechaSolicitudGarantia());
+			this.fechaFinGarantia = aMilisegundos(garantia.getFechaFinGarantia());
+			this.precioGarantia = garantia.getPrecioGarantia();
+			this.nombreCliente = garantia.getNombreCliente();
+			this.nivel = garantia.getNivel();
+		}
+
+		GarantiaExtendida convertirADominio(Producto producto) {
+			return new GarantiaExtendida(producto, aFecha(fechaSolicitudGarantia), aFecha(fechaFinGarantia),
+					precioGarantia, nombreCliente, nivel);
+		}
+
+		private static long aMilisegundos(Date fecha) {
+			return fecha != null ? fecha.getTime() : SIN_FECHA;
+		}
+
+		private static Date aFecha(long milisegundos) {
+			return milisegundos != SIN_FECHA ? new Date(milisegundos) : null;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package persistencia.repositorio.memoria;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.EntityExistsException;
+
+import dominio.ClasificadorVocales;
+import dominio.Producto;
+import dominio.repositorio.RepositorioProducto;
+
+/**
+ * Repositorio de productos en memoria, sin JPA. Las lecturas no toman candados y se puede usar desde varios hilos.
+ * Los cambios se aplican de inmediato, no participan de ninguna transaccion.
+ */
+public class RepositorioProductoMemoria implements RepositorioProducto {
+
+	public static final String EL_PRODUCTO_YA_EXISTE = "Ya existe un producto con el codigo ";
+
+	private final ConcurrentMap<String, ProductoRegistro> productos;
+
+	public RepositorioProductoMemoria() {
+		this.productos = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @param capacidadInicial cantidad de productos esperada, evita redimensionar el mapa durante la carga
+	 */
+	public RepositorioProductoMemoria(int capacidadInicial) {
+		this.productos = new ConcurrentHashMap<>(capacidadInicial);
+	}
+
+	@Override
+	public Producto obtenerPorCodigo(String codigo) {
+		ProductoRegistro registro = productos.get(codigo);
+		return registro != null ? registro.convertirADominio(codigo) : null;
+	}
+
+	@Override
+	public Map<String, Producto> obtenerPorCodigos(Collection<String> codigos) {
+
+		Map<String, Producto> encontrados = new HashMap<>();
+		for (String codigo : codigos) {
+			ProductoRegistro registro = productos.get(codigo);
+			if (registro != null) {
+				encontrados.put(codigo, registro.convertirADominio(codigo));
+			}
+		}
+		return encontrados;
+	}
+
+	@Override
+	public void agregar(Producto producto) {
+
+		if (productos.putIfAbsent(producto.getCodigo(), new ProductoRegistro(producto)) != null) {
+			throw new EntityExistsException(EL_PRODUCTO_YA_EXISTE + producto.getCodigo());
+		}
+	}
+
+	@Override
+	public boolean validarTresVocales(String codigo) {
+		return ClasificadorVocales.contarVocales(codigo) == 3;
+	}
+
+	public boolean existe(String codigo) {
+		return productos.containsKey(codigo);
+	}
+
+	public int getTamano() {
+		return productos.size();
+	}
+
+	/**
+	 * Datos del producto sin el codigo, que ya es la llave del mapa.
+	 */
+	private static final class ProductoRegistro {
+
+		private final String nombre;
+		private final double precio;
+		private final byte cantidadVocales;
+
+		ProductoRegistro(Producto producto) {
+			this.nombre = producto.getNombre();
+			this.precio = producto.getPrecio();
+			this.cantidadVocales = (byte) Math.min(producto.getCantidadVocales(), Byte.MAX_VALUE);
+		}
+
+		Producto convertirADominio(String codigo) {
+			return new Producto(codigo, nombre, precio, cantidadVocales);
+		}
+	}
+}
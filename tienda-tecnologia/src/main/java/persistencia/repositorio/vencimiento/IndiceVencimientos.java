@@ -0,0 +1,56 @@
+package persistencia.repositorio.vencimiento;
+
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Codigos de producto ordenados por la fecha de fin de su garantia, hace de indice para consultar los vencimientos
+ * por rango en los repositorios de garantias que no usan la base de datos. Es seguro para varios hilos.
+ */
+public final class IndiceVencimientos {
+
+	private final NavigableSet<ClaveVencimiento> claves = new ConcurrentSkipListSet<>();
+
+	/**
+	 * @param fechaFin fecha de fin de la garantia en milisegundos
+	 */
+	public void agregar(String codigo, long fechaFin) {
+		claves.add(new ClaveVencimiento(fechaFin, codigo));
+	}
+
+	public void quitar(String codigo, long fechaFin) {
+		claves.remove(new ClaveVencimiento(fechaFin, codigo));
+	}
+
+	/**
+	 * Entrega el codigo y la fecha de fin de las garantias que terminan desde la primera fecha, incluida, hasta la
+	 * segunda sin incluir, en orden de fecha de fin
+	 */
+	public void recorrer(long desde, long hasta, ObjLongConsumer<String> consumidor) {
+		for (ClaveVencimiento clave : claves.subSet(new ClaveVencimiento(desde, ""), true,
+				new ClaveVencimiento(hasta, ""), false)) {
+			consumidor.accept(clave.codigo, clave.fechaFin);
+		}
+	}
+
+	/**
+	 * Fecha de fin y codigo, el codigo desempata las garantias que terminan en el mismo instante.
+	 */
+	private static final class ClaveVencimiento implements Comparable<ClaveVencimiento> {
+
+		private final long fechaFin;
+		private final String codigo;
+
+		ClaveVencimiento(long fechaFin, String codigo) {
+			this.fechaFin = fechaFin;
+			this.codigo = codigo;
+		}
+
+		@Override
+		public int compareTo(ClaveVencimiento otra) {
+			int porFecha = Long.compare(fechaFin, otra.fechaFin);
+			return porFecha != 0 ? porFecha : codigo.compareTo(otra.codigo);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package persistencia.repositorio.vencimiento;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import dominio.VencimientoGarantia;
+
+/**
+ * Avisa cada garantia un tiempo antes de su fecha de fin. Los vencimientos se cargan por ventanas de fecha de fin
+ * con consultas por rango sobre el indice, solo las garantias cuyo aviso esta cerca ocupan memoria, y esperan su
+ * momento en una rueda de tiempo que un hilo avanza cada tick. Las garantias nuevas llegan por
+ * {@link #programar(VencimientoGarantia)} sin volver a consultar.
+ * Los avisos ya dados no se guardan: al reiniciar se vuelven a avisar las garantias cuyo aviso ya paso y que no
+ * han terminado, y una garantia de una transaccion revertida tambien se avisa, el aviso debe tolerar repetidos.
+ */
+public class ProgramadorVencimientos {
+
+	public static final long RESOLUCION_POR_DEFECTO = TimeUnit.SECONDS.toMillis(1);
+	public static final long VENTANA_POR_DEFECTO = TimeUnit.HOURS.toMillis(1);
+
+	private final BiFunction<Date, Date, List<VencimientoGarantia>> cargarVencimientos;
+	private final long anticipacion;
+	private final Consumer<VencimientoGarantia> aviso;
+	private final long resolucion;
+	private final long ventana;
+
+	/**
+	 * Garantias nuevas que esperan a que el hilo del programador las pase a la rueda.
+	 */
+	private final Queue<VencimientoGarantia> nuevas = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Codigos que estan en la rueda, una garantia puede llegar por la consulta y como nueva.
+	 */
+	private final Map<String, Long> programadas = new HashMap<>();
+
+	private final LongAdder avisos = new LongAdder();
+	private final LongAdder errores = new LongAdder();
+
+	private RuedaTemporizadora<VencimientoGarantia> rueda;
+
+	/**
+	 * Fecha de fin hasta la que ya se cargaron los vencimientos, excluida
+	 */
+	private long cargadoHasta;
+
+	private ScheduledExecutorService hilo;
+
+	/**
+	 * @param cargarVencimientos consulta de los vencimientos con fecha de fin en un rango, desde incluido y hasta
+	 * excluido, solo se llama desde el hilo del programador
+	 * @param anticipacion tiempo antes de la fecha de fin en que se avisa, en milisegundos
+	 * @param aviso recibe cada vencimiento en el hilo del programador
+	 */
+	public ProgramadorVencimientos(BiFunction<Date, Date, List<VencimientoGarantia>> cargarVencimientos,
+			long anticipacion, Consumer<VencimientoGarantia> aviso) {
+		this(cargarVencimientos, anticipacion, aviso, RESOLUCION_POR_DEFECTO, VENTANA_POR_DEFECTO);
+	}
+
+	/**
+	 * @param resolucion milisegundos entre avances de la rueda, es el retraso maximo de un aviso
+	 * @param ventana milisegundos de fecha de fin que se cargan en cada consulta
+	 */
+	public ProgramadorVencimientos(BiFunction<Date, Date, List<VencimientoGarantia>> cargarVencimientos,
+			long anticipacion, Consumer<VencimientoGarantia> aviso, long resolucion, long ventana) {
+		this.cargarVencimientos = cargarVencimientos;
+		this.anticipacion = anticipacion;
+		this.aviso = aviso;
+		this.resolucion = resolucion;
+		this.ventana = ventana;
+	}
+
+	/**
+	 * Avanza la rueda cada tick en un hilo propio
+	 */
+	public synchronized void iniciar() {
+
+		if (hilo != null) {
+			return;
+		}
+		hilo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+			Thread thread = new Thread(tarea, "programador-vencimientos");
+			thread.setDaemon(true);
+			return thread;
+		});
+		hilo.scheduleAtFixedRate(this::procesarAhora, 0, resolucion, TimeUnit.MILLISECONDS);
+	}
+
+	public void detener() {
+
+		ScheduledExecutorService actual;
+		synchronized (this) {
+			actual = hilo;
+			hilo = null;
+		}
+		if (actual == null) {
+			return;
+		}
+		actual.shutdownNow();
+		try {
+			actual.awaitTermination(resolucion, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Recibe una garantia recien agregada, se puede llamar desde cualquier hilo
+	 */
+	public void programar(VencimientoGarantia vencimiento) {
+		if (vencimiento.getFechaFinGarantia() != null) {
+			nuevas.add(vencimiento);
+		}
+	}
+
+	/**
+	 * Carga las ventanas necesarias, pasa las garantias nuevas a la rueda y avisa las que llegaron a su momento.
+	 * La usa el hilo del programador, tambien se puede llamar sin iniciarlo con un momento dado
+	 * @param ahora momento actual en milisegundos
+	 */
+	public synchronized void procesar(long ahora) {
+
+		if (rueda == null) {
+			rueda = new RuedaTemporizadora<>(resolucion, ahora);
+			cargadoHasta = ahora;
+		}
+
+		/**
+		 * Se cargan las garantias cuyo aviso llega antes del proximo avance. Las nuevas se revisan despues de
+		 * cargar, asi una garantia que todavia no estaba confirmada cuando se consulto su ventana no se pierde.
+		 */
+		while (cargadoHasta <= ahora + anticipacion + resolucion) {
+			long hasta = cargadoHasta + ventana;
+			for (VencimientoGarantia vencimiento : cargarVencimientos.apply(new Date(cargadoHasta), new Date(hasta))) {
+				ubicar(vencimiento);
+			}
+			cargadoHasta = hasta;
+		}
+
+		VencimientoGarantia nueva;
+		while ((nueva = nuevas.poll()) != null) {
+			if (nueva.getFechaFinGarantia().getTime() < cargadoHasta) {
+				ubicar(nueva);
+			}
+		}
+
+		rueda.avanzar(ahora, this::avisar);
+	}
+
+	/**
+	 * @return avisos entregados sin error
+	 */
+	public long getAvisos() {
+		return avisos.sum();
+	}
+
+	/**
+	 * @return avisos que lanzaron una excepcion, que no se reintentan, y cargas de ventanas que fallaron
+	 */
+	public long getErrores() {
+		return errores.sum();
+	}
+
+	/**
+	 * @return vencimientos cargados que esperan su aviso
+	 */
+	public synchronized int getPendientes() {
+		return rueda == null ? 0 : rueda.getTamano();
+	}
+
+	private void procesarAhora() {
+		try {
+			procesar(System.currentTimeMillis());
+		} catch (RuntimeException e) {
+			/**
+			 * Si la consulta falla la ventana queda sin cargar y se reintenta en el siguiente tick
+			 */
+			errores.increment();
+		}
+	}
+
+	private void ubicar(VencimientoGarantia vencimiento) {
+		long fin = vencimiento.getFechaFinGarantia().getTime();
+		if (programadas.putIfAbsent(vencimiento.getCodigo(), fin) == null) {
+			rueda.programar(fin - anticipacion, vencimiento);
+		}
+	}
+
+	private void avisar(VencimientoGarantia vencimiento) {
+		programadas.remove(vencimiento.getCodigo());
+		try {
+			aviso.accept(vencimiento);
+			avisos.increment();
+		} catch (RuntimeException e) {
+			errores.increment();
+		}
+	}
+}
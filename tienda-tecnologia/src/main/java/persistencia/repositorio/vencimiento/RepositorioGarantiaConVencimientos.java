@@ -0,0 +1,67 @@
+package persistencia.repositorio.vencimiento;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.VencimientoGarantia;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+
+/**
+ * Pasa cada garantia agregada al programador de vencimientos, para que su aviso quede programado sin esperar a
+ * que el programador consulte su ventana.
+ */
+public class RepositorioGarantiaConVencimientos implements RepositorioGarantiaExtendida {
+
+	private final RepositorioGarantiaExtendida repositorioGarantia;
+	private final ProgramadorVencimientos programador;
+
+	public RepositorioGarantiaConVencimientos(RepositorioGarantiaExtendida repositorioGarantia,
+			ProgramadorVencimientos programador) {
+		this.repositorioGarantia = repositorioGarantia;
+		this.programador = programador;
+	}
+
+	@Override
+	public Producto obtenerProductoConGarantiaPorCodigo(String codigo) {
+		return repositorioGarantia.obtenerProductoConGarantiaPorCodigo(codigo);
+	}
+
+	@Override
+	public EstadoGarantiaProducto obtenerEstadoGarantia(String codigo) {
+		return repositorioGarantia.obtenerEstadoGarantia(codigo);
+	}
+
+	@Override
+	public void agregar(GarantiaExtendida garantia) {
+		repositorioGarantia.agregar(garantia);
+		programador.programar(VencimientoGarantia.de(garantia));
+	}
+
+	@Override
+	public void agregarTodas(List<GarantiaExtendida> garantias) {
+		repositorioGarantia.agregarTodas(garantias);
+		for (GarantiaExtendida garantia : garantias) {
+			programador.programar(VencimientoGarantia.de(garantia));
+		}
+	}
+
+	@Override
+	public Set<String> obtenerCodigosConGarantia(Collection<String> codigos) {
+		return repositorioGarantia.obtenerCodigosConGarantia(codigos);
+	}
+
+	@Override
+	public GarantiaExtendida obtener(String codigo) {
+		return repositorioGarantia.obtener(codigo);
+	}
+
+	@Override
+	public List<VencimientoGarantia> obtenerVencimientos(Date desde, Date hasta) {
+		return repositorioGarantia.obtenerVencimientos(desde, hasta);
+	}
+}
@@ -0,0 +1,159 @@
+package persistencia.repositorio.vencimiento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de tiempo jerarquica: programar y vencer un elemento cuesta lo mismo sin importar cuantos haya.
+ * El nivel 0 tiene una ranura por tick y cada nivel siguiente una ranura por vuelta completa del anterior; los
+ * elementos lejanos esperan en los niveles altos y bajan de nivel cuando su ranura llega al presente.
+ * Con 4 niveles de 64 ranuras y ticks de un segundo alcanza 194 dias; los elementos mas lejanos se guardan en
+ * la ultima ranura y se vuelven a ubicar cada vez que bajan.
+ * No es segura para varios hilos.
+ */
+public class RuedaTemporizadora<T> {
+
+	private static final int BITS_POR_NIVEL = 6;
+	private static final int RANURAS = 1 << BITS_POR_NIVEL;
+	private static final int MASCARA = RANURAS - 1;
+	private static final int NIVELES = 4;
+	private static final long ALCANCE = 1L << (BITS_POR_NIVEL * NIVELES);
+
+	private final long resolucion;
+	private final List<List<Entrada<T>>> ranuras = new ArrayList<>(NIVELES * RANURAS);
+
+	/**
+	 * Elementos programados para un tick que ya paso, vencen en el siguiente avance.
+	 */
+	private List<Entrada<T>> vencidas = new ArrayList<>();
+
+	private long tickActual;
+	private int tamano;
+
+	/**
+	 * @param resolucion milisegundos de cada tick, un elemento vence a lo sumo un tick despues de su momento
+	 * @param inicio momento actual en milisegundos
+	 */
+	public RuedaTemporizadora(long resolucion, long inicio) {
+		this.resolucion = resolucion;
+		this.tickActual = Math.floorDiv(inicio, resolucion);
+		for (int i = 0; i < NIVELES * RANURAS; i++) {
+			ranuras.add(null);
+		}
+	}
+
+	/**
+	 * @param momento milisegundos en los que vence el elemento, nunca vence antes
+	 */
+	public void programar(long momento, T elemento) {
+		long tick = Math.floorDiv(momento, resolucion) + (Math.floorMod(momento, resolucion) == 0 ? 0 : 1);
+		ubicar(new Entrada<>(tick, elemento));
+		tamano++;
+	}
+
+	/**
+	 * Avanza la rueda hasta el momento dado y entrega los elementos vencidos en orden de tick
+	 * @param ahora momento actual en milisegundos
+	 * @param alVencer recibe cada elemento vencido, puede programar elementos nuevos
+	 */
+	public void avanzar(long ahora, Consumer<T> alVencer) {
+
+		long objetivo = Math.floorDiv(ahora, resolucion);
+		entregarVencidas(alVencer);
+
+		while (tickActual < objetivo) {
+			tickActual++;
+			for (int nivel = NIVELES - 1; nivel > 0; nivel--) {
+				if ((tickActual & ((1L << (BITS_POR_NIVEL * nivel)) - 1)) == 0) {
+					bajar(nivel);
+				}
+			}
+			List<Entrada<T>> ranura = sacarRanura(0, (int) (tickActual & MASCARA));
+			if (ranura != null) {
+				for (Entrada<T> entrada : ranura) {
+					entregar(entrada, alVencer);
+				}
+			}
+			entregarVencidas(alVencer);
+		}
+	}
+
+	public int getTamano() {
+		return tamano;
+	}
+
+	private void ubicar(Entrada<T> entrada) {
+
+		long distancia = entrada.tick - tickActual;
+		if (distancia <= 0) {
+			vencidas.add(entrada);
+			return;
+		}
+
+		for (int nivel = 0; nivel < NIVELES; nivel++) {
+			if (distancia < 1L << (BITS_POR_NIVEL * (nivel + 1))) {
+				agregarARanura(nivel, entrada.tick, entrada);
+				return;
+			}
+		}
+		agregarARanura(NIVELES - 1, tickActual + ALCANCE - 1, entrada);
+	}
+
+	/**
+	 * Reubica los elementos de la ranura actual del nivel en los niveles inferiores
+	 */
+	private void bajar(int nivel) {
+		List<Entrada<T>> ranura = sacarRanura(nivel, (int) ((tickActual >>> (BITS_POR_NIVEL * nivel)) & MASCARA));
+		if (ranura != null) {
+			for (Entrada<T> entrada : ranura) {
+				ubicar(entrada);
+			}
+		}
+	}
+
+	private void agregarARanura(int nivel, long tick, Entrada<T> entrada) {
+
+		int indice = nivel * RANURAS + (int) ((tick >>> (BITS_POR_NIVEL * nivel)) & MASCARA);
+		List<Entrada<T>> ranura = ranuras.get(indice);
+		if (ranura == null) {
+			ranura = new ArrayList<>();
+			ranuras.set(indice, ranura);
+		}
+		ranura.add(entrada);
+	}
+
+	private List<Entrada<T>> sacarRanura(int nivel, int posicion) {
+		return ranuras.set(nivel * RANURAS + posicion, null);
+	}
+
+	/**
+	 * Los elementos que se programen en el pasado mientras se entregan quedan para el siguiente tick
+	 */
+	private void entregarVencidas(Consumer<T> alVencer) {
+		if (vencidas.isEmpty()) {
+			return;
+		}
+		List<Entrada<T>> entregar = vencidas;
+		vencidas = new ArrayList<>();
+		for (Entrada<T> entrada : entregar) {
+			entregar(entrada, alVencer);
+		}
+	}
+
+	private void entregar(Entrada<T> entrada, Consumer<T> alVencer) {
+		tamano--;
+		alVencer.accept(entrada.elemento);
+	}
+
+	private static final class Entrada<T> {
+
+		private final long tick;
+		private final T elemento;
+
+		Entrada(long tick, T elemento) {
+			this.tick = tick;
+			this.elemento = elemento;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package persistencia.sistema;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Exclusion mutua por codigo de producto con un numero fijo de candados (lock striping). Dos codigos distintos
+ * solo se esperan entre si cuando caen en el mismo candado, lo que con suficientes candados es poco frecuente.
+ */
+public class BloqueoPorCodigo {
+
+	private final ReentrantLock[] candados;
+	private final int mascara;
+
+	/**
+	 * @param cantidadCandados se redondea a la siguiente potencia de dos
+	 */
+	public BloqueoPorCodigo(int cantidadCandados) {
+
+		int cantidad = Integer.highestOneBit(Math.max(1, cantidadCandados - 1) << 1);
+		this.candados = new ReentrantLock[cantidad];
+		for (int i = 0; i < cantidad; i++) {
+			candados[i] = new ReentrantLock();
+		}
+		this.mascara = cantidad - 1;
+	}
+
+	/**
+	 * Ejecuta la operacion mientras tiene el candado del codigo
+	 * @param codigo
+	 * @param operacion
+	 * @return el resultado de la operacion
+	 */
+	public <T> T ejecutar(String codigo, Supplier<T> operacion) {
+
+		ReentrantLock candado = candado(codigo);
+		candado.lock();
+		try {
+			return operacion.get();
+		} finally {
+			candado.unlock();
+		}
+	}
+
+	private ReentrantLock candado(String codigo) {
+
+		int hash = codigo == null ? 0 : codigo.hashCode();
+		hash ^= hash >>> 16;
+		return candados[hash & mascara];
+	}
+}
@@ -0,0 +1,277 @@
+package persistencia.sistema;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import dominio.VencimientoGarantia;
+
+public class ConfiguracionPersistencia {
+
+	private int capacidadCacheProductos;
+	private long ttlCacheProductos;
+	private TimeUnit unidadTtlCacheProductos = TimeUnit.MILLISECONDS;
+
+	private long garantiasEsperadasFiltro;
+	private double probabilidadFalsoPositivoFiltro;
+
+	private boolean modoConcurrente;
+
+	private boolean repositoriosEnMemoria;
+	private boolean productosFueraDelHeap;
+	private int capacidadProductosFueraDelHeap;
+
+	private boolean cacheSegundoNivel;
+
+	private String rutaBaseDeDatos;
+
+	private long anticipacionVencimientos;
+	private Consumer<VencimientoGarantia> avisoVencimientos;
+
+	private boolean metricas;
+
+	private String rutaDiarioGarantias;
+	private int capacidadEscrituraDiferida;
+	private int tamanoLoteEscrituraDiferida;
+	private long intervaloEscrituraDiferida;
+
+	private String directorioBitacoraGarantias;
+
+	/**
+	 * Activa la cache de lectura de productos sin expiracion por tiempo
+	 * @param capacidad cantidad maxima de productos en la cache
+	 */
+	public ConfiguracionPersistencia conCacheProductos(int capacidad) {
+		return conCacheProductos(capacidad, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Activa la cache de lectura de productos
+	 * @param capacidad cantidad maxima de productos en la cache
+	 * @param ttl tiempo de vida de cada producto, 0 para que no expiren
+	 * @param unidad unidad del tiempo de vida
+	 */
+	public ConfiguracionPersistencia conCacheProductos(int capacidad, long ttl, TimeUnit unidad) {
+		this.capacidadCacheProductos = capacidad;
+		this.ttlCacheProductos = ttl;
+		this.unidadTtlCacheProductos = unidad;
+		return this;
+	}
+
+	/**
+	 * Activa el filtro de Bloom que responde sin consultar la base de datos cuando un producto no tiene garantia
+	 * @param garantiasEsperadas cantidad de garantias para la que se dimensiona el filtro
+	 * @param probabilidadFalsoPositivo probabilidad de consultar la base de datos sin necesidad, entre 0 y 1
+	 */
+	public ConfiguracionPersistencia conFiltroGarantias(long garantiasEsperadas, double probabilidadFalsoPositivo) {
+		this.garantiasEsperadasFiltro = garantiasEsperadas;
+		this.probabilidadFalsoPositivoFiltro = probabilidadFalsoPositivo;
+		return this;
+	}
+
+	/**
+	 * Cada hilo trabaja con su propio EntityManager y cada operacion con su propia transaccion,
+	 * para poder usar los repositorios desde varios hilos
+	 */
+	public ConfiguracionPersistencia conModoConcurrente() {
+		this.modoConcurrente = true;
+		return this;
+	}
+
+	/**
+	 * Usa repositorios en memoria en lugar de JPA. Son seguros para varios hilos, por lo que el sistema queda en
+	 * modo concurrente, y los datos se pierden al terminar el proceso
+	 */
+	public ConfiguracionPersistencia conRepositoriosEnMemoria() {
+		this.repositoriosEnMemoria = true;
+		return this;
+	}
+
+	/**
+	 * Con repositorios en memoria, guarda los productos en memoria directa fuera del heap en lugar de un mapa de
+	 * objetos, para catalogos grandes. Las consultas devuelven vistas sobre esa memoria
+	 * @param capacidadInicial cantidad de productos esperada
+	 */
+	public ConfiguracionPersistencia conProductosFueraDelHeap(int capacidadInicial) {
+		this.productosFueraDelHeap = true;
+		this.capacidadProductosFueraDelHeap = capacidadInicial;
+		return this;
+	}
+
+	/**
+	 * Activa la cache de segundo nivel de Hibernate para los productos, la resolucion de codigos y las consultas
+	 * de productos. Las regiones se configuran en ehcache.xml y se comparten entre todos los EntityManager
+	 */
+	public ConfiguracionPersistencia conCacheSegundoNivel() {
+		this.cacheSegundoNivel = true;
+		return this;
+	}
+
+	/**
+	 * Usa el perfil de produccion, con los datos en un archivo H2 que sobrevive a los reinicios. Al iniciar se
+	 * aplican las migraciones pendientes y Hibernate valida el esquema en lugar de recrearlo
+	 * @param ruta ruta del archivo sin extension
+	 */
+	public ConfiguracionPersistencia conBaseDeDatosArchivo(String ruta) {
+		this.rutaBaseDeDatos = ruta;
+		return this;
+	}
+
+	/**
+	 * Avisa cada garantia un tiempo antes de su fecha de fin, desde un hilo propio que carga los vencimientos
+	 * cercanos por ventanas y recibe las garantias nuevas al agregarlas
+	 * @param anticipacion tiempo antes de la fecha de fin en que se avisa
+	 * @param unidad unidad de la anticipacion
+	 * @param aviso recibe cada vencimiento, puede recibir repetidos despues de un reinicio
+	 */
+	public ConfiguracionPersistencia conAvisoVencimientos(long anticipacion, TimeUnit unidad,
+			Consumer<VencimientoGarantia> aviso) {
+		this.anticipacionVencimientos = unidad.toMillis(anticipacion);
+		this.avisoVencimientos = aviso;
+		return this;
+	}
+
+	/**
+	 * Mide la latencia de cada etapa de la generacion de garantias y de cada operacion de los repositorios,
+	 * y cuenta las sentencias SQL de cada operacion. Las metricas se publican como MBeans en el dominio tienda
+	 */
+	public ConfiguracionPersistencia conMetricas() {
+		this.metricas = true;
+		return this;
+	}
+
+	/**
+	 * Las garantias nuevas se anexan a un diario local y se escriben en la base de datos por lotes desde un hilo
+	 * propio, en lugar de esperar a que se confirme la transaccion de quien las genera. Las consultas ven las
+	 * garantias aceptadas que aun no estan en la base de datos. Al iniciar se escriben las que quedaron en el diario
+	 * @param rutaDiario archivo del diario local
+	 * @param capacidad garantias aceptadas sin escribir, al llegar a este limite generar una garantia espera
+	 * @param tamanoLote garantias por lote
+	 * @param intervalo tiempo maximo que una garantia espera a que se complete su lote
+	 * @param unidad unidad del intervalo
+	 */
+	public ConfiguracionPersistencia conEscrituraDiferida(String rutaDiario, int capacidad, int tamanoLote,
+			long intervalo, TimeUnit unidad) {
+		this.rutaDiarioGarantias = rutaDiario;
+		this.capacidadEscrituraDiferida = capacidad;
+		this.tamanoLoteEscrituraDiferida = tamanoLote;
+		this.intervaloEscrituraDiferida = unidad.toMillis(intervalo);
+		return this;
+	}
+
+	/**
+	 * Las garantias se guardan en una bitacora binaria de solo anexar en lugar de la base de datos o el mapa en
+	 * memoria, con un indice en memoria que se reconstruye al iniciar. Los productos siguen en el repositorio
+	 * configurado. La escritura diferida y el filtro no se aplican a las garantias
+	 * @param directorio directorio de los segmentos y la instantanea de la bitacora
+	 */
+	public ConfiguracionPersistencia conBitacoraGarantias(String directorio) {
+		this.directorioBitacoraGarantias = directorio;
+		return this;
+	}
+
+	public boolean isCacheProductos() {
+		return capacidadCacheProductos > 0;
+	}
+
+	public int getCapacidadCacheProductos() {
+		return capacidadCacheProductos;
+	}
+
+	public long getTtlCacheProductos() {
+		return ttlCacheProductos;
+	}
+
+	public TimeUnit getUnidadTtlCacheProductos() {
+		return unidadTtlCacheProductos;
+	}
+
+	public boolean isFiltroGarantias() {
+		return garantiasEsperadasFiltro > 0;
+	}
+
+	public long getGarantiasEsperadasFiltro() {
+		return garantiasEsperadasFiltro;
+	}
+
+	public double getProbabilidadFalsoPositivoFiltro() {
+		return probabilidadFalsoPositivoFiltro;
+	}
+
+	public boolean isModoConcurrente() {
+		return modoConcurrente;
+	}
+
+	public boolean isRepositoriosEnMemoria() {
+		return repositoriosEnMemoria;
+	}
+
+	public boolean isProductosFueraDelHeap() {
+		return productosFueraDelHeap;
+	}
+
+	public int getCapacidadProductosFueraDelHeap() {
+		return capacidadProductosFueraDelHeap;
+	}
+
+	public boolean isCacheSegundoNivel() {
+		return cacheSegundoNivel;
+	}
+
+	public boolean isBaseDeDatosArchivo() {
+		return rutaBaseDeDatos != null;
+	}
+
+	public String getRutaBaseDeDatos() {
+		return rutaBaseDeDatos;
+	}
+
+	public boolean isAvisoVencimientos() {
+		return avisoVencimientos != null;
+	}
+
+	/**
+	 * @return anticipacion del aviso en milisegundos
+	 */
+	public long getAnticipacionVencimientos() {
+		return anticipacionVencimientos;
+	}
+
+	public Consumer<VencimientoGarantia> getAvisoVencimientos() {
+		return avisoVencimientos;
+	}
+
+	public boolean isMetricas() {
+		return metricas;
+	}
+
+	public boolean isEscrituraDiferida() {
+		return rutaDiarioGarantias != null;
+	}
+
+	public String getRutaDiarioGarantias() {
+		return rutaDiarioGarantias;
+	}
+
+	public int getCapacidadEscrituraDiferida() {
+		return capacidadEscrituraDiferida;
+	}
+
+	public int getTamanoLoteEscrituraDiferida() {
+		return tamanoLoteEscrituraDiferida;
+	}
+
+	/**
+	 * @return intervalo de escritura en milisegundos
+	 */
+	public long getIntervaloEscrituraDiferida() {
+		return intervaloEscrituraDiferida;
+	}
+
+	public boolean isBitacoraGarantias() {
+		return directorioBitacoraGarantias != null;
+	}
+
+	public String getDirectorioBitacoraGarantias() {
+		return directorioBitacoraGarantias;
+	}
+}
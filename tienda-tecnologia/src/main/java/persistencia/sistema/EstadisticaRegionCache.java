@@ -0,0 +1,48 @@
+package persistencia.sistema;
+
+/**
+ * Contadores de una region de la cache de segundo nivel.
+ */
+public class EstadisticaRegionCache {
+
+	private final String region;
+	private final long aciertos;
+	private final long fallos;
+	private final long escrituras;
+
+	public EstadisticaRegionCache(String region, long aciertos, long fallos, long escrituras) {
+		this.region = region;
+		this.aciertos = aciertos;
+		this.fallos = fallos;
+		this.escrituras = escrituras;
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	public long getAciertos() {
+		return aciertos;
+	}
+
+	public long getFallos() {
+		return fallos;
+	}
+
+	public long getEscrituras() {
+		return escrituras;
+	}
+
+	/**
+	 * @return fraccion de las lecturas que encontraron el dato en la cache, 0 si no hubo lecturas
+	 */
+	public double getTasaAciertos() {
+		long lecturas = aciertos + fallos;
+		return lecturas == 0 ? 0 : (double) aciertos / lecturas;
+	}
+
+	@Override
+	public String toString() {
+		return region + " aciertos=" + aciertos + " fallos=" + fallos + " escrituras=" + escrituras;
+	}
+}
@@ -0,0 +1,160 @@
+package persistencia.sistema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.persistence.PersistenceException;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import dominio.ResultadoGarantia;
+import dominio.SolicitudGarantia;
+import dominio.Vendedor;
+import dominio.excepcion.GarantiaExtendidaException;
+
+/**
+ * Permite generar garantias en paralelo. Cada solicitud se ejecuta en un hilo del ejecutor dentro de su propia
+ * unidad de trabajo, por lo que el sistema de persistencia debe estar en modo concurrente. El ejecutor puede ser
+ * un pool de hilos o, desde Java 21, Executors.newVirtualThreadPerTaskExecutor().
+ * 
+ * Las solicitudes de un mismo codigo se serializan con un candado por codigo que se mantiene hasta confirmar la
+ * transaccion, y las solicitudes identicas, mismo codigo y mismo cliente, que llegan mientras otra esta en curso
+ * reciben el resultado de esa. Una solicitud del mismo codigo para otro cliente espera el candado y se rechaza si
+ * la primera emitio la garantia. La restriccion unica sobre el producto de la garantia cubre a otros procesos.
+ */
+public class ServicioGarantiasConcurrente implements AutoCloseable {
+
+	public static final String SISTEMA_NO_CONCURRENTE = "El sistema de persistencia no esta en modo concurrente";
+
+	private static final int CANDADOS = 256;
+	private static final String RESTRICCION_GARANTIA_PRODUCTO = "UK_GARANTIA_PRODUCTO";
+
+	private final SistemaDePersistencia sistemaPersistencia;
+	private final Vendedor vendedor;
+	private final ExecutorService ejecutor;
+	private final BloqueoPorCodigo bloqueo = new BloqueoPorCodigo(CANDADOS);
+
+	/**
+	 * Solicitudes en curso por codigo y nombre del cliente
+	 */
+	private final ConcurrentMap<List<String>, CompletableFuture<ResultadoGarantia>> enCurso = new ConcurrentHashMap<>();
+
+	public ServicioGarantiasConcurrente(SistemaDePersistencia sistemaPersistencia, ExecutorService ejecutor) {
+
+		if (!sistemaPersistencia.isModoConcurrente()) {
+			throw new IllegalArgumentException(SISTEMA_NO_CONCURRENTE);
+		}
+		this.sistemaPersistencia = sistemaPersistencia;
+		this.vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+				sistemaPersistencia.obtenerRepositorioGarantia())
+				.conMetricas(sistemaPersistencia.obtenerMetricasGarantia());
+		this.ejecutor = ejecutor;
+	}
+
+	/**
+	 * Genera la garantia en un hilo del ejecutor, si ya hay una solicitud en curso para el mismo codigo y cliente
+	 * se devuelve el resultado de esa solicitud
+	 * @param codigo codigo del producto
+	 * @param nombreCliente nombre del cliente
+	 * @return el resultado, rechazado con el mensaje del Vendedor si no se pudo generar
+	 */
+	public CompletableFuture<ResultadoGarantia> generarGarantia(String codigo, String nombreCliente) {
+
+		if (codigo == null) {
+			return CompletableFuture.supplyAsync(() -> emitir(codigo, nombreCliente), ejecutor);
+		}
+
+		List<String> solicitud = Arrays.asList(codigo, nombreCliente);
+		CompletableFuture<ResultadoGarantia> resultado = new CompletableFuture<>();
+		CompletableFuture<ResultadoGarantia> existente = enCurso.putIfAbsent(solicitud, resultado);
+		if (existente != null) {
+			return existente;
+		}
+
+		try {
+			ejecutor.execute(() -> {
+				try {
+					ResultadoGarantia emitido = emitir(codigo, nombreCliente);
+					enCurso.remove(solicitud, resultado);
+					resultado.complete(emitido);
+				} catch (RuntimeException e) {
+					enCurso.remove(solicitud, resultado);
+					resultado.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			/**
+			 * Quien espera esta misma solicitud recibe el rechazo y la siguiente vuelve a intentarlo
+			 */
+			enCurso.remove(solicitud, resultado);
+			resultado.completeExceptionally(e);
+			throw e;
+		}
+		return resultado;
+	}
+
+	/**
+	 * Genera todas las garantias en paralelo y espera a que terminen
+	 * @param solicitudes
+	 * @return el resultado de cada solicitud en el mismo orden
+	 */
+	public List<ResultadoGarantia> generarGarantias(List<SolicitudGarantia> solicitudes) {
+
+		List<CompletableFuture<ResultadoGarantia>> pendientes = new ArrayList<>(solicitudes.size());
+		for (SolicitudGarantia solicitud : solicitudes) {
+			pendientes.add(generarGarantia(solicitud.getCodigo(), solicitud.getNombreCliente()));
+		}
+
+		List<ResultadoGarantia> resultados = new ArrayList<>(pendientes.size());
+		for (CompletableFuture<ResultadoGarantia> pendiente : pendientes) {
+			resultados.add(pendiente.join());
+		}
+		return resultados;
+	}
+
+	private ResultadoGarantia emitir(String codigo, String nombreCliente) {
+
+		try {
+			bloqueo.ejecutar(codigo, () -> sistemaPersistencia.ejecutarEnTransaccion(() -> {
+				vendedor.generarGarantia(codigo, nombreCliente);
+				return null;
+			}));
+			return ResultadoGarantia.emitida(codigo);
+		} catch (GarantiaExtendidaException e) {
+			return ResultadoGarantia.rechazada(codigo, e.getMessage());
+		} catch (PersistenceException e) {
+			if (esGarantiaDuplicada(e)) {
+				return ResultadoGarantia.rechazada(codigo, Vendedor.EL_PRODUCTO_TIENE_GARANTIA);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Otro proceso guardo la garantia del producto entre la validacion y la confirmacion de la transaccion.
+	 */
+	private static boolean esGarantiaDuplicada(Throwable error) {
+
+		for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+			if (causa instanceof ConstraintViolationException) {
+				String restriccion = ((ConstraintViolationException) causa).getConstraintName();
+				return restriccion != null && restriccion.toUpperCase().contains(RESTRICCION_GARANTIA_PRODUCTO);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Detiene el ejecutor, las garantias que ya se enviaron terminan de generarse
+	 */
+	@Override
+	public void close() {
+		ejecutor.shutdown();
+	}
+}
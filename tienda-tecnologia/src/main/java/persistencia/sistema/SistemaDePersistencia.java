@@ -1,34 +1,560 @@
 package persistencia.sistema;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 import javax.persistence.EntityManager;
 
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.NaturalIdCacheStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+import dominio.GarantiaExtendida;
+import dominio.VencimientoGarantia;
+import dominio.metrica.MetricasGarantia;
 import dominio.repositorio.RepositorioProducto;
 import dominio.repositorio.RepositorioGarantiaExtendida;
+import persistencia.conexion.BaseDeDatosArchivo;
+import persistencia.conexion.CacheSegundoNivel;
 import persistencia.conexion.ConexionJPA;
+import persistencia.conexion.EntityManagerContextual;
+import persistencia.conexion.UnidadDeTrabajo;
+import persistencia.importacion.ImportadorCatalogo;
+import persistencia.metrica.ContadorSentencias;
+import persistencia.metrica.MetricaOperacion;
+import persistencia.metrica.MetricasEtapasGarantia;
+import persistencia.metrica.RegistroMetricas;
+import persistencia.metrica.RepositorioGarantiaMedida;
+import persistencia.metrica.RepositorioProductoMedido;
+import persistencia.metrica.SentenciasSql;
+import persistencia.reporte.ReporteGarantias;
 import persistencia.repositorio.RepositorioProductoPersistente;
 import persistencia.repositorio.RepositorioGarantiaPersistente;
+import persistencia.repositorio.bitacora.RepositorioGarantiaBitacora;
+import persistencia.repositorio.cache.RepositorioProductoCache;
+import persistencia.repositorio.diferido.DiarioGarantias;
+import persistencia.repositorio.directo.RepositorioProductoDirecto;
+import persistencia.repositorio.diferido.EscritorGarantias;
+import persistencia.repositorio.diferido.RepositorioGarantiaEscrituraDiferida;
+import persistencia.repositorio.filtro.RepositorioGarantiaFiltrada;
+import persistencia.repositorio.jpa.RepositorioGarantiaJPA;
+import persistencia.repositorio.memoria.RepositorioGarantiaMemoria;
+import persistencia.repositorio.memoria.RepositorioProductoMemoria;
+import persistencia.repositorio.vencimiento.ProgramadorVencimientos;
+import persistencia.repositorio.vencimiento.RepositorioGarantiaConVencimientos;
 
 public class SistemaDePersistencia {
 
+	public static final String IMPORTACION_SIN_BASE_DE_DATOS = "La importacion de catalogos requiere una base de datos";
+	public static final String REPORTE_SIN_BASE_DE_DATOS = "Los reportes de garantias requieren una base de datos";
+	public static final String DIARIO_NO_DISPONIBLE = "No se pudo abrir el diario de garantias ";
+	public static final String BITACORA_NO_DISPONIBLE = "No se pudo abrir la bitacora de garantias ";
+
+	private static final String SUFIJO_REGION_NATURAL_ID = "##NaturalId";
+	private static final String TIPO_TRANSACCION = "Transaccion";
+
+	private ConexionJPA conexion;
 	private EntityManager entityManager;
+	private UnidadDeTrabajo unidadDeTrabajo;
+
+	private RepositorioProductoPersistente repositorioProductoPersistente;
+	private RepositorioProducto repositorioProducto;
+	private RepositorioGarantiaExtendida repositorioGarantia;
+
+	private ProgramadorVencimientos programadorVencimientos;
+	private EntityManager entityManagerVencimientos;
+
+	private EscritorGarantias escritorGarantias;
+	private EntityManager entityManagerEscritura;
+
+	private RepositorioGarantiaBitacora repositorioGarantiaBitacora;
+
+	private RegistroMetricas registroMetricas;
+	private MetricasGarantia metricasGarantia = MetricasGarantia.NINGUNA;
+	private MetricaOperacion metricaTransaccion;
+	private MetricaOperacion metricaConfirmacion;
+
+	private boolean enMemoria;
+	private boolean cacheSegundoNivel;
 
 	public SistemaDePersistencia() {
-		this.entityManager = new ConexionJPA().createEntityManager();
+		this(new ConfiguracionPersistencia());
+	}
+
+	public SistemaDePersistencia(ConfiguracionPersistencia configuracion) {
+
+		/**
+		 * Los repositorios en memoria ya responden con una consulta a un mapa, la cache, el filtro y la escritura
+		 * diferida no se aplican.
+		 */
+		if (configuracion.isRepositoriosEnMemoria()) {
+			this.enMemoria = true;
+			RepositorioProducto repositorioProductoMemoria = configuracion.isProductosFueraDelHeap()
+					? new RepositorioProductoDirecto(configuracion.getCapacidadProductosFueraDelHeap())
+					: new RepositorioProductoMemoria();
+			this.repositorioProducto = repositorioProductoMemoria;
+			if (configuracion.isBitacoraGarantias()) {
+				activarBitacoraGarantias(configuracion);
+			} else {
+				RepositorioGarantiaMemoria repositorioGarantiaMemoria = new RepositorioGarantiaMemoria(
+						repositorioProductoMemoria);
+				this.repositorioGarantia = repositorioGarantiaMemoria;
+				if (configuracion.isAvisoVencimientos()) {
+					activarAvisoVencimientos(configuracion, repositorioGarantiaMemoria::obtenerVencimientos);
+				}
+			}
+			if (configuracion.isMetricas()) {
+				activarMetricas();
+			}
+			return;
+		}
+
+		this.conexion = crearConexion(configuracion);
+		this.cacheSegundoNivel = configuracion.isCacheSegundoNivel();
+
+		/**
+		 * En modo concurrente los repositorios comparten un EntityManager contextual que delega en el
+		 * EntityManager de la unidad de trabajo de cada hilo.
+		 */
+		if (configuracion.isModoConcurrente()) {
+			this.unidadDeTrabajo = new UnidadDeTrabajo(conexion);
+			this.entityManager = EntityManagerContextual.crear(unidadDeTrabajo);
+		} else {
+			this.entityManager = conexion.createEntityManager();
+		}
+
+		this.repositorioProductoPersistente = new RepositorioProductoPersistente(entityManager);
+		this.repositorioProducto = repositorioProductoPersistente;
+
+		if (configuracion.isCacheProductos()) {
+			this.repositorioProducto = new RepositorioProductoCache(repositorioProductoPersistente,
+					configuracion.getCapacidadCacheProductos(), configuracion.getTtlCacheProductos(),
+					configuracion.getUnidadTtlCacheProductos());
+		}
+
+		if (configuracion.isBitacoraGarantias()) {
+			activarBitacoraGarantias(configuracion);
+			if (configuracion.isMetricas()) {
+				activarMetricas();
+			}
+			return;
+		}
+
+		RepositorioGarantiaPersistente repositorioGarantiaPersistente = new RepositorioGarantiaPersistente(entityManager,
+				repositorioProductoPersistente);
+		this.repositorioGarantia = repositorioGarantiaPersistente;
+
+		/**
+		 * El filtro envuelve a la escritura diferida para conocer las garantias aceptadas que aun no se escriben.
+		 */
+		RepositorioGarantiaEscrituraDiferida repositorioGarantiaDiferida = null;
+		if (configuracion.isEscrituraDiferida()) {
+			this.escritorGarantias = crearEscritorGarantias(configuracion);
+			repositorioGarantiaDiferida = new RepositorioGarantiaEscrituraDiferida(repositorioGarantiaPersistente,
+					escritorGarantias);
+			this.repositorioGarantia = repositorioGarantiaDiferida;
+		}
+
+		if (configuracion.isFiltroGarantias()) {
+			RepositorioGarantiaEscrituraDiferida diferida = repositorioGarantiaDiferida;
+			this.repositorioGarantia = ejecutarEnTransaccion(() -> diferida != null
+					? filtrar(diferida, repositorioProducto, configuracion)
+					: filtrar(repositorioGarantiaPersistente, repositorioProducto, configuracion));
+		}
+
+		if (configuracion.isAvisoVencimientos()) {
+			activarAvisoVencimientos(configuracion, crearCargaVencimientos());
+		}
+
+		if (configuracion.isMetricas()) {
+			activarMetricas();
+		}
+	}
+
+	/**
+	 * Los repositorios medidos envuelven a todos los decoradores, asi una consulta resuelta por la cache o el
+	 * filtro cuenta con su latencia real y sin sentencias SQL. Las inserciones se ejecutan al confirmar la
+	 * transaccion, por eso tambien se mide la transaccion.
+	 */
+	private void activarMetricas() {
+
+		registroMetricas = new RegistroMetricas();
+		repositorioProducto = new RepositorioProductoMedido(repositorioProducto, registroMetricas);
+		repositorioGarantia = new RepositorioGarantiaMedida(repositorioGarantia, registroMetricas);
+		metricasGarantia = new MetricasEtapasGarantia(registroMetricas);
+		metricaTransaccion = registroMetricas.crearMetrica(TIPO_TRANSACCION, "ejecutar");
+		metricaConfirmacion = registroMetricas.crearMetrica(TIPO_TRANSACCION, "confirmar");
+		registroMetricas.registrar("SentenciasSql", "total",
+				new SentenciasSql(enMemoria ? null : conexion::obtenerEstadisticas));
+	}
+
+	/**
+	 * La bitacora lee los productos del repositorio de productos ya configurado, con su cache si esta activa. Los
+	 * vencimientos se cargan de su indice en memoria, sin EntityManager propio
+	 */
+	private void activarBitacoraGarantias(ConfiguracionPersistencia configuracion) {
+
+		try {
+			repositorioGarantiaBitacora = new RepositorioGarantiaBitacora(
+					Paths.get(configuracion.getDirectorioBitacoraGarantias()), repositorioProducto);
+		} catch (IOException e) {
+			throw new UncheckedIOException(BITACORA_NO_DISPONIBLE + configuracion.getDirectorioBitacoraGarantias(), e);
+		}
+		repositorioGarantia = repositorioGarantiaBitacora;
+		if (configuracion.isAvisoVencimientos()) {
+			activarAvisoVencimientos(configuracion, repositorioGarantiaBitacora::obtenerVencimientos);
+		}
+	}
+
+	/**
+	 * El filtro lee los productos sin garantia del repositorio de productos ya configurado, con su cache si esta
+	 * activa
+	 */
+	private static <T extends RepositorioGarantiaExtendida & RepositorioGarantiaJPA> RepositorioGarantiaExtendida filtrar(
+			T repositorioGarantia, RepositorioProducto repositorioProducto, ConfiguracionPersistencia configuracion) {
+		return RepositorioGarantiaFiltrada.construir(repositorioGarantia, repositorioProducto,
+				configuracion.getGarantiasEsperadasFiltro(), configuracion.getProbabilidadFalsoPositivoFiltro());
+	}
+
+	/**
+	 * El escritor escribe desde su propio hilo, con un EntityManager que solo usa el y que se limpia despues de
+	 * cada lote. Cada lote ignora las garantias que ya estan en la base de datos, asi las que se recuperan del
+	 * diario al reiniciar no se duplican
+	 */
+	private EscritorGarantias crearEscritorGarantias(ConfiguracionPersistencia configuracion) {
+
+		EntityManager entityManagerPropio = conexion.createEntityManager();
+		this.entityManagerEscritura = entityManagerPropio;
+		RepositorioGarantiaPersistente repositorio = new RepositorioGarantiaPersistente(entityManagerPropio,
+				new RepositorioProductoPersistente(entityManagerPropio));
+
+		Consumer<List<GarantiaExtendida>> escribirLote = lote -> ejecutarEnTransaccionPropia(entityManagerPropio, () -> {
+			List<String> codigos = new ArrayList<>(lote.size());
+			for (GarantiaExtendida garantia : lote) {
+				codigos.add(garantia.getProducto().getCodigo());
+			}
+			Set<String> existentes = repositorio.obtenerCodigosConGarantia(codigos);
+			List<GarantiaExtendida> nuevas = new ArrayList<>(lote.size());
+			for (GarantiaExtendida garantia : lote) {
+				if (!existentes.contains(garantia.getProducto().getCodigo())) {
+					nuevas.add(garantia);
+				}
+			}
+			repositorio.agregarTodas(nuevas);
+			return null;
+		});
+
+		try {
+			return new EscritorGarantias(new DiarioGarantias(Paths.get(configuracion.getRutaDiarioGarantias())),
+					escribirLote, configuracion.getCapacidadEscrituraDiferida(),
+					configuracion.getTamanoLoteEscrituraDiferida(), configuracion.getIntervaloEscrituraDiferida(),
+					TimeUnit.MILLISECONDS);
+		} catch (IOException e) {
+			throw new UncheckedIOException(DIARIO_NO_DISPONIBLE + configuracion.getRutaDiarioGarantias(), e);
+		}
+	}
+
+	private static <T> T ejecutarEnTransaccionPropia(EntityManager entityManagerPropio, Supplier<T> operacion) {
+
+		entityManagerPropio.getTransaction().begin();
+		try {
+			T resultado = operacion.get();
+			entityManagerPropio.getTransaction().commit();
+			return resultado;
+		} catch (RuntimeException e) {
+			if (entityManagerPropio.getTransaction().isActive()) {
+				entityManagerPropio.getTransaction().rollback();
+			}
+			throw e;
+		} finally {
+			entityManagerPropio.clear();
+		}
+	}
+
+	/**
+	 * El programador envuelve al repositorio de garantias para recibir las garantias nuevas, por eso se activa
+	 * despues de los demas decoradores
+	 */
+	private void activarAvisoVencimientos(ConfiguracionPersistencia configuracion,
+			BiFunction<Date, Date, List<VencimientoGarantia>> cargarVencimientos) {
+
+		programadorVencimientos = new ProgramadorVencimientos(cargarVencimientos,
+				configuracion.getAnticipacionVencimientos(), configuracion.getAvisoVencimientos());
+		repositorioGarantia = new RepositorioGarantiaConVencimientos(repositorioGarantia, programadorVencimientos);
+		programadorVencimientos.iniciar();
+	}
+
+	/**
+	 * El programador consulta desde su propio hilo, con un EntityManager que solo usa el y que se limpia despues
+	 * de cada ventana
+	 */
+	private BiFunction<Date, Date, List<VencimientoGarantia>> crearCargaVencimientos() {
+
+		EntityManager entityManagerPropio = conexion.createEntityManager();
+		this.entityManagerVencimientos = entityManagerPropio;
+		RepositorioGarantiaPersistente repositorio = new RepositorioGarantiaPersistente(entityManagerPropio,
+				new RepositorioProductoPersistente(entityManagerPropio));
+
+		return (desde, hasta) -> ejecutarEnTransaccionPropia(entityManagerPropio,
+				() -> repositorio.obtenerVencimientos(desde, hasta));
+	}
+
+	private static ConexionJPA crearConexion(ConfiguracionPersistencia configuracion) {
+
+		Map<String, Object> propiedades = new HashMap<>();
+		if (configuracion.isCacheSegundoNivel()) {
+			propiedades.putAll(CacheSegundoNivel.propiedades());
+		}
+		if (configuracion.isMetricas()) {
+			propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, ContadorSentencias.INSTANCIA);
+		}
+
+		if (configuracion.isBaseDeDatosArchivo()) {
+			BaseDeDatosArchivo baseDeDatos = new BaseDeDatosArchivo(configuracion.getRutaBaseDeDatos());
+			baseDeDatos.migrar();
+			propiedades.putAll(baseDeDatos.propiedades());
+			return new ConexionJPA(BaseDeDatosArchivo.UNIDAD_PERSISTENCIA, propiedades);
+		}
+		return new ConexionJPA(propiedades);
 	}
 
 	public RepositorioProducto obtenerRepositorioProductos() {
-		return new RepositorioProductoPersistente(entityManager);
+		return repositorioProducto;
 	}
 	
 	public RepositorioGarantiaExtendida obtenerRepositorioGarantia() {
-		return new RepositorioGarantiaPersistente(entityManager, this.obtenerRepositorioProductos());
+		return repositorioGarantia;
+	}
+
+	/**
+	 * Importador de catalogos que escribe en la misma base de datos que los repositorios. Los productos
+	 * importados no pasan por la cache de productos, que no guarda productos inexistentes y no queda desactualizada.
+	 */
+	public ImportadorCatalogo crearImportadorCatalogo() {
+		if (enMemoria) {
+			throw new IllegalStateException(IMPORTACION_SIN_BASE_DE_DATOS);
+		}
+		return new ImportadorCatalogo(conexion);
+	}
+
+	/**
+	 * Exportacion y totales de las garantias guardadas en la misma base de datos que los repositorios
+	 */
+	public ReporteGarantias crearReporteGarantias() {
+		if (enMemoria) {
+			throw new IllegalStateException(REPORTE_SIN_BASE_DE_DATOS);
+		}
+		return new ReporteGarantias(conexion);
+	}
+
+	/**
+	 * Ejecuta la operacion en su propia transaccion. En modo concurrente cada hilo usa su propio EntityManager,
+	 * en modo normal la operacion se ejecuta con el EntityManager compartido. Con repositorios en memoria
+	 * la operacion se ejecuta directamente.
+	 * @param operacion
+	 * @return el resultado de la operacion
+	 */
+	public <T> T ejecutarEnTransaccion(Supplier<T> operacion) {
+
+		if (metricaTransaccion == null) {
+			return ejecutarEnTransaccionSinMedir(operacion);
+		}
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			return ejecutarEnTransaccionSinMedir(operacion);
+		} finally {
+			metricaTransaccion.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	private <T> T ejecutarEnTransaccionSinMedir(Supplier<T> operacion) {
+
+		if (enMemoria) {
+			return operacion.get();
+		}
+		if (unidadDeTrabajo != null) {
+			return unidadDeTrabajo.ejecutar(operacion);
+		}
+
+		if (entityManager.getTransaction().isActive()) {
+			return operacion.get();
+		}
+		iniciar();
+		try {
+			T resultado = operacion.get();
+			terminar();
+			return resultado;
+		} catch (RuntimeException e) {
+			if (entityManager.getTransaction().isActive()) {
+				entityManager.getTransaction().rollback();
+			}
+			throw e;
+		}
+	}
+
+	public boolean isModoConcurrente() {
+		return enMemoria || unidadDeTrabajo != null;
 	}
 
+	public boolean isRepositoriosEnMemoria() {
+		return enMemoria;
+	}
+
+	/**
+	 * @return el escritor de la escritura diferida de garantias, null si no esta activa
+	 */
+	public EscritorGarantias obtenerEscritorGarantias() {
+		return escritorGarantias;
+	}
+
+	/**
+	 * @return el repositorio de garantias en bitacora, null si no esta activo
+	 */
+	public RepositorioGarantiaBitacora obtenerBitacoraGarantias() {
+		return repositorioGarantiaBitacora;
+	}
+
+	/**
+	 * @return el programador de avisos de vencimiento, null si no esta activo
+	 */
+	public ProgramadorVencimientos obtenerProgramadorVencimientos() {
+		return programadorVencimientos;
+	}
+
+	/**
+	 * Metricas para el Vendedor que usa los repositorios de este sistema, ver {@link dominio.Vendedor#conMetricas}
+	 * @return las metricas por etapa registradas por JMX, o metricas que no registran nada si no estan activas
+	 */
+	public MetricasGarantia obtenerMetricasGarantia() {
+		return metricasGarantia;
+	}
+
+	/**
+	 * @return el registro de los MBeans de este sistema, null si las metricas no estan activas
+	 */
+	public RegistroMetricas obtenerRegistroMetricas() {
+		return registroMetricas;
+	}
+
+	/**
+	 * Aciertos, fallos y escrituras de cada region de la cache de segundo nivel desde que se creo el sistema.
+	 * @return las estadisticas de cada region, vacio si la cache de segundo nivel no esta activa
+	 */
+	public List<EstadisticaRegionCache> obtenerEstadisticasCache() {
+
+		if (!cacheSegundoNivel) {
+			return Collections.emptyList();
+		}
+
+		Statistics estadisticas = conexion.obtenerEstadisticas();
+		List<EstadisticaRegionCache> regiones = new ArrayList<>();
+		for (String region : estadisticas.getSecondLevelCacheRegionNames()) {
+			if (region.endsWith(SUFIJO_REGION_NATURAL_ID)) {
+				NaturalIdCacheStatistics naturalId = estadisticas.getNaturalIdCacheStatistics(region);
+				regiones.add(new EstadisticaRegionCache(region, naturalId.getHitCount(), naturalId.getMissCount(),
+						naturalId.getPutCount()));
+			} else {
+				SecondLevelCacheStatistics entidad = estadisticas.getSecondLevelCacheStatistics(region);
+				regiones.add(new EstadisticaRegionCache(region, entidad.getHitCount(), entidad.getMissCount(),
+						entidad.getPutCount()));
+			}
+		}
+		return regiones;
+	}
+
+	/**
+	 * Inicia la transaccion, en modo concurrente abre la unidad de trabajo del hilo actual
+	 */
 	public void iniciar() {
-		entityManager.getTransaction().begin();
+		if (enMemoria) {
+			return;
+		}
+		if (unidadDeTrabajo != null) {
+			unidadDeTrabajo.abrir();
+		} else {
+			entityManager.getTransaction().begin();
+		}
 	}
 
+	/**
+	 * Confirma la transaccion, en modo concurrente cierra la unidad de trabajo del hilo actual
+	 */
 	public void terminar() {
-		entityManager.getTransaction().commit();
+		if (enMemoria) {
+			return;
+		}
+		if (metricaConfirmacion == null) {
+			confirmar();
+			return;
+		}
+		long inicio = System.nanoTime();
+		long sentencias = ContadorSentencias.delHilo();
+		try {
+			confirmar();
+		} finally {
+			metricaConfirmacion.registrarDesde(inicio, sentencias);
+		}
+	}
+
+	private void confirmar() {
+		if (unidadDeTrabajo != null) {
+			unidadDeTrabajo.confirmar();
+		} else {
+			entityManager.getTransaction().commit();
+		}
+	}
+
+	/**
+	 * Cierra la fabrica de EntityManager, que se comparte con los demas sistemas de la misma configuracion.
+	 * Los repositorios de este sistema no se pueden usar despues
+	 */
+	public void cerrar() {
+
+		if (programadorVencimientos != null) {
+			programadorVencimientos.detener();
+		}
+		if (registroMetricas != null) {
+			registroMetricas.cerrar();
+		}
+		if (repositorioGarantiaBitacora != null) {
+			try {
+				repositorioGarantiaBitacora.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		if (enMemoria) {
+			return;
+		}
+		if (escritorGarantias != null) {
+			try {
+				escritorGarantias.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				entityManagerEscritura.close();
+			}
+		}
+		if (entityManagerVencimientos != null && entityManagerVencimientos.isOpen()) {
+			entityManagerVencimientos.close();
+		}
+		if (unidadDeTrabajo == null && entityManager.isOpen()) {
+			entityManager.close();
+		}
+		conexion.cerrar();
 	}
 }
@@ -0,0 +1,68 @@
+package persistencia.tarifa;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import dominio.NivelGarantia;
+import dominio.tarifa.TablaTarifas;
+import dominio.tarifa.TablaTarifasBuilder;
+
+/**
+ * Carga tablas de tarifas desde un archivo de texto con una linea por tramo:
+ * prefijo de categoria;precio desde;porcentaje;dias, y opcionalmente ;nivel. El prefijo vacio es la categoria
+ * general, las lineas vacias y las que empiezan con # se ignoran.
+ */
+public final class ArchivoTarifas {
+
+	public static final String LINEA_INVALIDA = "Linea de tarifas invalida ";
+
+	private static final String SEPARADOR = ";";
+	private static final String COMENTARIO = "#";
+	private static final int CAMPOS = 4;
+	private static final int CAMPOS_CON_NIVEL = 5;
+
+	private ArchivoTarifas() {}
+
+	public static TablaTarifas cargar(Path archivo) throws IOException {
+
+		TablaTarifasBuilder builder = new TablaTarifasBuilder();
+		try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+
+			String linea;
+			int numero = 0;
+			while ((linea = lector.readLine()) != null) {
+				numero++;
+				String contenido = linea.trim();
+				if (contenido.isEmpty() || contenido.startsWith(COMENTARIO)) {
+					continue;
+				}
+				String[] campos = contenido.split(SEPARADOR, -1);
+				if (campos.length != CAMPOS && campos.length != CAMPOS_CON_NIVEL) {
+					throw new IOException(LINEA_INVALIDA + numero + ": " + linea);
+				}
+				try {
+					String prefijo = campos[0].trim();
+					double precioDesde = Double.parseDouble(campos[1].trim());
+					double porcentaje = Double.parseDouble(campos[2].trim());
+					int dias = Integer.parseInt(campos[3].trim());
+					if (campos.length == CAMPOS_CON_NIVEL) {
+						builder.conTramo(prefijo, precioDesde, porcentaje, dias, NivelGarantia.valueOf(campos[4].trim()));
+					} else {
+						builder.conTramo(prefijo, precioDesde, porcentaje, dias);
+					}
+				} catch (IllegalArgumentException e) {
+					throw new IOException(LINEA_INVALIDA + numero + ": " + e.getMessage(), e);
+				}
+			}
+		}
+
+		try {
+			return builder.build();
+		} catch (IllegalStateException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package persistencia.tarifa;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import dominio.tarifa.MotorTarifas;
+
+/**
+ * Vigila el archivo de tarifas y, cuando cambia, lo vuelve a compilar y reemplaza la tabla del motor sin
+ * reiniciar la aplicacion. Si el archivo nuevo es invalido el motor conserva la tabla anterior.
+ */
+public class RecargaTarifas {
+
+	private final Path archivo;
+	private final MotorTarifas motor;
+
+	private FileTime ultimaModificacion;
+	private volatile IOException ultimoError;
+	private ScheduledExecutorService revision;
+
+	public RecargaTarifas(Path archivo, MotorTarifas motor) {
+		this.archivo = archivo;
+		this.motor = motor;
+	}
+
+	/**
+	 * Carga el archivo si cambio desde la ultima revision.
+	 * @return true si se reemplazo la tabla del motor
+	 */
+	public synchronized boolean revisar() {
+
+		try {
+			FileTime modificacion = Files.getLastModifiedTime(archivo);
+			if (modificacion.equals(ultimaModificacion)) {
+				return false;
+			}
+			ultimaModificacion = modificacion;
+			motor.recargar(ArchivoTarifas.cargar(archivo));
+			ultimoError = null;
+			return true;
+		} catch (IOException e) {
+			ultimoError = e;
+			return false;
+		}
+	}
+
+	public synchronized void iniciar(long periodo, TimeUnit unidad) {
+
+		if (revision != null) {
+			return;
+		}
+		revision = Executors.newSingleThreadScheduledExecutor(tarea -> {
+			Thread hilo = new Thread(tarea, "recarga-tarifas");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		revision.scheduleWithFixedDelay(this::revisar, 0, periodo, unidad);
+	}
+
+	public synchronized void detener() {
+		if (revision != null) {
+			revision.shutdownNow();
+			revision = null;
+		}
+	}
+
+	/**
+	 * @return el error de la ultima revision, null si la tabla vigente corresponde al archivo
+	 */
+	public IOException getUltimoError() {
+		return ultimoError;
+	}
+}
@@ -0,0 +1,28 @@
+-- Esquema inicial, debe coincidir con las entidades porque Hibernate solo lo valida.
+
+CREATE SEQUENCE hibernate_sequence START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE SEQ_GARANTIA_EXTENDIDA START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE Producto (
+    id BIGINT NOT NULL,
+    cantidadVocales INTEGER,
+    codigo VARCHAR(255) NOT NULL,
+    nombre VARCHAR(255) NOT NULL,
+    precio DOUBLE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE Producto ADD CONSTRAINT UK_PRODUCTO_CODIGO UNIQUE (codigo);
+
+CREATE TABLE GarantiaExtendida (
+    id BIGINT NOT NULL,
+    fechaFinGarantia TIMESTAMP,
+    fechaSolicitudGarantia TIMESTAMP,
+    nombreCliente VARCHAR(255),
+    precio DOUBLE NOT NULL,
+    ID_PRODUCTO BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE GarantiaExtendida ADD CONSTRAINT UK_GARANTIA_PRODUCTO UNIQUE (ID_PRODUCTO);
+ALTER TABLE GarantiaExtendida ADD CONSTRAINT FK_GARANTIA_PRODUCTO FOREIGN KEY (ID_PRODUCTO) REFERENCES Producto;
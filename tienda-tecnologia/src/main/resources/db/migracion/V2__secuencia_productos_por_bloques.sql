@@ -0,0 +1,5 @@
+-- Los productos reservan identificadores en bloques de 50 (allocationSize de ProductoEntity). Con el optimizador
+-- pooled el valor de la secuencia es el mayor identificador del bloque, asi que los bloques nuevos empiezan
+-- despues del ultimo identificador entregado.
+
+ALTER SEQUENCE hibernate_sequence INCREMENT BY 50;
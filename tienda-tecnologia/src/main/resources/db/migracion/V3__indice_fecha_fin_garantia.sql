@@ -0,0 +1,3 @@
+-- Los avisos de vencimiento consultan las garantias por rango de fecha de fin.
+
+CREATE INDEX IDX_GARANTIA_FECHA_FIN ON GarantiaExtendida (fechaFinGarantia);
@@ -0,0 +1,11 @@
+-- Nivel del tramo de tarifas con que se emitio cada garantia, el reporte de ingresos agrupa por el.
+-- Las garantias existentes no guardaron su tramo, toman el nivel de las tarifas por defecto segun el precio del
+-- producto, el mismo que les daba el reporte.
+
+ALTER TABLE GarantiaExtendida ADD COLUMN nivel VARCHAR(255);
+
+UPDATE GarantiaExtendida SET nivel = CASE WHEN
+    (SELECT producto.precio FROM Producto producto WHERE producto.id = GarantiaExtendida.ID_PRODUCTO) > 500000
+    THEN 'SUPERIOR' ELSE 'BASICA' END;
+
+ALTER TABLE GarantiaExtendida ALTER COLUMN nivel SET NOT NULL;
@@ -2,6 +2,9 @@ package dominio.integracion;
 
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -10,9 +13,12 @@ import org.junit.Test;
 import dominio.Vendedor;
 import dominio.GarantiaExtendida;
 import dominio.Producto;
+import dominio.ResultadoGarantia;
+import dominio.SolicitudGarantia;
 import dominio.excepcion.GarantiaExtendidaException;
 import dominio.repositorio.RepositorioProducto;
 import dominio.repositorio.RepositorioGarantiaExtendida;
+import persistencia.sistema.ConfiguracionPersistencia;
 import persistencia.sistema.SistemaDePersistencia;
 import testdatabuilder.ProductoTestDataBuilder;
 
@@ -41,6 +47,7 @@ public class VendedorTest {
 	@After
 	public void tearDown() {
 		sistemaPersistencia.terminar();
+		sistemaPersistencia.cerrar();
 	}
 
 	@Test
@@ -146,4 +153,72 @@ public class VendedorTest {
 		}
 	}
 		
+	@Test
+	public void generarGarantiasPorLoteTest() {
+		
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().conNombre(COMPUTADOR_LENOVO).build();
+		Producto productoTresVocales = new ProductoTestDataBuilder().conCodigo("S01H1ATEI").build();
+		repositorioProducto.agregar(producto);
+		repositorioProducto.agregar(productoTresVocales);
+		Vendedor vendedor = new Vendedor(repositorioProducto, repositorioGarantia);
+
+		// act
+		List<ResultadoGarantia> resultados = vendedor.generarGarantias(Arrays.asList(
+				new SolicitudGarantia(producto.getCodigo(), nombreCliente),
+				new SolicitudGarantia(producto.getCodigo(), nombreCliente),
+				new SolicitudGarantia(productoTresVocales.getCodigo(), nombreCliente),
+				new SolicitudGarantia("NOEXISTE", nombreCliente),
+				new SolicitudGarantia(producto.getCodigo(), "")));
+
+		// assert
+		Assert.assertTrue(resultados.get(0).isEmitida());
+		Assert.assertEquals(Vendedor.EL_PRODUCTO_TIENE_GARANTIA, resultados.get(1).getMotivo());
+		Assert.assertEquals(Vendedor.EL_PRODUCTO_TIENE_TRES_VOCALES, resultados.get(2).getMotivo());
+		Assert.assertEquals(Vendedor.EL_PRODUCTO_NO_EXISTE, resultados.get(3).getMotivo());
+		Assert.assertEquals(Vendedor.NOMBRE_CLIENTE_NO_INGRESADO, resultados.get(4).getMotivo());
+		Assert.assertTrue(vendedor.tieneGarantia(producto.getCodigo()));
+		Assert.assertEquals(nombreCliente, repositorioGarantia.obtener(producto.getCodigo()).getNombreCliente());
+	}
+		
+	@Test
+	public void productoNoExisteTest() {
+
+		// arrange
+		Vendedor vendedor = new Vendedor(repositorioProducto, repositorioGarantia);
+
+		try {
+			// act
+			vendedor.generarGarantia("NO-EXISTE", nombreCliente);
+			fail();
+
+		} catch (GarantiaExtendidaException e) {
+			// assert
+			Assert.assertEquals(Vendedor.EL_PRODUCTO_NO_EXISTE, e.getMessage());
+		}
+	}
+
+	@Test
+	public void productoYaTieneGarantiaConCacheYFiltroTest() {
+
+		// arrange
+		sistemaPersistencia.terminar();
+		sistemaPersistencia.cerrar();
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia()
+				.conCacheProductos(100)
+				.conFiltroGarantias(1000, 0.01));
+		sistemaPersistencia.iniciar();
+		Producto producto = new ProductoTestDataBuilder().conNombre(COMPUTADOR_LENOVO).build();
+		sistemaPersistencia.obtenerRepositorioProductos().agregar(producto);
+		Vendedor vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+				sistemaPersistencia.obtenerRepositorioGarantia());
+		Assert.assertFalse(vendedor.tieneGarantia(producto.getCodigo()));
+
+		// act
+		vendedor.generarGarantia(producto.getCodigo(), nombreCliente);
+
+		// assert
+		Assert.assertTrue(vendedor.tieneGarantia(producto.getCodigo()));
+	}
+		
 }
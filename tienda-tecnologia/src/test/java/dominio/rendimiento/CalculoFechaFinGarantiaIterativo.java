@@ -0,0 +1,37 @@
+package dominio.rendimiento;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Implementacion original del calculo de la fecha de fin de garantia, recorre el calendario dia a dia.
+ * Se conserva como referencia para comprobar la equivalencia y medir la version de tiempo constante de Vendedor.
+ */
+public final class CalculoFechaFinGarantiaIterativo {
+
+	private CalculoFechaFinGarantiaIterativo() {}
+
+	public static Date calcularFechaFinGarantia(Date fechaInicial, int diasGarantia) {
+
+		Calendar calendario = Calendar.getInstance();
+		calendario.setTime(fechaInicial);
+		int dias = 1;
+
+		while (dias < diasGarantia) {
+			if (calendario.get(Calendar.DAY_OF_WEEK) != Calendar.MONDAY) {
+				dias++;
+			}
+			calendario.add(Calendar.DAY_OF_YEAR, 1);
+		}
+
+		if (calendario.get(Calendar.DAY_OF_WEEK) == Calendar.SUNDAY) {
+			calendario.add(Calendar.DAY_OF_YEAR, 2);
+		}
+
+		if (calendario.get(Calendar.DAY_OF_WEEK) == Calendar.MONDAY) {
+			calendario.add(Calendar.DAY_OF_YEAR, 1);
+		}
+
+		return calendario.getTime();
+	}
+}
@@ -0,0 +1,82 @@
+package dominio.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.Vendedor;
+import dominio.rendimiento.CalculoFechaFinGarantiaIterativo;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+
+public class CalculoFechaFinGarantiaTest {
+
+	private static final int DIAS_MINIMOS = -3;
+	private static final int DIAS_MAXIMOS = 1500;
+
+	private TimeZone zonaOriginal;
+	private Vendedor vendedor;
+
+	@Before
+	public void setUp() {
+		zonaOriginal = TimeZone.getDefault();
+		vendedor = new Vendedor(mock(RepositorioProducto.class), mock(RepositorioGarantiaExtendida.class));
+	}
+
+	@After
+	public void tearDown() {
+		TimeZone.setDefault(zonaOriginal);
+	}
+
+	@Test
+	public void calculoConstanteEquivaleAlIterativoTest() {
+
+		// arrange, act y assert: dos semanas de fechas iniciales cubren todos los dias de la semana
+		compararDesde(2019, Calendar.JULY, 8, 14);
+	}
+
+	@Test
+	public void calculoConstanteEquivaleAlIterativoEnAnioBisiestoYCambioDeAnioTest() {
+
+		compararDesde(2020, Calendar.FEBRUARY, 24, 7);
+		compararDesde(2023, Calendar.DECEMBER, 25, 7);
+	}
+
+	@Test
+	public void calculoConstanteEquivaleAlIterativoConHorarioDeVeranoTest() {
+
+		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Madrid"));
+		compararDesde(2019, Calendar.MARCH, 25, 7);
+
+		TimeZone.setDefault(TimeZone.getTimeZone("America/Bogota"));
+		compararDesde(2019, Calendar.JULY, 8, 7);
+	}
+
+	private void compararDesde(int anio, int mes, int dia, int cantidadFechas) {
+
+		Calendar calendario = Calendar.getInstance();
+		calendario.clear();
+		calendario.set(anio, mes, dia, 12, 30);
+
+		for (int i = 0; i < cantidadFechas; i++) {
+
+			Date fechaInicial = calendario.getTime();
+
+			for (int diasGarantia = DIAS_MINIMOS; diasGarantia <= DIAS_MAXIMOS; diasGarantia++) {
+
+				Date esperada = CalculoFechaFinGarantiaIterativo.calcularFechaFinGarantia(fechaInicial, diasGarantia);
+				Date obtenida = vendedor.calcularFechaFinGarantia(fechaInicial, diasGarantia);
+
+				assertEquals("fecha inicial " + fechaInicial + ", dias " + diasGarantia, esperada, obtenida);
+			}
+			calendario.add(Calendar.DAY_OF_YEAR, 1);
+		}
+	}
+}
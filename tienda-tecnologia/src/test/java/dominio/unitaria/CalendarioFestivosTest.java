@@ -0,0 +1,154 @@
+package dominio.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dominio.Vendedor;
+import dominio.calendario.CalendarioFestivos;
+import dominio.calendario.CalendarioFestivosBuilder;
+import dominio.calendario.CalendarioLaboral;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.calendario.ArchivoCalendarioFestivos;
+
+public class CalendarioFestivosTest {
+
+	private static final LocalDate DESDE = LocalDate.of(2019, 1, 1);
+	private static final LocalDate HASTA = LocalDate.of(2021, 12, 31);
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	@Test
+	public void festivoYDiaDeDescansoNoSonHabilesTest() {
+
+		// arrange
+		CalendarioFestivos calendario = new CalendarioFestivosBuilder(DESDE, HASTA)
+				.conDiaDeDescanso(DayOfWeek.SUNDAY)
+				.conFestivo(LocalDate.of(2019, 7, 20))
+				.build();
+
+		// act y assert
+		assertFalse(calendario.esDiaHabil(LocalDate.of(2019, 7, 20)));
+		assertFalse(calendario.esDiaHabil(LocalDate.of(2019, 7, 21)));
+		assertTrue(calendario.esDiaHabil(LocalDate.of(2019, 7, 22)));
+		assertEquals(LocalDate.of(2019, 7, 22), calendario.siguienteDiaHabil(LocalDate.of(2019, 7, 20)));
+		assertEquals(LocalDate.of(2019, 7, 23), calendario.sumarDiasHabiles(LocalDate.of(2019, 7, 19), 2));
+	}
+
+	@Test
+	public void sumarDiasHabilesCoincideConRecorridoDiaADiaTest() {
+
+		// arrange
+		CalendarioFestivos calendario = calendarioAleatorio(new Random(7));
+
+		// act y assert
+		for (LocalDate fecha = LocalDate.of(2019, 3, 1); fecha.isBefore(LocalDate.of(2020, 6, 1)); fecha = fecha.plusDays(3)) {
+			assertEquals(siguienteRecorriendo(calendario, fecha), calendario.siguienteDiaHabil(fecha));
+			for (int dias = -40; dias <= 200; dias += 7) {
+				assertEquals(sumarRecorriendo(calendario, fecha, dias), calendario.sumarDiasHabiles(fecha, dias));
+			}
+		}
+	}
+
+	@Test
+	public void calendarioMapeadoDesdeArchivoTest() throws IOException {
+
+		// arrange
+		CalendarioFestivos calendario = calendarioAleatorio(new Random(11));
+		Path archivo = carpeta.newFile("co.festivos").toPath();
+
+		// act
+		ArchivoCalendarioFestivos.guardar(calendario, archivo);
+		CalendarioFestivos cargado = ArchivoCalendarioFestivos.cargar(archivo);
+
+		// assert
+		assertEquals(calendario.getTotalDiasHabiles(), cargado.getTotalDiasHabiles());
+		for (LocalDate fecha = DESDE; !fecha.isAfter(HASTA); fecha = fecha.plusDays(1)) {
+			assertEquals(calendario.esDiaHabil(fecha), cargado.esDiaHabil(fecha));
+		}
+	}
+
+	@Test
+	public void fechaFinGarantiaEnFestivoPasaAlSiguienteDiaHabilTest() {
+
+		// arrange: sin calendario la garantia de 4 dias desde el 17/07/2019 termina el 20/07/2019
+		CalendarioLaboral calendario = new CalendarioFestivosBuilder(DESDE, HASTA)
+				.conFestivo(LocalDate.of(2019, 7, 20))
+				.conDiaDeDescanso(DayOfWeek.SUNDAY)
+				.build();
+		Vendedor vendedor = new Vendedor(mock(RepositorioProducto.class), mock(RepositorioGarantiaExtendida.class), calendario);
+		Date fechaInicial = Date.from(LocalDate.of(2019, 7, 17).atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant());
+
+		// act
+		Date fechaFin = vendedor.calcularFechaFinGarantia(fechaInicial, 4);
+
+		// assert
+		assertEquals(LocalDate.of(2019, 7, 22), fechaFin.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+	}
+
+	@Test
+	public void fechaFinGarantiaFueraDelCalendarioUsaLosDiasDeLaSemanaTest() {
+
+		// arrange: la garantia de 4 dias desde el 29/12/2021 termina el 01/01/2022, despues del calendario
+		CalendarioLaboral calendario = new CalendarioFestivosBuilder(DESDE, HASTA)
+				.conDiaDeDescanso(DayOfWeek.SUNDAY)
+				.build();
+		Vendedor vendedor = new Vendedor(mock(RepositorioProducto.class), mock(RepositorioGarantiaExtendida.class), calendario);
+		Vendedor vendedorSinCalendario = new Vendedor(mock(RepositorioProducto.class),
+				mock(RepositorioGarantiaExtendida.class));
+		Date fechaInicial = Date.from(LocalDate.of(2021, 12, 29).atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant());
+
+		// act
+		Date fechaFin = vendedor.calcularFechaFinGarantia(fechaInicial, 4);
+
+		// assert
+		assertEquals(vendedorSinCalendario.calcularFechaFinGarantia(fechaInicial, 4), fechaFin);
+		assertEquals(LocalDate.of(2022, 1, 1), fechaFin.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+	}
+
+	private static CalendarioFestivos calendarioAleatorio(Random aleatorio) {
+
+		CalendarioFestivosBuilder builder = new CalendarioFestivosBuilder(DESDE, HASTA).conDiaDeDescanso(DayOfWeek.SUNDAY);
+		for (LocalDate fecha = DESDE; !fecha.isAfter(HASTA); fecha = fecha.plusDays(1)) {
+			if (aleatorio.nextInt(10) == 0) {
+				builder.conFestivo(fecha);
+			}
+		}
+		return builder.build();
+	}
+
+	private static LocalDate siguienteRecorriendo(CalendarioLaboral calendario, LocalDate fecha) {
+
+		while (!calendario.esDiaHabil(fecha)) {
+			fecha = fecha.plusDays(1);
+		}
+		return fecha;
+	}
+
+	private static LocalDate sumarRecorriendo(CalendarioLaboral calendario, LocalDate fecha, int dias) {
+
+		int paso = dias > 0 ? 1 : -1;
+		for (int restantes = Math.abs(dias); restantes > 0;) {
+			fecha = fecha.plusDays(paso);
+			if (calendario.esDiaHabil(fecha)) {
+				restantes--;
+			}
+		}
+		return fecha;
+	}
+}
@@ -0,0 +1,70 @@
+package dominio.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dominio.metrica.HistogramaLatencia;
+
+public class HistogramaLatenciaTest {
+
+	@Test
+	public void percentilesConErrorRelativoAcotadoTest() {
+
+		// arrange
+		HistogramaLatencia histograma = new HistogramaLatencia();
+		Random aleatorio = new Random(3);
+		long[] valores = new long[100000];
+		for (int i = 0; i < valores.length; i++) {
+			valores[i] = (long) Math.exp(aleatorio.nextDouble() * 25);
+			histograma.registrar(valores[i]);
+		}
+		Arrays.sort(valores);
+
+		// act - assert
+		for (double percentil : new double[] { 1, 50, 90, 99, 99.9, 100 }) {
+			long exacto = valores[(int) Math.ceil(percentil / 100 * valores.length) - 1];
+			long estimado = histograma.percentil(percentil);
+			assertTrue(percentil + ": " + exacto + " vs " + estimado,
+					estimado >= exacto && estimado <= exacto + exacto / 32 + 1);
+		}
+		assertEquals(valores.length, histograma.getCantidad());
+		assertEquals(valores[valores.length - 1], histograma.getMaximo());
+		assertEquals(valores[valores.length - 1], histograma.percentil(100));
+	}
+
+	@Test
+	public void registrarDesdeVariosHilosTest() throws InterruptedException {
+
+		// arrange
+		HistogramaLatencia histograma = new HistogramaLatencia();
+		List<Thread> hilos = new ArrayList<>();
+		for (int h = 0; h < 4; h++) {
+			final int desplazamiento = h;
+			hilos.add(new Thread(() -> {
+				for (int i = 1; i <= 10000; i++) {
+					histograma.registrar(i + desplazamiento);
+				}
+			}));
+		}
+
+		// act
+		hilos.forEach(Thread::start);
+		for (Thread hilo : hilos) {
+			hilo.join();
+		}
+
+		// assert
+		assertEquals(40000, histograma.getCantidad());
+		assertEquals(10003, histograma.getMaximo());
+		histograma.reiniciar();
+		assertEquals(0, histograma.getCantidad());
+		assertEquals(0, histograma.percentil(99));
+	}
+}
@@ -0,0 +1,174 @@
+package dominio.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import dominio.Producto;
+import dominio.Vendedor;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import dominio.tarifa.MotorTarifas;
+import dominio.tarifa.TablaTarifas;
+import dominio.tarifa.TablaTarifasBuilder;
+import persistencia.tarifa.ArchivoTarifas;
+import persistencia.tarifa.RecargaTarifas;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class MotorTarifasTest {
+
+	private static final double DELTA = 1e-9;
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	@Test
+	public void tarifasPorDefectoCoincidenConNivelGarantiaTest() {
+
+		TablaTarifas tabla = MotorTarifas.tarifasPorDefecto();
+
+		for (double precio : new double[] { -1, 0, 1, 499999.99, 500000, 500000.01, 780000, 1e12 }) {
+			NivelGarantia nivel = NivelGarantia.para(precio);
+			int tramo = tabla.buscarTramo("F01TSA0150", precio);
+			assertEquals(nivel.getPorcentaje(), tabla.getPorcentaje(tramo), DELTA);
+			assertEquals(nivel.getDias(), tabla.getDias(tramo));
+			assertEquals(nivel, tabla.getNivel(tramo));
+		}
+	}
+
+	@Test
+	public void categoriaEsElPrefijoMasLargoDelCodigoTest() {
+
+		TablaTarifas tabla = new TablaTarifasBuilder()
+				.conTramo("", 0, 0.1, 100)
+				.conTramo("C", 0, 0.15, 120)
+				.conTramo("C", 1000000, 0.25, 365)
+				.conTramo("CEL", 0, 0.3, 90)
+				.conTramo("TV", 0, 0.05, 30)
+				.conTramo("TV", 200000, 0.08, 60)
+				.conTramo("TV", 800000, 0.12, 180)
+				.build();
+
+		assertEquals(4, tabla.getCantidadCategorias());
+		assertEquals(7, tabla.getCantidadTramos());
+
+		assertEquals(120, tabla.getDias(tabla.buscarTramo("COMP01", 500000)));
+		assertEquals(365, tabla.getDias(tabla.buscarTramo("COMP01", 1000001)));
+		assertEquals(90, tabla.getDias(tabla.buscarTramo("CEL001", 5000000)));
+		assertEquals(120, tabla.getDias(tabla.buscarTramo("CE", 10)));
+		assertEquals(30, tabla.getDias(tabla.buscarTramo("TV55", 200000)));
+		assertEquals(60, tabla.getDias(tabla.buscarTramo("TV55", 200000.5)));
+		assertEquals(180, tabla.getDias(tabla.buscarTramo("TV55", 900000)));
+		assertEquals(100, tabla.getDias(tabla.buscarTramo("T", 900000)));
+		assertEquals(100, tabla.getDias(tabla.buscarTramo("", 1)));
+		assertEquals(100, tabla.getDias(tabla.buscarTramo(null, 1)));
+	}
+
+	@Test
+	public void tarifasSinCategoriaGeneralSonInvalidasTest() {
+
+		try {
+			new TablaTarifasBuilder().conTramo("TV", 0, 0.1, 10).build();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(TablaTarifasBuilder.FALTA_CATEGORIA_GENERAL, e.getMessage());
+		}
+		try {
+			new TablaTarifasBuilder().conTramo("", 0, 0.1, 10).conTramo("", 0, 0.2, 20);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith(TablaTarifasBuilder.TRAMO_REPETIDO));
+		}
+	}
+
+	@Test
+	public void vendedorCalculaLaGarantiaConLaTablaVigenteTest() {
+
+		Producto producto = new ProductoTestDataBuilder().conCodigo("TV55X").conPrecio(780000).build();
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class);
+		RepositorioGarantiaExtendida repositorioGarantia = mock(RepositorioGarantiaExtendida.class);
+		when(repositorioGarantia.obtenerEstadoGarantia(producto.getCodigo()))
+				.thenReturn(EstadoGarantiaProducto.de(producto, false));
+
+		MotorTarifas motor = new MotorTarifas();
+		Vendedor vendedor = new Vendedor(repositorioProducto, repositorioGarantia, null, motor);
+
+		vendedor.generarGarantia(producto.getCodigo(), "Juan");
+		TablaTarifas anterior = motor.recargar(new TablaTarifasBuilder()
+				.conTramo("", 0, 0.1, 100)
+				.conTramo("TV", 0, 0.05, 30)
+				.build());
+		vendedor.generarGarantia(producto.getCodigo(), "Ana");
+
+		ArgumentCaptor<GarantiaExtendida> garantias = ArgumentCaptor.forClass(GarantiaExtendida.class);
+		verify(repositorioGarantia, times(2)).agregar(garantias.capture());
+		assertEquals(780000 * 0.2, garantias.getAllValues().get(0).getPrecioGarantia(), DELTA);
+		assertEquals(780000 * 0.05, garantias.getAllValues().get(1).getPrecioGarantia(), DELTA);
+		assertEquals(NivelGarantia.SUPERIOR, garantias.getAllValues().get(0).getNivel());
+		assertEquals(NivelGarantia.BASICA, garantias.getAllValues().get(1).getNivel());
+		assertNotNull(anterior);
+	}
+
+	@Test
+	public void recargaReemplazaLaTablaSoloSiElArchivoEsValidoTest() throws IOException {
+
+		Path archivo = carpeta.getRoot().toPath().resolve("tarifas.txt");
+		escribir(archivo, 1000, "# prefijo;precio desde;porcentaje;dias", ";0;0.1;100", "TV;0;0.05;30");
+
+		MotorTarifas motor = new MotorTarifas();
+		RecargaTarifas recarga = new RecargaTarifas(archivo, motor);
+
+		assertTrue(recarga.revisar());
+		TablaTarifas cargada = motor.obtenerTabla();
+		assertEquals(30, cargada.getDias(cargada.buscarTramo("TV1", 10)));
+		assertFalse(recarga.revisar());
+
+		escribir(archivo, 2000, "TV;0;0.05;30");
+		assertFalse(recarga.revisar());
+		assertNotNull(recarga.getUltimoError());
+		assertSame(cargada, motor.obtenerTabla());
+
+		escribir(archivo, 3000, ";0;0.1;100", "TV;0;0.07;45;SUPERIOR");
+		assertTrue(recarga.revisar());
+		TablaTarifas nueva = motor.obtenerTabla();
+		assertEquals(45, nueva.getDias(nueva.buscarTramo("TV1", 10)));
+		assertEquals(NivelGarantia.SUPERIOR, nueva.getNivel(nueva.buscarTramo("TV1", 10)));
+		assertEquals(NivelGarantia.BASICA, nueva.getNivel(nueva.buscarTramo("C1", 10)));
+		assertEquals(null, recarga.getUltimoError());
+	}
+
+	@Test(expected = IOException.class)
+	public void archivoConLineaIncompletaEsInvalidoTest() throws IOException {
+
+		Path archivo = carpeta.getRoot().toPath().resolve("tarifas.txt");
+		escribir(archivo, 1000, ";0;0.1");
+		ArchivoTarifas.cargar(archivo);
+	}
+
+	private static void escribir(Path archivo, long modificacion, String... lineas) throws IOException {
+		Files.write(archivo, Arrays.asList(lineas), StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(archivo, FileTime.fromMillis(modificacion));
+	}
+}
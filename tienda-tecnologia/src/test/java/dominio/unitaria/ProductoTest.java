@@ -1,6 +1,8 @@
 package dominio.unitaria;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -31,4 +33,30 @@ public class ProductoTest {
 		assertEquals(PRECIO, producto.getPrecio(),0);
 	}
 
+	@Test
+	public void cantidadVocalesSeCalculaAlCrearProductoTest() {
+
+		// arrange
+		ProductoTestDataBuilder productoTestDataBuilder = new ProductoTestDataBuilder().conCodigo("s01H1AtEI");
+
+		// act
+		Producto producto = productoTestDataBuilder.build();
+
+		// assert
+		assertEquals(3, producto.getCantidadVocales());
+		assertTrue(producto.tieneTresVocales());
+		assertFalse(new ProductoTestDataBuilder().conCodigo(CODIGO).build().tieneTresVocales());
+	}
+
+	@Test
+	public void crearProductoSinCodigoTest() {
+
+		// act
+		Producto producto = new ProductoTestDataBuilder().conCodigo(null).build();
+
+		// assert
+		assertEquals(0, producto.getCantidadVocales());
+		assertFalse(producto.tieneTresVocales());
+	}
+
 }
@@ -0,0 +1,69 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.Vendedor;
+import dominio.VencimientoGarantia;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class AvisoVencimientosTest {
+
+	private final List<VencimientoGarantia> avisos = new CopyOnWriteArrayList<>();
+	private final CountDownLatch avisado = new CountDownLatch(1);
+
+	private SistemaDePersistencia sistemaPersistencia;
+
+	@Before
+	public void setUp() {
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia()
+				.conAvisoVencimientos(365, TimeUnit.DAYS, vencimiento -> {
+					avisos.add(vencimiento);
+					avisado.countDown();
+				}));
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void avisarGarantiaGeneradaTest() throws InterruptedException {
+
+		// arrange
+		Vendedor vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+				sistemaPersistencia.obtenerRepositorioGarantia());
+
+		// act
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			vendedor.crearProducto(new ProductoTestDataBuilder().build());
+			vendedor.generarGarantia("F01TSA0150", "Leo");
+			return null;
+		});
+
+		// assert
+		assertTrue(avisado.await(5, TimeUnit.SECONDS));
+		assertEquals("F01TSA0150", avisos.get(0).getCodigo());
+		assertEquals("Leo", avisos.get(0).getNombreCliente());
+		/**
+		 * El aviso se cuenta despues de entregarlo.
+		 */
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (sistemaPersistencia.obtenerProgramadorVencimientos().getAvisos() == 0 && System.nanoTime() < limite) {
+			Thread.sleep(1);
+		}
+		assertEquals(1, sistemaPersistencia.obtenerProgramadorVencimientos().getAvisos());
+	}
+}
@@ -0,0 +1,141 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.Flyway;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dominio.NivelGarantia;
+import dominio.Producto;
+import dominio.Vendedor;
+import persistencia.conexion.BaseDeDatosArchivo;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class BaseDeDatosArchivoTest {
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	private String ruta;
+
+	@Before
+	public void setUp() throws IOException {
+		ruta = carpeta.newFolder().getAbsolutePath() + "/tienda";
+	}
+
+	@Test
+	public void losDatosSobrevivenAlReinicioTest() {
+
+		// arrange
+		SistemaDePersistencia sistemaPersistencia = abrir();
+		Vendedor vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+				sistemaPersistencia.obtenerRepositorioGarantia());
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			vendedor.crearProducto(new ProductoTestDataBuilder().build());
+			vendedor.generarGarantia("F01TSA0150", "Leo");
+			return null;
+		});
+		sistemaPersistencia.cerrar();
+
+		// act
+		SistemaDePersistencia reiniciado = abrir();
+		Producto producto = reiniciado.ejecutarEnTransaccion(
+				() -> reiniciado.obtenerRepositorioProductos().obtenerPorCodigo("F01TSA0150"));
+		boolean tieneGarantia = reiniciado.ejecutarEnTransaccion(
+				() -> reiniciado.obtenerRepositorioGarantia().obtenerEstadoGarantia("F01TSA0150").isTieneGarantia());
+		reiniciado.cerrar();
+
+		// assert
+		assertNotNull(producto);
+		assertTrue(tieneGarantia);
+	}
+
+	@Test
+	public void lasMigracionesSeAplicanUnaVezTest() {
+
+		// arrange
+		BaseDeDatosArchivo baseDeDatos = new BaseDeDatosArchivo(ruta);
+
+		// act
+		int primeraVez = baseDeDatos.migrar();
+		int segundaVez = baseDeDatos.migrar();
+
+		// assert
+		assertEquals(4, primeraVez);
+		assertEquals(0, segundaVez);
+	}
+
+	@Test
+	public void abrirDespuesDeUnCierreAbruptoTest() throws SQLException {
+
+		// arrange
+		abrir().cerrar();
+		Connection conexion = DriverManager.getConnection(new BaseDeDatosArchivo(ruta).getUrl());
+		Statement sentencia = conexion.createStatement();
+		sentencia.execute("INSERT INTO Producto (id, codigo, nombre, precio, cantidadVocales) VALUES (1000, 'C1', 'Producto', 1000, 0)");
+		sentencia.execute("CHECKPOINT");
+
+		/**
+		 * Cierra el archivo sin compactarlo ni cerrar las conexiones, como una caida del proceso.
+		 */
+		sentencia.execute("SHUTDOWN IMMEDIATELY");
+
+		// act
+		SistemaDePersistencia sistemaPersistencia = abrir();
+		Producto producto = sistemaPersistencia.ejecutarEnTransaccion(
+				() -> sistemaPersistencia.obtenerRepositorioProductos().obtenerPorCodigo("C1"));
+		sistemaPersistencia.cerrar();
+
+		// assert
+		assertEquals("C1", producto.getCodigo());
+	}
+
+	@Test
+	public void garantiasAnterioresAlNivelTomanElDeLasTarifasPorDefectoTest() throws SQLException {
+
+		// arrange
+		String url = new BaseDeDatosArchivo(ruta).getUrl();
+		Flyway flyway = new Flyway();
+		flyway.setDataSource(url, "", "");
+		flyway.setLocations("classpath:db/migracion");
+		flyway.setTargetAsString("3");
+		flyway.migrate();
+		try (Connection conexion = DriverManager.getConnection(url); Statement sentencia = conexion.createStatement()) {
+			sentencia.execute("INSERT INTO Producto (id, codigo, nombre, precio, cantidadVocales) VALUES (1, 'B1', 'Mouse', 1000, 0)");
+			sentencia.execute("INSERT INTO Producto (id, codigo, nombre, precio, cantidadVocales) VALUES (2, 'S1', 'Tv', 800000, 0)");
+			sentencia.execute("INSERT INTO GarantiaExtendida (id, precio, ID_PRODUCTO) VALUES (1, 100, 1)");
+			sentencia.execute("INSERT INTO GarantiaExtendida (id, precio, ID_PRODUCTO) VALUES (2, 160000, 2)");
+		}
+
+		// act
+		int aplicadas = new BaseDeDatosArchivo(ruta).migrar();
+
+		// assert
+		assertEquals(1, aplicadas);
+		try (Connection conexion = DriverManager.getConnection(url); Statement sentencia = conexion.createStatement();
+				ResultSet niveles = sentencia.executeQuery("SELECT nivel FROM GarantiaExtendida ORDER BY id")) {
+			assertTrue(niveles.next());
+			assertEquals(NivelGarantia.BASICA.name(), niveles.getString(1));
+			assertTrue(niveles.next());
+			assertEquals(NivelGarantia.SUPERIOR.name(), niveles.getString(1));
+		}
+	}
+
+	private SistemaDePersistencia abrir() {
+		return new SistemaDePersistencia(new ConfiguracionPersistencia().conBaseDeDatosArchivo(ruta));
+	}
+}
@@ -0,0 +1,100 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.Producto;
+import persistencia.conexion.CacheSegundoNivel;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.EstadisticaRegionCache;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class CacheSegundoNivelTest {
+
+	private SistemaDePersistencia sistemaPersistencia;
+
+	@Before
+	public void setUp() {
+
+		/**
+		 * En modo concurrente cada transaccion usa un EntityManager nuevo, asi las lecturas repetidas
+		 * solo pueden evitar la base de datos con la cache de segundo nivel.
+		 */
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia()
+				.conModoConcurrente()
+				.conCacheSegundoNivel());
+
+		Producto producto = new ProductoTestDataBuilder().build();
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			sistemaPersistencia.obtenerRepositorioProductos().agregar(producto);
+			return null;
+		});
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void obtenerPorCodigoUsaLaCacheTest() {
+
+		// act
+		for (int i = 0; i < 3; i++) {
+			Producto producto = sistemaPersistencia.ejecutarEnTransaccion(
+					() -> sistemaPersistencia.obtenerRepositorioProductos().obtenerPorCodigo("F01TSA0150"));
+			assertEquals("F01TSA0150", producto.getCodigo());
+		}
+
+		// assert
+		EstadisticaRegionCache productos = obtenerRegion(CacheSegundoNivel.REGION_PRODUCTOS);
+		assertEquals(1, productos.getEscrituras());
+		assertTrue(productos.getAciertos() >= 3);
+		assertEquals(0, productos.getFallos());
+	}
+
+	@Test
+	public void obtenerPorCodigosUsaLaRegionDeConsultasTest() {
+
+		// act
+		for (int i = 0; i < 3; i++) {
+			int encontrados = sistemaPersistencia.ejecutarEnTransaccion(() -> sistemaPersistencia
+					.obtenerRepositorioProductos().obtenerPorCodigos(Arrays.asList("F01TSA0150", "NO-EXISTE")).size());
+			assertEquals(1, encontrados);
+		}
+
+		// assert
+		EstadisticaRegionCache consultas = obtenerRegion(CacheSegundoNivel.REGION_CONSULTAS_PRODUCTOS);
+		assertEquals(1, consultas.getFallos());
+		assertEquals(1, consultas.getEscrituras());
+		assertEquals(2, consultas.getAciertos());
+	}
+
+	@Test
+	public void sinCacheSegundoNivelNoHayEstadisticasTest() {
+
+		// arrange
+		SistemaDePersistencia sinCache = new SistemaDePersistencia();
+
+		// act - assert
+		assertTrue(sinCache.obtenerEstadisticasCache().isEmpty());
+		sinCache.cerrar();
+	}
+
+	private EstadisticaRegionCache obtenerRegion(String region) {
+
+		for (EstadisticaRegionCache estadistica : sistemaPersistencia.obtenerEstadisticasCache()) {
+			if (estadistica.getRegion().equals(region)) {
+				return estadistica;
+			}
+		}
+		throw new AssertionError(region);
+	}
+}
@@ -0,0 +1,127 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Test;
+
+import persistencia.conexion.ConexionJPA;
+import persistencia.conexion.TiemposArranque;
+import persistencia.sistema.SistemaDePersistencia;
+
+public class ConexionJPATest {
+
+	@After
+	public void tearDown() {
+		ConexionJPA.cerrarTodas();
+	}
+
+	@Test
+	public void laFabricaSeCreaAlPrimerUsoTest() {
+
+		// arrange
+		ConexionJPA conexion = new ConexionJPA();
+
+		// act
+		boolean iniciadaAlCrear = conexion.estaIniciada();
+		conexion.createEntityManager().close();
+
+		// assert
+		assertFalse(iniciadaAlCrear);
+		assertTrue(conexion.estaIniciada());
+	}
+
+	@Test
+	public void lasConexionesCompartenLaFabricaTest() {
+
+		// act
+		EntityManager primero = new ConexionJPA().createEntityManager();
+		EntityManager segundo = new ConexionJPA().createEntityManager();
+
+		// assert
+		assertSame(primero.getEntityManagerFactory(), segundo.getEntityManagerFactory());
+		primero.close();
+		segundo.close();
+	}
+
+	@Test
+	public void cerrarPermiteCrearUnaFabricaNuevaTest() {
+
+		// arrange
+		ConexionJPA conexion = new ConexionJPA();
+		EntityManager anterior = conexion.createEntityManager();
+		EntityManagerFactory fabricaAnterior = anterior.getEntityManagerFactory();
+		anterior.close();
+
+		// act
+		conexion.cerrar();
+		boolean iniciadaDespuesDeCerrar = conexion.estaIniciada();
+		EntityManager nuevo = conexion.createEntityManager();
+
+		// assert
+		assertFalse(iniciadaDespuesDeCerrar);
+		assertFalse(fabricaAnterior.isOpen());
+		assertNotSame(fabricaAnterior, nuevo.getEntityManagerFactory());
+		nuevo.close();
+	}
+
+	@Test
+	public void cerrarUnaConexionNoCierraLaFabricaDeLasDemasTest() {
+
+		// arrange
+		ConexionJPA primera = new ConexionJPA();
+		ConexionJPA segunda = new ConexionJPA();
+		EntityManager enUso = segunda.createEntityManager();
+		primera.createEntityManager().close();
+
+		// act
+		primera.cerrar();
+		primera.cerrar();
+
+		// assert
+		assertTrue(enUso.getEntityManagerFactory().isOpen());
+		assertTrue(segunda.estaIniciada());
+		enUso.createQuery("select producto from Producto producto").getResultList();
+		enUso.close();
+		segunda.cerrar();
+		assertFalse(segunda.estaIniciada());
+	}
+
+	@Test
+	public void sistemaCerradoNoCierraOtroSistemaConLaMismaConfiguracionTest() {
+
+		// arrange
+		SistemaDePersistencia primero = new SistemaDePersistencia();
+		SistemaDePersistencia segundo = new SistemaDePersistencia();
+
+		// act
+		primero.cerrar();
+
+		// assert
+		assertEquals(Collections.emptySet(), segundo.ejecutarEnTransaccion(() -> segundo.obtenerRepositorioGarantia()
+				.obtenerCodigosConGarantia(Collections.singleton("SIN-GARANTIA"))));
+		segundo.cerrar();
+	}
+
+	@Test
+	public void tiemposDeCadaFaseDelArranqueTest() {
+
+		// act
+		TiemposArranque tiempos = new ConexionJPA().obtenerTiemposArranque();
+
+		// assert
+		assertEquals(Arrays.asList(TiemposArranque.DESCRIPTOR, TiemposArranque.METADATOS, TiemposArranque.FABRICA,
+				TiemposArranque.CACHE), Arrays.asList(tiempos.getFases().keySet().toArray()));
+		assertTrue(tiempos.getTotalMilisegundos() > 0);
+	}
+}
@@ -0,0 +1,193 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import dominio.Producto;
+import dominio.VencimientoGarantia;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+/**
+ * Comportamiento que deben cumplir todas las implementaciones de los repositorios. Cada implementacion
+ * extiende esta clase con la configuracion que la selecciona.
+ */
+public abstract class ContratoRepositorios {
+
+	private static final String NOMBRE_CLIENTE = "Leo";
+
+	private SistemaDePersistencia sistemaPersistencia;
+
+	protected RepositorioProducto repositorioProducto;
+	protected RepositorioGarantiaExtendida repositorioGarantia;
+
+	protected abstract ConfiguracionPersistencia configuracion();
+
+	@Before
+	public void setUp() {
+
+		sistemaPersistencia = new SistemaDePersistencia(configuracion());
+
+		repositorioProducto = sistemaPersistencia.obtenerRepositorioProductos();
+		repositorioGarantia = sistemaPersistencia.obtenerRepositorioGarantia();
+
+		sistemaPersistencia.iniciar();
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.terminar();
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void obtenerPorCodigoDevuelveElProductoAgregadoTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().conCodigo("S01H1ATEI").conNombre("Impresora").conPrecio(250000).build();
+
+		// act
+		repositorioProducto.agregar(producto);
+		Producto encontrado = repositorioProducto.obtenerPorCodigo("S01H1ATEI");
+
+		// assert
+		assertEquals("S01H1ATEI", encontrado.getCodigo());
+		assertEquals("Impresora", encontrado.getNombre());
+		assertEquals(250000, encontrado.getPrecio(), 0);
+		assertEquals(3, encontrado.getCantidadVocales());
+	}
+
+	@Test
+	public void obtenerPorCodigoInexistenteTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().build());
+
+		// act - assert
+		assertNull(repositorioProducto.obtenerPorCodigo("NO-EXISTE"));
+		assertNull(repositorioGarantia.obtenerProductoConGarantiaPorCodigo("NO-EXISTE"));
+		assertNull(repositorioGarantia.obtener("NO-EXISTE"));
+	}
+
+	@Test
+	public void obtenerPorCodigosDevuelveSoloLosExistentesTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("C1").build());
+		repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("C2").build());
+
+		// act
+		Map<String, Producto> productos = repositorioProducto.obtenerPorCodigos(Arrays.asList("C1", "C2", "C3"));
+
+		// assert
+		assertEquals(new HashSet<>(Arrays.asList("C1", "C2")), productos.keySet());
+		assertEquals("C2", productos.get("C2").getCodigo());
+	}
+
+	@Test
+	public void validarTresVocalesTest() {
+
+		// act - assert
+		assertTrue(repositorioProducto.validarTresVocales("S01H1ATEI"));
+		assertFalse(repositorioProducto.validarTresVocales("F01TSA0150"));
+	}
+
+	@Test
+	public void productoSinGarantiaTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().build());
+
+		// act - assert
+		assertNull(repositorioGarantia.obtenerProductoConGarantiaPorCodigo("F01TSA0150"));
+		assertTrue(repositorioGarantia.obtenerCodigosConGarantia(Collections.singletonList("F01TSA0150")).isEmpty());
+	}
+
+	@Test
+	public void obtenerDevuelveLaGarantiaAgregadaTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().build();
+		repositorioProducto.agregar(producto);
+		Date fechaSolicitud = new Date(1546300800000L);
+		Date fechaFin = new Date(1563580800000L);
+
+		// act
+		repositorioGarantia.agregar(new GarantiaExtendida(producto, fechaSolicitud, fechaFin, 156000, NOMBRE_CLIENTE,
+				NivelGarantia.BASICA));
+		GarantiaExtendida garantia = repositorioGarantia.obtener(producto.getCodigo());
+
+		// assert
+		assertEquals(producto.getCodigo(), repositorioGarantia.obtenerProductoConGarantiaPorCodigo(producto.getCodigo()).getCodigo());
+		assertEquals(producto.getCodigo(), garantia.getProducto().getCodigo());
+		assertEquals(fechaSolicitud.getTime(), garantia.getFechaSolicitudGarantia().getTime());
+		assertEquals(fechaFin.getTime(), garantia.getFechaFinGarantia().getTime());
+		assertEquals(156000, garantia.getPrecioGarantia(), 0);
+		assertEquals(NOMBRE_CLIENTE, garantia.getNombreCliente());
+		assertEquals(NivelGarantia.BASICA, garantia.getNivel());
+	}
+
+	@Test
+	public void agregarTodasYObtenerCodigosConGarantiaTest() {
+
+		// arrange
+		Producto primero = new ProductoTestDataBuilder().conCodigo("G1").build();
+		Producto segundo = new ProductoTestDataBuilder().conCodigo("G2").build();
+		repositorioProducto.agregar(primero);
+		repositorioProducto.agregar(segundo);
+		repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("G3").build());
+
+		// act
+		repositorioGarantia.agregarTodas(Arrays.asList(
+				new GarantiaExtendida(primero, new Date(), new Date(), 1000, NOMBRE_CLIENTE),
+				new GarantiaExtendida(segundo, new Date(), new Date(), 1000, NOMBRE_CLIENTE)));
+
+		// assert
+		assertEquals(new HashSet<>(Arrays.asList("G1", "G2")),
+				repositorioGarantia.obtenerCodigosConGarantia(Arrays.asList("G1", "G2", "G3", "G4")));
+		assertNull(repositorioGarantia.obtenerProductoConGarantiaPorCodigo("G3"));
+	}
+
+	@Test
+	public void obtenerVencimientosPorRangoTest() {
+
+		// arrange
+		long dia = 86400000L;
+		long inicio = 1546300800000L;
+		for (int i = 0; i < 5; i++) {
+			Producto producto = new ProductoTestDataBuilder().conCodigo("V" + i).build();
+			repositorioProducto.agregar(producto);
+			repositorioGarantia.agregar(new GarantiaExtendida(producto, new Date(inicio), new Date(inicio + (5 - i) * dia),
+					1000, NOMBRE_CLIENTE + i));
+		}
+
+		// act
+		List<VencimientoGarantia> vencimientos = repositorioGarantia.obtenerVencimientos(new Date(inicio + 2 * dia),
+				new Date(inicio + 5 * dia));
+
+		// assert
+		assertEquals(3, vencimientos.size());
+		assertEquals("V3", vencimientos.get(0).getCodigo());
+		assertEquals(NOMBRE_CLIENTE + 3, vencimientos.get(0).getNombreCliente());
+		assertEquals(inicio + 2 * dia, vencimientos.get(0).getFechaFinGarantia().getTime());
+		assertEquals("V1", vencimientos.get(2).getCodigo());
+	}
+}
@@ -0,0 +1,117 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dominio.GarantiaExtendida;
+import dominio.Vendedor;
+import dominio.excepcion.GarantiaExtendidaException;
+import persistencia.conexion.ConexionJPA;
+import persistencia.entitad.GarantiaExtendidaEntity;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class EscrituraDiferidaTest {
+
+	private static final String CODIGO = "F01TSA0150";
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	private SistemaDePersistencia sistemaPersistencia;
+	private Vendedor vendedor;
+
+	@Before
+	public void setUp() {
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia()
+				.conEscrituraDiferida(carpeta.getRoot().toPath().resolve("garantias.diario").toString(), 100, 50,
+						20, TimeUnit.MILLISECONDS)
+				.conFiltroGarantias(1000, 0.01));
+		vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+				sistemaPersistencia.obtenerRepositorioGarantia());
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			vendedor.crearProducto(new ProductoTestDataBuilder().build());
+			vendedor.crearProducto(new ProductoTestDataBuilder().conCodigo("S01H1BTS").build());
+			return null;
+		});
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void garantiaAceptadaSeVeAntesYDespuesDeEscribirseTest() throws InterruptedException {
+
+		// act
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			vendedor.generarGarantia(CODIGO, "Leo");
+			return null;
+		});
+
+		// assert
+		assertTrue(vendedor.tieneGarantia(CODIGO));
+		try {
+			sistemaPersistencia.ejecutarEnTransaccion(() -> {
+				vendedor.generarGarantia(CODIGO, "Ana");
+				return null;
+			});
+		} catch (GarantiaExtendidaException e) {
+			assertEquals(Vendedor.EL_PRODUCTO_TIENE_GARANTIA, e.getMessage());
+		}
+
+		assertTrue(sistemaPersistencia.obtenerEscritorGarantias().esperarEscritura(5, TimeUnit.SECONDS));
+		assertEquals(0, sistemaPersistencia.obtenerEscritorGarantias().getErrores());
+		assertEquals("Leo", leerDeLaBaseDeDatos(CODIGO).getNombreCliente());
+		GarantiaExtendida garantia = sistemaPersistencia.ejecutarEnTransaccion(
+				() -> sistemaPersistencia.obtenerRepositorioGarantia().obtener(CODIGO));
+		assertEquals("Leo", garantia.getNombreCliente());
+	}
+
+	@Test
+	public void loteRepetidoNoDuplicaGarantiasTest() throws InterruptedException {
+
+		// act
+		sistemaPersistencia.obtenerRepositorioGarantia().agregarTodas(Arrays.asList(
+				new GarantiaExtendida(new ProductoTestDataBuilder().conCodigo("S01H1BTS").build(), new Date(),
+						new Date(), 10, "Uno")));
+		assertTrue(sistemaPersistencia.obtenerEscritorGarantias().esperarEscritura(5, TimeUnit.SECONDS));
+		sistemaPersistencia.obtenerEscritorGarantias().agregar(
+				new GarantiaExtendida(new ProductoTestDataBuilder().conCodigo("S01H1BTS").build(), new Date(),
+						new Date(), 10, "Dos"));
+		assertTrue(sistemaPersistencia.obtenerEscritorGarantias().esperarEscritura(5, TimeUnit.SECONDS));
+
+		// assert
+		assertEquals(0, sistemaPersistencia.obtenerEscritorGarantias().getErrores());
+		assertEquals("Uno", leerDeLaBaseDeDatos("S01H1BTS").getNombreCliente());
+		assertNull(leerDeLaBaseDeDatos("NO-EXISTE"));
+	}
+
+	private GarantiaExtendidaEntity leerDeLaBaseDeDatos(String codigo) {
+		ConexionJPA conexion = new ConexionJPA();
+		EntityManager entityManager = conexion.createEntityManager();
+		try {
+			return entityManager.createQuery("select garantia from GarantiaExtendida garantia "
+					+ "where garantia.producto.codigo = :codigo", GarantiaExtendidaEntity.class)
+					.setParameter("codigo", codigo).getResultList().stream().findFirst().orElse(null);
+		} finally {
+			entityManager.close();
+			conexion.cerrar();
+		}
+	}
+}
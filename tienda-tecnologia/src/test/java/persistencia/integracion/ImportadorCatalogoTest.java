@@ -0,0 +1,259 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.Producto;
+import dominio.Vendedor;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.importacion.FilaRechazada;
+import persistencia.importacion.FormatoCatalogo;
+import persistencia.importacion.ImportadorCatalogo;
+import persistencia.importacion.ResultadoImportacion;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class ImportadorCatalogoTest {
+
+	private SistemaDePersistencia sistemaPersistencia;
+	private RepositorioProducto repositorioProducto;
+
+	@Before
+	public void setUp() {
+		sistemaPersistencia = new SistemaDePersistencia();
+		repositorioProducto = sistemaPersistencia.obtenerRepositorioProductos();
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void importarCsvTest() throws IOException {
+
+		// arrange
+		String catalogo = "precio,codigo,nombre\n"
+				+ "1000,A01,Mouse\n"
+				+ "\n"
+				+ "2500.5,A02,\"Teclado, inalambrico\"\n"
+				+ "3000,A03,\"Monitor \"\"24\"\"\n de escritorio\"\n";
+
+		// act
+		ResultadoImportacion resultado = importar(catalogo, FormatoCatalogo.CSV);
+
+		// assert
+		assertEquals(3, resultado.getProductosImportados());
+		assertEquals(0, resultado.getFilasRechazadas());
+		Producto teclado = obtener("A02");
+		assertEquals("Teclado, inalambrico", teclado.getNombre());
+		assertEquals(2500.5, teclado.getPrecio(), 0);
+		assertEquals(1, teclado.getCantidadVocales());
+		assertEquals("Monitor \"24\"\n de escritorio", obtener("A03").getNombre());
+	}
+
+	@Test
+	public void importarCsvSinEncabezadoTest() throws IOException {
+
+		// arrange
+		String catalogo = "A01,Mouse,1000\nA02,Teclado,2000\n";
+
+		// act
+		ResultadoImportacion resultado = importar(catalogo, FormatoCatalogo.CSV);
+
+		// assert
+		assertEquals(2, resultado.getProductosImportados());
+		assertEquals(1000, obtener("A01").getPrecio(), 0);
+	}
+
+	@Test
+	public void importarJsonlTest() throws IOException {
+
+		// arrange
+		String catalogo = "{\"codigo\": \"A01\", \"nombre\": \"Mouse\", \"precio\": 1000, \"marca\": \"X\"}\n"
+				+ "{\"precio\": \"2500.5\", \"nombre\": \"Tecl\\u00e1do \\\"pro\\\"\", \"codigo\": \"A02\"}\n";
+
+		// act
+		ResultadoImportacion resultado = importar(catalogo, FormatoCatalogo.JSONL);
+
+		// assert
+		assertEquals(2, resultado.getProductosImportados());
+		Producto teclado = obtener("A02");
+		assertEquals("Tecl\u00e1do \"pro\"", teclado.getNombre());
+		assertEquals(2500.5, teclado.getPrecio(), 0);
+	}
+
+	@Test
+	public void rechazarFilasInvalidasTest() throws IOException {
+
+		// arrange
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("A05").build());
+			return null;
+		});
+		String catalogo = "codigo,nombre,precio\n"
+				+ "A01,Mouse,1000\n"
+				+ "A02,Teclado,caro\n"
+				+ ",Monitor,1000\n"
+				+ "A03,Parlante\n"
+				+ "A01,Mouse repetido,1000\n"
+				+ "A04,Camara,-5\n"
+				+ "A05,Ya existe,1000\n";
+
+		// act
+		ResultadoImportacion resultado = importar(catalogo, FormatoCatalogo.CSV);
+
+		// assert
+		assertEquals(1, resultado.getProductosImportados());
+		assertEquals(6, resultado.getFilasRechazadas());
+		List<Integer> lineas = new ArrayList<>();
+		for (FilaRechazada fila : resultado.getDiagnosticos()) {
+			lineas.add(fila.getLinea());
+		}
+		assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8), lineas);
+		assertEquals(ImportadorCatalogo.CODIGO_REPETIDO + 2, resultado.getDiagnosticos().get(3).getMotivo());
+		assertEquals(ImportadorCatalogo.EL_PRODUCTO_YA_EXISTE + "A05", resultado.getDiagnosticos().get(5).getMotivo());
+		assertNull(obtener("A02"));
+		assertEquals("Mouse", obtener("A01").getNombre());
+	}
+
+	@Test
+	public void rechazarJsonInvalidoTest() throws IOException {
+
+		// arrange
+		String catalogo = "{\"codigo\": \"A01\", \"nombre\": \"Mouse\", \"precio\": 1000}\n"
+				+ "{\"codigo\": \"A02\", \"nombre\": \"Teclado\"\n"
+				+ "{\"codigo\": \"A03\", \"nombre\": {\"corto\": \"Monitor\"}, \"precio\": 1000}\n"
+				+ "{\"codigo\": \"A04\", \"nombre\": \"Camara\", \"precio\": null}\n";
+
+		// act
+		ResultadoImportacion resultado = importar(catalogo, FormatoCatalogo.JSONL);
+
+		// assert
+		assertEquals(1, resultado.getProductosImportados());
+		assertEquals(3, resultado.getFilasRechazadas());
+		assertEquals(ImportadorCatalogo.FALTA_EL_PRECIO, resultado.getDiagnosticos().get(2).getMotivo());
+	}
+
+	@Test
+	public void limitarDiagnosticosTest() throws IOException {
+
+		// arrange
+		StringBuilder catalogo = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			catalogo.append("A").append(i).append(",Producto,gratis\n");
+		}
+
+		// act
+		ResultadoImportacion resultado = sistemaPersistencia.crearImportadorCatalogo().conMaximoDiagnosticos(10)
+				.importar(new StringReader(catalogo.toString()), FormatoCatalogo.CSV);
+
+		// assert
+		assertEquals(50, resultado.getFilasRechazadas());
+		assertEquals(10, resultado.getDiagnosticos().size());
+	}
+
+	@Test
+	public void importarPorLotesTest() throws IOException {
+
+		// arrange
+		int productos = 20000;
+		List<Long> avance = new ArrayList<>();
+		ImportadorCatalogo importador = sistemaPersistencia.crearImportadorCatalogo().conTamanoLote(500)
+				.conProgreso(resultado -> avance.add(resultado.getProductosImportados()));
+
+		// act
+		ResultadoImportacion resultado = importador.importar(new CatalogoGenerado(productos), FormatoCatalogo.CSV);
+
+		// assert
+		assertEquals(productos, resultado.getProductosImportados());
+		assertEquals(40, resultado.getLotes());
+		assertEquals(40, avance.size());
+		assertEquals(500L, (long) avance.get(0));
+		assertTrue(resultado.getFilasPorSegundo() > 0);
+		assertTrue(resultado.getMemoriaMaximaBytes() > 0);
+		assertNotNull(obtener("P" + (productos - 1)));
+	}
+
+	@Test
+	public void productosImportadosSeUsanEnGarantiasTest() throws IOException {
+
+		// arrange
+		importar("F01TSA0150,Computador Lenovo,780000\n", FormatoCatalogo.CSV);
+
+		// act
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			new Vendedor(repositorioProducto, sistemaPersistencia.obtenerRepositorioGarantia())
+					.generarGarantia("F01TSA0150", "Leo");
+			return null;
+		});
+
+		// assert
+		assertTrue(sistemaPersistencia.ejecutarEnTransaccion(() -> sistemaPersistencia.obtenerRepositorioGarantia()
+				.obtenerEstadoGarantia("F01TSA0150").isTieneGarantia()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void importarSinBaseDeDatosTest() {
+
+		// act
+		new SistemaDePersistencia(new ConfiguracionPersistencia().conRepositoriosEnMemoria()).crearImportadorCatalogo();
+	}
+
+	private ResultadoImportacion importar(String catalogo, FormatoCatalogo formato) throws IOException {
+		return sistemaPersistencia.crearImportadorCatalogo().importar(new StringReader(catalogo), formato);
+	}
+
+	private Producto obtener(String codigo) {
+		return sistemaPersistencia.ejecutarEnTransaccion(() -> repositorioProducto.obtenerPorCodigo(codigo));
+	}
+
+	/**
+	 * Catalogo CSV que se genera a medida que se lee, sin ocupar memoria.
+	 */
+	private static final class CatalogoGenerado extends Reader {
+
+		private final int productos;
+		private int siguiente;
+		private String fila = "";
+		private int posicion;
+
+		CatalogoGenerado(int productos) {
+			this.productos = productos;
+		}
+
+		@Override
+		public int read(char[] destino, int desde, int cantidad) {
+			if (posicion == fila.length()) {
+				if (siguiente == productos) {
+					return -1;
+				}
+				fila = "P" + siguiente + ",Producto " + siguiente + ",100000\n";
+				siguiente++;
+				posicion = 0;
+			}
+			int copiados = Math.min(cantidad, fila.length() - posicion);
+			fila.getChars(posicion, posicion + copiados, destino, desde);
+			posicion += copiados;
+			return copiados;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
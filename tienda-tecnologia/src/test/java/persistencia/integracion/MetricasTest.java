@@ -0,0 +1,108 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.Vendedor;
+import dominio.excepcion.GarantiaExtendidaException;
+import dominio.metrica.EtapaGarantia;
+import persistencia.metrica.RegistroMetricas;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class MetricasTest {
+
+	private SistemaDePersistencia sistemaPersistencia;
+	private Vendedor vendedor;
+
+	@Before
+	public void setUp() {
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia().conMetricas());
+		vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+				sistemaPersistencia.obtenerRepositorioGarantia())
+				.conMetricas(sistemaPersistencia.obtenerMetricasGarantia());
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void latenciaPorEtapaYSentenciasPorOperacionPorJmxTest() throws Exception {
+
+		// arrange
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			vendedor.crearProducto(new ProductoTestDataBuilder().build());
+			return null;
+		});
+
+		// act
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			vendedor.generarGarantia("F01TSA0150", "Leo");
+			return null;
+		});
+		try {
+			sistemaPersistencia.ejecutarEnTransaccion(() -> {
+				vendedor.generarGarantia("F01TSA0150", "Ana");
+				return null;
+			});
+		} catch (GarantiaExtendidaException e) {
+			// la segunda solicitud se rechaza
+		}
+
+		// assert
+		RegistroMetricas registro = sistemaPersistencia.obtenerRegistroMetricas();
+		MBeanServer servidor = registro.getServidor();
+
+		ObjectName total = buscar(registro, "Vendedor", EtapaGarantia.TOTAL.name());
+		assertEquals(2L, servidor.getAttribute(total, "Llamadas"));
+		assertTrue((Double) servidor.getAttribute(total, "LatenciaP99") > 0);
+		assertEquals(1L, servidor.getAttribute(buscar(registro, "Vendedor", "PERSISTENCIA"), "Llamadas"));
+		assertEquals(1L, servidor.getAttribute(buscar(registro, "Vendedor", "CALCULO_FECHA"), "Llamadas"));
+
+		ObjectName estado = buscar(registro, "RepositorioGarantia", "obtenerEstadoGarantia");
+		assertEquals(2L, servidor.getAttribute(estado, "Llamadas"));
+		assertEquals(1.0, (Double) servidor.getAttribute(estado, "SentenciasSqlPorLlamada"), 0);
+
+		ObjectName transaccion = buscar(registro, "Transaccion", "ejecutar");
+		assertEquals(3L, servidor.getAttribute(transaccion, "Llamadas"));
+		assertTrue((Long) servidor.getAttribute(transaccion, "SentenciasSql") >= 4);
+		assertTrue((Long) servidor.getAttribute(buscar(registro, "SentenciasSql", "total"),
+				"SentenciasPreparadas") >= 4);
+	}
+
+	@Test
+	public void cerrarQuitaLosMBeansTest() throws Exception {
+
+		// arrange
+		RegistroMetricas registro = sistemaPersistencia.obtenerRegistroMetricas();
+		ObjectName total = buscar(registro, "Vendedor", EtapaGarantia.TOTAL.name());
+		assertTrue(registro.getServidor().isRegistered(total));
+
+		// act
+		sistemaPersistencia.cerrar();
+
+		// assert
+		assertFalse(registro.getServidor().isRegistered(total));
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia());
+	}
+
+	private static ObjectName buscar(RegistroMetricas registro, String tipo, String nombre) {
+		for (ObjectName nombreObjeto : registro.getRegistrados()) {
+			if (tipo.equals(nombreObjeto.getKeyProperty("tipo")) && nombre.equals(nombreObjeto.getKeyProperty("nombre"))) {
+				return nombreObjeto;
+			}
+		}
+		throw new AssertionError(tipo + "." + nombre);
+	}
+}
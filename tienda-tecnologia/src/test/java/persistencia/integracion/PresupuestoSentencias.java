@@ -0,0 +1,41 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.fail;
+
+import java.util.function.Supplier;
+
+import persistencia.metrica.ContadorSentencias;
+
+/**
+ * Ejecuta una operacion contando las sentencias SQL que prepara el hilo actual y falla si pasan del presupuesto
+ * declarado para la operacion. Solo cuenta si la conexion tiene el contador de sentencias, es decir con
+ * {@link persistencia.sistema.ConfiguracionPersistencia#conMetricas()}. Una operacion que recorre varias filas con
+ * una consulta por fila, N+1, pasa del presupuesto en cuanto la prueba usa mas filas que el presupuesto.
+ */
+public final class PresupuestoSentencias {
+
+	private PresupuestoSentencias() {}
+
+	/**
+	 * @param operacion nombre de la operacion para el mensaje de error
+	 * @param maximo sentencias SQL que puede ejecutar la operacion
+	 * @return el resultado de la operacion
+	 */
+	public static <T> T dentroDe(String operacion, long maximo, Supplier<T> ejecucion) {
+
+		long antes = ContadorSentencias.delHilo();
+		T resultado = ejecucion.get();
+		long sentencias = ContadorSentencias.delHilo() - antes;
+		if (sentencias > maximo) {
+			fail(operacion + " ejecuto " + sentencias + " sentencias SQL, su presupuesto es " + maximo);
+		}
+		return resultado;
+	}
+
+	public static void dentroDe(String operacion, long maximo, Runnable ejecucion) {
+		dentroDe(operacion, maximo, () -> {
+			ejecucion.run();
+			return null;
+		});
+	}
+}
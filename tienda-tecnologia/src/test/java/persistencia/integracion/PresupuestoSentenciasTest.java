@@ -0,0 +1,197 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static persistencia.integracion.PresupuestoSentencias.dentroDe;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.ResultadoGarantia;
+import dominio.SolicitudGarantia;
+import dominio.VencimientoGarantia;
+import dominio.Vendedor;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+/**
+ * Sentencias SQL que puede ejecutar cada operacion del dominio con la base de datos, sin cache de segundo nivel. En
+ * modo concurrente cada transaccion usa un EntityManager nuevo, asi ninguna operacion aprovecha lo que cargo otra.
+ */
+public class PresupuestoSentenciasTest {
+
+	private static final int GARANTIAS = 120;
+	private static final String CODIGO = "PS";
+	private static final String CON_GARANTIA = CODIGO + 1;
+	private static final String SIN_GARANTIA = CODIGO + GARANTIAS;
+
+	private SistemaDePersistencia sistemaPersistencia;
+	private RepositorioProducto repositorioProducto;
+	private RepositorioGarantiaExtendida repositorioGarantia;
+	private Vendedor vendedor;
+
+	@Before
+	public void setUp() {
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia().conModoConcurrente().conMetricas());
+		repositorioProducto = sistemaPersistencia.obtenerRepositorioProductos();
+		repositorioGarantia = sistemaPersistencia.obtenerRepositorioGarantia();
+		vendedor = new Vendedor(repositorioProducto, repositorioGarantia);
+		List<Producto> productos = new ArrayList<>();
+		for (int i = 0; i < GARANTIAS * 2; i++) {
+			productos.add(new ProductoTestDataBuilder().conCodigo(CODIGO + i).conPrecio(1000 + i).build());
+		}
+		transaccion(() -> {
+			for (Producto producto : productos) {
+				repositorioProducto.agregar(producto);
+			}
+		});
+		List<GarantiaExtendida> garantias = new ArrayList<>();
+		for (int i = 0; i < GARANTIAS; i++) {
+			garantias.add(new GarantiaExtendida(productos.get(i), new Date(), new Date(), 100, "Leo"));
+		}
+		transaccion(() -> repositorioGarantia.agregarTodas(garantias));
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void generarGarantiaTest() {
+
+		// act
+		dentroDe("generarGarantia", 2, () -> transaccion(() -> vendedor.generarGarantia(SIN_GARANTIA, "Ana")));
+
+		// assert
+		assertTrue(transaccion(() -> vendedor.tieneGarantia(SIN_GARANTIA)));
+	}
+
+	@Test
+	public void tieneGarantiaNoCargaLaGarantiaTest() {
+
+		// act
+		boolean tieneGarantia = dentroDe("tieneGarantia", 3, () -> transaccion(() -> vendedor.tieneGarantia(CON_GARANTIA)));
+
+		// assert
+		assertTrue(tieneGarantia);
+	}
+
+	@Test
+	public void obtenerProductoConGarantiaPorCodigoTest() {
+
+		// act
+		Producto producto = dentroDe("obtenerProductoConGarantiaPorCodigo", 3,
+				() -> transaccion(() -> repositorioGarantia.obtenerProductoConGarantiaPorCodigo(CON_GARANTIA)));
+		Producto sinGarantia = dentroDe("obtenerProductoConGarantiaPorCodigo", 3,
+				() -> transaccion(() -> repositorioGarantia.obtenerProductoConGarantiaPorCodigo(SIN_GARANTIA)));
+
+		// assert
+		assertEquals(CON_GARANTIA, producto.getCodigo());
+		assertNull(sinGarantia);
+	}
+
+	@Test
+	public void obtenerTraeLaGarantiaConSuProductoTest() {
+
+		// act
+		GarantiaExtendida garantia = dentroDe("obtener", 1, () -> transaccion(() -> repositorioGarantia.obtener(CON_GARANTIA)));
+
+		// assert
+		assertEquals(CON_GARANTIA, garantia.getProducto().getCodigo());
+		assertEquals(1001, garantia.getProducto().getPrecio(), 0);
+		assertEquals("Leo", garantia.getNombreCliente());
+	}
+
+	@Test
+	public void obtenerEstadoGarantiaTest() {
+
+		// act
+		EstadoGarantiaProducto estado = dentroDe("obtenerEstadoGarantia", 1,
+				() -> transaccion(() -> repositorioGarantia.obtenerEstadoGarantia(CON_GARANTIA)));
+
+		// assert
+		assertTrue(estado.isTieneGarantia());
+	}
+
+	/**
+	 * El presupuesto es menor que la cantidad de garantias, una consulta por garantia lo supera
+	 */
+	@Test
+	public void consultasPorConjuntoNoDependenDeLaCantidadTest() {
+
+		// arrange
+		List<String> codigos = new ArrayList<>();
+		for (int i = 0; i < GARANTIAS; i++) {
+			codigos.add(CODIGO + i);
+		}
+
+		// act
+		List<VencimientoGarantia> vencimientos = dentroDe("obtenerVencimientos", 1,
+				() -> transaccion(() -> repositorioGarantia.obtenerVencimientos(new Date(0), new Date(Long.MAX_VALUE))));
+		Set<String> conGarantia = dentroDe("obtenerCodigosConGarantia", 1,
+				() -> transaccion(() -> repositorioGarantia.obtenerCodigosConGarantia(codigos)));
+
+		// assert
+		assertEquals(GARANTIAS, vencimientos.size());
+		assertEquals(GARANTIAS, conGarantia.size());
+	}
+
+	@Test
+	public void generarGarantiasEnLoteTest() {
+
+		// arrange
+		List<SolicitudGarantia> solicitudes = new ArrayList<>();
+		for (int i = GARANTIAS; i < GARANTIAS * 2; i++) {
+			solicitudes.add(new SolicitudGarantia(CODIGO + i, "Ana"));
+		}
+
+		// act
+		List<ResultadoGarantia> resultados = dentroDe("generarGarantias", 6,
+				() -> transaccion(() -> vendedor.generarGarantias(solicitudes)));
+
+		// assert
+		for (ResultadoGarantia resultado : resultados) {
+			assertTrue(resultado.isEmitida());
+		}
+	}
+
+	@Test
+	public void operacionSobreElPresupuestoFallaTest() {
+
+		// act
+		try {
+			dentroDe("obtener", 0, () -> transaccion(() -> repositorioGarantia.obtener(CON_GARANTIA)));
+			fail();
+		} catch (AssertionError e) {
+			// assert
+			assertEquals("obtener ejecuto 1 sentencias SQL, su presupuesto es 0", e.getMessage());
+		}
+	}
+
+	private <T> T transaccion(Supplier<T> operacion) {
+		return sistemaPersistencia.ejecutarEnTransaccion(operacion);
+	}
+
+	private void transaccion(Runnable operacion) {
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			operacion.run();
+			return null;
+		});
+	}
+}
@@ -0,0 +1,228 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import dominio.Producto;
+import dominio.Vendedor;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import dominio.tarifa.MotorTarifas;
+import dominio.tarifa.TablaTarifasBuilder;
+import persistencia.reporte.GarantiaExportada;
+import persistencia.reporte.IngresoMensual;
+import persistencia.reporte.LectorColumnarGarantias;
+import persistencia.reporte.ReporteGarantias;
+import persistencia.reporte.almacen.AlmacenGarantias;
+import persistencia.reporte.almacen.FiltroGarantias;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class ReporteGarantiasTest {
+
+	private SistemaDePersistencia sistemaPersistencia;
+	private RepositorioProducto repositorioProducto;
+	private RepositorioGarantiaExtendida repositorioGarantia;
+	private ReporteGarantias reporte;
+
+	@Before
+	public void setUp() {
+		sistemaPersistencia = new SistemaDePersistencia();
+		repositorioProducto = sistemaPersistencia.obtenerRepositorioProductos();
+		repositorioGarantia = sistemaPersistencia.obtenerRepositorioGarantia();
+		reporte = sistemaPersistencia.crearReporteGarantias();
+	}
+
+	@After
+	public void tearDown() {
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void exportarCsvTest() throws IOException {
+
+		// arrange
+		agregarGarantia("C1", "Mouse", 1000, fecha(2018, 1, 15), fecha(2018, 4, 25), "Leo, el cliente", 100);
+		agregarGarantia("C2", "Teclado", 2000, fecha(2018, 2, 1), null, "Ana", 200);
+		StringWriter salida = new StringWriter();
+
+		// act
+		long exportadas = reporte.exportarCsv(salida);
+
+		// assert
+		String[] lineas = salida.toString().split("\n");
+		assertEquals(2, exportadas);
+		assertEquals(3, lineas.length);
+		assertEquals("id,codigoProducto,nombreProducto,fechaSolicitudGarantia,fechaFinGarantia,nombreCliente,precio", lineas[0]);
+		assertEquals("C1,Mouse," + fecha(2018, 1, 15).toInstant() + "," + fecha(2018, 4, 25).toInstant()
+				+ ",\"Leo, el cliente\",100.0", lineas[1].substring(lineas[1].indexOf(',') + 1));
+		assertEquals("C2,Teclado," + fecha(2018, 2, 1).toInstant() + ",,Ana,200.0",
+				lineas[2].substring(lineas[2].indexOf(',') + 1));
+	}
+
+	@Test
+	public void exportarColumnarTest() throws IOException {
+
+		// arrange
+		for (int i = 0; i < 10; i++) {
+			agregarGarantia("C" + i, "Producto " + i, 1000, fecha(2018, 1, 1 + i), i % 3 == 0 ? null : fecha(2018, 5, 1 + i),
+					i == 4 ? null : "Cliente " + i, 100 + i);
+		}
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		// act
+		long exportadas = reporte.conTamanoBloque(3).exportarColumnar(salida);
+
+		// assert
+		assertEquals(10, exportadas);
+		LectorColumnarGarantias lector = new LectorColumnarGarantias(new ByteArrayInputStream(salida.toByteArray()));
+		for (int i = 0; i < 10; i++) {
+			GarantiaExportada garantia = lector.siguiente();
+			assertEquals("C" + i, garantia.getCodigoProducto());
+			assertEquals("Producto " + i, garantia.getNombreProducto());
+			assertEquals(fecha(2018, 1, 1 + i).getTime(), garantia.getFechaSolicitudGarantia().getTime());
+			assertEquals(i % 3 == 0 ? null : fecha(2018, 5, 1 + i).getTime(),
+					garantia.getFechaFinGarantia() == null ? null : garantia.getFechaFinGarantia().getTime());
+			assertEquals(i == 4 ? null : "Cliente " + i, garantia.getNombreCliente());
+			assertEquals(100 + i, garantia.getPrecio(), 0);
+		}
+		assertNull(lector.siguiente());
+	}
+
+	@Test
+	public void exportarSinGarantiasTest() throws IOException {
+
+		// arrange
+		StringWriter csv = new StringWriter();
+		ByteArrayOutputStream columnar = new ByteArrayOutputStream();
+
+		// act
+		reporte.exportarCsv(csv);
+		reporte.exportarColumnar(columnar);
+
+		// assert
+		assertEquals(1, csv.toString().split("\n").length);
+		assertNull(new LectorColumnarGarantias(new ByteArrayInputStream(columnar.toByteArray())).siguiente());
+	}
+
+	@Test
+	public void obtenerIngresosPorMesTest() {
+
+		// arrange
+		agregarGarantia("C1", "Mouse", 1000, fecha(2018, 1, 5), null, "Leo", 100);
+		agregarGarantia("C2", "Teclado", 2000, fecha(2018, 1, 31), null, "Leo", 200);
+		agregarGarantia("C3", "Computador", 800000, fecha(2018, 1, 20), null, "Leo", 160000);
+		agregarGarantia("C4", "Mouse", 500000, fecha(2018, 2, 1), null, "Leo", 50000);
+		agregarGarantia("C5", "Mouse", 1000, fecha(2017, 12, 31), null, "Leo", 100);
+
+		// act
+		List<IngresoMensual> ingresos = reporte.obtenerIngresosPorMes();
+
+		// assert
+		assertEquals(4, ingresos.size());
+		assertIngreso(ingresos.get(0), 2017, 12, NivelGarantia.BASICA, 1, 100);
+		assertIngreso(ingresos.get(1), 2018, 1, NivelGarantia.BASICA, 2, 300);
+		assertIngreso(ingresos.get(2), 2018, 1, NivelGarantia.SUPERIOR, 1, 160000);
+		assertIngreso(ingresos.get(3), 2018, 2, NivelGarantia.BASICA, 1, 50000);
+	}
+
+	@Test
+	public void ingresosUsanElNivelDelTramoConQueSeEmitioTest() {
+
+		// arrange
+		MotorTarifas motorTarifas = new MotorTarifas(new TablaTarifasBuilder()
+				.conTramo(TablaTarifasBuilder.CATEGORIA_GENERAL, 0, 0.3, 10, NivelGarantia.SUPERIOR).build());
+		Vendedor vendedor = new Vendedor(repositorioProducto, repositorioGarantia, null, motorTarifas);
+		Producto producto = new ProductoTestDataBuilder().conCodigo("C1").conNombre("Tv").conPrecio(100000).build();
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			repositorioProducto.agregar(producto);
+			vendedor.generarGarantia(producto.getCodigo(), "Leo");
+			return null;
+		});
+
+		AlmacenGarantias almacen = new AlmacenGarantias();
+
+		// act
+		List<IngresoMensual> ingresos = reporte.obtenerIngresosPorMes();
+		reporte.cargarAlmacen(almacen);
+
+		// assert
+		assertEquals(1, ingresos.size());
+		assertEquals(NivelGarantia.SUPERIOR, ingresos.get(0).getNivel());
+		assertEquals(30000, ingresos.get(0).getTotal(), 0);
+		assertEquals(1, almacen.resumir(new FiltroGarantias().conNivel(NivelGarantia.SUPERIOR)).getCantidad());
+	}
+
+	@Test
+	public void cargarAlmacenTest() {
+
+		// arrange
+		agregarGarantia("C1", "Mouse", 1000, fecha(2018, 1, 5), fecha(2018, 4, 20), "Leo", 100);
+		agregarGarantia("C2", "Computador", 800000, fecha(2018, 1, 20), null, "Ana", 160000);
+		agregarGarantia("C3", "Teclado", 2000, fecha(2017, 12, 31), null, "Leo", 200.5);
+		AlmacenGarantias almacen = new AlmacenGarantias();
+
+		// act
+		long cargadas = reporte.cargarAlmacen(almacen);
+
+		// assert
+		assertEquals(3, cargadas);
+		List<IngresoMensual> esperados = reporte.obtenerIngresosPorMes();
+		List<IngresoMensual> ingresos = almacen.obtenerIngresosPorMes(new FiltroGarantias());
+		assertEquals(esperados.size(), ingresos.size());
+		for (int i = 0; i < esperados.size(); i++) {
+			IngresoMensual esperado = esperados.get(i);
+			assertIngreso(ingresos.get(i), esperado.getAnio(), esperado.getMes(), esperado.getNivel(),
+					esperado.getCantidad(), esperado.getTotal());
+		}
+		assertEquals(1, almacen.contarVigentes(new FiltroGarantias(), LocalDate.of(2018, 4, 20)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void reporteSinBaseDeDatosTest() {
+
+		// act
+		new SistemaDePersistencia(new ConfiguracionPersistencia().conRepositoriosEnMemoria()).crearReporteGarantias();
+	}
+
+	private void agregarGarantia(String codigo, String nombre, double precioProducto, Date fechaSolicitud, Date fechaFin,
+			String cliente, double precio) {
+
+		Producto producto = new ProductoTestDataBuilder().conCodigo(codigo).conNombre(nombre).conPrecio(precioProducto).build();
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			repositorioProducto.agregar(producto);
+			repositorioGarantia.agregar(new GarantiaExtendida(producto, fechaSolicitud, fechaFin, precio, cliente));
+			return null;
+		});
+	}
+
+	private static void assertIngreso(IngresoMensual ingreso, int anio, int mes, NivelGarantia nivel, long cantidad,
+			double total) {
+		assertEquals(anio, ingreso.getAnio());
+		assertEquals(mes, ingreso.getMes());
+		assertEquals(nivel, ingreso.getNivel());
+		assertEquals(cantidad, ingreso.getCantidad());
+		assertEquals(total, ingreso.getTotal(), 0);
+	}
+
+	private static Date fecha(int anio, int mes, int dia) {
+		return Date.from(LocalDateTime.of(anio, mes, dia, 10, 30).atZone(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,96 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.Vendedor;
+import persistencia.conexion.ConexionJPA;
+import persistencia.repositorio.RepositorioGarantiaPersistente;
+import persistencia.repositorio.RepositorioProductoPersistente;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class RepositorioGarantiaPersistenteTest {
+
+	private static final String NOMBRE_CLIENTE = "Leo";
+
+	private ConexionJPA conexion;
+	private EntityManager entityManager;
+	private RepositorioProductoPersistente repositorioProducto;
+	private RepositorioGarantiaPersistente repositorioGarantia;
+
+	@Before
+	public void setUp() {
+		conexion = new ConexionJPA(Collections.singletonMap("hibernate.generate_statistics", "true"));
+		entityManager = conexion.createEntityManager();
+		repositorioProducto = new RepositorioProductoPersistente(entityManager);
+		repositorioGarantia = new RepositorioGarantiaPersistente(entityManager, repositorioProducto);
+		entityManager.getTransaction().begin();
+	}
+
+	@After
+	public void tearDown() {
+		entityManager.getTransaction().rollback();
+		entityManager.close();
+		conexion.cerrar();
+	}
+
+	@Test
+	public void obtenerEstadoGarantiaTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("C1").build());
+		repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("C2").build());
+		new Vendedor(repositorioProducto, repositorioGarantia).generarGarantia("C1", NOMBRE_CLIENTE);
+
+		// act
+		EstadoGarantiaProducto conGarantia = repositorioGarantia.obtenerEstadoGarantia("C1");
+		EstadoGarantiaProducto sinGarantia = repositorioGarantia.obtenerEstadoGarantia("C2");
+		EstadoGarantiaProducto noExiste = repositorioGarantia.obtenerEstadoGarantia("C3");
+
+		// assert
+		assertTrue(conGarantia.isTieneGarantia());
+		assertEquals("C1", conGarantia.getProducto().getCodigo());
+		assertFalse(sinGarantia.isTieneGarantia());
+		assertEquals("C2", sinGarantia.getProducto().getCodigo());
+		assertNull(noExiste.getProducto());
+	}
+
+	@Test
+	public void generarGarantiaConUnaConsultaYUnaInsercionTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("C1").build());
+		repositorioProducto.agregar(new ProductoTestDataBuilder().conCodigo("C2").build());
+		Vendedor vendedor = new Vendedor(repositorioProducto, repositorioGarantia);
+
+		/**
+		 * La primera garantia reserva el bloque de identificadores de la secuencia.
+		 */
+		vendedor.generarGarantia("C1", NOMBRE_CLIENTE);
+		entityManager.flush();
+		entityManager.clear();
+		Statistics estadisticas = conexion.obtenerEstadisticas();
+		estadisticas.clear();
+
+		// act
+		vendedor.generarGarantia("C2", NOMBRE_CLIENTE);
+		entityManager.flush();
+
+		// assert
+		assertEquals(2, estadisticas.getPrepareStatementCount());
+		assertEquals(1, estadisticas.getQueryExecutionCount());
+		assertEquals(1, estadisticas.getEntityInsertCount());
+	}
+}
@@ -0,0 +1,71 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.Producto;
+import persistencia.conexion.ConexionJPA;
+import persistencia.entitad.ProductoEntity;
+import persistencia.repositorio.RepositorioProductoPersistente;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class RepositorioProductoPersistenteTest {
+
+	private ConexionJPA conexion;
+	private EntityManager entityManager;
+	private RepositorioProductoPersistente repositorioProducto;
+
+	@Before
+	public void setUp() {
+		conexion = new ConexionJPA();
+		entityManager = conexion.createEntityManager();
+		repositorioProducto = new RepositorioProductoPersistente(entityManager);
+		entityManager.getTransaction().begin();
+	}
+
+	@After
+	public void tearDown() {
+		entityManager.getTransaction().rollback();
+		entityManager.close();
+		conexion.cerrar();
+	}
+
+	@Test
+	public void agregarGuardaLaCantidadDeVocalesTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().conCodigo("S01H1ATEI").build();
+
+		// act
+		repositorioProducto.agregar(producto);
+
+		// assert
+		assertEquals(Integer.valueOf(3), repositorioProducto.obtenerProductoEntityPorCodigo(producto.getCodigo()).getCantidadVocales());
+	}
+
+	@Test
+	public void completarCantidadVocalesDeProductosAnterioresTest() {
+
+		// arrange
+		ProductoEntity productoAnterior = new ProductoEntity();
+		productoAnterior.setCodigo("aBcEiX");
+		productoAnterior.setNombre("Producto anterior");
+		productoAnterior.setPrecio(1000);
+		entityManager.persist(productoAnterior);
+		entityManager.flush();
+
+		// act
+		int actualizados = repositorioProducto.completarCantidadVocales();
+		entityManager.refresh(productoAnterior);
+
+		// assert
+		assertEquals(1, actualizados);
+		assertEquals(Integer.valueOf(3), productoAnterior.getCantidadVocales());
+		assertEquals(3, repositorioProducto.obtenerPorCodigo("aBcEiX").getCantidadVocales());
+	}
+}
@@ -0,0 +1,11 @@
+package persistencia.integracion;
+
+import persistencia.sistema.ConfiguracionPersistencia;
+
+public class RepositoriosPersistentesTest extends ContratoRepositorios {
+
+	@Override
+	protected ConfiguracionPersistencia configuracion() {
+		return new ConfiguracionPersistencia();
+	}
+}
@@ -0,0 +1,196 @@
+package persistencia.integracion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.persistence.PersistenceException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.ResultadoGarantia;
+import dominio.SolicitudGarantia;
+import dominio.Vendedor;
+import persistencia.sistema.ConfiguracionPersistencia;
+import persistencia.sistema.ServicioGarantiasConcurrente;
+import persistencia.sistema.SistemaDePersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class ServicioGarantiasConcurrenteTest {
+
+	private static final int PRODUCTOS = 200;
+	private static final int HILOS = 8;
+	private static final String NOMBRE_CLIENTE = "Leo";
+
+	private SistemaDePersistencia sistemaPersistencia;
+	private ServicioGarantiasConcurrente servicio;
+
+	@Before
+	public void setUp() {
+
+		sistemaPersistencia = new SistemaDePersistencia(new ConfiguracionPersistencia().conModoConcurrente());
+		servicio = new ServicioGarantiasConcurrente(sistemaPersistencia, Executors.newFixedThreadPool(HILOS));
+
+		sistemaPersistencia.ejecutarEnTransaccion(() -> {
+			for (int i = 0; i < PRODUCTOS; i++) {
+				sistemaPersistencia.obtenerRepositorioProductos().agregar(
+						new ProductoTestDataBuilder().conCodigo(codigo(i)).build());
+			}
+			return null;
+		});
+	}
+
+	@After
+	public void tearDown() {
+		servicio.close();
+		sistemaPersistencia.cerrar();
+	}
+
+	@Test
+	public void generarGarantiasEnParaleloTest() {
+
+		// arrange
+		List<SolicitudGarantia> solicitudes = new ArrayList<>();
+		for (int i = 0; i < PRODUCTOS; i++) {
+			solicitudes.add(new SolicitudGarantia(codigo(i), NOMBRE_CLIENTE));
+		}
+
+		// act
+		List<ResultadoGarantia> resultados = servicio.generarGarantias(solicitudes);
+
+		// assert
+		Vendedor vendedor = new Vendedor(sistemaPersistencia.obtenerRepositorioProductos(),
+				sistemaPersistencia.obtenerRepositorioGarantia());
+		for (int i = 0; i < PRODUCTOS; i++) {
+			assertTrue(resultados.get(i).isEmitida());
+			String codigo = codigo(i);
+			assertTrue(sistemaPersistencia.ejecutarEnTransaccion(() -> vendedor.tieneGarantia(codigo)));
+		}
+	}
+
+	@Test
+	public void garantiaRechazadaSeInformaEnElResultadoTest() {
+
+		// act
+		ResultadoGarantia resultado = servicio.generarGarantia(codigo(0), "").join();
+
+		// assert
+		assertEquals(Vendedor.NOMBRE_CLIENTE_NO_INGRESADO, resultado.getMotivo());
+	}
+
+	@Test
+	public void solicitudesRepetidasGeneranUnaSolaGarantiaTest() {
+
+		// arrange
+		List<CompletableFuture<ResultadoGarantia>> pendientes = new ArrayList<>();
+
+		// act
+		for (int i = 0; i < PRODUCTOS; i++) {
+			pendientes.add(servicio.generarGarantia(codigo(i % 4), NOMBRE_CLIENTE));
+		}
+
+		// assert
+		int emitidas = 0;
+		for (CompletableFuture<ResultadoGarantia> pendiente : pendientes) {
+			ResultadoGarantia resultado = pendiente.join();
+			if (!resultado.isEmitida()) {
+				assertEquals(Vendedor.EL_PRODUCTO_TIENE_GARANTIA, resultado.getMotivo());
+			}
+			emitidas += resultado.isEmitida() ? 1 : 0;
+		}
+		assertTrue(emitidas >= 4);
+		for (int i = 0; i < 4; i++) {
+			String codigo = codigo(i);
+			assertEquals(NOMBRE_CLIENTE, sistemaPersistencia.ejecutarEnTransaccion(
+					() -> sistemaPersistencia.obtenerRepositorioGarantia().obtener(codigo).getNombreCliente()));
+		}
+	}
+
+	@Test
+	public void solicitudDeOtroClienteNoRecibeElResultadoDeLaPrimeraTest() {
+
+		// act
+		CompletableFuture<ResultadoGarantia> primera = servicio.generarGarantia(codigo(0), NOMBRE_CLIENTE);
+		CompletableFuture<ResultadoGarantia> segunda = servicio.generarGarantia(codigo(0), "Ana");
+
+		// assert
+		assertTrue(primera != segunda);
+		assertTrue(primera.join().isEmitida() != segunda.join().isEmitida());
+		String cliente = primera.join().isEmitida() ? NOMBRE_CLIENTE : "Ana";
+		assertEquals(cliente, sistemaPersistencia.ejecutarEnTransaccion(
+				() -> sistemaPersistencia.obtenerRepositorioGarantia().obtener(codigo(0)).getNombreCliente()));
+	}
+
+	@Test
+	public void solicitudRechazadaPorElEjecutorNoQuedaEnCursoTest() {
+
+		// arrange
+		AtomicBoolean rechazar = new AtomicBoolean(true);
+		ExecutorService ejecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+			@Override
+			public void execute(Runnable tarea) {
+				if (rechazar.getAndSet(false)) {
+					throw new RejectedExecutionException("ejecutor saturado");
+				}
+				super.execute(tarea);
+			}
+		};
+		ServicioGarantiasConcurrente servicioSaturado = new ServicioGarantiasConcurrente(sistemaPersistencia, ejecutor);
+
+		// act
+		try {
+			servicioSaturado.generarGarantia(codigo(0), NOMBRE_CLIENTE);
+			fail();
+		} catch (RejectedExecutionException e) {
+			// la primera solicitud no se pudo enviar
+		}
+		ResultadoGarantia resultado = servicioSaturado.generarGarantia(codigo(0), NOMBRE_CLIENTE).join();
+
+		// assert
+		assertTrue(resultado.isEmitida());
+		servicioSaturado.close();
+	}
+
+	@Test
+	public void baseDeDatosRechazaSegundaGarantiaDelMismoProductoTest() {
+
+		// arrange
+		Producto producto = sistemaPersistencia.ejecutarEnTransaccion(
+				() -> sistemaPersistencia.obtenerRepositorioProductos().obtenerPorCodigo(codigo(0)));
+
+		try {
+			// act
+			sistemaPersistencia.ejecutarEnTransaccion(() -> {
+				sistemaPersistencia.obtenerRepositorioGarantia().agregar(new GarantiaExtendida(producto));
+				sistemaPersistencia.obtenerRepositorioGarantia().agregar(new GarantiaExtendida(producto));
+				return null;
+			});
+			fail();
+		} catch (PersistenceException e) {
+			// assert
+			assertTrue(sistemaPersistencia.ejecutarEnTransaccion(
+					() -> sistemaPersistencia.obtenerRepositorioGarantia().obtenerCodigosConGarantia(
+							Collections.singleton(codigo(0)))).isEmpty());
+		}
+	}
+
+	private static String codigo(int i) {
+		return "C" + i;
+	}
+}
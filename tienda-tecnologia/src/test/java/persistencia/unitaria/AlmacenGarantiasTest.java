@@ -0,0 +1,254 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.GarantiaExtendida;
+import dominio.NivelGarantia;
+import persistencia.reporte.IngresoMensual;
+import persistencia.reporte.almacen.AlmacenGarantias;
+import persistencia.reporte.almacen.FiltroGarantias;
+import persistencia.reporte.almacen.ResumenGarantias;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class AlmacenGarantiasTest {
+
+	private static final int TAMANO_BLOQUE = 16;
+	private static final int GARANTIAS = 1000;
+	private static final LocalDate INICIO = LocalDate.of(2017, 11, 1);
+
+	private ExecutorService ejecutor;
+	private List<Fila> filas;
+	private AlmacenGarantias secuencial;
+	private AlmacenGarantias paralelo;
+
+	@Before
+	public void setUp() {
+		ejecutor = Executors.newFixedThreadPool(4);
+		secuencial = new AlmacenGarantias(TAMANO_BLOQUE, ZoneOffset.UTC);
+		paralelo = new AlmacenGarantias(TAMANO_BLOQUE, ZoneOffset.UTC).conEjecutor(ejecutor, 3);
+		filas = new ArrayList<>();
+		Random aleatorio = new Random(7);
+		for (int i = 0; i < GARANTIAS; i++) {
+			LocalDate solicitud = i % 97 == 0 ? null : INICIO.plusDays(aleatorio.nextInt(200));
+			Fila fila = new Fila("P" + i, aleatorio.nextBoolean() ? 1000 + i : 600000 + i, solicitud,
+					"Cliente" + aleatorio.nextInt(20), (aleatorio.nextInt(100000) + 1) / 100.0);
+			filas.add(fila);
+			secuencial.agregar(fila.codigo, NivelGarantia.para(fila.precioProducto), fecha(fila.solicitud),
+					fecha(solicitud != null ? solicitud.plusDays(100) : null), fila.cliente, fila.precio);
+			paralelo.agregar(fila.codigo, NivelGarantia.para(fila.precioProducto), fecha(fila.solicitud),
+					fecha(solicitud != null ? solicitud.plusDays(100) : null), fila.cliente, fila.precio);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		ejecutor.shutdownNow();
+	}
+
+	@Test
+	public void resumirSinFiltroTest() {
+
+		// act
+		ResumenGarantias resumen = secuencial.resumir(new FiltroGarantias());
+
+		// assert
+		assertEquals(GARANTIAS, secuencial.getTamano());
+		assertResumen(esperado(null, null, null, null), resumen);
+		assertResumen(resumen, paralelo.resumir(new FiltroGarantias()));
+	}
+
+	@Test
+	public void resumirPorFechaNivelYClienteTest() {
+
+		// arrange
+		LocalDate desde = INICIO.plusDays(30);
+		LocalDate hasta = INICIO.plusDays(90);
+		FiltroGarantias filtro = new FiltroGarantias().solicitadasEntre(desde, hasta)
+				.conNivel(NivelGarantia.SUPERIOR).deCliente("Cliente3");
+
+		// act
+		ResumenGarantias resumen = secuencial.resumir(filtro);
+
+		// assert
+		ResumenGarantias esperado = esperado(desde, hasta, NivelGarantia.SUPERIOR, "Cliente3");
+		assertTrue(esperado.getCantidad() > 0);
+		assertResumen(esperado, resumen);
+		assertResumen(esperado, paralelo.resumir(filtro));
+	}
+
+	@Test
+	public void filtroSinCoincidenciasTest() {
+
+		// act
+		ResumenGarantias porCliente = secuencial.resumir(new FiltroGarantias().deCliente("Nadie"));
+		ResumenGarantias porFechas = paralelo
+				.resumir(new FiltroGarantias().solicitadasEntre(INICIO.minusYears(1), INICIO));
+
+		// assert
+		assertEquals(0, porCliente.getCantidad());
+		assertEquals(0, porFechas.getCantidad());
+	}
+
+	@Test
+	public void resumirPorProductoTest() {
+
+		// act
+		ResumenGarantias resumen = paralelo.resumir(new FiltroGarantias().deProducto("P10"));
+
+		// assert
+		assertEquals(1, resumen.getCantidad());
+		assertEquals(filas.get(10).precio, resumen.getTotal(), 0.001);
+	}
+
+	@Test
+	public void obtenerIngresosPorMesTest() {
+
+		// arrange
+		FiltroGarantias filtro = new FiltroGarantias().solicitadasEntre(INICIO.plusDays(10), INICIO.plusDays(150));
+
+		// act
+		List<IngresoMensual> ingresos = secuencial.obtenerIngresosPorMes(filtro);
+
+		// assert
+		long cantidad = 0;
+		for (IngresoMensual ingreso : ingresos) {
+			LocalDate primerDia = LocalDate.of(ingreso.getAnio(), ingreso.getMes(), 1);
+			LocalDate desde = max(primerDia, INICIO.plusDays(10));
+			LocalDate hasta = min(primerDia.plusMonths(1), INICIO.plusDays(150));
+			ResumenGarantias esperado = esperado(desde, hasta, ingreso.getNivel(), null);
+			assertEquals(esperado.getCantidad(), ingreso.getCantidad());
+			assertEquals(esperado.getTotal(), ingreso.getTotal(), 0.001);
+			cantidad += ingreso.getCantidad();
+		}
+		assertEquals(esperado(INICIO.plusDays(10), INICIO.plusDays(150), null, null).getCantidad(), cantidad);
+		assertEquals(2017, ingresos.get(0).getAnio());
+		assertEquals(11, ingresos.get(0).getMes());
+		assertEquals(NivelGarantia.BASICA, ingresos.get(0).getNivel());
+
+		List<IngresoMensual> enParalelo = paralelo.obtenerIngresosPorMes(filtro);
+		assertEquals(ingresos.size(), enParalelo.size());
+		for (int i = 0; i < ingresos.size(); i++) {
+			assertEquals(ingresos.get(i).toString(), enParalelo.get(i).toString());
+		}
+	}
+
+	@Test
+	public void resumirPorClienteTest() {
+
+		// arrange
+		FiltroGarantias filtro = new FiltroGarantias().conNivel(NivelGarantia.BASICA);
+
+		// act
+		Map<String, ResumenGarantias> porCliente = paralelo.resumirPorCliente(filtro);
+
+		// assert
+		assertEquals(20, porCliente.size());
+		for (Map.Entry<String, ResumenGarantias> cliente : porCliente.entrySet()) {
+			assertResumen(esperado(null, null, NivelGarantia.BASICA, cliente.getKey()), cliente.getValue());
+		}
+	}
+
+	@Test
+	public void contarVigentesTest() {
+
+		// arrange
+		LocalDate fecha = INICIO.plusDays(150);
+
+		// act
+		long vigentes = paralelo.contarVigentes(new FiltroGarantias(), fecha);
+
+		// assert
+		long esperado = 0;
+		for (Fila fila : filas) {
+			if (fila.solicitud != null && !fila.solicitud.plusDays(100).isBefore(fecha)) {
+				esperado++;
+			}
+		}
+		assertEquals(esperado, vigentes);
+	}
+
+	@Test
+	public void agregarGarantiaTest() {
+
+		// arrange
+		AlmacenGarantias almacen = new AlmacenGarantias();
+		GarantiaExtendida garantia = new GarantiaExtendida(new ProductoTestDataBuilder().conPrecio(800000).build(),
+				new Date(), null, 160000.01, "Leo");
+		GarantiaExtendida conNivelDelTramo = new GarantiaExtendida(new ProductoTestDataBuilder().conCodigo("B1")
+				.conPrecio(800000).build(), new Date(), null, 80000, "Ana", NivelGarantia.BASICA);
+
+		// act
+		almacen.agregar(garantia);
+		almacen.agregar(conNivelDelTramo);
+
+		// assert
+		ResumenGarantias resumen = almacen.resumir(new FiltroGarantias().conNivel(NivelGarantia.SUPERIOR));
+		assertEquals(1, resumen.getCantidad());
+		assertEquals(160000.01, resumen.getTotal(), 0);
+		assertEquals(80000, almacen.resumir(new FiltroGarantias().conNivel(NivelGarantia.BASICA)).getTotal(), 0);
+	}
+
+	private ResumenGarantias esperado(LocalDate desde, LocalDate hasta, NivelGarantia nivel, String cliente) {
+		long cantidad = 0;
+		long centesimos = 0;
+		for (Fila fila : filas) {
+			if ((desde == null || (fila.solicitud != null && !fila.solicitud.isBefore(desde)))
+					&& (hasta == null || (fila.solicitud != null && fila.solicitud.isBefore(hasta)))
+					&& (nivel == null || NivelGarantia.para(fila.precioProducto) == nivel)
+					&& (cliente == null || cliente.equals(fila.cliente))) {
+				cantidad++;
+				centesimos += Math.round(fila.precio * 100);
+			}
+		}
+		return new ResumenGarantias(cantidad, centesimos / 100.0);
+	}
+
+	private static void assertResumen(ResumenGarantias esperado, ResumenGarantias resumen) {
+		assertEquals(esperado.getCantidad(), resumen.getCantidad());
+		assertEquals(esperado.getTotal(), resumen.getTotal(), 0);
+	}
+
+	private static Date fecha(LocalDate dia) {
+		return dia == null ? null : Date.from(dia.atTime(10, 30).toInstant(ZoneOffset.UTC));
+	}
+
+	private static LocalDate max(LocalDate a, LocalDate b) {
+		return a.isAfter(b) ? a : b;
+	}
+
+	private static LocalDate min(LocalDate a, LocalDate b) {
+		return a.isBefore(b) ? a : b;
+	}
+
+	private static class Fila {
+
+		private final String codigo;
+		private final double precioProducto;
+		private final LocalDate solicitud;
+		private final String cliente;
+		private final double precio;
+
+		Fila(String codigo, double precioProducto, LocalDate solicitud, String cliente, double precio) {
+			this.codigo = codigo;
+			this.precioProducto = precioProducto;
+			this.solicitud = solicitud;
+			this.cliente = cliente;
+			this.precio = precio;
+		}
+	}
+}
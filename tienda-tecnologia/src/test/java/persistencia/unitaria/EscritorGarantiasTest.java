@@ -0,0 +1,333 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dominio.GarantiaExtendida;
+import persistencia.entitad.GarantiaExtendidaEntity;
+import persistencia.repositorio.diferido.DiarioGarantias;
+import persistencia.repositorio.diferido.EscritorGarantias;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class EscritorGarantiasTest {
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	private final List<String> escritas = new CopyOnWriteArrayList<>();
+
+	@Test
+	public void agregarEsperaCuandoLaColaEstaLlenaTest() throws Exception {
+
+		// arrange
+		CountDownLatch liberar = new CountDownLatch(1);
+		EscritorGarantias escritor = new EscritorGarantias(diario(), lote -> {
+			esperar(liberar);
+			registrar(lote);
+		}, 2, 1, 1, TimeUnit.MILLISECONDS);
+		escritor.agregar(garantia("A1"));
+		escritor.agregar(garantia("A2"));
+
+		// act
+		Thread tercera = new Thread(() -> escritor.agregar(garantia("A3")));
+		tercera.start();
+		tercera.join(300);
+
+		// assert
+		assertTrue(tercera.isAlive());
+		assertNotNull(escritor.obtenerPendiente("A1"));
+		assertEquals(2, escritor.getPendientes());
+
+		liberar.countDown();
+		tercera.join(5000);
+		assertFalse(tercera.isAlive());
+		assertTrue(escritor.esperarEscritura(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("A1", "A2", "A3"), escritas);
+		assertNull(escritor.obtenerPendiente("A1"));
+		escritor.close();
+	}
+
+	@Test
+	public void cerrarEscribeLasGarantiasDeLaColaTest() throws Exception {
+
+		// arrange
+		EscritorGarantias escritor = new EscritorGarantias(diario(), this::registrar, 100, 10, 1, TimeUnit.HOURS);
+		List<GarantiaExtendida> garantias = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			garantias.add(garantia("C" + i));
+		}
+
+		// act
+		escritor.agregarTodas(garantias);
+		escritor.close();
+
+		// assert
+		assertEquals(25, escritas.size());
+		assertEquals(25, escritor.getEscritas());
+		assertEquals(0, Files.size(archivo()));
+	}
+
+	@Test
+	public void reiniciarEscribeLoQueQuedoEnElDiarioTest() throws Exception {
+
+		// arrange
+		DiarioGarantias diario = diario();
+		diario.recuperar();
+		diario.anexar(Arrays.asList(garantia("R1"), garantia("R2")));
+		diario.anexar(Collections.singletonList(garantia("R3")));
+		diario.close();
+		long completo = Files.size(archivo());
+
+		/**
+		 * Un registro cortado a la mitad, como el de un proceso que termina mientras escribe.
+		 */
+		Files.write(archivo(), new byte[] { 0, 0, 0, 40, 1, 2, 3, 4, 5 }, StandardOpenOption.APPEND);
+
+		// act
+		EscritorGarantias escritor = new EscritorGarantias(diario(), this::registrar, 10, 10, 1,
+				TimeUnit.MILLISECONDS);
+
+		// assert
+		assertEquals(Arrays.asList("R1", "R2", "R3"), escritas);
+		assertTrue(completo > 0);
+		escritor.close();
+		assertEquals(0, Files.size(archivo()));
+	}
+
+	@Test
+	public void loteFallidoSeEscribeGarantiaPorGarantiaTest() throws Exception {
+
+		// arrange
+		EscritorGarantias escritor = new EscritorGarantias(diario(), lote -> {
+			for (GarantiaExtendida garantia : lote) {
+				if (garantia.getProducto().getCodigo().equals("MALO")) {
+					throw new IllegalStateException("sin producto");
+				}
+			}
+			registrar(lote);
+		}, 10, 10, 50, TimeUnit.MILLISECONDS);
+
+		// act
+		escritor.agregarTodas(Arrays.asList(garantia("B1"), garantia("MALO"), garantia("B2")));
+		esperarPendientes(escritor, 1);
+
+		// assert
+		assertEquals(Arrays.asList("B1", "B2"), escritas);
+		assertEquals(2, escritor.getEscritas());
+		assertTrue(escritor.getErrores() >= 1);
+		assertEquals("sin producto", escritor.getUltimoError().getMessage());
+		assertNotNull(escritor.obtenerPendiente("MALO"));
+		assertNull(escritor.obtenerPendiente("B1"));
+		assertEquals(1, escritor.getPendientes());
+		escritor.close();
+		assertTrue(Files.size(archivo()) > 0);
+	}
+
+	@Test
+	public void garantiasFallidasSeReintentanHastaEscribirseTest() throws Exception {
+
+		// arrange
+		AtomicBoolean baseDeDatosCaida = new AtomicBoolean(true);
+		EscritorGarantias escritor = new EscritorGarantias(diario(), lote -> {
+			if (baseDeDatosCaida.get()) {
+				throw new IllegalStateException("sin conexion");
+			}
+			registrar(lote);
+		}, 10, 10, 1, TimeUnit.MILLISECONDS);
+		escritor.agregarTodas(Arrays.asList(garantia("D1"), garantia("D2")));
+		Thread.sleep(300);
+
+		// act
+		long erroresDuranteLaCaida = escritor.getErrores();
+		boolean escritasDuranteLaCaida = escritor.esperarEscritura(1, TimeUnit.MILLISECONDS);
+		GarantiaExtendida pendienteDuranteLaCaida = escritor.obtenerPendiente("D1");
+		baseDeDatosCaida.set(false);
+
+		// assert
+		assertTrue(erroresDuranteLaCaida >= 2);
+		assertFalse(escritasDuranteLaCaida);
+		assertNotNull(pendienteDuranteLaCaida);
+		assertTrue(escritor.esperarEscritura(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("D1", "D2"), escritas);
+		assertNull(escritor.obtenerPendiente("D1"));
+		escritor.close();
+		assertEquals(0, Files.size(archivo()));
+	}
+
+	@Test
+	public void reiniciarConservaLasQueNoSePudieronEscribirTest() throws Exception {
+
+		// arrange
+		DiarioGarantias diario = diario();
+		diario.recuperar();
+		diario.anexar(Arrays.asList(garantia("E1"), garantia("E2")));
+		diario.close();
+		AtomicBoolean baseDeDatosCaida = new AtomicBoolean(true);
+
+		// act
+		EscritorGarantias escritor = new EscritorGarantias(diario(), lote -> {
+			if (baseDeDatosCaida.get()) {
+				throw new IllegalStateException("sin conexion");
+			}
+			registrar(lote);
+		}, 10, 10, 1, TimeUnit.MILLISECONDS);
+
+		// assert
+		assertNotNull(escritor.obtenerPendiente("E1"));
+		assertEquals(2, escritor.getPendientes());
+		baseDeDatosCaida.set(false);
+		assertTrue(escritor.esperarEscritura(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("E1", "E2"), escritas);
+		escritor.close();
+		assertEquals(0, Files.size(archivo()));
+	}
+
+	@Test
+	public void garantiaQueNoCumpleElEsquemaNoSeAceptaTest() throws Exception {
+
+		// arrange
+		EscritorGarantias escritor = new EscritorGarantias(diario(), this::registrar, 10, 10, 1, TimeUnit.MILLISECONDS);
+		char[] nombre = new char[GarantiaExtendidaEntity.LONGITUD_NOMBRE_CLIENTE + 1];
+		Arrays.fill(nombre, 'x');
+		GarantiaExtendida nombreMuyLargo = new GarantiaExtendida(new ProductoTestDataBuilder().conCodigo("V2").build(),
+				new Date(0), new Date(86400000L), 156000, new String(nombre));
+
+		// act
+		try {
+			escritor.agregarTodas(Arrays.asList(garantia("V1"), nombreMuyLargo));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// assert
+			assertTrue(e.getMessage().startsWith(EscritorGarantias.NOMBRE_CLIENTE_MUY_LARGO));
+		}
+		assertNull(escritor.obtenerPendiente("V1"));
+		assertEquals(0, escritor.getPendientes());
+		assertEquals(0, Files.size(archivo()));
+		escritor.close();
+	}
+
+	@Test
+	public void garantiaQueFallaEnTodosLosIntentosSeDescartaTest() throws Exception {
+
+		// arrange
+		EscritorGarantias escritor = new EscritorGarantias(diario(), lote -> {
+			for (GarantiaExtendida garantia : lote) {
+				if (garantia.getProducto().getCodigo().equals("MALO")) {
+					throw new IllegalStateException("sin producto");
+				}
+			}
+			registrar(lote);
+		}, 10, 10, 1, TimeUnit.MILLISECONDS, 2);
+
+		// act
+		escritor.agregarTodas(Arrays.asList(garantia("F1"), garantia("MALO")));
+
+		// assert
+		assertTrue(escritor.esperarEscritura(5, TimeUnit.SECONDS));
+		assertEquals(1, escritor.getDescartadas());
+		assertEquals(Collections.singletonList("F1"), escritas);
+		assertNull(escritor.obtenerPendiente("MALO"));
+		escritor.close();
+
+		DiarioGarantias diario = diario();
+		assertTrue(diario.recuperar().isEmpty());
+		List<GarantiaExtendida> descartadas = diario.obtenerDescartadas();
+		assertEquals(1, descartadas.size());
+		assertEquals("MALO", descartadas.get(0).getProducto().getCodigo());
+		assertEquals("Cliente MALO", descartadas.get(0).getNombreCliente());
+		diario.close();
+	}
+
+	@Test
+	public void diarioSeCompactaConservandoLasSinEscribirTest() throws Exception {
+
+		// arrange
+		EscritorGarantias escritor = new EscritorGarantias(diario(), lote -> {
+			for (GarantiaExtendida garantia : lote) {
+				if (garantia.getProducto().getCodigo().equals("MALO")) {
+					throw new IllegalStateException("sin producto");
+				}
+			}
+			registrar(lote);
+		}, 5000, 100, 1, TimeUnit.HOURS, Integer.MAX_VALUE);
+		List<GarantiaExtendida> garantias = new ArrayList<>();
+		garantias.add(garantia("MALO"));
+		for (int i = 0; i < 3000; i++) {
+			garantias.add(garantia("G" + i));
+		}
+
+		// act
+		escritor.agregarTodas(garantias);
+		long anexado = Files.size(archivo());
+		esperarPendientes(escritor, 1);
+		escritor.close();
+
+		// assert
+		assertEquals(3000, escritas.size());
+		assertTrue(Files.size(archivo()) < anexado / 2);
+		DiarioGarantias diario = diario();
+		List<GarantiaExtendida> recuperadas = diario.recuperar();
+		assertEquals("MALO", recuperadas.get(0).getProducto().getCodigo());
+		assertTrue(recuperadas.size() < garantias.size() / 2);
+		diario.close();
+	}
+
+	/**
+	 * El escritor libera el espacio despues de registrar las escritas y quitarlas de las pendientes
+	 */
+	private static void esperarPendientes(EscritorGarantias escritor, int cantidad) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 5000;
+		while (escritor.getPendientes() > cantidad && System.currentTimeMillis() < limite) {
+			Thread.sleep(10);
+		}
+	}
+
+	private void registrar(List<GarantiaExtendida> lote) {
+		for (GarantiaExtendida garantia : lote) {
+			escritas.add(garantia.getProducto().getCodigo());
+		}
+	}
+
+	private DiarioGarantias diario() throws IOException {
+		return new DiarioGarantias(archivo());
+	}
+
+	private Path archivo() {
+		return carpeta.getRoot().toPath().resolve("garantias.diario");
+	}
+
+	private static GarantiaExtendida garantia(String codigo) {
+		return new GarantiaExtendida(new ProductoTestDataBuilder().conCodigo(codigo).build(), new Date(0),
+				new Date(86400000L), 156000, "Cliente " + codigo);
+	}
+
+	private static void esperar(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
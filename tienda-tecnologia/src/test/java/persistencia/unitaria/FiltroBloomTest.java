@@ -0,0 +1,146 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import dominio.EstadoGarantiaProducto;
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.repositorio.filtro.FiltroBloom;
+import persistencia.repositorio.filtro.RepositorioGarantiaFiltrada;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class FiltroBloomTest {
+
+	private static final int ELEMENTOS = 10000;
+	private static final double PROBABILIDAD = 0.01;
+
+	@Test
+	public void codigoAgregadoSiempreSeEncuentraTest() {
+
+		// arrange
+		FiltroBloom filtro = new FiltroBloom(ELEMENTOS, PROBABILIDAD);
+
+		// act
+		for (int i = 0; i < ELEMENTOS; i++) {
+			filtro.agregar("COD" + i);
+		}
+
+		// assert
+		for (int i = 0; i < ELEMENTOS; i++) {
+			assertTrue(filtro.podriaContener("COD" + i));
+		}
+		assertEquals(ELEMENTOS, filtro.getElementos());
+	}
+
+	@Test
+	public void falsosPositivosRespetanLaProbabilidadConfiguradaTest() {
+
+		// arrange
+		FiltroBloom filtro = new FiltroBloom(ELEMENTOS, PROBABILIDAD);
+		for (int i = 0; i < ELEMENTOS; i++) {
+			filtro.agregar("COD" + i);
+		}
+
+		// act
+		int falsosPositivos = 0;
+		for (int i = 0; i < ELEMENTOS * 10; i++) {
+			if (filtro.podriaContener("OTRO" + i)) {
+				falsosPositivos++;
+			}
+		}
+
+		// assert
+		assertTrue(falsosPositivos < ELEMENTOS * 10 * PROBABILIDAD * 2);
+		assertEquals(0.5, filtro.getSaturacion(), 0.05);
+		assertEquals(PROBABILIDAD, filtro.getProbabilidadFalsoPositivoEstimada(), PROBABILIDAD);
+	}
+
+	@Test
+	public void productoFueraDelFiltroNoConsultaElRepositorioTest() {
+
+		// arrange
+		RepositorioGarantiaExtendida repositorioGarantia = mock(RepositorioGarantiaExtendida.class);
+		RepositorioGarantiaFiltrada repositorioFiltrado = new RepositorioGarantiaFiltrada(repositorioGarantia,
+				mock(RepositorioProducto.class), new FiltroBloom(ELEMENTOS, PROBABILIDAD));
+
+		// act
+		Producto producto = repositorioFiltrado.obtenerProductoConGarantiaPorCodigo("SINGARANTIA");
+
+		// assert
+		assertNull(producto);
+		verify(repositorioGarantia, never()).obtenerProductoConGarantiaPorCodigo(anyString());
+		assertEquals(1, repositorioFiltrado.getConsultasEvitadas());
+	}
+
+	@Test
+	public void productoAgregadoConsultaElRepositorioTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().build();
+		RepositorioGarantiaExtendida repositorioGarantia = mock(RepositorioGarantiaExtendida.class);
+		when(repositorioGarantia.obtenerProductoConGarantiaPorCodigo(producto.getCodigo())).thenReturn(producto);
+		RepositorioGarantiaFiltrada repositorioFiltrado = new RepositorioGarantiaFiltrada(repositorioGarantia,
+				mock(RepositorioProducto.class), new FiltroBloom(ELEMENTOS, PROBABILIDAD));
+
+		// act
+		repositorioFiltrado.agregar(new GarantiaExtendida(producto));
+
+		// assert
+		assertFalse(repositorioFiltrado.getFiltro().getElementos() == 0);
+		assertEquals(producto, repositorioFiltrado.obtenerProductoConGarantiaPorCodigo(producto.getCodigo()));
+	}
+
+	@Test
+	public void estadoDeProductoFueraDelFiltroSeLeeDelRepositorioDeProductosTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().build();
+		RepositorioGarantiaExtendida repositorioGarantia = mock(RepositorioGarantiaExtendida.class);
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class);
+		when(repositorioProducto.obtenerPorCodigo(producto.getCodigo())).thenReturn(producto);
+		RepositorioGarantiaFiltrada repositorioFiltrado = new RepositorioGarantiaFiltrada(repositorioGarantia,
+				repositorioProducto, new FiltroBloom(ELEMENTOS, PROBABILIDAD));
+
+		// act
+		EstadoGarantiaProducto estado = repositorioFiltrado.obtenerEstadoGarantia(producto.getCodigo());
+
+		// assert
+		assertEquals(producto, estado.getProducto());
+		assertFalse(estado.isTieneGarantia());
+		verify(repositorioGarantia, never()).obtenerEstadoGarantia(anyString());
+		assertEquals(1, repositorioFiltrado.getConsultasEvitadas());
+	}
+
+	@Test
+	public void estadoDeProductoAgregadoUsaLaConsultaConjuntaTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().build();
+		RepositorioGarantiaExtendida repositorioGarantia = mock(RepositorioGarantiaExtendida.class);
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class);
+		when(repositorioGarantia.obtenerEstadoGarantia(producto.getCodigo()))
+				.thenReturn(EstadoGarantiaProducto.de(producto, true));
+		RepositorioGarantiaFiltrada repositorioFiltrado = new RepositorioGarantiaFiltrada(repositorioGarantia,
+				repositorioProducto, new FiltroBloom(ELEMENTOS, PROBABILIDAD));
+		repositorioFiltrado.agregar(new GarantiaExtendida(producto));
+
+		// act
+		EstadoGarantiaProducto estado = repositorioFiltrado.obtenerEstadoGarantia(producto.getCodigo());
+
+		// assert
+		assertTrue(estado.isTieneGarantia());
+		verify(repositorioProducto, never()).obtenerPorCodigo(anyString());
+	}
+}
@@ -0,0 +1,160 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import dominio.repositorio.RepositorioGarantiaExtendida;
+import persistencia.repositorio.memoria.RepositorioGarantiaMemoria;
+import persistencia.repositorio.memoria.RepositorioProductoMemoria;
+import persistencia.repositorio.vencimiento.ProgramadorVencimientos;
+import persistencia.repositorio.vencimiento.RepositorioGarantiaConVencimientos;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class ProgramadorVencimientosTest {
+
+	private static final long INICIO = 1546300800000L;
+	private static final long HORA = TimeUnit.HOURS.toMillis(1);
+	private static final long SEGUNDO = TimeUnit.SECONDS.toMillis(1);
+	private static final long ANTICIPACION = 2 * HORA;
+
+	private RepositorioProductoMemoria repositorioProducto;
+	private RepositorioGarantiaMemoria repositorioGarantia;
+	private List<String> avisos;
+	private int consultas;
+	private ProgramadorVencimientos programador;
+
+	@Before
+	public void setUp() {
+		repositorioProducto = new RepositorioProductoMemoria();
+		repositorioGarantia = new RepositorioGarantiaMemoria(repositorioProducto);
+		avisos = new ArrayList<>();
+		programador = new ProgramadorVencimientos((desde, hasta) -> {
+			consultas++;
+			return repositorioGarantia.obtenerVencimientos(desde, hasta);
+		}, ANTICIPACION, vencimiento -> avisos.add(vencimiento.getCodigo()), SEGUNDO, HORA);
+	}
+
+	@Test
+	public void avisarAntesDelFinTest() {
+
+		// arrange
+		agregarGarantia(repositorioGarantia, "C1", INICIO + 10 * HORA);
+		agregarGarantia(repositorioGarantia, "C2", INICIO + 3 * HORA);
+
+		// act
+		programador.procesar(INICIO);
+		List<String> alIniciar = new ArrayList<>(avisos);
+		programador.procesar(INICIO + HORA - SEGUNDO);
+		List<String> antesDelPrimero = new ArrayList<>(avisos);
+		programador.procesar(INICIO + HORA);
+		programador.procesar(INICIO + 8 * HORA);
+
+		// assert
+		assertTrue(alIniciar.isEmpty());
+		assertTrue(antesDelPrimero.isEmpty());
+		assertEquals(Arrays.asList("C2", "C1"), avisos);
+		assertEquals(0, programador.getPendientes());
+	}
+
+	@Test
+	public void cargarSoloLasVentanasNecesariasTest() {
+
+		// arrange
+		for (int i = 0; i < 100; i++) {
+			agregarGarantia(repositorioGarantia, "C" + i, INICIO + i * HORA + 1);
+		}
+
+		// act
+		programador.procesar(INICIO);
+		int consultasAlIniciar = consultas;
+		int avisosAlIniciar = avisos.size();
+		int pendientesAlIniciar = programador.getPendientes();
+		programador.procesar(INICIO + 10 * HORA);
+
+		// assert
+		assertEquals(3, consultasAlIniciar);
+		assertEquals(2, avisosAlIniciar);
+		assertEquals(1, pendientesAlIniciar);
+		assertEquals(13, consultas);
+		assertEquals(12, avisos.size());
+		assertEquals(1, programador.getPendientes());
+	}
+
+	@Test
+	public void programarGarantiasNuevasSinConsultarTest() {
+
+		// arrange
+		RepositorioGarantiaConVencimientos repositorio = new RepositorioGarantiaConVencimientos(repositorioGarantia,
+				programador);
+		programador.procesar(INICIO);
+		int consultasAlIniciar = consultas;
+
+		// act
+		agregarGarantia(repositorio, "C1", INICIO + ANTICIPACION + 30 * SEGUNDO);
+		programador.procesar(INICIO + 29 * SEGUNDO);
+		List<String> antes = new ArrayList<>(avisos);
+		programador.procesar(INICIO + 30 * SEGUNDO);
+
+		// assert
+		assertTrue(antes.isEmpty());
+		assertEquals(Collections.singletonList("C1"), avisos);
+		assertEquals(consultasAlIniciar, consultas);
+	}
+
+	@Test
+	public void avisarUnaVezLaGarantiaConsultadaYNuevaTest() {
+
+		// arrange
+		RepositorioGarantiaConVencimientos repositorio = new RepositorioGarantiaConVencimientos(repositorioGarantia,
+				programador);
+
+		// act
+		agregarGarantia(repositorio, "C1", INICIO + HORA);
+		programador.procesar(INICIO);
+		programador.procesar(INICIO + HORA);
+
+		// assert
+		assertEquals(Collections.singletonList("C1"), avisos);
+	}
+
+	@Test
+	public void unAvisoFallidoNoDetieneLosDemasTest() {
+
+		// arrange
+		ProgramadorVencimientos conFallas = new ProgramadorVencimientos(repositorioGarantia::obtenerVencimientos,
+				ANTICIPACION, vencimiento -> {
+					if (vencimiento.getCodigo().equals("C1")) {
+						throw new IllegalStateException();
+					}
+					avisos.add(vencimiento.getCodigo());
+				}, SEGUNDO, HORA);
+		agregarGarantia(repositorioGarantia, "C1", INICIO + HORA);
+		agregarGarantia(repositorioGarantia, "C2", INICIO + HORA + SEGUNDO);
+
+		// act
+		conFallas.procesar(INICIO);
+
+		// assert
+		assertEquals(Collections.singletonList("C2"), avisos);
+		assertEquals(1, conFallas.getAvisos());
+		assertEquals(1, conFallas.getErrores());
+	}
+
+	private void agregarGarantia(RepositorioGarantiaExtendida repositorio, String codigo, long fin) {
+		Producto producto = new ProductoTestDataBuilder().conCodigo(codigo).build();
+		repositorioProducto.agregar(producto);
+		repositorio.agregar(new GarantiaExtendida(producto, new Date(INICIO), new Date(fin), 1000, "Leo"));
+	}
+}
@@ -0,0 +1,100 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import dominio.Producto;
+import dominio.repositorio.RepositorioProducto;
+import persistencia.repositorio.cache.RepositorioProductoCache;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class RepositorioProductoCacheTest {
+
+	@Test
+	public void segundaConsultaSeRespondeDesdeLaCacheTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().build();
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class);
+		when(repositorioProducto.obtenerPorCodigo(producto.getCodigo())).thenReturn(producto);
+		RepositorioProductoCache cache = new RepositorioProductoCache(repositorioProducto, 10, 0, TimeUnit.SECONDS);
+
+		// act
+		cache.obtenerPorCodigo(producto.getCodigo());
+		Producto obtenido = cache.obtenerPorCodigo(producto.getCodigo());
+
+		// assert
+		assertSame(producto, obtenido);
+		verify(repositorioProducto, times(1)).obtenerPorCodigo(producto.getCodigo());
+		assertEquals(1, cache.getAciertos());
+		assertEquals(1, cache.getFallos());
+	}
+
+	@Test
+	public void agregarInvalidaElProductoTest() {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().build();
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class);
+		when(repositorioProducto.obtenerPorCodigo(producto.getCodigo())).thenReturn(producto);
+		RepositorioProductoCache cache = new RepositorioProductoCache(repositorioProducto, 10, 0, TimeUnit.SECONDS);
+		cache.obtenerPorCodigo(producto.getCodigo());
+
+		// act
+		cache.agregar(producto);
+		cache.obtenerPorCodigo(producto.getCodigo());
+
+		// assert
+		verify(repositorioProducto).agregar(producto);
+		verify(repositorioProducto, times(2)).obtenerPorCodigo(producto.getCodigo());
+	}
+
+	@Test
+	public void productoFrecuenteNoEsDesalojadoPorUnoNuevoTest() {
+
+		// arrange
+		Producto frecuente = new ProductoTestDataBuilder().conCodigo("FRECUENTE").build();
+		Producto ocasional = new ProductoTestDataBuilder().conCodigo("OCASIONAL").build();
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class);
+		when(repositorioProducto.obtenerPorCodigo(frecuente.getCodigo())).thenReturn(frecuente);
+		when(repositorioProducto.obtenerPorCodigo(ocasional.getCodigo())).thenReturn(ocasional);
+		RepositorioProductoCache cache = new RepositorioProductoCache(repositorioProducto, 1, 0, TimeUnit.SECONDS);
+		for (int i = 0; i < 5; i++) {
+			cache.obtenerPorCodigo(frecuente.getCodigo());
+		}
+
+		// act
+		cache.obtenerPorCodigo(ocasional.getCodigo());
+		cache.obtenerPorCodigo(frecuente.getCodigo());
+
+		// assert
+		verify(repositorioProducto, times(1)).obtenerPorCodigo(frecuente.getCodigo());
+		assertEquals(0, cache.getDesalojos());
+	}
+
+	@Test
+	public void productoExpiradoSeConsultaDeNuevoTest() throws InterruptedException {
+
+		// arrange
+		Producto producto = new ProductoTestDataBuilder().build();
+		RepositorioProducto repositorioProducto = mock(RepositorioProducto.class);
+		when(repositorioProducto.obtenerPorCodigo(producto.getCodigo())).thenReturn(producto);
+		RepositorioProductoCache cache = new RepositorioProductoCache(repositorioProducto, 10, 1, TimeUnit.MILLISECONDS);
+		cache.obtenerPorCodigo(producto.getCodigo());
+
+		// act
+		Thread.sleep(5);
+		cache.obtenerPorCodigo(producto.getCodigo());
+
+		// assert
+		verify(repositorioProducto, times(2)).obtenerPorCodigo(producto.getCodigo());
+	}
+}
@@ -0,0 +1,292 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.persistence.EntityExistsException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import persistencia.integracion.ContratoRepositorios;
+import persistencia.repositorio.bitacora.RepositorioGarantiaBitacora;
+import persistencia.repositorio.memoria.RepositorioProductoMemoria;
+import persistencia.sistema.ConfiguracionPersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class RepositoriosBitacoraTest extends ContratoRepositorios {
+
+	private static final int TAMANO_REGISTRO = 512;
+	private static final int REGISTROS_POR_SEGMENTO = 16;
+	private static final int GARANTIAS = 50;
+
+	@Rule
+	public TemporaryFolder carpeta = new TemporaryFolder();
+
+	private final RepositorioProductoMemoria productos = new RepositorioProductoMemoria();
+
+	@Override
+	protected ConfiguracionPersistencia configuracion() {
+		try {
+			return new ConfiguracionPersistencia().conRepositoriosEnMemoria()
+					.conBitacoraGarantias(carpeta.newFolder().getPath());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Test
+	public void agregarTodasConUnCodigoExistenteNoAgregaNingunaTest() throws IOException {
+
+		// arrange
+		try (RepositorioGarantiaBitacora repositorio = abrir(carpeta.newFolder().toPath(), 100)) {
+			repositorio.agregar(garantia(0));
+
+			try {
+				// act
+				repositorio.agregarTodas(Arrays.asList(garantia(1), garantia(0)));
+				fail();
+
+			} catch (EntityExistsException e) {
+				// assert
+				assertEquals(RepositorioGarantiaBitacora.LA_GARANTIA_YA_EXISTE + "B0", e.getMessage());
+				assertNull(repositorio.obtener("B1"));
+				assertEquals(1, repositorio.getTamano());
+			}
+		}
+	}
+
+	@Test
+	public void reabrirRecuperaLasGarantiasDesdeLaInstantaneaTest() throws IOException {
+
+		// arrange
+		Path directorio = carpeta.newFolder().toPath();
+		try (RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000)) {
+			agregar(repositorio, 0, GARANTIAS);
+		}
+
+		// act
+		try (RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000)) {
+
+			// assert
+			assertEquals(0, repositorio.getRegistrosRecorridos());
+			assertEquals(GARANTIAS, repositorio.getTamano());
+			GarantiaExtendida garantia = repositorio.obtener("B49");
+			assertEquals("B49", garantia.getProducto().getCodigo());
+			assertEquals(49000, garantia.getPrecioGarantia(), 0);
+			assertEquals("Cliente 49", garantia.getNombreCliente());
+			assertEquals(5, repositorio.obtenerVencimientos(new Date(0), new Date(5 * 1000L)).size());
+		}
+	}
+
+	/**
+	 * Corta la bitacora en cada limite de registro y en posiciones al azar dentro de los registros, como quedaria
+	 * si el proceso muere mientras escribe. Al reabrir deben quedar exactamente los registros completos antes del
+	 * corte, y la bitacora debe seguir aceptando garantias
+	 */
+	@Test
+	public void cortarLaBitacoraEnCualquierByteRecuperaLosRegistrosCompletosTest() throws IOException {
+
+		// arrange
+		Path original = carpeta.newFolder().toPath();
+		try (RepositorioGarantiaBitacora repositorio = abrir(original, 1000)) {
+			agregar(repositorio, 0, GARANTIAS);
+		}
+		Files.delete(original.resolve("instantanea"));
+
+		List<Long> cortes = new ArrayList<>();
+		for (long registro = 0; registro <= GARANTIAS; registro++) {
+			cortes.add(registro * TAMANO_REGISTRO);
+		}
+		Random aleatorio = new Random(7);
+		for (int i = 0; i < 60; i++) {
+			cortes.add((long) aleatorio.nextInt(GARANTIAS * TAMANO_REGISTRO));
+		}
+
+		for (long corte : cortes) {
+			Path directorio = copiar(original);
+			cortar(directorio, corte);
+			int completos = (int) (corte / TAMANO_REGISTRO);
+
+			// act
+			try (RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000)) {
+
+				// assert
+				assertEquals("corte en " + corte, completos, repositorio.getTamano());
+				assertEquals(completos, repositorio.getRegistrosRecorridos());
+				if (completos > 0) {
+					assertNotNull(repositorio.obtener("B" + (completos - 1)));
+				}
+				assertNull(repositorio.obtener("B" + completos));
+				agregar(repositorio, completos, 3);
+			}
+			try (RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000)) {
+				assertEquals(completos + 3, repositorio.getTamano());
+				assertEquals("Cliente " + (completos + 2), repositorio.obtener("B" + (completos + 2)).getNombreCliente());
+			}
+		}
+	}
+
+	@Test
+	public void instantaneaPosteriorAlCorteSeDescartaTest() throws IOException {
+
+		// arrange
+		Path directorio = carpeta.newFolder().toPath();
+		try (RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000)) {
+			agregar(repositorio, 0, GARANTIAS);
+		}
+		cortar(directorio, 20 * TAMANO_REGISTRO + 100);
+
+		// act
+		try (RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000)) {
+
+			// assert
+			assertEquals(20, repositorio.getRegistrosRecorridos());
+			assertEquals(20, repositorio.getTamano());
+			assertNull(repositorio.obtener("B20"));
+			assertEquals(1, repositorio.obtenerVencimientos(new Date(19 * 1000L), new Date(30 * 1000L)).size());
+		}
+	}
+
+	@Test
+	public void tomarInstantaneaLimitaLosRegistrosRecorridosTest() throws IOException {
+
+		// arrange
+		Path directorio = carpeta.newFolder().toPath();
+		RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000);
+		agregar(repositorio, 0, 10);
+		repositorio.tomarInstantanea();
+		agregar(repositorio, 10, 5);
+
+		// act
+		Path copia = copiar(directorio);
+		try (RepositorioGarantiaBitacora reabierto = abrir(copia, 1000)) {
+
+			// assert
+			assertEquals(5, reabierto.getRegistrosRecorridos());
+			assertEquals(15, reabierto.getTamano());
+		}
+		repositorio.close();
+	}
+
+	@Test
+	public void instantaneaMientrasOtrosHilosAgreganConservaTodasLasGarantiasTest() throws Exception {
+
+		// arrange
+		Path directorio = carpeta.newFolder().toPath();
+		RepositorioGarantiaBitacora repositorio = abrir(directorio, 1000);
+		for (int i = 0; i < 4 * GARANTIAS; i++) {
+			garantia(i);
+		}
+		ExecutorService ejecutor = Executors.newFixedThreadPool(4);
+		AtomicBoolean agregando = new AtomicBoolean(true);
+		List<Future<?>> tareas = new ArrayList<>();
+
+		// act
+		for (int hilo = 0; hilo < 4; hilo++) {
+			int desde = hilo * GARANTIAS;
+			tareas.add(ejecutor.submit(() -> agregar(repositorio, desde, GARANTIAS)));
+		}
+		Future<?> instantaneas = ejecutor.submit(() -> {
+			while (agregando.get()) {
+				repositorio.tomarInstantanea();
+			}
+			return null;
+		});
+		for (Future<?> tarea : tareas) {
+			tarea.get();
+		}
+		agregando.set(false);
+		instantaneas.get();
+		ejecutor.shutdown();
+
+		// assert
+		Path copia = copiar(directorio);
+		try (RepositorioGarantiaBitacora reabierto = abrir(copia, 1000)) {
+			assertEquals(4 * GARANTIAS, reabierto.getTamano());
+			for (int i = 0; i < 4 * GARANTIAS; i++) {
+				assertEquals("Cliente " + i, reabierto.obtener("B" + i).getNombreCliente());
+			}
+		}
+		repositorio.close();
+	}
+
+	private RepositorioGarantiaBitacora abrir(Path directorio, int instantaneaCada) throws IOException {
+		return new RepositorioGarantiaBitacora(directorio, productos, REGISTROS_POR_SEGMENTO, instantaneaCada);
+	}
+
+	private void agregar(RepositorioGarantiaBitacora repositorio, int desde, int cantidad) {
+		for (int i = desde; i < desde + cantidad; i++) {
+			repositorio.agregar(garantia(i));
+		}
+	}
+
+	private GarantiaExtendida garantia(int numero) {
+
+		String codigo = "B" + numero;
+		Producto producto = productos.obtenerPorCodigo(codigo);
+		if (producto == null) {
+			producto = new ProductoTestDataBuilder().conCodigo(codigo).build();
+			productos.agregar(producto);
+		}
+		return new GarantiaExtendida(producto, new Date(0), new Date(numero * 1000L), numero * 1000, "Cliente " + numero);
+	}
+
+	private Path copiar(Path origen) throws IOException {
+
+		Path destino = carpeta.newFolder().toPath();
+		try (DirectoryStream<Path> archivos = Files.newDirectoryStream(origen)) {
+			for (Path archivo : archivos) {
+				Files.copy(archivo, destino.resolve(archivo.getFileName()));
+			}
+		}
+		return destino;
+	}
+
+	/**
+	 * Deja la bitacora con los primeros bytes indicados: corta el segmento donde cae el byte y borra los siguientes
+	 */
+	private static void cortar(Path directorio, long bytes) throws IOException {
+
+		long bytesPorSegmento = (long) REGISTROS_POR_SEGMENTO * TAMANO_REGISTRO;
+		for (int numero = 0;; numero++) {
+			Path segmento = directorio.resolve(String.format("segmento-%08d.bitacora", numero));
+			if (!Files.exists(segmento)) {
+				return;
+			}
+			long inicio = numero * bytesPorSegmento;
+			if (inicio + bytesPorSegmento <= bytes) {
+				continue;
+			}
+			if (inicio > bytes) {
+				Files.delete(segmento);
+			} else {
+				try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+					canal.truncate(bytes - inicio);
+				}
+			}
+		}
+	}
+}
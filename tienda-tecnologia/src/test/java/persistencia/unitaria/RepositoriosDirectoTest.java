@@ -0,0 +1,178 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityExistsException;
+
+import org.junit.Test;
+
+import dominio.Producto;
+import persistencia.integracion.ContratoRepositorios;
+import persistencia.repositorio.directo.RepositorioProductoDirecto;
+import persistencia.repositorio.directo.VistaProducto;
+import persistencia.sistema.ConfiguracionPersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class RepositoriosDirectoTest extends ContratoRepositorios {
+
+	@Override
+	protected ConfiguracionPersistencia configuracion() {
+		return new ConfiguracionPersistencia().conRepositoriosEnMemoria().conProductosFueraDelHeap(16);
+	}
+
+	@Test
+	public void agregarProductoRepetidoTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().build());
+
+		try {
+			// act
+			repositorioProducto.agregar(new ProductoTestDataBuilder().build());
+			fail();
+
+		} catch (EntityExistsException e) {
+			// assert
+			assertEquals(RepositorioProductoDirecto.EL_PRODUCTO_YA_EXISTE + "F01TSA0150", e.getMessage());
+		}
+	}
+
+	@Test
+	public void crecerElIndiceYLosBloquesConservaLosProductosTest() {
+
+		// arrange
+		RepositorioProductoDirecto repositorio = new RepositorioProductoDirecto(4, 256);
+
+		// act
+		for (int i = 0; i < 5000; i++) {
+			repositorio.agregar(new ProductoTestDataBuilder().conCodigo(codigo(i)).conNombre("Producto " + i)
+					.conPrecio(i).build());
+		}
+
+		// assert
+		assertEquals(5000, repositorio.getTamano());
+		for (int i = 0; i < 5000; i++) {
+			Producto producto = repositorio.obtenerPorCodigo(codigo(i));
+			assertEquals(codigo(i), producto.getCodigo());
+			assertEquals("Producto " + i, producto.getNombre());
+			assertEquals(i, producto.getPrecio(), 0);
+		}
+		assertNull(repositorio.obtenerPorCodigo(codigo(5000)));
+		assertNull(repositorio.obtenerPorCodigo(codigo(5001)));
+		assertTrue(repositorio.getBytesPorProducto() > 0);
+		assertTrue(repositorio.getBytesReservados() >= repositorio.getBytesPorProducto() * 5000);
+	}
+
+	@Test
+	public void codigoConTildesYNombreNuloTest() {
+
+		// arrange
+		RepositorioProductoDirecto repositorio = new RepositorioProductoDirecto();
+		repositorio.agregar(new Producto("\u00d1AND\u00da", null, 1000));
+		repositorio.agregar(new Producto("NANDU", "Nandu", 2000));
+
+		// act
+		Producto conTildes = repositorio.obtenerPorCodigo("\u00d1AND\u00da");
+
+		// assert
+		assertEquals("\u00d1AND\u00da", conTildes.getCodigo());
+		assertNull(conTildes.getNombre());
+		assertEquals(1000, conTildes.getPrecio(), 0);
+		assertEquals(1, conTildes.getCantidadVocales());
+		assertEquals("Nandu", repositorio.obtenerPorCodigo("NANDU").getNombre());
+		assertFalse(repositorio.existe("\u00d1ANDU"));
+	}
+
+	@Test
+	public void obtenerVistaReutilizaLaMismaVistaTest() {
+
+		// arrange
+		RepositorioProductoDirecto repositorio = new RepositorioProductoDirecto();
+		repositorio.agregar(new ProductoTestDataBuilder().conCodigo("A1").conPrecio(100).build());
+		repositorio.agregar(new ProductoTestDataBuilder().conCodigo("A2").conPrecio(200).build());
+		VistaProducto vista = new VistaProducto();
+
+		// act
+		boolean primero = repositorio.obtenerVista("A1", vista);
+		double precioPrimero = vista.getPrecio();
+		boolean segundo = repositorio.obtenerVista("A2", vista);
+		boolean inexistente = repositorio.obtenerVista("A3", vista);
+
+		// assert
+		assertTrue(primero);
+		assertEquals(100, precioPrimero, 0);
+		assertTrue(segundo);
+		assertFalse(inexistente);
+		assertEquals("A2", vista.getCodigo());
+		assertEquals(200, vista.getPrecio(), 0);
+	}
+
+	@Test
+	public void leerMientrasOtroHiloAgregaTest() throws Exception {
+
+		// arrange
+		RepositorioProductoDirecto repositorio = new RepositorioProductoDirecto(4, 4096);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(4);
+		AtomicInteger agregados = new AtomicInteger();
+		List<Future<?>> lectores = new ArrayList<>();
+
+		// act
+		Future<?> escritor = ejecutor.submit(() -> {
+			for (int i = 0; i < 20000; i++) {
+				repositorio.agregar(new ProductoTestDataBuilder().conCodigo("C" + i).conPrecio(i).build());
+				agregados.set(i + 1);
+			}
+		});
+		for (int hilo = 0; hilo < 3; hilo++) {
+			lectores.add(ejecutor.submit(() -> {
+				while (agregados.get() < 20000) {
+					int i = agregados.get() - 1;
+					if (i >= 0) {
+						Producto producto = repositorio.obtenerPorCodigo("C" + i);
+						assertEquals(i, producto.getPrecio(), 0);
+					}
+				}
+			}));
+		}
+		escritor.get();
+		for (Future<?> lector : lectores) {
+			lector.get();
+		}
+		ejecutor.shutdown();
+
+		// assert
+		assertEquals(20000, repositorio.getTamano());
+	}
+
+	@Test
+	public void elSistemaUsaElRepositorioFueraDelHeapTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().build());
+
+		// act
+		Producto producto = repositorioProducto.obtenerPorCodigo("F01TSA0150");
+
+		// assert
+		assertSame(VistaProducto.class, producto.getClass());
+	}
+
+	/**
+	 * Los codigos pares caben en la ranura del indice, los impares se comparan en el area
+	 */
+	private static String codigo(int numero) {
+		return numero % 2 == 0 ? "P" + numero : "CODIGO-LARGO-" + numero;
+	}
+}
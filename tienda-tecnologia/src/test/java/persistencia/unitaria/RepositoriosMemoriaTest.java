@@ -0,0 +1,114 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.persistence.EntityExistsException;
+
+import org.junit.Test;
+
+import dominio.GarantiaExtendida;
+import dominio.Producto;
+import persistencia.integracion.ContratoRepositorios;
+import persistencia.repositorio.memoria.RepositorioGarantiaMemoria;
+import persistencia.repositorio.memoria.RepositorioProductoMemoria;
+import persistencia.sistema.ConfiguracionPersistencia;
+import testdatabuilder.ProductoTestDataBuilder;
+
+public class RepositoriosMemoriaTest extends ContratoRepositorios {
+
+	@Override
+	protected ConfiguracionPersistencia configuracion() {
+		return new ConfiguracionPersistencia().conRepositoriosEnMemoria();
+	}
+
+	@Test
+	public void agregarProductoRepetidoTest() {
+
+		// arrange
+		repositorioProducto.agregar(new ProductoTestDataBuilder().build());
+
+		try {
+			// act
+			repositorioProducto.agregar(new ProductoTestDataBuilder().build());
+			fail();
+
+		} catch (EntityExistsException e) {
+			// assert
+			assertEquals(RepositorioProductoMemoria.EL_PRODUCTO_YA_EXISTE + "F01TSA0150", e.getMessage());
+		}
+	}
+
+	@Test
+	public void agregarTodasConUnCodigoRepetidoNoAgregaNingunaTest() {
+
+		// arrange
+		Producto existente = new ProductoTestDataBuilder().conCodigo("M0").build();
+		Producto nuevo = new ProductoTestDataBuilder().conCodigo("M1").build();
+		Producto repetido = new ProductoTestDataBuilder().conCodigo("M2").build();
+		repositorioProducto.agregar(existente);
+		repositorioProducto.agregar(nuevo);
+		repositorioProducto.agregar(repetido);
+		repositorioGarantia.agregar(new GarantiaExtendida(existente));
+
+		// act
+		assertAgregarTodasFalla(Arrays.asList(garantia(nuevo), garantia(existente)), "M0");
+		assertAgregarTodasFalla(Arrays.asList(garantia(nuevo), garantia(repetido), garantia(repetido)), "M2");
+
+		// assert
+		assertNull(repositorioGarantia.obtener("M1"));
+		assertNull(repositorioGarantia.obtener("M2"));
+		assertTrue(repositorioGarantia.obtenerVencimientos(new Date(0), new Date(Long.MAX_VALUE)).isEmpty());
+		assertEquals(1, ((RepositorioGarantiaMemoria) repositorioGarantia).getTamano());
+	}
+
+	@Test
+	public void agregarDesdeVariosHilosTest() throws Exception {
+
+		// arrange
+		RepositorioProductoMemoria repositorio = new RepositorioProductoMemoria();
+		ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+		List<Future<?>> tareas = new ArrayList<>();
+
+		// act
+		for (int hilo = 0; hilo < 8; hilo++) {
+			int inicio = hilo * 1000;
+			tareas.add(ejecutor.submit(() -> {
+				for (int i = inicio; i < inicio + 1000; i++) {
+					repositorio.agregar(new ProductoTestDataBuilder().conCodigo("P" + i).build());
+				}
+			}));
+		}
+		for (Future<?> tarea : tareas) {
+			tarea.get();
+		}
+		ejecutor.shutdown();
+
+		// assert
+		assertEquals(8000, repositorio.getTamano());
+		assertEquals("P7999", repositorio.obtenerPorCodigo("P7999").getCodigo());
+	}
+
+	private void assertAgregarTodasFalla(List<GarantiaExtendida> garantias, String codigoRepetido) {
+		try {
+			repositorioGarantia.agregarTodas(garantias);
+			fail();
+		} catch (EntityExistsException e) {
+			assertEquals(RepositorioGarantiaMemoria.LA_GARANTIA_YA_EXISTE + codigoRepetido, e.getMessage());
+		}
+	}
+
+	private static GarantiaExtendida garantia(Producto producto) {
+		return new GarantiaExtendida(producto, new Date(), new Date(), 1000, "Leo");
+	}
+}
@@ -0,0 +1,91 @@
+package persistencia.unitaria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import persistencia.repositorio.vencimiento.RuedaTemporizadora;
+
+public class RuedaTemporizadoraTest {
+
+	@Test
+	public void venceEnSuMomentoTest() {
+
+		// arrange
+		RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(10, 1000);
+		List<String> vencidos = new ArrayList<>();
+		rueda.programar(1035, "B");
+		rueda.programar(1020, "A");
+		rueda.programar(5000, "C");
+
+		// act
+		rueda.avanzar(1029, vencidos::add);
+		List<String> antes = new ArrayList<>(vencidos);
+		rueda.avanzar(1040, vencidos::add);
+
+		// assert
+		assertEquals(Collections.singletonList("A"), antes);
+		assertEquals(Arrays.asList("A", "B"), vencidos);
+		assertEquals(1, rueda.getTamano());
+	}
+
+	@Test
+	public void programarEnElPasadoVenceEnElSiguienteAvanceTest() {
+
+		// arrange
+		RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(10, 1000);
+		List<String> vencidos = new ArrayList<>();
+
+		// act
+		rueda.programar(500, "A");
+		rueda.avanzar(1000, vencidos::add);
+
+		// assert
+		assertEquals(Collections.singletonList("A"), vencidos);
+		assertEquals(0, rueda.getTamano());
+	}
+
+	@Test
+	public void venceCadaElementoEnElPrimerTickPosteriorTest() {
+
+		// arrange
+		long resolucion = 10;
+		RuedaTemporizadora<Long> rueda = new RuedaTemporizadora<>(resolucion, 0);
+		Random aleatorio = new Random(7);
+		List<Long> pendientes = new ArrayList<>();
+
+		/**
+		 * Algunos momentos superan el alcance de la rueda, 2^24 ticks
+		 */
+		for (int i = 0; i < 3000; i++) {
+			long momento = (long) (aleatorio.nextDouble() * 300000000L);
+			pendientes.add(momento);
+			rueda.programar(momento, momento);
+		}
+
+		// act - assert
+		long ahora = 0;
+		while (!pendientes.isEmpty()) {
+			ahora += 1 + aleatorio.nextInt(2000000);
+			long hasta = ahora;
+			List<Long> vencidos = new ArrayList<>();
+			rueda.avanzar(ahora, vencidos::add);
+
+			for (long momento : vencidos) {
+				assertTrue(momento <= hasta);
+				pendientes.remove(momento);
+			}
+			for (long momento : pendientes) {
+				assertTrue((momento + resolucion - 1) / resolucion > hasta / resolucion);
+			}
+		}
+		assertEquals(0, rueda.getTamano());
+	}
+}